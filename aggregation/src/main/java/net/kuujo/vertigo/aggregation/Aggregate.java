@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation;
+
+/**
+ * Window aggregate function.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public enum Aggregate {
+  COUNT("count"),
+  SUM("sum"),
+  MIN("min"),
+  MAX("max"),
+  AVG("avg");
+
+  private final String name;
+
+  private Aggregate(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the aggregate name.
+   *
+   * @return The aggregate name.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Parses an aggregate from its name.
+   *
+   * @param name The aggregate name.
+   * @return The aggregate.
+   * @throws IllegalArgumentException If the aggregate name is invalid.
+   */
+  public static Aggregate parse(String name) {
+    for (Aggregate aggregate : values()) {
+      if (aggregate.name.equalsIgnoreCase(name)) {
+        return aggregate;
+      }
+    }
+    throw new IllegalArgumentException("Invalid aggregate " + name);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
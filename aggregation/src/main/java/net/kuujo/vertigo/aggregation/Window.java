@@ -0,0 +1,79 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation;
+
+import java.util.List;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Aggregation window.<p>
+ *
+ * Windows accumulate per-key aggregates of values and produce a list of
+ * results each time the window is triggered. Windows are not thread safe
+ * and are expected to be used from a single event loop.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface Window {
+
+  /**
+   * <code>key</code> is the result field containing the aggregated key.
+   */
+  public static final String RESULT_KEY = "key";
+
+  /**
+   * <code>start</code> is the result field containing the window start time.
+   */
+  public static final String RESULT_START = "start";
+
+  /**
+   * <code>end</code> is the result field containing the window end time.
+   */
+  public static final String RESULT_END = "end";
+
+  /**
+   * Opens the window.
+   *
+   * @param time The time at which the window was opened.
+   */
+  void open(long time);
+
+  /**
+   * Adds a value to the window.
+   *
+   * @param key The value key.
+   * @param value The value.
+   * @param time The time at which the value was received.
+   */
+  void add(String key, double value, long time);
+
+  /**
+   * Returns the interval at which the window should be triggered.
+   *
+   * @return The trigger interval in milliseconds.
+   */
+  long interval();
+
+  /**
+   * Triggers the window, returning any completed results.
+   *
+   * @param time The current time.
+   * @return A list of window results.
+   */
+  List<JsonObject> trigger(long time);
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import net.kuujo.vertigo.aggregation.impl.SessionWindow;
+import net.kuujo.vertigo.aggregation.impl.SlidingWindow;
+import net.kuujo.vertigo.aggregation.impl.TumblingWindow;
+import net.kuujo.vertigo.io.batch.OutputBatch;
+import net.kuujo.vertigo.java.ComponentVerticle;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Windowed aggregation component.<p>
+ *
+ * The aggregator computes per-key aggregates of the messages received on its
+ * input port over tumbling, sliding, or session windows. Each time a window
+ * completes, its results are sent as a single batch on the output port. Each
+ * result is a JSON object containing the <code>key</code>, the window
+ * <code>start</code> and <code>end</code> times, and the configured aggregates.<p>
+ *
+ * Messages may be plain values, in which case the value itself is used as the
+ * key and aggregated with a value of <code>1</code>, or JSON objects from which
+ * the key and value fields are read. Since aggregates are kept per instance,
+ * the input connection should use hash selection so that all messages for a
+ * given key are received by the same instance.<p>
+ *
+ * <pre>
+ * {@code
+ * network.addVerticle("counter", WindowAggregator.class.getName(), new JsonObject()
+ *     .putString("window", "sliding")
+ *     .putNumber("size", 60000)
+ *     .putNumber("slide", 5000)
+ *     .putArray("aggregates", new JsonArray().add("count")), 4);
+ * network.createConnection("words", "out", "counter", "in").hashSelect();
+ * }
+ * </pre>
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class WindowAggregator extends ComponentVerticle {
+
+  /**
+   * <code>window</code> is the window type, one of <code>tumbling</code>,
+   * <code>sliding</code> or <code>session</code>. Defaults to <code>tumbling</code>
+   */
+  public static final String CONFIG_WINDOW = "window";
+
+  /**
+   * <code>tumbling</code> is the tumbling window type.
+   */
+  public static final String WINDOW_TUMBLING = "tumbling";
+
+  /**
+   * <code>sliding</code> is the sliding window type.
+   */
+  public static final String WINDOW_SLIDING = "sliding";
+
+  /**
+   * <code>session</code> is the session window type.
+   */
+  public static final String WINDOW_SESSION = "session";
+
+  /**
+   * <code>size</code> is the tumbling or sliding window size in milliseconds.
+   * Defaults to <code>1000</code>
+   */
+  public static final String CONFIG_SIZE = "size";
+
+  /**
+   * <code>slide</code> is the sliding window interval in milliseconds. The window
+   * size must be a multiple of the slide. Defaults to the window size.
+   */
+  public static final String CONFIG_SLIDE = "slide";
+
+  /**
+   * <code>gap</code> is the session window inactivity gap in milliseconds.
+   * Defaults to <code>30000</code>
+   */
+  public static final String CONFIG_GAP = "gap";
+
+  /**
+   * <code>aggregates</code> is an array of aggregates to compute, any of <code>count</code>,
+   * <code>sum</code>, <code>min</code>, <code>max</code> and <code>avg</code>. Defaults
+   * to all aggregates.
+   */
+  public static final String CONFIG_AGGREGATES = "aggregates";
+
+  /**
+   * <code>key</code> is the field of JSON object messages containing the key.
+   * Defaults to <code>key</code>
+   */
+  public static final String CONFIG_KEY = "key";
+
+  /**
+   * <code>value</code> is the field of JSON object messages containing the value.
+   * Defaults to <code>value</code>
+   */
+  public static final String CONFIG_VALUE = "value";
+
+  /**
+   * <code>input</code> is the input port name. Defaults to <code>in</code>
+   */
+  public static final String CONFIG_INPUT = "input";
+
+  /**
+   * <code>output</code> is the output port name. Defaults to <code>out</code>
+   */
+  public static final String CONFIG_OUTPUT = "output";
+
+  private static final long DEFAULT_SIZE = 1000;
+  private static final long DEFAULT_GAP = 30000;
+  private Window window;
+  private String keyField;
+  private String valueField;
+  private String outputPort;
+
+  /**
+   * Creates a window from a component configuration.
+   *
+   * @param config The component configuration.
+   * @return The configured window.
+   * @throws IllegalArgumentException If the configuration is invalid.
+   */
+  public static Window createWindow(JsonObject config) {
+    Set<Aggregate> aggregates;
+    JsonArray jsonAggregates = config.getArray(CONFIG_AGGREGATES);
+    if (jsonAggregates != null) {
+      aggregates = EnumSet.noneOf(Aggregate.class);
+      for (Object aggregate : jsonAggregates) {
+        aggregates.add(Aggregate.parse(String.valueOf(aggregate)));
+      }
+    } else {
+      aggregates = EnumSet.allOf(Aggregate.class);
+    }
+
+    String type = config.getString(CONFIG_WINDOW, WINDOW_TUMBLING);
+    switch (type) {
+      case WINDOW_TUMBLING:
+        return new TumblingWindow(config.getLong(CONFIG_SIZE, DEFAULT_SIZE), aggregates);
+      case WINDOW_SLIDING:
+        long size = config.getLong(CONFIG_SIZE, DEFAULT_SIZE);
+        return new SlidingWindow(size, config.getLong(CONFIG_SLIDE, size), aggregates);
+      case WINDOW_SESSION:
+        return new SessionWindow(config.getLong(CONFIG_GAP, DEFAULT_GAP), aggregates);
+      default:
+        throw new IllegalArgumentException("Invalid window type " + type);
+    }
+  }
+
+  @Override
+  public void start() {
+    JsonObject config = container.config();
+    window = createWindow(config);
+    keyField = config.getString(CONFIG_KEY, "key");
+    valueField = config.getString(CONFIG_VALUE, "value");
+    outputPort = config.getString(CONFIG_OUTPUT, "out");
+
+    window.open(System.currentTimeMillis());
+
+    input.port(config.getString(CONFIG_INPUT, "in")).messageHandler(new Handler<Object>() {
+      @Override
+      public void handle(Object message) {
+        if (message instanceof JsonObject) {
+          JsonObject json = (JsonObject) message;
+          Object key = json.getValue(keyField);
+          if (key != null) {
+            Object value = json.getValue(valueField);
+            window.add(String.valueOf(key), value instanceof Number ? ((Number) value).doubleValue() : 1, System.currentTimeMillis());
+          }
+        } else if (message != null) {
+          window.add(String.valueOf(message), 1, System.currentTimeMillis());
+        }
+      }
+    });
+
+    vertx.setPeriodic(window.interval(), new Handler<Long>() {
+      @Override
+      public void handle(Long timerID) {
+        emit(window.trigger(System.currentTimeMillis()));
+      }
+    });
+  }
+
+  /**
+   * Emits window results as a batch.
+   */
+  private void emit(final List<JsonObject> results) {
+    if (!results.isEmpty()) {
+      output.port(outputPort).batch(new Handler<OutputBatch>() {
+        @Override
+        public void handle(OutputBatch batch) {
+          for (JsonObject result : results) {
+            batch.send(result);
+          }
+          batch.end();
+        }
+      });
+    }
+  }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation.impl;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing table of per-key aggregates.<p>
+ *
+ * Keys are stored in a linearly probed array and aggregates in parallel
+ * primitive arrays, so updating an aggregate never boxes values. Clearing
+ * the table retains the allocated arrays so they can be reused by the next
+ * window.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class AggregateTable {
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final float LOAD_FACTOR = 0.75f;
+  private String[] keys;
+  private int[] hashes;
+  private long[] counts;
+  private double[] sums;
+  private double[] mins;
+  private double[] maxs;
+  private long[] firsts;
+  private long[] lasts;
+  private int mask;
+  private int threshold;
+  private int size;
+
+  public AggregateTable() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public AggregateTable(int capacity) {
+    int tableSize = 1;
+    while (tableSize < capacity / LOAD_FACTOR) {
+      tableSize <<= 1;
+    }
+    allocate(Math.max(tableSize, 2));
+  }
+
+  private void allocate(int tableSize) {
+    keys = new String[tableSize];
+    hashes = new int[tableSize];
+    counts = new long[tableSize];
+    sums = new double[tableSize];
+    mins = new double[tableSize];
+    maxs = new double[tableSize];
+    firsts = new long[tableSize];
+    lasts = new long[tableSize];
+    mask = tableSize - 1;
+    threshold = (int) (tableSize * LOAD_FACTOR);
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the number of keys in the table.
+   *
+   * @return The number of keys in the table.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a boolean indicating whether the table is empty.
+   *
+   * @return Indicates whether the table is empty.
+   */
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the number of slots in the table.<p>
+   *
+   * Slots can be iterated from <code>0</code> to <code>slots() - 1</code>,
+   * skipping slots for which {@link #key(int)} returns <code>null</code>.
+   *
+   * @return The number of slots in the table.
+   */
+  public int slots() {
+    return keys.length;
+  }
+
+  /**
+   * Adds a value to the aggregates for a key.
+   *
+   * @param key The key to update.
+   * @param value The value to add.
+   * @param time The time at which the value was received.
+   */
+  public void add(String key, double value, long time) {
+    merge(key, 1, value, value, value, time, time);
+  }
+
+  /**
+   * Merges all aggregates from another table into this table.
+   *
+   * @param table The table to merge.
+   */
+  public void merge(AggregateTable table) {
+    for (int slot = 0; slot < table.keys.length; slot++) {
+      if (table.keys[slot] != null) {
+        merge(table.keys[slot], table.counts[slot], table.sums[slot], table.mins[slot],
+            table.maxs[slot], table.firsts[slot], table.lasts[slot]);
+      }
+    }
+  }
+
+  private void merge(String key, long count, double sum, double min, double max, long first, long last) {
+    int hash = hash(key);
+    int slot = hash & mask;
+    while (keys[slot] != null) {
+      if (hashes[slot] == hash && keys[slot].equals(key)) {
+        counts[slot] += count;
+        sums[slot] += sum;
+        if (min < mins[slot]) mins[slot] = min;
+        if (max > maxs[slot]) maxs[slot] = max;
+        if (first < firsts[slot]) firsts[slot] = first;
+        if (last > lasts[slot]) lasts[slot] = last;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    keys[slot] = key;
+    hashes[slot] = hash;
+    counts[slot] = count;
+    sums[slot] = sum;
+    mins[slot] = min;
+    maxs[slot] = max;
+    firsts[slot] = first;
+    lasts[slot] = last;
+    if (++size > threshold) {
+      resize();
+    }
+  }
+
+  private void resize() {
+    String[] oldKeys = keys;
+    int[] oldHashes = hashes;
+    long[] oldCounts = counts;
+    double[] oldSums = sums;
+    double[] oldMins = mins;
+    double[] oldMaxs = maxs;
+    long[] oldFirsts = firsts;
+    long[] oldLasts = lasts;
+    allocate(oldKeys.length << 1);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int slot = oldHashes[i] & mask;
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        hashes[slot] = oldHashes[i];
+        counts[slot] = oldCounts[i];
+        sums[slot] = oldSums[i];
+        mins[slot] = oldMins[i];
+        maxs[slot] = oldMaxs[i];
+        firsts[slot] = oldFirsts[i];
+        lasts[slot] = oldLasts[i];
+      }
+    }
+  }
+
+  /**
+   * Returns the slot for a key.
+   *
+   * @param key The key to look up.
+   * @return The key's slot or <code>-1</code> if the key isn't in the table.
+   */
+  public int slot(String key) {
+    int hash = hash(key);
+    int slot = hash & mask;
+    while (keys[slot] != null) {
+      if (hashes[slot] == hash && keys[slot].equals(key)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Removes a key from the table.
+   *
+   * @param key The key to remove.
+   * @return Indicates whether the key was removed.
+   */
+  public boolean remove(String key) {
+    int slot = slot(key);
+    if (slot < 0) {
+      return false;
+    }
+
+    // Shift back any following entries in the probe sequence so that
+    // lookups don't terminate early at the removed slot.
+    keys[slot] = null;
+    size--;
+    int empty = slot;
+    int current = slot;
+    while (true) {
+      current = (current + 1) & mask;
+      if (keys[current] == null) {
+        return true;
+      }
+      int ideal = hashes[current] & mask;
+      boolean reachable = empty <= current ? (ideal > empty && ideal <= current) : (ideal > empty || ideal <= current);
+      if (!reachable) {
+        keys[empty] = keys[current];
+        hashes[empty] = hashes[current];
+        counts[empty] = counts[current];
+        sums[empty] = sums[current];
+        mins[empty] = mins[current];
+        maxs[empty] = maxs[current];
+        firsts[empty] = firsts[current];
+        lasts[empty] = lasts[current];
+        keys[current] = null;
+        empty = current;
+      }
+    }
+  }
+
+  /**
+   * Clears the table, retaining allocated capacity.
+   */
+  public void clear() {
+    if (size > 0) {
+      Arrays.fill(keys, null);
+      size = 0;
+    }
+  }
+
+  /**
+   * Returns the key in a slot.
+   *
+   * @param slot The slot.
+   * @return The key or <code>null</code> if the slot is empty.
+   */
+  public String key(int slot) {
+    return keys[slot];
+  }
+
+  /**
+   * Returns the count for a slot.
+   */
+  public long count(int slot) {
+    return counts[slot];
+  }
+
+  /**
+   * Returns the sum for a slot.
+   */
+  public double sum(int slot) {
+    return sums[slot];
+  }
+
+  /**
+   * Returns the minimum for a slot.
+   */
+  public double min(int slot) {
+    return mins[slot];
+  }
+
+  /**
+   * Returns the maximum for a slot.
+   */
+  public double max(int slot) {
+    return maxs[slot];
+  }
+
+  /**
+   * Returns the average for a slot.
+   */
+  public double avg(int slot) {
+    return counts[slot] > 0 ? sums[slot] / counts[slot] : 0;
+  }
+
+  /**
+   * Returns the time at which the first value was added to a slot.
+   */
+  public long first(int slot) {
+    return firsts[slot];
+  }
+
+  /**
+   * Returns the time at which the last value was added to a slot.
+   */
+  public long last(int slot) {
+    return lasts[slot];
+  }
+
+}
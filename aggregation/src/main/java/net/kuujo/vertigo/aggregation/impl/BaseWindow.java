@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation.impl;
+
+import java.util.Set;
+
+import net.kuujo.vertigo.aggregation.Aggregate;
+import net.kuujo.vertigo.aggregation.Window;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Base window implementation.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+abstract class BaseWindow implements Window {
+  private final Set<Aggregate> aggregates;
+
+  protected BaseWindow(Set<Aggregate> aggregates) {
+    if (aggregates == null || aggregates.isEmpty()) {
+      throw new IllegalArgumentException("At least one aggregate must be specified.");
+    }
+    this.aggregates = aggregates;
+  }
+
+  /**
+   * Creates a result for a table slot.
+   */
+  protected JsonObject createResult(AggregateTable table, int slot, long start, long end) {
+    JsonObject result = new JsonObject()
+        .putString(RESULT_KEY, table.key(slot))
+        .putNumber(RESULT_START, start)
+        .putNumber(RESULT_END, end);
+    for (Aggregate aggregate : aggregates) {
+      switch (aggregate) {
+        case COUNT:
+          result.putNumber(aggregate.getName(), table.count(slot));
+          break;
+        case SUM:
+          result.putNumber(aggregate.getName(), table.sum(slot));
+          break;
+        case MIN:
+          result.putNumber(aggregate.getName(), table.min(slot));
+          break;
+        case MAX:
+          result.putNumber(aggregate.getName(), table.max(slot));
+          break;
+        case AVG:
+          result.putNumber(aggregate.getName(), table.avg(slot));
+          break;
+      }
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import net.kuujo.vertigo.aggregation.Aggregate;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Session window implementation.<p>
+ *
+ * Session windows are tracked per key. A key's session is closed and
+ * emitted once no value has been received for the key within the session
+ * gap. The window start and end of each result are the times of the first
+ * and last values in the session.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class SessionWindow extends BaseWindow {
+  private static final long MAX_INTERVAL = 1000;
+  private final long gap;
+  private final AggregateTable table = new AggregateTable();
+  private final List<String> expired = new ArrayList<>();
+
+  public SessionWindow(long gap, Set<Aggregate> aggregates) {
+    super(aggregates);
+    if (gap <= 0) {
+      throw new IllegalArgumentException("Session gap must be a positive number.");
+    }
+    this.gap = gap;
+  }
+
+  @Override
+  public void open(long time) {
+  }
+
+  @Override
+  public void add(String key, double value, long time) {
+    table.add(key, value, time);
+  }
+
+  @Override
+  public long interval() {
+    return Math.max(1, Math.min(gap / 2, MAX_INTERVAL));
+  }
+
+  @Override
+  public List<JsonObject> trigger(long time) {
+    List<JsonObject> results = new ArrayList<>();
+    for (int slot = 0; slot < table.slots(); slot++) {
+      if (table.key(slot) != null && time - table.last(slot) >= gap) {
+        results.add(createResult(table, slot, table.first(slot), table.last(slot)));
+        expired.add(table.key(slot));
+      }
+    }
+
+    // Keys are removed after iteration since removal may shift entries.
+    for (String key : expired) {
+      table.remove(key);
+    }
+    expired.clear();
+    return results;
+  }
+
+}
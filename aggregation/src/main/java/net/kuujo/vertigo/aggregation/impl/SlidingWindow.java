@@ -0,0 +1,97 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import net.kuujo.vertigo.aggregation.Aggregate;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Sliding window implementation.<p>
+ *
+ * Sliding windows are fixed-size windows that advance by a fixed slide
+ * interval. Values are accumulated in panes of the slide interval, and each
+ * time the window is triggered the panes covering the window are merged and
+ * emitted and the oldest pane is recycled. The window size must be a
+ * multiple of the slide interval.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class SlidingWindow extends BaseWindow {
+  private final long size;
+  private final long slide;
+  private final AggregateTable[] panes;
+  private final AggregateTable merged = new AggregateTable();
+  private int current;
+  private long opened;
+
+  public SlidingWindow(long size, long slide, Set<Aggregate> aggregates) {
+    super(aggregates);
+    if (size <= 0 || slide <= 0) {
+      throw new IllegalArgumentException("Window size and slide must be positive numbers.");
+    }
+    if (size % slide != 0) {
+      throw new IllegalArgumentException("Window size must be a multiple of the window slide.");
+    }
+    this.size = size;
+    this.slide = slide;
+    this.panes = new AggregateTable[(int) (size / slide)];
+    for (int i = 0; i < panes.length; i++) {
+      panes[i] = new AggregateTable();
+    }
+  }
+
+  @Override
+  public void open(long time) {
+    opened = time;
+  }
+
+  @Override
+  public void add(String key, double value, long time) {
+    panes[current].add(key, value, time);
+  }
+
+  @Override
+  public long interval() {
+    return slide;
+  }
+
+  @Override
+  public List<JsonObject> trigger(long time) {
+    merged.clear();
+    for (AggregateTable pane : panes) {
+      merged.merge(pane);
+    }
+
+    long start = Math.max(opened, time - size);
+    List<JsonObject> results = new ArrayList<>(merged.size());
+    for (int slot = 0; slot < merged.slots(); slot++) {
+      if (merged.key(slot) != null) {
+        results.add(createResult(merged, slot, start, time));
+      }
+    }
+
+    // Advance to the next pane, recycling the oldest pane.
+    current = (current + 1) % panes.length;
+    panes[current].clear();
+    return results;
+  }
+
+}
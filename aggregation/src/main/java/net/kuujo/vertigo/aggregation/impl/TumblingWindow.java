@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.aggregation.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import net.kuujo.vertigo.aggregation.Aggregate;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Tumbling window implementation.<p>
+ *
+ * Tumbling windows are fixed-size, non-overlapping windows. Each time the
+ * window is triggered all aggregates are emitted and the window is reset.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TumblingWindow extends BaseWindow {
+  private final long size;
+  private final AggregateTable table = new AggregateTable();
+  private long start;
+
+  public TumblingWindow(long size, Set<Aggregate> aggregates) {
+    super(aggregates);
+    if (size <= 0) {
+      throw new IllegalArgumentException("Window size must be a positive number.");
+    }
+    this.size = size;
+  }
+
+  @Override
+  public void open(long time) {
+    start = time;
+  }
+
+  @Override
+  public void add(String key, double value, long time) {
+    table.add(key, value, time);
+  }
+
+  @Override
+  public long interval() {
+    return size;
+  }
+
+  @Override
+  public List<JsonObject> trigger(long time) {
+    List<JsonObject> results = new ArrayList<>(table.size());
+    for (int slot = 0; slot < table.slots(); slot++) {
+      if (table.key(slot) != null) {
+        results.add(createResult(table, slot, start, time));
+      }
+    }
+    table.clear();
+    start = time;
+    return results;
+  }
+
+}
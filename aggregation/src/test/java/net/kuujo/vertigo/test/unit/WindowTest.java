@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.kuujo.vertigo.aggregation.Window;
+import net.kuujo.vertigo.aggregation.WindowAggregator;
+import net.kuujo.vertigo.aggregation.impl.AggregateTable;
+
+import org.junit.Test;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Aggregation window tests.
+ *
+ * @author Jordan Halterman
+ */
+public class WindowTest {
+
+  private static Map<String, JsonObject> byKey(List<JsonObject> results) {
+    Map<String, JsonObject> map = new HashMap<>();
+    for (JsonObject result : results) {
+      map.put(result.getString(Window.RESULT_KEY), result);
+    }
+    return map;
+  }
+
+  @Test
+  public void testAggregateTable() {
+    AggregateTable table = new AggregateTable(2);
+    for (int i = 0; i < 1000; i++) {
+      table.add(String.valueOf(i % 100), i, i);
+    }
+    assertEquals(100, table.size());
+    int slot = table.slot("5");
+    assertEquals(10, table.count(slot));
+    assertEquals(5, table.min(slot), 0);
+    assertEquals(905, table.max(slot), 0);
+    assertEquals(455, table.avg(slot), 0);
+
+    for (int i = 0; i < 100; i += 2) {
+      assertTrue(table.remove(String.valueOf(i)));
+    }
+    assertEquals(50, table.size());
+    for (int i = 1; i < 100; i += 2) {
+      assertTrue(table.slot(String.valueOf(i)) >= 0);
+    }
+    table.clear();
+    assertTrue(table.isEmpty());
+  }
+
+  @Test
+  public void testTumblingWindow() {
+    Window window = WindowAggregator.createWindow(new JsonObject().putString("window", "tumbling").putNumber("size", 100));
+    window.open(0);
+    window.add("foo", 1, 10);
+    window.add("foo", 3, 20);
+    window.add("bar", 2, 30);
+    Map<String, JsonObject> results = byKey(window.trigger(100));
+    assertEquals(2, results.size());
+    assertEquals(2, results.get("foo").getLong("count").longValue());
+    assertEquals(4, results.get("foo").getNumber("sum").doubleValue(), 0);
+    assertEquals(2, results.get("foo").getNumber("avg").doubleValue(), 0);
+    assertEquals(0, results.get("foo").getLong(Window.RESULT_START).longValue());
+    assertEquals(100, results.get("foo").getLong(Window.RESULT_END).longValue());
+    assertTrue(window.trigger(200).isEmpty());
+  }
+
+  @Test
+  public void testSlidingWindow() {
+    Window window = WindowAggregator.createWindow(new JsonObject().putString("window", "sliding")
+        .putNumber("size", 200).putNumber("slide", 100).putArray("aggregates", new JsonArray().add("count")));
+    window.open(0);
+    window.add("foo", 1, 10);
+    assertEquals(1, byKey(window.trigger(100)).get("foo").getLong("count").longValue());
+    window.add("foo", 1, 110);
+    JsonObject result = byKey(window.trigger(200)).get("foo");
+    assertEquals(2, result.getLong("count").longValue());
+    assertEquals(null, result.getValue("sum"));
+    assertEquals(1, byKey(window.trigger(300)).get("foo").getLong("count").longValue());
+    assertTrue(window.trigger(400).isEmpty());
+  }
+
+  @Test
+  public void testSessionWindow() {
+    Window window = WindowAggregator.createWindow(new JsonObject().putString("window", "session").putNumber("gap", 100));
+    window.open(0);
+    window.add("foo", 1, 0);
+    window.add("bar", 1, 50);
+    window.add("foo", 1, 90);
+    assertTrue(window.trigger(120).isEmpty());
+    Map<String, JsonObject> results = byKey(window.trigger(160));
+    assertEquals(1, results.size());
+    assertEquals(1, results.get("bar").getLong("count").longValue());
+    results = byKey(window.trigger(190));
+    assertEquals(2, results.get("foo").getLong("count").longValue());
+    assertEquals(0, results.get("foo").getLong(Window.RESULT_START).longValue());
+    assertEquals(90, results.get("foo").getLong(Window.RESULT_END).longValue());
+  }
+
+  @Test
+  public void testInvalidSlidingWindow() {
+    try {
+      WindowAggregator.createWindow(new JsonObject().putString("window", "sliding").putNumber("size", 150).putNumber("slide", 100));
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+}
@@ -23,6 +23,7 @@ import net.kuujo.vertigo.cluster.data.AsyncMap;
 import net.kuujo.vertigo.cluster.data.AsyncMultiMap;
 import net.kuujo.vertigo.cluster.data.AsyncQueue;
 import net.kuujo.vertigo.cluster.data.AsyncSet;
+import net.kuujo.vertigo.cluster.data.WatchableAsyncMap;
 import net.kuujo.vertigo.network.ActiveNetwork;
 import net.kuujo.vertigo.network.NetworkConfig;
 
@@ -891,6 +892,22 @@ public interface Cluster {
    */
   <K, V> AsyncMap<K, V> getMap(String name);
 
+  /**
+   * Gets a near cached asynchronous map from the cluster.<p>
+   *
+   * Values read from the map are cached locally and invalidated when changed.
+   * At most <code>cacheSize</code> keys are cached, with the least recently used
+   * keys evicted first, and cached values expire after <code>cacheTtl</code>
+   * milliseconds.
+   *
+   * @param name The name of the map to get.
+   * @param cacheSize The maximum number of keys to cache locally.
+   * @param cacheTtl The time in milliseconds for which values are cached, or
+   *        <code>0</code> to cache values until they're changed or evicted.
+   * @return The near cached async map.
+   */
+  <K, V> WatchableAsyncMap<K, V> getMap(String name, int cacheSize, long cacheTtl);
+
   /**
    * Gets an asynchronous multi-map from the cluster.
    *
@@ -931,4 +948,40 @@ public interface Cluster {
    */
   AsyncCounter getCounter(String name);
 
+  /**
+   * Gets an asynchronous counter which accumulates increments locally.<p>
+   *
+   * Increments and decrements made without a completion handler are
+   * accumulated locally and added to the cluster-wide counter once per
+   * flush interval, reducing the cost of frequently updated counters.
+   *
+   * @param name The name of the counter to get.
+   * @param flushInterval The interval in milliseconds at which to flush
+   *        local increments to the cluster.
+   * @return The async counter.
+   */
+  AsyncCounter getCounter(String name, long flushInterval);
+
+  /**
+   * Flushes and closes all accumulating counters created by the client.<p>
+   *
+   * Components close their cluster client when they're stopped so that
+   * locally accumulated increments aren't lost.
+   *
+   * @return The cluster.
+   */
+  Cluster close();
+
+  /**
+   * Flushes and closes all accumulating counters created by the client.<p>
+   *
+   * Components close their cluster client when they're stopped so that
+   * locally accumulated increments aren't lost.
+   *
+   * @param doneHandler An asynchronous handler to be called once all
+   *        accumulated increments have been flushed.
+   * @return The cluster.
+   */
+  Cluster close(Handler<AsyncResult<Void>> doneHandler);
+
 }
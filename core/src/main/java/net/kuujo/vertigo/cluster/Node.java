@@ -17,6 +17,7 @@ package net.kuujo.vertigo.cluster;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 
 /**
@@ -47,6 +48,20 @@ public interface Node {
    */
   Node ping(Handler<AsyncResult<Node>> resultHandler);
 
+  /**
+   * Loads event loop placement info from the node.<p>
+   *
+   * The result is an array with an object for each of the node's event loops
+   * containing the loop <code>index</code> and <code>thread</code>, the addresses
+   * of the component <code>instances</code> assigned to the loop, the total expected
+   * <code>load</code> of the instances, the average scheduling <code>lag</code> in
+   * milliseconds, and the loop's <code>utilization</code>.
+   *
+   * @param resultHandler A handler to be called with the event loop info.
+   * @return The node.
+   */
+  Node getEventLoopInfo(Handler<AsyncResult<JsonArray>> resultHandler);
+
   /**
    * Installs a local module to the node.<p>
    *
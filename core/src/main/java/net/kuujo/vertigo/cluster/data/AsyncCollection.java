@@ -15,6 +15,8 @@
  */
 package net.kuujo.vertigo.cluster.data;
 
+import java.util.Collection;
+
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 
@@ -64,6 +66,51 @@ public interface AsyncCollection<T> {
    */
   void remove(T value, Handler<AsyncResult<Boolean>> doneHandler);
 
+  /**
+   * Adds many values to the collection.<p>
+   *
+   * Values are sent to the cluster in chunks rather than one request per value.
+   *
+   * @param values The values to add.
+   */
+  void addAll(Collection<? extends T> values);
+
+  /**
+   * Adds many values to the collection.<p>
+   *
+   * Values are sent to the cluster in chunks rather than one request per value.
+   *
+   * @param values The values to add.
+   * @param doneHandler An asynchronous handler to be called once complete. The handler
+   *                    will be called with a boolean indicating whether the collection changed.
+   */
+  void addAll(Collection<? extends T> values, Handler<AsyncResult<Boolean>> doneHandler);
+
+  /**
+   * Removes many values from the collection.
+   *
+   * @param values The values to remove.
+   */
+  void removeAll(Collection<?> values);
+
+  /**
+   * Removes many values from the collection.
+   *
+   * @param values The values to remove.
+   * @param doneHandler An asynchronous handler to be called once complete. The handler
+   *                    will be called with a boolean indicating whether the collection changed.
+   */
+  void removeAll(Collection<?> values, Handler<AsyncResult<Boolean>> doneHandler);
+
+  /**
+   * Checks whether the collection contains many values.
+   *
+   * @param values The values to check.
+   * @param resultHandler An asynchronous handler to be called with the result indicating
+   *                      whether the collection contains all the given values.
+   */
+  void containsAll(Collection<?> values, Handler<AsyncResult<Boolean>> resultHandler);
+
   /**
    * Checks whether the collection contains a value.
    *
@@ -77,4 +77,22 @@ public interface AsyncCounter {
    */
   void decrementAndGet(Handler<AsyncResult<Long>> doneHandler);
 
+  /**
+   * Adds a delta to the counter and gets the new value.
+   *
+   * @param delta The value to add to the counter.
+   * @param doneHandler An asynchronous handler to be called with the result.
+   */
+  void addAndGet(long delta, Handler<AsyncResult<Long>> doneHandler);
+
+  /**
+   * Sets the counter value if the current value equals the expected value.
+   *
+   * @param expect The expected counter value.
+   * @param update The new counter value.
+   * @param doneHandler An asynchronous handler to be called with a boolean
+   *        indicating whether the counter was updated.
+   */
+  void compareAndSet(long expect, long update, Handler<AsyncResult<Boolean>> doneHandler);
+
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data;
+
+import java.util.List;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+
+/**
+ * Asynchronous cursor.<p>
+ *
+ * Cursors read cluster data one page at a time so that large data structures
+ * can be processed with bounded memory. Each page is only requested once the
+ * previous page has been read. Cursors that are not read to the end should be
+ * closed so that the cluster can release them.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <T> The cursor value type.
+ */
+public interface AsyncCursor<T> {
+
+  /**
+   * Returns a boolean indicating whether the cursor may have more values.
+   *
+   * @return Indicates whether the cursor may have more values.
+   */
+  boolean hasNext();
+
+  /**
+   * Reads the next page of values.
+   *
+   * @param resultHandler An asynchronous handler to be called with the next page
+   *                      of values. Once the cursor is exhausted the page will be empty.
+   */
+  void next(Handler<AsyncResult<List<T>>> resultHandler);
+
+  /**
+   * Closes the cursor.
+   */
+  void close();
+
+}
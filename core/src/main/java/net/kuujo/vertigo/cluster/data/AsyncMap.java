@@ -16,6 +16,7 @@
 package net.kuujo.vertigo.cluster.data;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import org.vertx.java.core.AsyncResult;
@@ -56,6 +57,36 @@ public interface AsyncMap<K, V> {
    */
   void put(K key, V value, Handler<AsyncResult<V>> doneHandler);
 
+  /**
+   * Sets a key value in the map with a time to live.<p>
+   *
+   * Once the time to live has passed the key is removed from the map and a
+   * <code>DELETE</code> event is published to watchers of the map. Setting
+   * the key again before it expires replaces the time to live.
+   *
+   * @param key The key to set.
+   * @param value The value to set.
+   * @param ttl The time to live in milliseconds, or <code>0</code> if the key
+   *            should never expire.
+   */
+  void put(K key, V value, long ttl);
+
+  /**
+   * Sets a key value in the map with a time to live.<p>
+   *
+   * Once the time to live has passed the key is removed from the map and a
+   * <code>DELETE</code> event is published to watchers of the map. Setting
+   * the key again before it expires replaces the time to live.
+   *
+   * @param key The key to set.
+   * @param value The value to set.
+   * @param ttl The time to live in milliseconds, or <code>0</code> if the key
+   *            should never expire.
+   * @param doneHandler An asynchronous handler to be called once complete. The handler
+   *                    will be called with the previous key value if any.
+   */
+  void put(K key, V value, long ttl, Handler<AsyncResult<V>> doneHandler);
+
   /**
    * Gets a key value from the map.
    *
@@ -81,6 +112,102 @@ public interface AsyncMap<K, V> {
    */
   void remove(K key, Handler<AsyncResult<V>> resultHandler);
 
+  /**
+   * Sets a key value in the map if the key is not already set.<p>
+   *
+   * The check and the update are performed atomically by the cluster.
+   *
+   * @param key The key to set.
+   * @param value The value to set.
+   * @param resultHandler An asynchronous handler to be called with the current key value if
+   *                      the key is already set. If the key was set then the result value
+   *                      will be <code>null</code>.
+   */
+  void putIfAbsent(K key, V value, Handler<AsyncResult<V>> resultHandler);
+
+  /**
+   * Replaces a key value in the map if the key is set to an expected value.<p>
+   *
+   * The check and the update are performed atomically by the cluster.
+   *
+   * @param key The key to set.
+   * @param oldValue The expected key value.
+   * @param newValue The value to set.
+   * @param resultHandler An asynchronous handler to be called with the result indicating
+   *                      whether the key value was replaced.
+   */
+  void replace(K key, V oldValue, V newValue, Handler<AsyncResult<Boolean>> resultHandler);
+
+  /**
+   * Removes a key from the map if the key is set to an expected value.<p>
+   *
+   * The check and the removal are performed atomically by the cluster.
+   *
+   * @param key The key to remove.
+   * @param value The expected key value.
+   * @param resultHandler An asynchronous handler to be called with the result indicating
+   *                      whether the key was removed.
+   */
+  void remove(K key, V value, Handler<AsyncResult<Boolean>> resultHandler);
+
+  /**
+   * Merges a value into a key in the map.<p>
+   *
+   * If the key is not set then it's set to the given value, otherwise it's set to
+   * the result of applying the merge operation to the current and given values. The
+   * merge is performed by the cluster, so concurrent merges are never lost.
+   *
+   * @param key The key to merge.
+   * @param value The value to merge.
+   * @param operation The merge operation.
+   * @param resultHandler An asynchronous handler to be called with the new key value.
+   */
+  void merge(K key, V value, MergeOperation operation, Handler<AsyncResult<V>> resultHandler);
+
+  /**
+   * Sets many key values in the map.<p>
+   *
+   * Entries are sent to the cluster in chunks rather than one request per key.
+   *
+   * @param map The key values to set.
+   */
+  void putAll(Map<? extends K, ? extends V> map);
+
+  /**
+   * Sets many key values in the map.<p>
+   *
+   * Entries are sent to the cluster in chunks rather than one request per key.
+   *
+   * @param map The key values to set.
+   * @param doneHandler An asynchronous handler to be called once complete.
+   */
+  void putAll(Map<? extends K, ? extends V> map, Handler<AsyncResult<Void>> doneHandler);
+
+  /**
+   * Gets many key values from the map.
+   *
+   * @param keys The keys to get.
+   * @param resultHandler An asynchronous handler to be called with a map of the
+   *                      keys that are set to their values.
+   */
+  void getAll(Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler);
+
+  /**
+   * Removes many keys from the map.
+   *
+   * @param keys The keys to remove.
+   */
+  void removeAll(Collection<K> keys);
+
+  /**
+   * Removes many keys from the map.
+   *
+   * @param keys The keys to remove.
+   * @param resultHandler An asynchronous handler to be called with a map of the
+   *                      removed keys to their values.
+   */
+  void removeAll(Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler);
+
   /**
    * Checks whether the map contains a key.
    *
@@ -104,6 +231,28 @@ public interface AsyncMap<K, V> {
    */
   void values(Handler<AsyncResult<Collection<V>>> resultHandler);
 
+  /**
+   * Opens a cursor over the keys in the map.<p>
+   *
+   * Keys are read from the cluster one page at a time so that maps of any
+   * size can be iterated with bounded memory.
+   *
+   * @param pageSize The maximum number of keys in each page.
+   * @return A cursor over the keys in the map.
+   */
+  AsyncCursor<K> keys(int pageSize);
+
+  /**
+   * Opens a cursor over the values in the map.<p>
+   *
+   * Values are read from the cluster one page at a time so that maps of any
+   * size can be iterated with bounded memory.
+   *
+   * @param pageSize The maximum number of values in each page.
+   * @return A cursor over the values in the map.
+   */
+  AsyncCursor<V> values(int pageSize);
+
   /**
    * Gets the current size of the map.
    *
@@ -16,6 +16,7 @@
 package net.kuujo.vertigo.cluster.data;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import org.vertx.java.core.AsyncResult;
@@ -95,6 +96,52 @@ public interface AsyncMultiMap<K, V> {
    */
   void remove(K key, V value, Handler<AsyncResult<Boolean>> doneHandler);
 
+  /**
+   * Adds many values to a key in the map.<p>
+   *
+   * Values are sent to the cluster in chunks rather than one request per value.
+   *
+   * @param key The key to set.
+   * @param values The values to add.
+   */
+  void putAll(K key, Collection<? extends V> values);
+
+  /**
+   * Adds many values to a key in the map.<p>
+   *
+   * Values are sent to the cluster in chunks rather than one request per value.
+   *
+   * @param key The key to set.
+   * @param values The values to add.
+   * @param doneHandler An asynchronous handler to be called once complete. The handler
+   *                    will be called with a boolean indicating whether the map changed.
+   */
+  void putAll(K key, Collection<? extends V> values, Handler<AsyncResult<Boolean>> doneHandler);
+
+  /**
+   * Gets the values of many keys in the map.
+   *
+   * @param keys The keys to get.
+   * @param resultHandler An asynchronous handler to be called with a map of the
+   *                      keys that are set to their values.
+   */
+  void getAll(Collection<K> keys, Handler<AsyncResult<Map<K, Collection<V>>>> resultHandler);
+
+  /**
+   * Removes many keys from the map.
+   *
+   * @param keys The keys to remove.
+   */
+  void removeAll(Collection<K> keys);
+
+  /**
+   * Removes many keys from the map.
+   *
+   * @param keys The keys to remove.
+   * @param doneHandler An asynchronous handler to be called once complete.
+   */
+  void removeAll(Collection<K> keys, Handler<AsyncResult<Void>> doneHandler);
+
   /**
    * Checks if the map contains a key.
    *
@@ -134,6 +181,28 @@ public interface AsyncMultiMap<K, V> {
    */
   void values(Handler<AsyncResult<Collection<V>>> resultHandler);
 
+  /**
+   * Opens a cursor over the keys in the map.<p>
+   *
+   * Keys are read from the cluster one page at a time so that maps of any
+   * size can be iterated with bounded memory.
+   *
+   * @param pageSize The maximum number of keys in each page.
+   * @return A cursor over the keys in the map.
+   */
+  AsyncCursor<K> keys(int pageSize);
+
+  /**
+   * Opens a cursor over the values in the map.<p>
+   *
+   * Values are read from the cluster one page at a time so that maps of any
+   * size can be iterated with bounded memory.
+   *
+   * @param pageSize The maximum number of values in each page.
+   * @return A cursor over the values in the map.
+   */
+  AsyncCursor<V> values(int pageSize);
+
   /**
    * Gets the current size of the map.
    *
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data;
+
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Map merge operation.<p>
+ *
+ * Merge operations are applied by the cluster to the current value of a key
+ * and a given value. Since operations are applied where the data is held only
+ * the operations defined here can be used, and each operation must be free
+ * of side effects since it may be applied more than once when the key is
+ * concurrently modified.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public enum MergeOperation {
+
+  /**
+   * Adds a number to the current number.
+   */
+  SUM("sum") {
+    @Override
+    public Object merge(Object current, Object value) {
+      Number a = number(current), b = number(value);
+      if (integral(a) && integral(b)) {
+        return a.longValue() + b.longValue();
+      }
+      return a.doubleValue() + b.doubleValue();
+    }
+  },
+
+  /**
+   * Sets the key to the lesser of the current and given numbers.
+   */
+  MIN("min") {
+    @Override
+    public Object merge(Object current, Object value) {
+      return number(value).doubleValue() < number(current).doubleValue() ? value : current;
+    }
+  },
+
+  /**
+   * Sets the key to the greater of the current and given numbers.
+   */
+  MAX("max") {
+    @Override
+    public Object merge(Object current, Object value) {
+      return number(value).doubleValue() > number(current).doubleValue() ? value : current;
+    }
+  },
+
+  /**
+   * Appends a string to the current string, or a value or array of values
+   * to the current array.
+   */
+  APPEND("append") {
+    @Override
+    public Object merge(Object current, Object value) {
+      if (current instanceof String && value instanceof String) {
+        return (String) current + value;
+      } else if (current instanceof JsonArray) {
+        JsonArray array = ((JsonArray) current).copy();
+        if (value instanceof JsonArray) {
+          for (Object item : (JsonArray) value) {
+            array.add(item);
+          }
+        } else {
+          array.add(value);
+        }
+        return array;
+      }
+      throw new IllegalArgumentException("Cannot append " + value + " to " + current);
+    }
+  },
+
+  /**
+   * Merges the fields of an object into the current object.
+   */
+  MERGE("merge") {
+    @Override
+    public Object merge(Object current, Object value) {
+      if (current instanceof JsonObject && value instanceof JsonObject) {
+        return ((JsonObject) current).copy().mergeIn((JsonObject) value);
+      }
+      throw new IllegalArgumentException("Cannot merge " + value + " into " + current);
+    }
+  };
+
+  private final String name;
+
+  private MergeOperation(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Merges a value into the current value of a key.
+   *
+   * @param current The current key value.
+   * @param value The value to merge.
+   * @return The merged value.
+   * @throws IllegalArgumentException If the values cannot be merged by the operation.
+   */
+  public abstract Object merge(Object current, Object value);
+
+  private static Number number(Object value) {
+    if (!(value instanceof Number)) {
+      throw new IllegalArgumentException(value + " is not a number.");
+    }
+    return (Number) value;
+  }
+
+  private static boolean integral(Number value) {
+    return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * Parses a string into a merge operation.
+   *
+   * @param name The merge operation name.
+   * @return The merge operation.
+   */
+  public static MergeOperation parse(String name) {
+    switch (name) {
+      case "sum":
+        return SUM;
+      case "min":
+        return MIN;
+      case "max":
+        return MAX;
+      case "append":
+        return APPEND;
+      case "merge":
+        return MERGE;
+      default:
+        throw new IllegalArgumentException(name + " is not a valid merge operation.");
+    }
+  }
+
+}
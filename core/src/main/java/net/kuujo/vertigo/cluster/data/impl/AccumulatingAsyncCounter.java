@@ -0,0 +1,250 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import net.kuujo.vertigo.cluster.data.AsyncCounter;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.DefaultFutureResult;
+
+/**
+ * Counter that accumulates increments locally.<p>
+ *
+ * Increments and decrements made without a completion handler are
+ * accumulated in a local delta which is added to the underlying counter
+ * once per flush interval. Operations that return the counter value
+ * include any pending delta in a single update of the underlying counter,
+ * so results always reflect all local operations. If an update fails the
+ * pending delta is restored and retried on the next flush. Once the counter
+ * is closed, updates are applied to the underlying counter immediately.
+ * Like other Vertigo objects, the counter should be used from a single context.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class AccumulatingAsyncCounter implements AsyncCounter {
+  private final AsyncCounter counter;
+  private final Vertx vertx;
+  private final long interval;
+  private long delta;
+  private long timerID;
+  private boolean closed;
+
+  private final Handler<Long> flushHandler = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      AccumulatingAsyncCounter.this.timerID = 0;
+      flush(null);
+    }
+  };
+
+  public AccumulatingAsyncCounter(AsyncCounter counter, Vertx vertx, long interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Flush interval must be a positive number.");
+    }
+    this.counter = counter;
+    this.vertx = vertx;
+    this.interval = interval;
+  }
+
+  /**
+   * Adds a value to the local delta, scheduling a flush if necessary.
+   */
+  private void accumulate(long value) {
+    delta += value;
+    if (closed) {
+      flush(null);
+    } else if (timerID == 0) {
+      timerID = vertx.setTimer(interval, flushHandler);
+    }
+  }
+
+  /**
+   * Removes and returns the local delta.
+   */
+  private long drain() {
+    long value = delta;
+    delta = 0;
+    if (timerID != 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+    }
+    return value;
+  }
+
+  /**
+   * Restores a drained delta after a failed update so it will be retried.
+   */
+  private void restore(long value) {
+    if (value != 0) {
+      delta += value;
+      if (!closed && timerID == 0) {
+        timerID = vertx.setTimer(interval, flushHandler);
+      }
+    }
+  }
+
+  /**
+   * Flushes the local delta to the underlying counter.<p>
+   *
+   * If the flush fails the delta is restored so it will be retried on the
+   * next flush.
+   *
+   * @param doneHandler An asynchronous handler to be called once the delta
+   *        has been added to the underlying counter.
+   */
+  public void flush(final Handler<AsyncResult<Void>> doneHandler) {
+    final long value = drain();
+    if (value != 0) {
+      counter.addAndGet(value, new Handler<AsyncResult<Long>>() {
+        @Override
+        public void handle(AsyncResult<Long> result) {
+          if (result.failed()) {
+            restore(value);
+            new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+          } else {
+            new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+          }
+        }
+      });
+    } else {
+      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+    }
+  }
+
+  /**
+   * Flushes the local delta and stops accumulating updates.<p>
+   *
+   * Once closed, updates made without a completion handler are added to the
+   * underlying counter immediately.
+   *
+   * @param doneHandler An asynchronous handler to be called once the delta
+   *        has been added to the underlying counter.
+   */
+  public void close(Handler<AsyncResult<Void>> doneHandler) {
+    closed = true;
+    flush(doneHandler);
+  }
+
+  /**
+   * Returns a handler that restores a drained delta if an update fails.
+   */
+  private <T> Handler<AsyncResult<T>> restoreOnFailure(final long value, final Handler<AsyncResult<T>> doneHandler) {
+    if (value == 0) {
+      return doneHandler;
+    }
+    return new Handler<AsyncResult<T>>() {
+      @Override
+      public void handle(AsyncResult<T> result) {
+        if (result.failed()) {
+          restore(value);
+        }
+        if (doneHandler != null) {
+          doneHandler.handle(result);
+        }
+      }
+    };
+  }
+
+  @Override
+  public String name() {
+    return counter.name();
+  }
+
+  @Override
+  public void get(Handler<AsyncResult<Long>> doneHandler) {
+    long value = drain();
+    if (value != 0) {
+      counter.addAndGet(value, restoreOnFailure(value, doneHandler));
+    } else {
+      counter.get(doneHandler);
+    }
+  }
+
+  @Override
+  public void increment() {
+    accumulate(1);
+  }
+
+  @Override
+  public void increment(Handler<AsyncResult<Void>> doneHandler) {
+    add(1, doneHandler);
+  }
+
+  @Override
+  public void incrementAndGet(Handler<AsyncResult<Long>> doneHandler) {
+    addAndGet(1, doneHandler);
+  }
+
+  @Override
+  public void decrement() {
+    accumulate(-1);
+  }
+
+  @Override
+  public void decrement(Handler<AsyncResult<Void>> doneHandler) {
+    add(-1, doneHandler);
+  }
+
+  @Override
+  public void decrementAndGet(Handler<AsyncResult<Long>> doneHandler) {
+    addAndGet(-1, doneHandler);
+  }
+
+  /**
+   * Adds a value to the counter, calling the handler once it's been applied.
+   */
+  private void add(long value, final Handler<AsyncResult<Void>> doneHandler) {
+    addAndGet(value, new Handler<AsyncResult<Long>>() {
+      @Override
+      public void handle(AsyncResult<Long> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+        } else {
+          new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void addAndGet(long value, Handler<AsyncResult<Long>> doneHandler) {
+    long pending = drain();
+    counter.addAndGet(pending + value, restoreOnFailure(pending, doneHandler));
+  }
+
+  @Override
+  public void compareAndSet(final long expect, final long update, final Handler<AsyncResult<Boolean>> doneHandler) {
+    final long value = drain();
+    if (value != 0) {
+      counter.addAndGet(value, new Handler<AsyncResult<Long>>() {
+        @Override
+        public void handle(AsyncResult<Long> result) {
+          if (result.failed()) {
+            restore(value);
+            new DefaultFutureResult<Boolean>(result.cause()).setHandler(doneHandler);
+          } else {
+            counter.compareAndSet(expect, update, doneHandler);
+          }
+        }
+      });
+    } else {
+      counter.compareAndSet(expect, update, doneHandler);
+    }
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.Collection;
+import java.util.Map;
+
+import net.kuujo.vertigo.cluster.data.AsyncMap;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+
+/**
+ * Map whose bulk operations report the changes made by each chunk.<p>
+ *
+ * Bulk operations are applied in chunks, any of which may fail
+ * independently. Changes are reported as soon as the chunk that made them
+ * has been applied, so every applied change is reported even if the
+ * operation as a whole fails.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <K> The map key type.
+ * @param <V> The map value type.
+ */
+interface ChunkedAsyncMap<K, V> extends AsyncMap<K, V> {
+
+  /**
+   * Puts a set of entries in the map.
+   *
+   * @param map The entries to put.
+   * @param eventHandler A handler to be called with a <code>CREATE</code> or
+   *        <code>UPDATE</code> event for each applied entry.
+   * @param doneHandler An asynchronous handler to be called once all entries
+   *        have been put.
+   */
+  void putAll(Map<? extends K, ? extends V> map, Handler<MapEvent<K, V>> eventHandler, Handler<AsyncResult<Void>> doneHandler);
+
+  /**
+   * Removes a set of keys from the map.
+   *
+   * @param keys The keys to remove.
+   * @param eventHandler A handler to be called with a <code>DELETE</code>
+   *        event for each removed key.
+   * @param resultHandler An asynchronous handler to be called with the
+   *        removed entries.
+   */
+  void removeAll(Collection<K> keys, Handler<MapEvent<K, V>> eventHandler, Handler<AsyncResult<Map<K, V>>> resultHandler);
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import net.kuujo.vertigo.cluster.data.DataException;
+import net.kuujo.vertigo.util.CountingCompletionHandler;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Splits bulk data operations into chunks.<p>
+ *
+ * Bulk operations are sent to the cluster as a single request per chunk so
+ * that large operations don't produce oversized event bus messages or block
+ * the cluster manager's background pool for long periods.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class Chunks {
+
+  /**
+   * The maximum number of values or entries in a single bulk request.
+   */
+  static final int CHUNK_SIZE = 1000;
+
+  private Chunks() {
+  }
+
+  /**
+   * Splits a collection of values into chunks.
+   *
+   * @param values The values to split.
+   * @return A list of value chunks.
+   */
+  static List<JsonArray> split(Collection<?> values) {
+    List<JsonArray> chunks = new ArrayList<>();
+    JsonArray chunk = null;
+    for (Object value : values) {
+      if (chunk == null || chunk.size() == CHUNK_SIZE) {
+        chunk = new JsonArray();
+        chunks.add(chunk);
+      }
+      chunk.add(value);
+    }
+    return chunks;
+  }
+
+  /**
+   * Splits a map into chunks of key-value pairs.
+   *
+   * @param entries The entries to split.
+   * @return A list of entry chunks.
+   */
+  static List<JsonArray> split(Map<?, ?> entries) {
+    List<JsonArray> chunks = new ArrayList<>();
+    JsonArray chunk = null;
+    for (Map.Entry<?, ?> entry : entries.entrySet()) {
+      if (chunk == null || chunk.size() == CHUNK_SIZE) {
+        chunk = new JsonArray();
+        chunks.add(chunk);
+      }
+      chunk.addArray(new JsonArray().add(entry.getKey()).add(entry.getValue()));
+    }
+    return chunks;
+  }
+
+  /**
+   * Sends a chunked request.
+   *
+   * @param eventBus The event bus on which to send the request.
+   * @param address The cluster address.
+   * @param request The request, to which each chunk is added.
+   * @param field The request field in which to send each chunk.
+   * @param chunks The chunks to send.
+   * @param replyHandler A handler to be called with the reply to each chunk.
+   * @param doneHandler A handler to be called once all chunks have been sent.
+   */
+  static void send(EventBus eventBus, String address, JsonObject request, String field, List<JsonArray> chunks,
+      final Handler<JsonObject> replyHandler, Handler<AsyncResult<Void>> doneHandler) {
+    sendEach(eventBus, address, request, field, chunks, replyHandler != null ? new ReplyHandler() {
+      @Override
+      public void handle(JsonArray chunk, JsonObject reply) {
+        replyHandler.handle(reply);
+      }
+    } : null, doneHandler);
+  }
+
+  /**
+   * Handles the reply to a single chunk of a chunked request.
+   */
+  static interface ReplyHandler {
+
+    /**
+     * Handles a chunk reply.
+     *
+     * @param chunk The chunk that was sent.
+     * @param reply The successful reply to the chunk.
+     */
+    void handle(JsonArray chunk, JsonObject reply);
+
+  }
+
+  /**
+   * Sends a chunked request, calling the reply handler with each chunk
+   * as soon as the chunk has been applied.
+   *
+   * @param eventBus The event bus on which to send the request.
+   * @param address The cluster address.
+   * @param request The request, to which each chunk is added.
+   * @param field The request field in which to send each chunk.
+   * @param chunks The chunks to send.
+   * @param replyHandler A handler to be called with each chunk and its reply.
+   * @param doneHandler A handler to be called once all chunks have been sent.
+   */
+  static void sendEach(EventBus eventBus, String address, JsonObject request, String field, List<JsonArray> chunks,
+      final ReplyHandler replyHandler, Handler<AsyncResult<Void>> doneHandler) {
+    if (chunks.isEmpty()) {
+      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+      return;
+    }
+
+    final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(chunks.size());
+    counter.setHandler(doneHandler);
+    for (final JsonArray chunk : chunks) {
+      eventBus.sendWithTimeout(address, request.copy().putArray(field, chunk), 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
+        @Override
+        public void handle(AsyncResult<Message<JsonObject>> result) {
+          if (result.failed()) {
+            counter.fail(result.cause());
+          } else if (result.result().body().getString("status").equals("error")) {
+            counter.fail(new DataException(result.result().body().getString("message")));
+          } else {
+            if (replyHandler != null) {
+              replyHandler.handle(chunk, result.result().body());
+            }
+            counter.succeed();
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Sends a chunked request whose result indicates whether any chunk returned <code>true</code>.
+   */
+  static void sendAny(EventBus eventBus, String address, JsonObject request, String field, List<JsonArray> chunks,
+      final Handler<AsyncResult<Boolean>> resultHandler) {
+    final boolean[] any = new boolean[]{false};
+    send(eventBus, address, request, field, chunks, new Handler<JsonObject>() {
+      @Override
+      public void handle(JsonObject reply) {
+        any[0] = any[0] || reply.getBoolean("result", false);
+      }
+    }, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Boolean>(result.cause()).setHandler(resultHandler);
+        } else {
+          new DefaultFutureResult<Boolean>(any[0]).setHandler(resultHandler);
+        }
+      }
+    });
+  }
+
+  /**
+   * Sends a chunked request whose result indicates whether every chunk returned <code>true</code>.
+   */
+  static void sendEvery(EventBus eventBus, String address, JsonObject request, String field, List<JsonArray> chunks,
+      final Handler<AsyncResult<Boolean>> resultHandler) {
+    final boolean[] every = new boolean[]{true};
+    send(eventBus, address, request, field, chunks, new Handler<JsonObject>() {
+      @Override
+      public void handle(JsonObject reply) {
+        every[0] = every[0] && reply.getBoolean("result", false);
+      }
+    }, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Boolean>(result.cause()).setHandler(resultHandler);
+        } else {
+          new DefaultFutureResult<Boolean>(every[0]).setHandler(resultHandler);
+        }
+      }
+    });
+  }
+
+}
@@ -157,4 +157,47 @@ public class DefaultAsyncCounter implements AsyncCounter {
     });
   }
 
+  @Override
+  public void addAndGet(long delta, final Handler<AsyncResult<Long>> doneHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "add")
+        .putString("type", "counter")
+        .putString("name", name)
+        .putNumber("delta", delta);
+    eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
+      @Override
+      public void handle(AsyncResult<Message<JsonObject>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Long>(result.cause()).setHandler(doneHandler);
+        } else if (result.result().body().getString("status").equals("error")) {
+          new DefaultFutureResult<Long>(new DataException(result.result().body().getString("message"))).setHandler(doneHandler);
+        } else {
+          new DefaultFutureResult<Long>(result.result().body().getLong("result", 0)).setHandler(doneHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void compareAndSet(long expect, long update, final Handler<AsyncResult<Boolean>> doneHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "compareandset")
+        .putString("type", "counter")
+        .putString("name", name)
+        .putNumber("expect", expect)
+        .putNumber("update", update);
+    eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
+      @Override
+      public void handle(AsyncResult<Message<JsonObject>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Boolean>(result.cause()).setHandler(doneHandler);
+        } else if (result.result().body().getString("status").equals("error")) {
+          new DefaultFutureResult<Boolean>(new DataException(result.result().body().getString("message"))).setHandler(doneHandler);
+        } else {
+          new DefaultFutureResult<Boolean>(result.result().body().getBoolean("result", false)).setHandler(doneHandler);
+        }
+      }
+    });
+  }
+
 }
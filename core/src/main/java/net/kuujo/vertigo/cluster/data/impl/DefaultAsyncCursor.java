@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
+import net.kuujo.vertigo.cluster.data.DataException;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Default cursor implementation.<p>
+ *
+ * The first page is requested from the cluster with the cursor's page size.
+ * If more values are available the cluster replies to the request and waits
+ * for a reply to the page, so each following page is requested by replying
+ * to the previous page. This ensures that all pages are read from the same
+ * cluster member.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <T> The cursor value type.
+ */
+public class DefaultAsyncCursor<T> implements AsyncCursor<T> {
+  private final String address;
+  private final JsonObject request;
+  private final EventBus eventBus;
+  private Message<JsonObject> continuation;
+  private boolean done;
+
+  public DefaultAsyncCursor(String address, JsonObject request, int pageSize, Vertx vertx) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("Page size must be a positive number.");
+    }
+    this.address = address;
+    this.request = request.copy().putNumber("size", pageSize);
+    this.eventBus = vertx.eventBus();
+  }
+
+  /**
+   * Reads all remaining pages of a cursor into a collection.
+   *
+   * @param cursor The cursor to read.
+   * @param results The collection to which to add values.
+   * @param resultHandler An asynchronous handler to be called with the collection.
+   */
+  static <T, C extends Collection<T>> void collect(final AsyncCursor<T> cursor, final C results, final Handler<AsyncResult<C>> resultHandler) {
+    if (!cursor.hasNext()) {
+      new DefaultFutureResult<C>(results).setHandler(resultHandler);
+      return;
+    }
+    cursor.next(new Handler<AsyncResult<List<T>>>() {
+      @Override
+      public void handle(AsyncResult<List<T>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<C>(result.cause()).setHandler(resultHandler);
+        } else {
+          results.addAll(result.result());
+          collect(cursor, results, resultHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public boolean hasNext() {
+    return !done;
+  }
+
+  @Override
+  public void next(final Handler<AsyncResult<List<T>>> resultHandler) {
+    if (done) {
+      new DefaultFutureResult<List<T>>(new ArrayList<T>()).setHandler(resultHandler);
+      return;
+    }
+
+    Handler<AsyncResult<Message<JsonObject>>> replyHandler = new Handler<AsyncResult<Message<JsonObject>>>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void handle(AsyncResult<Message<JsonObject>> result) {
+        if (result.failed()) {
+          done = true;
+          new DefaultFutureResult<List<T>>(result.cause()).setHandler(resultHandler);
+        } else if (result.result().body().getString("status").equals("error")) {
+          done = true;
+          new DefaultFutureResult<List<T>>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
+        } else {
+          JsonArray jsonValues = result.result().body().getArray("result");
+          if (jsonValues != null) {
+            if (result.result().body().getBoolean("more", false)) {
+              continuation = result.result();
+            } else {
+              done = true;
+            }
+            List<T> values = new ArrayList<>(jsonValues.size());
+            for (Object value : jsonValues) {
+              values.add((T) value);
+            }
+            new DefaultFutureResult<List<T>>(values).setHandler(resultHandler);
+          } else {
+            done = true;
+            new DefaultFutureResult<List<T>>(new DataException("Invalid response.")).setHandler(resultHandler);
+          }
+        }
+      }
+    };
+
+    if (continuation == null) {
+      eventBus.sendWithTimeout(address, request, 30000, replyHandler);
+    } else {
+      Message<JsonObject> message = continuation;
+      continuation = null;
+      message.replyWithTimeout(new JsonObject().putString("action", "next"), 30000, replyHandler);
+    }
+  }
+
+  @Override
+  public void close() {
+    done = true;
+    if (continuation != null) {
+      continuation.reply(new JsonObject().putString("action", "close"));
+      continuation = null;
+    }
+  }
+
+}
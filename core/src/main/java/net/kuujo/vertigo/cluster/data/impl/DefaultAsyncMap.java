@@ -17,12 +17,16 @@ package net.kuujo.vertigo.cluster.data.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
 import net.kuujo.vertigo.cluster.data.AsyncMap;
 import net.kuujo.vertigo.cluster.data.DataException;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
@@ -41,14 +45,16 @@ import org.vertx.java.core.json.JsonObject;
  * @param <K> The map key type.
  * @param <V> The map value type.
  */
-public class DefaultAsyncMap<K, V> implements AsyncMap<K, V> {
+public class DefaultAsyncMap<K, V> implements ChunkedAsyncMap<K, V> {
   private final String address;
   private final String name;
+  private final Vertx vertx;
   private final EventBus eventBus;
 
   public DefaultAsyncMap(String address, String name, Vertx vertx) {
     this.address = address;
     this.name = name;
+    this.vertx = vertx;
     this.eventBus = vertx.eventBus();
   }
 
@@ -63,13 +69,26 @@ public class DefaultAsyncMap<K, V> implements AsyncMap<K, V> {
   }
 
   @Override
-  public void put(K key, V value, final Handler<AsyncResult<V>> doneHandler) {
+  public void put(K key, V value, Handler<AsyncResult<V>> doneHandler) {
+    put(key, value, 0, doneHandler);
+  }
+
+  @Override
+  public void put(K key, V value, long ttl) {
+    put(key, value, ttl, null);
+  }
+
+  @Override
+  public void put(K key, V value, long ttl, final Handler<AsyncResult<V>> doneHandler) {
     JsonObject message = new JsonObject()
         .putString("action", "put")
         .putString("type", "map")
         .putString("name", name)
         .putValue("key", key)
         .putValue("value", value);
+    if (ttl != 0) {
+      message.putNumber("ttl", ttl);
+    }
     eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
       @Override
       @SuppressWarnings("unchecked")
@@ -135,12 +154,37 @@ public class DefaultAsyncMap<K, V> implements AsyncMap<K, V> {
   }
 
   @Override
-  public void containsKey(K key, final Handler<AsyncResult<Boolean>> resultHandler) {
+  public void putIfAbsent(K key, V value, final Handler<AsyncResult<V>> resultHandler) {
     JsonObject message = new JsonObject()
-        .putString("action", "contains")
+        .putString("action", "putifabsent")
         .putString("type", "map")
         .putString("name", name)
-        .putValue("key", key);
+        .putValue("key", key)
+        .putValue("value", value);
+    eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void handle(AsyncResult<Message<JsonObject>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<V>(result.cause()).setHandler(resultHandler);
+        } else if (result.result().body().getString("status").equals("error")) {
+          new DefaultFutureResult<V>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
+        } else {
+          new DefaultFutureResult<V>((V) result.result().body().getValue("result")).setHandler(resultHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void replace(K key, V oldValue, V newValue, final Handler<AsyncResult<Boolean>> resultHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "replace")
+        .putString("type", "map")
+        .putString("name", name)
+        .putValue("key", key)
+        .putValue("expect", oldValue)
+        .putValue("value", newValue);
     eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
       @Override
       public void handle(AsyncResult<Message<JsonObject>> result) {
@@ -156,65 +200,194 @@ public class DefaultAsyncMap<K, V> implements AsyncMap<K, V> {
   }
 
   @Override
-  public void keySet(final Handler<AsyncResult<Set<K>>> resultHandler) {
+  public void remove(K key, V value, final Handler<AsyncResult<Boolean>> resultHandler) {
     JsonObject message = new JsonObject()
-        .putString("action", "keys")
+        .putString("action", "removevalue")
         .putString("type", "map")
-        .putString("name", name);
+        .putString("name", name)
+        .putValue("key", key)
+        .putValue("value", value);
     eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
       @Override
-      @SuppressWarnings("unchecked")
       public void handle(AsyncResult<Message<JsonObject>> result) {
         if (result.failed()) {
-          new DefaultFutureResult<Set<K>>(result.cause()).setHandler(resultHandler);
+          new DefaultFutureResult<Boolean>(result.cause()).setHandler(resultHandler);
         } else if (result.result().body().getString("status").equals("error")) {
-          new DefaultFutureResult<Set<K>>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
+          new DefaultFutureResult<Boolean>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
         } else {
-          JsonArray jsonKeys = result.result().body().getArray("result");
-          if (jsonKeys != null) {
-            Set<K> keys = new HashSet<>();
-            for (Object key : jsonKeys) {
-              keys.add((K) key);
-            }
-            new DefaultFutureResult<Set<K>>(keys).setHandler(resultHandler);
-          } else {
-            new DefaultFutureResult<Set<K>>(new DataException("Invalid response.")).setHandler(resultHandler);
-          }
+          new DefaultFutureResult<Boolean>(result.result().body().getBoolean("result")).setHandler(resultHandler);
         }
       }
     });
   }
 
   @Override
-  public void values(final Handler<AsyncResult<Collection<V>>> resultHandler) {
+  public void merge(K key, V value, MergeOperation operation, final Handler<AsyncResult<V>> resultHandler) {
     JsonObject message = new JsonObject()
-        .putString("action", "values")
+        .putString("action", "merge")
         .putString("type", "map")
-        .putString("name", name);
+        .putString("name", name)
+        .putValue("key", key)
+        .putValue("value", value)
+        .putString("operation", operation.toString());
     eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
       @Override
       @SuppressWarnings("unchecked")
       public void handle(AsyncResult<Message<JsonObject>> result) {
         if (result.failed()) {
-          new DefaultFutureResult<Collection<V>>(result.cause()).setHandler(resultHandler);
+          new DefaultFutureResult<V>(result.cause()).setHandler(resultHandler);
         } else if (result.result().body().getString("status").equals("error")) {
-          new DefaultFutureResult<Collection<V>>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
+          new DefaultFutureResult<V>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
         } else {
-          JsonArray jsonValues = result.result().body().getArray("result");
-          if (jsonValues != null) {
-            List<V> values = new ArrayList<>();
-            for (Object value : jsonValues) {
-              values.add((V) value);
+          new DefaultFutureResult<V>((V) result.result().body().getValue("result")).setHandler(resultHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map) {
+    putAll(map, null);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map, Handler<AsyncResult<Void>> doneHandler) {
+    putAll(map, null, doneHandler);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map, final Handler<MapEvent<K, V>> eventHandler, Handler<AsyncResult<Void>> doneHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "putall")
+        .putString("type", "map")
+        .putString("name", name);
+    // The reply to each chunk lists each key in the chunk in order along
+    // with its previous value, if any.
+    Chunks.sendEach(eventBus, address, message, "entries", Chunks.split(map), eventHandler == null ? null : new Chunks.ReplyHandler() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void handle(JsonArray chunk, JsonObject reply) {
+        JsonArray previous = reply.getArray("result");
+        for (int i = 0; i < chunk.size(); i++) {
+          JsonArray entry = chunk.get(i);
+          boolean updated = previous != null && i < previous.size() && ((JsonArray) previous.get(i)).size() > 1;
+          eventHandler.handle(new MapEvent<K, V>(updated ? MapEvent.Type.UPDATE : MapEvent.Type.CREATE, (K) entry.get(0), (V) entry.get(1)));
+        }
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void getAll(Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "getall")
+        .putString("type", "map")
+        .putString("name", name);
+    sendEntries(message, keys, null, resultHandler);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    removeAll(keys, null);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    removeAll(keys, null, resultHandler);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys, Handler<MapEvent<K, V>> eventHandler, Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "removeall")
+        .putString("type", "map")
+        .putString("name", name);
+    sendEntries(message, keys, eventHandler, resultHandler);
+  }
+
+  /**
+   * Sends a chunked keys request whose replies contain key-value pairs,
+   * calling the event handler, if any, with a <code>DELETE</code> event for
+   * each pair.
+   */
+  private void sendEntries(JsonObject message, Collection<K> keys, final Handler<MapEvent<K, V>> eventHandler, final Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    final Map<K, V> entries = new HashMap<>();
+    Chunks.send(eventBus, address, message, "keys", Chunks.split(keys), new Handler<JsonObject>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void handle(JsonObject reply) {
+        JsonArray jsonEntries = reply.getArray("result");
+        if (jsonEntries != null) {
+          for (Object entry : jsonEntries) {
+            JsonArray pair = (JsonArray) entry;
+            entries.put((K) pair.get(0), (V) pair.get(1));
+            if (eventHandler != null) {
+              eventHandler.handle(new MapEvent<K, V>(MapEvent.Type.DELETE, (K) pair.get(0), (V) pair.get(1)));
             }
-            new DefaultFutureResult<Collection<V>>(values).setHandler(resultHandler);
-          } else {
-            new DefaultFutureResult<Collection<V>>(new DataException("Invalid response.")).setHandler(resultHandler);
           }
         }
       }
+    }, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Map<K, V>>(result.cause()).setHandler(resultHandler);
+        } else {
+          new DefaultFutureResult<Map<K, V>>(entries).setHandler(resultHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void containsKey(K key, final Handler<AsyncResult<Boolean>> resultHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "contains")
+        .putString("type", "map")
+        .putString("name", name)
+        .putValue("key", key);
+    eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
+      @Override
+      public void handle(AsyncResult<Message<JsonObject>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Boolean>(result.cause()).setHandler(resultHandler);
+        } else if (result.result().body().getString("status").equals("error")) {
+          new DefaultFutureResult<Boolean>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
+        } else {
+          new DefaultFutureResult<Boolean>(result.result().body().getBoolean("result")).setHandler(resultHandler);
+        }
+      }
     });
   }
 
+  @Override
+  public void keySet(Handler<AsyncResult<Set<K>>> resultHandler) {
+    DefaultAsyncCursor.<K, Set<K>>collect(keys(Chunks.CHUNK_SIZE), new HashSet<K>(), resultHandler);
+  }
+
+  @Override
+  public void values(Handler<AsyncResult<Collection<V>>> resultHandler) {
+    DefaultAsyncCursor.<V, Collection<V>>collect(values(Chunks.CHUNK_SIZE), new ArrayList<V>(), resultHandler);
+  }
+
+  @Override
+  public AsyncCursor<K> keys(int pageSize) {
+    JsonObject message = new JsonObject()
+        .putString("action", "keys")
+        .putString("type", "map")
+        .putString("name", name);
+    return new DefaultAsyncCursor<K>(address, message, pageSize, vertx);
+  }
+
+  @Override
+  public AsyncCursor<V> values(int pageSize) {
+    JsonObject message = new JsonObject()
+        .putString("action", "values")
+        .putString("type", "map")
+        .putString("name", name);
+    return new DefaultAsyncCursor<V>(address, message, pageSize, vertx);
+  }
+
   @Override
   public void size(final Handler<AsyncResult<Integer>> resultHandler) {
     JsonObject message = new JsonObject()
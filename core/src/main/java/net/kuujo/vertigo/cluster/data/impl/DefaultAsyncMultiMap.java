@@ -17,10 +17,13 @@ package net.kuujo.vertigo.cluster.data.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
 import net.kuujo.vertigo.cluster.data.AsyncMultiMap;
 import net.kuujo.vertigo.cluster.data.DataException;
 
@@ -44,11 +47,13 @@ import org.vertx.java.core.json.JsonObject;
 public class DefaultAsyncMultiMap<K, V> implements AsyncMultiMap<K, V> {
   private final String address;
   private final String name;
+  private final Vertx vertx;
   private final EventBus eventBus;
 
   public DefaultAsyncMultiMap(String address, String name, Vertx vertx) {
     this.address = address;
     this.name = name;
+    this.vertx = vertx;
     this.eventBus = vertx.eventBus();
   }
 
@@ -170,6 +175,70 @@ public class DefaultAsyncMultiMap<K, V> implements AsyncMultiMap<K, V> {
     });
   }
 
+  @Override
+  public void putAll(K key, Collection<? extends V> values) {
+    putAll(key, values, null);
+  }
+
+  @Override
+  public void putAll(K key, Collection<? extends V> values, Handler<AsyncResult<Boolean>> doneHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "putall")
+        .putString("type", "multimap")
+        .putString("name", name)
+        .putValue("key", key);
+    Chunks.sendAny(eventBus, address, message, "values", Chunks.split(values), doneHandler);
+  }
+
+  @Override
+  public void getAll(Collection<K> keys, final Handler<AsyncResult<Map<K, Collection<V>>>> resultHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "getall")
+        .putString("type", "multimap")
+        .putString("name", name);
+    final Map<K, Collection<V>> entries = new HashMap<>();
+    Chunks.send(eventBus, address, message, "keys", Chunks.split(keys), new Handler<JsonObject>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void handle(JsonObject reply) {
+        JsonArray jsonEntries = reply.getArray("result");
+        if (jsonEntries != null) {
+          for (Object entry : jsonEntries) {
+            JsonArray pair = (JsonArray) entry;
+            List<V> values = new ArrayList<>();
+            for (Object value : (JsonArray) pair.get(1)) {
+              values.add((V) value);
+            }
+            entries.put((K) pair.get(0), values);
+          }
+        }
+      }
+    }, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Map<K, Collection<V>>>(result.cause()).setHandler(resultHandler);
+        } else {
+          new DefaultFutureResult<Map<K, Collection<V>>>(entries).setHandler(resultHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    removeAll(keys, null);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys, Handler<AsyncResult<Void>> doneHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "removeall")
+        .putString("type", "multimap")
+        .putString("name", name);
+    Chunks.send(eventBus, address, message, "keys", Chunks.split(keys), null, doneHandler);
+  }
+
   @Override
   public void containsKey(K key, final Handler<AsyncResult<Boolean>> resultHandler) {
     JsonObject message = new JsonObject()
@@ -235,63 +304,31 @@ public class DefaultAsyncMultiMap<K, V> implements AsyncMultiMap<K, V> {
   }
 
   @Override
-  public void keySet(final Handler<AsyncResult<Set<K>>> resultHandler) {
+  public void keySet(Handler<AsyncResult<Set<K>>> resultHandler) {
+    DefaultAsyncCursor.<K, Set<K>>collect(keys(Chunks.CHUNK_SIZE), new HashSet<K>(), resultHandler);
+  }
+
+  @Override
+  public void values(Handler<AsyncResult<Collection<V>>> resultHandler) {
+    DefaultAsyncCursor.<V, Collection<V>>collect(values(Chunks.CHUNK_SIZE), new ArrayList<V>(), resultHandler);
+  }
+
+  @Override
+  public AsyncCursor<K> keys(int pageSize) {
     JsonObject message = new JsonObject()
         .putString("action", "keys")
         .putString("type", "multimap")
         .putString("name", name);
-    eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
-      @Override
-      @SuppressWarnings("unchecked")
-      public void handle(AsyncResult<Message<JsonObject>> result) {
-        if (result.failed()) {
-          new DefaultFutureResult<Set<K>>(result.cause()).setHandler(resultHandler);
-        } else if (result.result().body().getString("status").equals("error")) {
-          new DefaultFutureResult<Set<K>>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
-        } else {
-          JsonArray jsonKeys = result.result().body().getArray("result");
-          if (jsonKeys != null) {
-            Set<K> keys = new HashSet<>();
-            for (Object key : jsonKeys) {
-              keys.add((K) key);
-            }
-            new DefaultFutureResult<Set<K>>(keys).setHandler(resultHandler);
-          } else {
-            new DefaultFutureResult<Set<K>>(new DataException("Invalid response.")).setHandler(resultHandler);
-          }
-        }
-      }
-    });
+    return new DefaultAsyncCursor<K>(address, message, pageSize, vertx);
   }
 
   @Override
-  public void values(final Handler<AsyncResult<Collection<V>>> resultHandler) {
+  public AsyncCursor<V> values(int pageSize) {
     JsonObject message = new JsonObject()
         .putString("action", "values")
         .putString("type", "multimap")
         .putString("name", name);
-    eventBus.sendWithTimeout(address, message, 30000, new Handler<AsyncResult<Message<JsonObject>>>() {
-      @Override
-      @SuppressWarnings("unchecked")
-      public void handle(AsyncResult<Message<JsonObject>> result) {
-        if (result.failed()) {
-          new DefaultFutureResult<Collection<V>>(result.cause()).setHandler(resultHandler);
-        } else if (result.result().body().getString("status").equals("error")) {
-          new DefaultFutureResult<Collection<V>>(new DataException(result.result().body().getString("message"))).setHandler(resultHandler);
-        } else {
-          JsonArray jsonValues = result.result().body().getArray("result");
-          if (jsonValues != null) {
-            List<V> values = new ArrayList<>();
-            for (Object value : jsonValues) {
-              values.add((V) value);
-            }
-            new DefaultFutureResult<Collection<V>>(values).setHandler(resultHandler);
-          } else {
-            new DefaultFutureResult<Collection<V>>(new DataException("Invalid response.")).setHandler(resultHandler);
-          }
-        }
-      }
-    });
+    return new DefaultAsyncCursor<V>(address, message, pageSize, vertx);
   }
 
   @Override
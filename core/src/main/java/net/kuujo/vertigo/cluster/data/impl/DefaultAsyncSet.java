@@ -15,6 +15,8 @@
  */
 package net.kuujo.vertigo.cluster.data.impl;
 
+import java.util.Collection;
+
 import net.kuujo.vertigo.cluster.data.AsyncSet;
 import net.kuujo.vertigo.cluster.data.DataException;
 
@@ -101,6 +103,43 @@ public class DefaultAsyncSet<T> implements AsyncSet<T> {
     });
   }
 
+  @Override
+  public void addAll(Collection<? extends T> values) {
+    addAll(values, null);
+  }
+
+  @Override
+  public void addAll(Collection<? extends T> values, Handler<AsyncResult<Boolean>> doneHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "addall")
+        .putString("type", "set")
+        .putString("name", name);
+    Chunks.sendAny(eventBus, address, message, "values", Chunks.split(values), doneHandler);
+  }
+
+  @Override
+  public void removeAll(Collection<?> values) {
+    removeAll(values, null);
+  }
+
+  @Override
+  public void removeAll(Collection<?> values, Handler<AsyncResult<Boolean>> doneHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "removeall")
+        .putString("type", "set")
+        .putString("name", name);
+    Chunks.sendAny(eventBus, address, message, "values", Chunks.split(values), doneHandler);
+  }
+
+  @Override
+  public void containsAll(Collection<?> values, Handler<AsyncResult<Boolean>> resultHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "containsall")
+        .putString("type", "set")
+        .putString("name", name);
+    Chunks.sendEvery(eventBus, address, message, "values", Chunks.split(values), resultHandler);
+  }
+
   @Override
   public void contains(Object value, final Handler<AsyncResult<Boolean>> resultHandler) {
     JsonObject message = new JsonObject()
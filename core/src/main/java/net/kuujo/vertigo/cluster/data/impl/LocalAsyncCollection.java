@@ -0,0 +1,182 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.Collection;
+
+import net.kuujo.vertigo.cluster.data.AsyncCollection;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * Base class for local collection implementations.
+ *
+ * @author Jordan Halterman
+ *
+ * @param <T> The collection data type.
+ */
+abstract class LocalAsyncCollection<T> implements AsyncCollection<T> {
+  protected final String name;
+  protected final LocalData local;
+
+  protected LocalAsyncCollection(String address, String name, Vertx vertx, ClusterData data) {
+    this.name = name;
+    this.local = new LocalData(address, vertx, data);
+  }
+
+  /**
+   * Returns the underlying local collection.
+   */
+  protected abstract Collection<T> collection();
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public void add(T value) {
+    add(value, null);
+  }
+
+  @Override
+  public void add(final T value, Handler<AsyncResult<Boolean>> doneHandler) {
+    if (value == null) {
+      local.fail("No value specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return collection().add(value);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void remove(T value) {
+    remove(value, null);
+  }
+
+  @Override
+  public void remove(final T value, Handler<AsyncResult<Boolean>> doneHandler) {
+    if (value == null) {
+      local.fail("No value specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return collection().remove(value);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void addAll(Collection<? extends T> values) {
+    addAll(values, null);
+  }
+
+  @Override
+  public void addAll(final Collection<? extends T> values, Handler<AsyncResult<Boolean>> doneHandler) {
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return collection().addAll(values);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void removeAll(Collection<?> values) {
+    removeAll(values, null);
+  }
+
+  @Override
+  public void removeAll(final Collection<?> values, Handler<AsyncResult<Boolean>> doneHandler) {
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return collection().removeAll(values);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void containsAll(final Collection<?> values, Handler<AsyncResult<Boolean>> resultHandler) {
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return collection().containsAll(values);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void contains(final Object value, Handler<AsyncResult<Boolean>> resultHandler) {
+    if (value == null) {
+      local.fail("No value specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return collection().contains(value);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void size(Handler<AsyncResult<Integer>> resultHandler) {
+    local.execute(new Action<Integer>() {
+      @Override
+      public Integer perform() {
+        return collection().size();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void isEmpty(Handler<AsyncResult<Boolean>> resultHandler) {
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return collection().isEmpty();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void clear() {
+    clear(null);
+  }
+
+  @Override
+  public void clear(Handler<AsyncResult<Void>> doneHandler) {
+    local.execute(new Action<Void>() {
+      @Override
+      public Void perform() {
+        collection().clear();
+        return null;
+      }
+    }, doneHandler);
+  }
+
+}
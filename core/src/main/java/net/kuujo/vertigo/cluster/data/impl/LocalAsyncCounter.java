@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import net.kuujo.vertigo.cluster.data.AsyncCounter;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.spi.Action;
+
+import com.hazelcast.core.IAtomicLong;
+
+/**
+ * A local counter implementation.<p>
+ *
+ * This counter operates directly on the local cluster data when Vert.x
+ * is not clustered.
+ *
+ * @author Jordan Halterman
+ */
+public class LocalAsyncCounter implements AsyncCounter {
+  private final String name;
+  private final LocalData local;
+
+  public LocalAsyncCounter(String address, String name, Vertx vertx, ClusterData data) {
+    this.name = name;
+    this.local = new LocalData(address, vertx, data);
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  /**
+   * Returns the atomic counter value.
+   */
+  private IAtomicLong counter() {
+    return local.getAtomicLong(String.format("counters.%s", name));
+  }
+
+  @Override
+  public void get(Handler<AsyncResult<Long>> doneHandler) {
+    local.execute(new Action<Long>() {
+      @Override
+      public Long perform() {
+        return counter().get();
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void increment() {
+    increment(null);
+  }
+
+  @Override
+  public void increment(final Handler<AsyncResult<Void>> doneHandler) {
+    local.execute(new Action<Void>() {
+      @Override
+      public Void perform() {
+        counter().incrementAndGet();
+        return null;
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void incrementAndGet(Handler<AsyncResult<Long>> doneHandler) {
+    addAndGet(1, doneHandler);
+  }
+
+  @Override
+  public void decrement() {
+    decrement(null);
+  }
+
+  @Override
+  public void decrement(final Handler<AsyncResult<Void>> doneHandler) {
+    local.execute(new Action<Void>() {
+      @Override
+      public Void perform() {
+        counter().decrementAndGet();
+        return null;
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void decrementAndGet(Handler<AsyncResult<Long>> doneHandler) {
+    addAndGet(-1, doneHandler);
+  }
+
+  @Override
+  public void addAndGet(final long delta, Handler<AsyncResult<Long>> doneHandler) {
+    local.execute(new Action<Long>() {
+      @Override
+      public Long perform() {
+        return counter().addAndGet(delta);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void compareAndSet(final long expect, final long update, Handler<AsyncResult<Boolean>> doneHandler) {
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return counter().compareAndSet(expect, update);
+      }
+    }, doneHandler);
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * Base class for local cursors.<p>
+ *
+ * Local cursors iterate directly over the local cluster data. Since local
+ * data structures are concurrent, the cursor's iterator reflects the state
+ * of the structure at some point at or since the cursor was opened.
+ *
+ * @author Jordan Halterman
+ *
+ * @param <T> The cursor value type.
+ */
+abstract class LocalAsyncCursor<T> implements AsyncCursor<T> {
+  private final LocalData local;
+  private final int pageSize;
+  private Iterator<T> iterator;
+  private boolean done;
+
+  protected LocalAsyncCursor(LocalData local, int pageSize) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("Page size must be a positive number.");
+    }
+    this.local = local;
+    this.pageSize = pageSize;
+  }
+
+  /**
+   * Opens the cursor's iterator.
+   */
+  protected abstract Iterator<T> iterator();
+
+  @Override
+  public boolean hasNext() {
+    return !done;
+  }
+
+  @Override
+  public void next(Handler<AsyncResult<List<T>>> resultHandler) {
+    local.execute(new Action<List<T>>() {
+      @Override
+      public List<T> perform() {
+        List<T> page = new ArrayList<>();
+        if (!done) {
+          if (iterator == null) {
+            iterator = iterator();
+          }
+          while (page.size() < pageSize && iterator.hasNext()) {
+            page.add(iterator.next());
+          }
+          if (!iterator.hasNext()) {
+            close();
+          }
+        }
+        return page;
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void close() {
+    done = true;
+    iterator = null;
+  }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.Collection;
+
+import net.kuujo.vertigo.cluster.data.AsyncList;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * A local list implementation.<p>
+ *
+ * This list operates directly on the local cluster data when Vert.x is
+ * not clustered.
+ *
+ * @author Jordan Halterman
+ *
+ * @param <T> The list data type.
+ */
+public class LocalAsyncList<T> extends LocalAsyncCollection<T> implements AsyncList<T> {
+
+  public LocalAsyncList(String address, String name, Vertx vertx, ClusterData data) {
+    super(address, name, vertx, data);
+  }
+
+  @Override
+  protected Collection<T> collection() {
+    return local.getList(name);
+  }
+
+  @Override
+  public void get(final int index, Handler<AsyncResult<T>> resultHandler) {
+    local.execute(new Action<T>() {
+      @Override
+      public T perform() {
+        return local.<T>getList(name).get(index);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void set(int index, T value) {
+    set(index, value, null);
+  }
+
+  @Override
+  public void set(final int index, final T value, Handler<AsyncResult<Void>> doneHandler) {
+    if (value == null) {
+      local.fail("No value specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Void>() {
+      @Override
+      public Void perform() {
+        local.<T>getList(name).set(index, value);
+        return null;
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void remove(int index) {
+    remove(index, null);
+  }
+
+  @Override
+  public void remove(final int index, Handler<AsyncResult<T>> doneHandler) {
+    local.execute(new Action<T>() {
+      @Override
+      public T perform() {
+        return local.<T>getList(name).remove(index);
+      }
+    }, doneHandler);
+  }
+
+}
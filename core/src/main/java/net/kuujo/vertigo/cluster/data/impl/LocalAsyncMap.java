@@ -0,0 +1,376 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * A local map implementation.<p>
+ *
+ * This map operates directly on the local cluster data when Vert.x is
+ * not clustered.
+ *
+ * @author Jordan Halterman
+ *
+ * @param <K> The map key type.
+ * @param <V> The map value type.
+ */
+public class LocalAsyncMap<K, V> implements ChunkedAsyncMap<K, V> {
+  private final String name;
+  private final LocalData local;
+
+  public LocalAsyncMap(String address, String name, Vertx vertx, ClusterData data) {
+    this.name = name;
+    this.local = new LocalData(address, vertx, data);
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public void put(K key, V value) {
+    put(key, value, null);
+  }
+
+  @Override
+  public void put(K key, V value, Handler<AsyncResult<V>> doneHandler) {
+    put(key, value, 0, doneHandler);
+  }
+
+  @Override
+  public void put(K key, V value, long ttl) {
+    put(key, value, ttl, null);
+  }
+
+  @Override
+  public void put(final K key, final V value, final long ttl, Handler<AsyncResult<V>> doneHandler) {
+    if (key == null) {
+      local.fail("No key specified.", doneHandler);
+      return;
+    }
+    if (ttl < 0) {
+      local.fail("Invalid TTL.", doneHandler);
+      return;
+    }
+    local.execute(new Action<V>() {
+      @Override
+      public V perform() {
+        return local.<K, V>put(name, key, value, ttl);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void get(final K key, Handler<AsyncResult<V>> resultHandler) {
+    if (key == null) {
+      local.fail("No key specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<V>() {
+      @Override
+      public V perform() {
+        return local.<K, V>getMap(name).get(key);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void remove(K key) {
+    remove(key, null);
+  }
+
+  @Override
+  public void remove(final K key, Handler<AsyncResult<V>> resultHandler) {
+    if (key == null) {
+      local.fail("No key specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<V>() {
+      @Override
+      public V perform() {
+        return local.<K, V>getMap(name).remove(key);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void putIfAbsent(final K key, final V value, Handler<AsyncResult<V>> resultHandler) {
+    if (key == null || value == null) {
+      local.fail("No key or value specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<V>() {
+      @Override
+      public V perform() {
+        return local.<K, V>getMap(name).putIfAbsent(key, value);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void replace(final K key, final V oldValue, final V newValue, Handler<AsyncResult<Boolean>> resultHandler) {
+    if (key == null || oldValue == null || newValue == null) {
+      local.fail("No key or value specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return local.<K, V>getMap(name).replace(key, oldValue, newValue);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void remove(final K key, final V value, Handler<AsyncResult<Boolean>> resultHandler) {
+    if (key == null || value == null) {
+      local.fail("No key or value specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return local.<K, V>getMap(name).remove(key, value);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void merge(final K key, final V value, final MergeOperation operation, Handler<AsyncResult<V>> resultHandler) {
+    if (key == null || value == null) {
+      local.fail("No key or value specified.", resultHandler);
+      return;
+    }
+    if (operation == null) {
+      local.fail("No merge operation specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<V>() {
+      @Override
+      public V perform() {
+        return local.merge(name, key, value, operation);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map) {
+    putAll(map, null);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map, Handler<AsyncResult<Void>> doneHandler) {
+    putAll(map, null, doneHandler);
+  }
+
+  @Override
+  public void putAll(final Map<? extends K, ? extends V> map, final Handler<MapEvent<K, V>> eventHandler, final Handler<AsyncResult<Void>> doneHandler) {
+    local.execute(new Action<List<MapEvent<K, V>>>() {
+      @Override
+      public List<MapEvent<K, V>> perform() {
+        List<MapEvent<K, V>> events = new ArrayList<>(map.size());
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+          V previous = local.<K, V>put(name, entry.getKey(), entry.getValue(), 0);
+          events.add(new MapEvent<K, V>(previous != null ? MapEvent.Type.UPDATE : MapEvent.Type.CREATE, entry.getKey(), entry.getValue()));
+        }
+        return events;
+      }
+    }, new Handler<AsyncResult<List<MapEvent<K, V>>>>() {
+      @Override
+      public void handle(AsyncResult<List<MapEvent<K, V>>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+        } else {
+          if (eventHandler != null) {
+            for (MapEvent<K, V> event : result.result()) {
+              eventHandler.handle(event);
+            }
+          }
+          new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void getAll(final Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    local.execute(new Action<Map<K, V>>() {
+      @Override
+      public Map<K, V> perform() {
+        Map<K, V> map = local.getMap(name);
+        Map<K, V> entries = new HashMap<>();
+        for (K key : keys) {
+          V value = map.get(key);
+          if (value != null) {
+            entries.put(key, value);
+          }
+        }
+        return entries;
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    removeAll(keys, null);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    removeAll(keys, null, resultHandler);
+  }
+
+  @Override
+  public void removeAll(final Collection<K> keys, final Handler<MapEvent<K, V>> eventHandler, final Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    local.execute(new Action<Map<K, V>>() {
+      @Override
+      public Map<K, V> perform() {
+        Map<K, V> map = local.getMap(name);
+        Map<K, V> entries = new HashMap<>();
+        for (K key : keys) {
+          V value = map.remove(key);
+          if (value != null) {
+            entries.put(key, value);
+          }
+        }
+        return entries;
+      }
+    }, new Handler<AsyncResult<Map<K, V>>>() {
+      @Override
+      public void handle(AsyncResult<Map<K, V>> result) {
+        if (result.succeeded() && eventHandler != null) {
+          for (Map.Entry<K, V> entry : result.result().entrySet()) {
+            eventHandler.handle(new MapEvent<K, V>(MapEvent.Type.DELETE, entry.getKey(), entry.getValue()));
+          }
+        }
+        if (resultHandler != null) {
+          resultHandler.handle(result);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void containsKey(final K key, Handler<AsyncResult<Boolean>> resultHandler) {
+    if (key == null) {
+      local.fail("No key specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return local.getMap(name).containsKey(key);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void keySet(Handler<AsyncResult<Set<K>>> resultHandler) {
+    local.execute(new Action<Set<K>>() {
+      @Override
+      public Set<K> perform() {
+        return new HashSet<K>(local.<K, V>getMap(name).keySet());
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void values(Handler<AsyncResult<Collection<V>>> resultHandler) {
+    local.execute(new Action<Collection<V>>() {
+      @Override
+      public Collection<V> perform() {
+        return new ArrayList<V>(local.<K, V>getMap(name).values());
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public AsyncCursor<K> keys(int pageSize) {
+    return new LocalAsyncCursor<K>(local, pageSize) {
+      @Override
+      protected Iterator<K> iterator() {
+        return local.<K, V>getMap(name).keySet().iterator();
+      }
+    };
+  }
+
+  @Override
+  public AsyncCursor<V> values(int pageSize) {
+    return new LocalAsyncCursor<V>(local, pageSize) {
+      @Override
+      protected Iterator<V> iterator() {
+        return local.<K, V>getMap(name).values().iterator();
+      }
+    };
+  }
+
+  @Override
+  public void size(Handler<AsyncResult<Integer>> resultHandler) {
+    local.execute(new Action<Integer>() {
+      @Override
+      public Integer perform() {
+        return local.getMap(name).size();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void isEmpty(Handler<AsyncResult<Boolean>> resultHandler) {
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return local.getMap(name).isEmpty();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void clear() {
+    clear(null);
+  }
+
+  @Override
+  public void clear(Handler<AsyncResult<Void>> doneHandler) {
+    local.execute(new Action<Void>() {
+      @Override
+      public Void perform() {
+        local.getMap(name).clear();
+        return null;
+      }
+    }, doneHandler);
+  }
+
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
+import net.kuujo.vertigo.cluster.data.AsyncMultiMap;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.spi.Action;
+
+import com.hazelcast.core.MultiMap;
+
+/**
+ * A local multi-map implementation.<p>
+ *
+ * This multi-map operates directly on the local cluster data when Vert.x
+ * is not clustered.
+ *
+ * @author Jordan Halterman
+ *
+ * @param <K> The map key type.
+ * @param <V> The map value type.
+ */
+public class LocalAsyncMultiMap<K, V> implements AsyncMultiMap<K, V> {
+  private final String name;
+  private final LocalData local;
+
+  public LocalAsyncMultiMap(String address, String name, Vertx vertx, ClusterData data) {
+    this.name = name;
+    this.local = new LocalData(address, vertx, data);
+  }
+
+  /**
+   * Returns the underlying local multi-map.
+   */
+  private MultiMap<K, V> map() {
+    return local.getMultiMap(name);
+  }
+
+  /**
+   * Copies a possibly null collection of values.
+   */
+  private Collection<V> copy(Collection<V> values) {
+    return values != null ? new ArrayList<V>(values) : new ArrayList<V>();
+  }
+
+  @Override
+  public String name() {
+    return name;
+  }
+
+  @Override
+  public void put(K key, V value) {
+    put(key, value, null);
+  }
+
+  @Override
+  public void put(final K key, final V value, Handler<AsyncResult<Boolean>> doneHandler) {
+    if (key == null) {
+      local.fail("No key specified.", doneHandler);
+      return;
+    }
+    if (value == null) {
+      local.fail("No value specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return map().put(key, value);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void get(final K key, Handler<AsyncResult<Collection<V>>> resultHandler) {
+    if (key == null) {
+      local.fail("No key specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Collection<V>>() {
+      @Override
+      public Collection<V> perform() {
+        return copy(map().get(key));
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void remove(K key) {
+    remove(key, (Handler<AsyncResult<Collection<V>>>) null);
+  }
+
+  @Override
+  public void remove(final K key, Handler<AsyncResult<Collection<V>>> doneHandler) {
+    if (key == null) {
+      local.fail("No key specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Collection<V>>() {
+      @Override
+      public Collection<V> perform() {
+        return copy(map().remove(key));
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void remove(K key, V value) {
+    remove(key, value, null);
+  }
+
+  @Override
+  public void remove(final K key, final V value, Handler<AsyncResult<Boolean>> doneHandler) {
+    if (key == null) {
+      local.fail("No key specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return map().remove(key, value);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void putAll(K key, Collection<? extends V> values) {
+    putAll(key, values, null);
+  }
+
+  @Override
+  public void putAll(final K key, final Collection<? extends V> values, Handler<AsyncResult<Boolean>> doneHandler) {
+    if (key == null) {
+      local.fail("No key specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        MultiMap<K, V> map = map();
+        boolean changed = false;
+        for (V value : values) {
+          changed = map.put(key, value) || changed;
+        }
+        return changed;
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void getAll(final Collection<K> keys, Handler<AsyncResult<Map<K, Collection<V>>>> resultHandler) {
+    local.execute(new Action<Map<K, Collection<V>>>() {
+      @Override
+      public Map<K, Collection<V>> perform() {
+        MultiMap<K, V> map = map();
+        Map<K, Collection<V>> entries = new HashMap<>();
+        for (K key : keys) {
+          Collection<V> values = map.get(key);
+          if (values != null) {
+            entries.put(key, new ArrayList<V>(values));
+          }
+        }
+        return entries;
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    removeAll(keys, null);
+  }
+
+  @Override
+  public void removeAll(final Collection<K> keys, Handler<AsyncResult<Void>> doneHandler) {
+    local.execute(new Action<Void>() {
+      @Override
+      public Void perform() {
+        MultiMap<K, V> map = map();
+        for (K key : keys) {
+          map.remove(key);
+        }
+        return null;
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void containsKey(final K key, Handler<AsyncResult<Boolean>> resultHandler) {
+    if (key == null) {
+      local.fail("No key specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return map().containsKey(key);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void containsValue(final V value, Handler<AsyncResult<Boolean>> resultHandler) {
+    if (value == null) {
+      local.fail("No value specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return map().containsValue(value);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void containsEntry(final K key, final V value, Handler<AsyncResult<Boolean>> resultHandler) {
+    if (key == null || value == null) {
+      local.fail("No key or value specified.", resultHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return map().containsEntry(key, value);
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void keySet(Handler<AsyncResult<Set<K>>> resultHandler) {
+    local.execute(new Action<Set<K>>() {
+      @Override
+      public Set<K> perform() {
+        return new HashSet<K>(map().keySet());
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void values(Handler<AsyncResult<Collection<V>>> resultHandler) {
+    local.execute(new Action<Collection<V>>() {
+      @Override
+      public Collection<V> perform() {
+        return copy(map().values());
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public AsyncCursor<K> keys(int pageSize) {
+    return new LocalAsyncCursor<K>(local, pageSize) {
+      @Override
+      protected Iterator<K> iterator() {
+        return map().keySet().iterator();
+      }
+    };
+  }
+
+  @Override
+  public AsyncCursor<V> values(int pageSize) {
+    return new LocalAsyncCursor<V>(local, pageSize) {
+      @Override
+      protected Iterator<V> iterator() {
+        // Values are read one key at a time so that only a single key's
+        // values are copied at any given time.
+        final Iterator<K> keys = map().keySet().iterator();
+        return new Iterator<V>() {
+          private Iterator<V> values;
+
+          @Override
+          public boolean hasNext() {
+            while ((values == null || !values.hasNext()) && keys.hasNext()) {
+              values = copy(map().get(keys.next())).iterator();
+            }
+            return values != null && values.hasNext();
+          }
+
+          @Override
+          public V next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return values.next();
+          }
+
+          @Override
+          public void remove() {
+            throw new UnsupportedOperationException();
+          }
+        };
+      }
+    };
+  }
+
+  @Override
+  public void size(Handler<AsyncResult<Integer>> resultHandler) {
+    local.execute(new Action<Integer>() {
+      @Override
+      public Integer perform() {
+        return map().size();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void isEmpty(Handler<AsyncResult<Boolean>> resultHandler) {
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return map().size() == 0;
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void clear() {
+    clear(null);
+  }
+
+  @Override
+  public void clear(Handler<AsyncResult<Void>> doneHandler) {
+    local.execute(new Action<Void>() {
+      @Override
+      public Void perform() {
+        map().clear();
+        return null;
+      }
+    }, doneHandler);
+  }
+
+}
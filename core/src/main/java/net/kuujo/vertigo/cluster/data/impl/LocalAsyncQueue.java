@@ -0,0 +1,108 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.Collection;
+
+import net.kuujo.vertigo.cluster.data.AsyncQueue;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * A local queue implementation.<p>
+ *
+ * This queue operates directly on the local cluster data when Vert.x is
+ * not clustered.
+ *
+ * @author Jordan Halterman
+ *
+ * @param <T> The queue data type.
+ */
+public class LocalAsyncQueue<T> extends LocalAsyncCollection<T> implements AsyncQueue<T> {
+
+  public LocalAsyncQueue(String address, String name, Vertx vertx, ClusterData data) {
+    super(address, name, vertx, data);
+  }
+
+  @Override
+  protected Collection<T> collection() {
+    return local.getQueue(name);
+  }
+
+  @Override
+  public void offer(T value) {
+    offer(value, null);
+  }
+
+  @Override
+  public void offer(final T value, Handler<AsyncResult<Boolean>> doneHandler) {
+    if (value == null) {
+      local.fail("No value specified.", doneHandler);
+      return;
+    }
+    local.execute(new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return local.<T>getQueue(name).offer(value);
+      }
+    }, doneHandler);
+  }
+
+  @Override
+  public void element(Handler<AsyncResult<T>> resultHandler) {
+    local.execute(new Action<T>() {
+      @Override
+      public T perform() {
+        return local.<T>getQueue(name).element();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void peek(Handler<AsyncResult<T>> resultHandler) {
+    local.execute(new Action<T>() {
+      @Override
+      public T perform() {
+        return local.<T>getQueue(name).peek();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void poll(Handler<AsyncResult<T>> resultHandler) {
+    local.execute(new Action<T>() {
+      @Override
+      public T perform() {
+        return local.<T>getQueue(name).poll();
+      }
+    }, resultHandler);
+  }
+
+  @Override
+  public void remove(Handler<AsyncResult<T>> resultHandler) {
+    local.execute(new Action<T>() {
+      @Override
+      public T perform() {
+        return local.<T>getQueue(name).remove();
+      }
+    }, resultHandler);
+  }
+
+}
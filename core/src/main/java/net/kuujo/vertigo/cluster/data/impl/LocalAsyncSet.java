@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.Collection;
+
+import net.kuujo.vertigo.cluster.data.AsyncSet;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.Vertx;
+
+/**
+ * A local set implementation.<p>
+ *
+ * This set operates directly on the local cluster data when Vert.x is
+ * not clustered.
+ *
+ * @author Jordan Halterman
+ *
+ * @param <T> The set data type.
+ */
+public class LocalAsyncSet<T> extends LocalAsyncCollection<T> implements AsyncSet<T> {
+
+  public LocalAsyncSet(String address, String name, Vertx vertx, ClusterData data) {
+    super(address, name, vertx, data);
+  }
+
+  @Override
+  protected Collection<T> collection() {
+    return local.getSet(name);
+  }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import net.kuujo.vertigo.cluster.data.DataException;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.spi.Action;
+
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.MultiMap;
+
+/**
+ * Local cluster data accessor.<p>
+ *
+ * When Vert.x is not clustered, cluster data is stored in the shared data
+ * of the local Vert.x instance. This accessor operates on that data directly,
+ * using the same names as the cluster manager, and completes results on the
+ * caller's context rather than making a round trip over the event bus.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+class LocalData {
+  private final String address;
+  private final Vertx vertx;
+  private final ClusterData data;
+
+  LocalData(String address, Vertx vertx, ClusterData data) {
+    this.address = address;
+    this.vertx = vertx;
+    this.data = data;
+  }
+
+  /**
+   * Formats a name for the cluster.
+   */
+  private String formatKey(String name) {
+    return String.format("%s.%s", address, name);
+  }
+
+  <K, V> ConcurrentMap<K, V> getMap(String name) {
+    return data.getMap(formatKey(name));
+  }
+
+  <K, V> V put(final String name, K key, V value, long ttl) {
+    if (ttl > 0) {
+      data.expireHandler(formatKey(name), new Handler<MapEvent<K, V>>() {
+        @Override
+        public void handle(MapEvent<K, V> event) {
+          WatchDispatcher.publish(vertx.eventBus(), name, event.type(), event.key(), event.value());
+        }
+      });
+    }
+    return data.put(formatKey(name), key, value, ttl);
+  }
+
+  <K, V> V merge(String name, K key, V value, MergeOperation operation) {
+    // Whether the key was created or updated is only known here, so merge
+    // events are published by the data layer rather than by watchable maps.
+    MapEvent<K, V> event = data.merge(formatKey(name), key, value, operation);
+    WatchDispatcher.publish(vertx.eventBus(), name, event.type(), event.key(), event.value());
+    return event.value();
+  }
+
+  <K, V> MultiMap<K, V> getMultiMap(String name) {
+    return data.getMultiMap(formatKey(name));
+  }
+
+  <T> Set<T> getSet(String name) {
+    return data.getSet(formatKey(name));
+  }
+
+  <T> List<T> getList(String name) {
+    return data.getList(formatKey(name));
+  }
+
+  <T> Queue<T> getQueue(String name) {
+    return data.getQueue(formatKey(name));
+  }
+
+  IAtomicLong getAtomicLong(String name) {
+    return data.getAtomicLong(formatKey(name));
+  }
+
+  /**
+   * Performs an action on the local data, completing the result on the
+   * current context.
+   */
+  <T> void execute(Action<T> action, Handler<AsyncResult<T>> handler) {
+    DefaultFutureResult<T> result;
+    try {
+      result = new DefaultFutureResult<T>(action.perform());
+    } catch (DataException e) {
+      result = new DefaultFutureResult<T>(e);
+    } catch (RuntimeException e) {
+      result = new DefaultFutureResult<T>(new DataException(e.getMessage(), e));
+    }
+    complete(result, handler);
+  }
+
+  /**
+   * Fails an operation on the current context.
+   */
+  <T> void fail(String message, Handler<AsyncResult<T>> handler) {
+    complete(new DefaultFutureResult<T>(new DataException(message)), handler);
+  }
+
+  private <T> void complete(final DefaultFutureResult<T> result, final Handler<AsyncResult<T>> handler) {
+    if (handler != null) {
+      vertx.runOnContext(new Handler<Void>() {
+        @Override
+        public void handle(Void _) {
+          result.setHandler(handler);
+        }
+      });
+    }
+  }
+
+}
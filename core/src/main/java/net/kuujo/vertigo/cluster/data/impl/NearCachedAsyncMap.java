@@ -0,0 +1,483 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
+import net.kuujo.vertigo.cluster.data.AsyncMap;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+import net.kuujo.vertigo.cluster.data.WatchableAsyncMap;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Near cached asynchronous map.<p>
+ *
+ * The near cache keeps recently read values locally so that repeated reads
+ * of rarely changing keys don't require a round trip to the cluster. The
+ * cache holds at most a fixed number of keys, evicting the least recently
+ * used key when full, and values expire once the cache TTL has passed.<p>
+ *
+ * While a key is cached the map watches the key's <code>CHANGE</code> events
+ * and invalidates the key whenever it changes. Writes through the near cached
+ * map are applied to a watchable map so that they invalidate the near caches
+ * of other instances as well. Since changes made directly through a non-watchable
+ * map do not trigger events, the TTL bounds the staleness of such values.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <K> The map key type.
+ * @param <V> The map value type.
+ */
+public class NearCachedAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
+  private final WatchableAsyncMap<K, V> map;
+  private final int maxSize;
+  private final long ttl;
+  private final LinkedHashMap<K, CacheEntry> cache;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long invalidations;
+
+  /**
+   * @param map The map to cache.
+   * @param vertx The Vert.x instance.
+   * @param maxSize The maximum number of keys to cache.
+   * @param ttl The time in milliseconds for which values are cached, or <code>0</code>
+   *        if values only expire when invalidated or evicted.
+   */
+  @SuppressWarnings("serial")
+  public NearCachedAsyncMap(AsyncMap<K, V> map, Vertx vertx, int maxSize, long ttl) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Cache size must be a positive number.");
+    }
+    if (ttl < 0) {
+      throw new IllegalArgumentException("Cache TTL cannot be negative.");
+    }
+    this.map = map instanceof WatchableAsyncMap ? (WatchableAsyncMap<K, V>) map : new WrappedWatchableAsyncMap<K, V>(map, vertx);
+    this.maxSize = maxSize;
+    this.ttl = ttl;
+    this.cache = new LinkedHashMap<K, CacheEntry>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, CacheEntry> eldest) {
+        if (size() > NearCachedAsyncMap.this.maxSize) {
+          evictions++;
+          unwatch(eldest.getKey(), eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the number of reads served from the near cache.
+   *
+   * @return The number of cache hits.
+   */
+  public long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of reads that required a cluster request.
+   *
+   * @return The number of cache misses.
+   */
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns the number of keys evicted from the full cache.
+   *
+   * @return The number of cache evictions.
+   */
+  public long evictions() {
+    return evictions;
+  }
+
+  /**
+   * Returns the number of keys invalidated by changes.
+   *
+   * @return The number of cache invalidations.
+   */
+  public long invalidations() {
+    return invalidations;
+  }
+
+  /**
+   * Returns the number of keys currently cached.
+   *
+   * @return The number of cached keys.
+   */
+  public int cached() {
+    return cache.size();
+  }
+
+  /**
+   * Returns the near cache statistics.
+   *
+   * @return A JSON object containing cache <code>hits</code>, <code>misses</code>,
+   *         <code>evictions</code>, <code>invalidations</code> and <code>size</code>.
+   */
+  public JsonObject stats() {
+    return new JsonObject()
+        .putNumber("hits", hits)
+        .putNumber("misses", misses)
+        .putNumber("evictions", evictions)
+        .putNumber("invalidations", invalidations)
+        .putNumber("size", cache.size());
+  }
+
+  /**
+   * Returns the cache entry for a key if it holds a current value.
+   */
+  private CacheEntry lookup(K key) {
+    CacheEntry entry = cache.get(key);
+    if (entry != null && entry.loaded) {
+      if (entry.expires == 0 || System.currentTimeMillis() < entry.expires) {
+        return entry;
+      }
+      invalidate(key);
+    }
+    return null;
+  }
+
+  /**
+   * Invalidates a cached key.
+   */
+  private void invalidate(K key) {
+    CacheEntry entry = cache.remove(key);
+    if (entry != null) {
+      unwatch(key, entry);
+    }
+  }
+
+  /**
+   * Invalidates all cached keys.
+   */
+  private void invalidateAll() {
+    Iterator<Map.Entry<K, CacheEntry>> iterator = cache.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<K, CacheEntry> entry = iterator.next();
+      iterator.remove();
+      unwatch(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Stops watching a key for changes.
+   */
+  private void unwatch(K key, CacheEntry entry) {
+    map.unwatch(key, MapEvent.Type.CHANGE, entry.invalidator);
+  }
+
+  @Override
+  public String name() {
+    return map.name();
+  }
+
+  @Override
+  public void put(K key, V value) {
+    put(key, value, null);
+  }
+
+  @Override
+  public void put(K key, V value, Handler<AsyncResult<V>> doneHandler) {
+    put(key, value, 0, doneHandler);
+  }
+
+  @Override
+  public void put(K key, V value, long ttl) {
+    put(key, value, ttl, null);
+  }
+
+  @Override
+  public void put(K key, V value, long ttl, Handler<AsyncResult<V>> doneHandler) {
+    invalidate(key);
+    map.put(key, value, ttl, doneHandler);
+  }
+
+  @Override
+  public void get(final K key, final Handler<AsyncResult<V>> resultHandler) {
+    CacheEntry current = lookup(key);
+    if (current != null) {
+      hits++;
+      new DefaultFutureResult<V>(current.value).setHandler(resultHandler);
+      return;
+    }
+
+    misses++;
+
+    // If the key is already being loaded then simply read through.
+    if (cache.containsKey(key)) {
+      map.get(key, resultHandler);
+      return;
+    }
+
+    // Watch the key before reading it so that a change made while the value
+    // is being read invalidates the entry before it's ever used.
+    final CacheEntry entry = new CacheEntry(key);
+    cache.put(key, entry);
+    map.watch(key, MapEvent.Type.CHANGE, entry.invalidator, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        map.get(key, new Handler<AsyncResult<V>>() {
+          @Override
+          public void handle(AsyncResult<V> result) {
+            if (cache.get(key) == entry) {
+              if (result.succeeded()) {
+                entry.value = result.result();
+                entry.expires = ttl > 0 ? System.currentTimeMillis() + ttl : 0;
+                entry.loaded = true;
+              } else {
+                invalidate(key);
+              }
+            }
+            if (resultHandler != null) {
+              resultHandler.handle(result);
+            }
+          }
+        });
+      }
+    });
+  }
+
+  @Override
+  public void remove(K key) {
+    remove(key, null);
+  }
+
+  @Override
+  public void remove(K key, Handler<AsyncResult<V>> resultHandler) {
+    invalidate(key);
+    map.remove(key, resultHandler);
+  }
+
+  @Override
+  public void putIfAbsent(K key, V value, Handler<AsyncResult<V>> resultHandler) {
+    invalidate(key);
+    map.putIfAbsent(key, value, resultHandler);
+  }
+
+  @Override
+  public void replace(K key, V oldValue, V newValue, Handler<AsyncResult<Boolean>> resultHandler) {
+    invalidate(key);
+    map.replace(key, oldValue, newValue, resultHandler);
+  }
+
+  @Override
+  public void remove(K key, V value, Handler<AsyncResult<Boolean>> resultHandler) {
+    invalidate(key);
+    map.remove(key, value, resultHandler);
+  }
+
+  @Override
+  public void merge(K key, V value, MergeOperation operation, Handler<AsyncResult<V>> resultHandler) {
+    invalidate(key);
+    map.merge(key, value, operation, resultHandler);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> entries) {
+    putAll(entries, null);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> entries, Handler<AsyncResult<Void>> doneHandler) {
+    for (K key : entries.keySet()) {
+      invalidate(key);
+    }
+    map.putAll(entries, doneHandler);
+  }
+
+  @Override
+  public void getAll(Collection<K> keys, final Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    final Map<K, V> values = new HashMap<>();
+    List<K> missing = new ArrayList<>();
+    for (K key : keys) {
+      CacheEntry entry = lookup(key);
+      if (entry != null) {
+        hits++;
+        if (entry.value != null) {
+          values.put(key, entry.value);
+        }
+      } else {
+        misses++;
+        missing.add(key);
+      }
+    }
+
+    if (missing.isEmpty()) {
+      new DefaultFutureResult<Map<K, V>>(values).setHandler(resultHandler);
+      return;
+    }
+
+    map.getAll(missing, new Handler<AsyncResult<Map<K, V>>>() {
+      @Override
+      public void handle(AsyncResult<Map<K, V>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Map<K, V>>(result.cause()).setHandler(resultHandler);
+        } else {
+          values.putAll(result.result());
+          new DefaultFutureResult<Map<K, V>>(values).setHandler(resultHandler);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    removeAll(keys, null);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    for (K key : keys) {
+      invalidate(key);
+    }
+    map.removeAll(keys, resultHandler);
+  }
+
+  @Override
+  public void containsKey(K key, Handler<AsyncResult<Boolean>> resultHandler) {
+    CacheEntry entry = lookup(key);
+    if (entry != null) {
+      hits++;
+      new DefaultFutureResult<Boolean>(entry.value != null).setHandler(resultHandler);
+    } else {
+      map.containsKey(key, resultHandler);
+    }
+  }
+
+  @Override
+  public void keySet(Handler<AsyncResult<Set<K>>> resultHandler) {
+    map.keySet(resultHandler);
+  }
+
+  @Override
+  public void values(Handler<AsyncResult<Collection<V>>> resultHandler) {
+    map.values(resultHandler);
+  }
+
+  @Override
+  public AsyncCursor<K> keys(int pageSize) {
+    return map.keys(pageSize);
+  }
+
+  @Override
+  public AsyncCursor<V> values(int pageSize) {
+    return map.values(pageSize);
+  }
+
+  @Override
+  public void size(Handler<AsyncResult<Integer>> resultHandler) {
+    map.size(resultHandler);
+  }
+
+  @Override
+  public void isEmpty(Handler<AsyncResult<Boolean>> resultHandler) {
+    map.isEmpty(resultHandler);
+  }
+
+  @Override
+  public void clear() {
+    clear(null);
+  }
+
+  @Override
+  public void clear(Handler<AsyncResult<Void>> doneHandler) {
+    invalidateAll();
+    map.clear(doneHandler);
+  }
+
+  @Override
+  public void watch(K key, Handler<MapEvent<K, V>> handler) {
+    map.watch(key, handler);
+  }
+
+  @Override
+  public void watch(K key, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    map.watch(key, handler, doneHandler);
+  }
+
+  @Override
+  public void watch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler) {
+    map.watch(key, event, handler);
+  }
+
+  @Override
+  public void watch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    map.watch(key, event, handler, doneHandler);
+  }
+
+  @Override
+  public void unwatch(K key, Handler<MapEvent<K, V>> handler) {
+    map.unwatch(key, handler);
+  }
+
+  @Override
+  public void unwatch(K key, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    map.unwatch(key, handler, doneHandler);
+  }
+
+  @Override
+  public void unwatch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler) {
+    map.unwatch(key, event, handler);
+  }
+
+  @Override
+  public void unwatch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    map.unwatch(key, event, handler, doneHandler);
+  }
+
+  /**
+   * A cached value.
+   */
+  private class CacheEntry {
+    private final Handler<MapEvent<K, V>> invalidator;
+    private V value;
+    private long expires;
+    private boolean loaded;
+
+    private CacheEntry(final K key) {
+      this.invalidator = new Handler<MapEvent<K, V>>() {
+        @Override
+        public void handle(MapEvent<K, V> event) {
+          if (cache.get(key) == CacheEntry.this) {
+            invalidations++;
+            invalidate(key);
+          }
+        }
+      };
+    }
+  }
+
+}
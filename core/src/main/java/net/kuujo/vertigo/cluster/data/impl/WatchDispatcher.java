@@ -0,0 +1,324 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.data.impl;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.kuujo.vertigo.cluster.data.MapEvent;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Map watch dispatcher.<p>
+ *
+ * Each write publishes a single <code>CREATE</code>, <code>UPDATE</code> or
+ * <code>DELETE</code> message and the <code>CHANGE</code> event is derived
+ * locally. Keys are hashed into a fixed number of channel addresses per map,
+ * and the dispatcher registers one handler per channel that has any watched
+ * keys, so a dispatcher never holds more than {@link #CHANNELS} event bus
+ * registrations however many keys it watches. Each channel indexes its
+ * watchers by key, so events for keys that share a channel but aren't
+ * watched are dropped without calling any handlers.<p>
+ *
+ * Registrations belong to the dispatcher, which is owned by a single map
+ * instance. They are not shared between map instances on the same node
+ * since event bus handlers are bound to the context that registered them.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ *
+ * @param <K> The map key type.
+ * @param <V> The map value type.
+ */
+public class WatchDispatcher<K, V> {
+
+  /**
+   * The number of channel addresses into which each map's keys are hashed.
+   */
+  public static final int CHANNELS = 16;
+
+  private static final MapEvent.Type[] ALL_EVENTS = new MapEvent.Type[]{MapEvent.Type.CHANGE, MapEvent.Type.CREATE, MapEvent.Type.UPDATE, MapEvent.Type.DELETE};
+  private final String name;
+  private final EventBus eventBus;
+  private final Map<Integer, Channel> channels = new HashMap<>();
+  private int watching;
+
+  public WatchDispatcher(String name, Vertx vertx) {
+    this.name = name;
+    this.eventBus = vertx.eventBus();
+  }
+
+  /**
+   * Returns the channel into which a key is hashed.<p>
+   *
+   * Keys are hashed by their string form so that every node computes
+   * the same channel for a key.
+   *
+   * @param key The key.
+   * @return The key's channel.
+   */
+  private static int channel(Object key) {
+    return (String.valueOf(key).hashCode() & Integer.MAX_VALUE) % CHANNELS;
+  }
+
+  /**
+   * Returns the event bus address to which events for a key are published.
+   *
+   * @param name The map name.
+   * @param key The key.
+   * @return The address of the key's channel.
+   */
+  public static String address(String name, Object key) {
+    return String.format("%s.__watch.%d", name, channel(key));
+  }
+
+  /**
+   * Creates a map event message.
+   *
+   * @param event The event type.
+   * @param key The key on which the event occurred.
+   * @param value The event value.
+   * @return The map event message.
+   */
+  public static JsonObject createEvent(MapEvent.Type event, Object key, Object value) {
+    return new JsonObject()
+        .putString("type", event.toString())
+        .putValue("key", key)
+        .putValue("value", value);
+  }
+
+  /**
+   * Publishes an event to all watchers of a key.
+   *
+   * @param eventBus The event bus on which to publish the event.
+   * @param name The map name.
+   * @param event The event type. <code>CHANGE</code> events are implied by
+   *        all other event types and should not be published.
+   * @param key The key on which the event occurred.
+   * @param value The event value.
+   */
+  public static void publish(EventBus eventBus, String name, MapEvent.Type event, Object key, Object value) {
+    eventBus.publish(address(name, key), createEvent(event, key, value));
+  }
+
+  /**
+   * Publishes an event to all watchers of a key.
+   *
+   * @param event The event type. <code>CHANGE</code> events are implied by
+   *        all other event types and should not be published.
+   * @param key The key on which the event occurred.
+   * @param value The event value.
+   */
+  public void publish(MapEvent.Type event, Object key, Object value) {
+    publish(eventBus, name, event, key, value);
+  }
+
+  /**
+   * Returns the number of keys currently being watched.
+   *
+   * @return The number of watched keys.
+   */
+  public int watching() {
+    return watching;
+  }
+
+  /**
+   * Returns the number of channels currently registered on the event bus.
+   *
+   * @return The number of registered channels.
+   */
+  public int channels() {
+    return channels.size();
+  }
+
+  /**
+   * Watches a key for events.
+   *
+   * @param key The key to watch.
+   * @param event The event to watch, or <code>null</code> to watch all events.
+   * @param handler The handler to call when an event occurs.
+   * @param doneHandler A handler to be called once the watcher is registered.
+   */
+  public void watch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    int index = channel(key);
+    Channel channel = channels.get(index);
+    boolean created = channel == null;
+    if (created) {
+      channel = new Channel(index, address(name, key));
+      channels.put(index, channel);
+    }
+
+    String watchKey = String.valueOf(key);
+    Map<Handler<MapEvent<K, V>>, Set<MapEvent.Type>> handlers = channel.keys.get(watchKey);
+    if (handlers == null) {
+      handlers = new LinkedHashMap<>();
+      channel.keys.put(watchKey, handlers);
+      watching++;
+    }
+
+    Set<MapEvent.Type> events = handlers.get(handler);
+    if (events == null) {
+      events = EnumSet.noneOf(MapEvent.Type.class);
+      handlers.put(handler, events);
+    }
+
+    if (event == null) {
+      for (MapEvent.Type type : ALL_EVENTS) {
+        events.add(type);
+      }
+    } else {
+      events.add(event);
+    }
+
+    if (created) {
+      register(channel, doneHandler);
+    } else if (!channel.registered) {
+      channel.pending.add(doneHandler);
+    } else {
+      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+    }
+  }
+
+  /**
+   * Stops watching a key for events.
+   *
+   * @param key The key to unwatch.
+   * @param event The event to unwatch, or <code>null</code> to unwatch all events.
+   * @param handler The handler to unwatch.
+   * @param doneHandler A handler to be called once the watcher is unregistered.
+   */
+  public void unwatch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    int index = channel(key);
+    Channel channel = channels.get(index);
+    if (channel != null) {
+      String watchKey = String.valueOf(key);
+      Map<Handler<MapEvent<K, V>>, Set<MapEvent.Type>> handlers = channel.keys.get(watchKey);
+      if (handlers != null) {
+        Set<MapEvent.Type> events = handlers.get(handler);
+        if (events != null) {
+          if (event == null) {
+            events.clear();
+          } else {
+            events.remove(event);
+          }
+          if (events.isEmpty()) {
+            handlers.remove(handler);
+          }
+        }
+        if (handlers.isEmpty()) {
+          channel.keys.remove(watchKey);
+          watching--;
+        }
+      }
+
+      // Once no key in a channel is watched its handler is unregistered.
+      if (channel.keys.isEmpty()) {
+        channels.remove(index);
+        eventBus.unregisterHandler(channel.address, channel, doneHandler);
+        return;
+      }
+    }
+    new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+  }
+
+  /**
+   * Registers a channel's event handler.
+   */
+  private void register(final Channel channel, Handler<AsyncResult<Void>> doneHandler) {
+    channel.pending.add(doneHandler);
+    eventBus.registerHandler(channel.address, channel, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed() && channels.get(channel.index) == channel) {
+          channels.remove(channel.index);
+          watching -= channel.keys.size();
+        }
+        channel.registered = result.succeeded();
+        for (Handler<AsyncResult<Void>> handler : channel.pending) {
+          if (result.failed()) {
+            new DefaultFutureResult<Void>(result.cause()).setHandler(handler);
+          } else {
+            new DefaultFutureResult<Void>((Void) null).setHandler(handler);
+          }
+        }
+        channel.pending.clear();
+      }
+    });
+  }
+
+  /**
+   * Event bus registration for a channel's events.
+   */
+  private class Channel implements Handler<Message<JsonObject>> {
+    private final int index;
+    private final String address;
+    private final Map<String, Map<Handler<MapEvent<K, V>>, Set<MapEvent.Type>>> keys = new HashMap<>();
+    private final List<Handler<AsyncResult<Void>>> pending = new ArrayList<>();
+    private boolean registered;
+
+    private Channel(int index, String address) {
+      this.index = index;
+      this.address = address;
+    }
+
+    @Override
+    public void handle(Message<JsonObject> message) {
+      JsonObject body = message.body();
+      K key = body.getValue("key");
+
+      // Other keys hashed into the same channel are ignored.
+      Map<Handler<MapEvent<K, V>>, Set<MapEvent.Type>> handlers = keys.get(String.valueOf(key));
+      if (handlers == null) {
+        return;
+      }
+
+      MapEvent.Type event = MapEvent.Type.parse(body.getString("type"));
+      V value = body.getValue("value");
+
+      // Handlers are resolved before any are called since handlers may
+      // watch or unwatch keys while the event is being dispatched.
+      List<Handler<MapEvent<K, V>>> changeHandlers = new ArrayList<>(handlers.size());
+      List<Handler<MapEvent<K, V>>> eventHandlers = new ArrayList<>(handlers.size());
+      for (Map.Entry<Handler<MapEvent<K, V>>, Set<MapEvent.Type>> entry : handlers.entrySet()) {
+        if (entry.getValue().contains(MapEvent.Type.CHANGE)) {
+          changeHandlers.add(entry.getKey());
+        }
+        if (event != MapEvent.Type.CHANGE && entry.getValue().contains(event)) {
+          eventHandlers.add(entry.getKey());
+        }
+      }
+
+      for (Handler<MapEvent<K, V>> handler : changeHandlers) {
+        handler.handle(new MapEvent<K, V>(MapEvent.Type.CHANGE, key, value));
+      }
+      for (Handler<MapEvent<K, V>> handler : eventHandlers) {
+        handler.handle(new MapEvent<K, V>(event, key, value));
+      }
+    }
+  }
+
+}
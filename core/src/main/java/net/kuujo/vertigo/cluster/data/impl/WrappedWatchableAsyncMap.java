@@ -16,12 +16,13 @@
 package net.kuujo.vertigo.cluster.data.impl;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
 import net.kuujo.vertigo.cluster.data.AsyncMap;
 import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
 import net.kuujo.vertigo.cluster.data.WatchableAsyncMap;
 import net.kuujo.vertigo.cluster.data.MapEvent.Type;
 import net.kuujo.vertigo.util.CountingCompletionHandler;
@@ -29,13 +30,12 @@ import net.kuujo.vertigo.util.CountingCompletionHandler;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
-import org.vertx.java.core.eventbus.EventBus;
-import org.vertx.java.core.eventbus.Message;
-import org.vertx.java.core.impl.DefaultFutureResult;
-import org.vertx.java.core.json.JsonObject;
 
 /**
- * Wrapped watchable asynchronous map.
+ * Wrapped watchable asynchronous map.<p>
+ *
+ * Each write publishes a single event to the channel address into which
+ * the written key is hashed. See {@link WatchDispatcher}.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  *
@@ -44,12 +44,18 @@ import org.vertx.java.core.json.JsonObject;
  */
 public class WrappedWatchableAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
   private final AsyncMap<K, V> map;
-  private final EventBus eventBus;
-  private final Map<MapEvent.Type, Map<Handler<MapEvent<K, V>>, Handler<Message<JsonObject>>>> watchHandlers = new HashMap<>();
+  private final WatchDispatcher<K, V> watchers;
+
+  private final Handler<MapEvent<K, V>> eventHandler = new Handler<MapEvent<K, V>>() {
+    @Override
+    public void handle(MapEvent<K, V> event) {
+      watchers.publish(event.type(), event.key(), event.value());
+    }
+  };
 
   public WrappedWatchableAsyncMap(AsyncMap<K, V> map, Vertx vertx) {
     this.map = map;
-    this.eventBus = vertx.eventBus();
+    this.watchers = new WatchDispatcher<K, V>(map.name(), vertx);
   }
 
   @Override
@@ -63,19 +69,23 @@ public class WrappedWatchableAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
   }
 
   @Override
-  public void put(final K key, final V value, final Handler<AsyncResult<V>> doneHandler) {
-    map.put(key, value, new Handler<AsyncResult<V>>() {
+  public void put(K key, V value, Handler<AsyncResult<V>> doneHandler) {
+    put(key, value, 0, doneHandler);
+  }
+
+  @Override
+  public void put(K key, V value, long ttl) {
+    put(key, value, ttl, null);
+  }
+
+  @Override
+  public void put(final K key, final V value, long ttl, final Handler<AsyncResult<V>> doneHandler) {
+    map.put(key, value, ttl, new Handler<AsyncResult<V>>() {
       @Override
       public void handle(AsyncResult<V> result) {
-        eventBus.publish(String.format("%s.%s.%s", map.name(), key, MapEvent.Type.CHANGE.toString()), new JsonObject()
-            .putString("type", MapEvent.Type.CHANGE.toString())
-            .putValue("key", key)
-            .putValue("value", value));
-        String event = result.result() == null ? MapEvent.Type.CREATE.toString() : MapEvent.Type.UPDATE.toString();
-        eventBus.publish(String.format("%s.%s.%s", map.name(), key, event), new JsonObject()
-            .putString("type", event)
-            .putValue("key", key)
-            .putValue("value", value));
+        if (result.succeeded()) {
+          watchers.publish(result.result() == null ? MapEvent.Type.CREATE : MapEvent.Type.UPDATE, key, value);
+        }
         if (doneHandler != null) {
           doneHandler.handle(result);
         }
@@ -98,14 +108,9 @@ public class WrappedWatchableAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
     map.remove(key, new Handler<AsyncResult<V>>() {
       @Override
       public void handle(AsyncResult<V> result) {
-        eventBus.publish(String.format("%s.%s.%s", map.name(), key, MapEvent.Type.CHANGE.toString()), new JsonObject()
-            .putString("type", MapEvent.Type.CHANGE.toString())
-            .putValue("key", key)
-            .putValue("value", result.result()));
-        eventBus.publish(String.format("%s.%s.%s", map.name(), key, MapEvent.Type.DELETE.toString()), new JsonObject()
-            .putString("type", MapEvent.Type.DELETE.toString())
-            .putValue("key", key)
-            .putValue("value", result.result()));
+        if (result.succeeded()) {
+          watchers.publish(MapEvent.Type.DELETE, key, result.result());
+        }
         if (resultHandler != null) {
           resultHandler.handle(result);
         }
@@ -113,6 +118,120 @@ public class WrappedWatchableAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
     });
   }
 
+  @Override
+  public void putIfAbsent(final K key, final V value, final Handler<AsyncResult<V>> resultHandler) {
+    map.putIfAbsent(key, value, new Handler<AsyncResult<V>>() {
+      @Override
+      public void handle(AsyncResult<V> result) {
+        if (result.succeeded() && result.result() == null) {
+          watchers.publish(MapEvent.Type.CREATE, key, value);
+        }
+        if (resultHandler != null) {
+          resultHandler.handle(result);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void replace(final K key, V oldValue, final V newValue, final Handler<AsyncResult<Boolean>> resultHandler) {
+    map.replace(key, oldValue, newValue, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.succeeded() && result.result()) {
+          watchers.publish(MapEvent.Type.UPDATE, key, newValue);
+        }
+        if (resultHandler != null) {
+          resultHandler.handle(result);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void remove(final K key, final V value, final Handler<AsyncResult<Boolean>> resultHandler) {
+    map.remove(key, value, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.succeeded() && result.result()) {
+          watchers.publish(MapEvent.Type.DELETE, key, value);
+        }
+        if (resultHandler != null) {
+          resultHandler.handle(result);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void merge(K key, V value, MergeOperation operation, Handler<AsyncResult<V>> resultHandler) {
+    // Only the cluster knows whether a merge created or updated the key,
+    // so merge events are published by the cluster.
+    map.merge(key, value, operation, resultHandler);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map) {
+    putAll(map, null);
+  }
+
+  @Override
+  public void putAll(final Map<? extends K, ? extends V> entries, final Handler<AsyncResult<Void>> doneHandler) {
+    if (map instanceof ChunkedAsyncMap) {
+      // Events are published as each chunk is applied, so applied entries
+      // are published even if a later chunk fails.
+      ((ChunkedAsyncMap<K, V>) map).putAll(entries, eventHandler, doneHandler);
+    } else {
+      // Other maps don't report previous values for bulk puts, so each entry
+      // is put individually.
+      final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(entries.size());
+      counter.setHandler(doneHandler);
+      for (Map.Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+        put(entry.getKey(), entry.getValue(), new Handler<AsyncResult<V>>() {
+          @Override
+          public void handle(AsyncResult<V> result) {
+            if (result.failed()) {
+              counter.fail(result.cause());
+            } else {
+              counter.succeed();
+            }
+          }
+        });
+      }
+    }
+  }
+
+  @Override
+  public void getAll(Collection<K> keys, Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    map.getAll(keys, resultHandler);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys) {
+    removeAll(keys, null);
+  }
+
+  @Override
+  public void removeAll(Collection<K> keys, final Handler<AsyncResult<Map<K, V>>> resultHandler) {
+    if (map instanceof ChunkedAsyncMap) {
+      ((ChunkedAsyncMap<K, V>) map).removeAll(keys, eventHandler, resultHandler);
+    } else {
+      map.removeAll(keys, new Handler<AsyncResult<Map<K, V>>>() {
+        @Override
+        public void handle(AsyncResult<Map<K, V>> result) {
+          if (result.succeeded()) {
+            for (Map.Entry<K, V> entry : result.result().entrySet()) {
+              watchers.publish(MapEvent.Type.DELETE, entry.getKey(), entry.getValue());
+            }
+          }
+          if (resultHandler != null) {
+            resultHandler.handle(result);
+          }
+        }
+      });
+    }
+  }
+
   @Override
   public void containsKey(K key, Handler<AsyncResult<Boolean>> resultHandler) {
     map.containsKey(key, resultHandler);
@@ -128,6 +247,16 @@ public class WrappedWatchableAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
     map.values(resultHandler);
   }
 
+  @Override
+  public AsyncCursor<K> keys(int pageSize) {
+    return map.keys(pageSize);
+  }
+
+  @Override
+  public AsyncCursor<V> values(int pageSize) {
+    return map.values(pageSize);
+  }
+
   @Override
   public void size(Handler<AsyncResult<Integer>> resultHandler) {
     map.size(resultHandler);
@@ -164,40 +293,8 @@ public class WrappedWatchableAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
   }
 
   @Override
-  public void watch(final K key, final Type event, final Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    if (event == null) {
-      final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(4).setHandler(doneHandler);
-      addWatcher(key, MapEvent.Type.CHANGE, handler, counter);
-      addWatcher(key, MapEvent.Type.CREATE, handler, counter);
-      addWatcher(key, MapEvent.Type.UPDATE, handler, counter);
-      addWatcher(key, MapEvent.Type.DELETE, handler, counter);
-    } else {
-      addWatcher(key, event, handler, doneHandler);
-    }
-  }
-
-  private void addWatcher(K key, final MapEvent.Type event, final Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    Map<Handler<MapEvent<K, V>>, Handler<Message<JsonObject>>> watchHandlers = this.watchHandlers.get(event);
-    if (watchHandlers == null) {
-      watchHandlers = new HashMap<>();
-      this.watchHandlers.put(event, watchHandlers);
-    }
-
-    Handler<Message<JsonObject>> wrappedHandler;
-    if (!watchHandlers.containsKey(handler)) {
-      wrappedHandler = new Handler<Message<JsonObject>>() {
-        @Override
-        public void handle(Message<JsonObject> message) {
-          K key = message.body().getValue("key");
-          V value = message.body().getValue("value");
-          handler.handle(new MapEvent<K, V>(event, key, value));
-        }
-      };
-      watchHandlers.put(handler, wrappedHandler);
-    } else {
-      wrappedHandler = watchHandlers.get(handler);
-    }
-    eventBus.registerHandler(String.format("%s.%s.%s", map.name(), key, event.toString()), wrappedHandler, doneHandler);
+  public void watch(K key, Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    watchers.watch(key, event, handler, doneHandler);
   }
 
   @Override
@@ -217,25 +314,7 @@ public class WrappedWatchableAsyncMap<K, V> implements WatchableAsyncMap<K, V> {
 
   @Override
   public void unwatch(K key, Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    if (event == null) {
-      final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(4).setHandler(doneHandler);
-      removeWatcher(key, MapEvent.Type.CHANGE, handler, counter);
-      removeWatcher(key, MapEvent.Type.CREATE, handler, counter);
-      removeWatcher(key, MapEvent.Type.UPDATE, handler, counter);
-      removeWatcher(key, MapEvent.Type.DELETE, handler, counter);
-    } else {
-      removeWatcher(key, event, handler, doneHandler);
-    }
-  }
-
-  private void removeWatcher(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    Map<Handler<MapEvent<K, V>>, Handler<Message<JsonObject>>> watchHandlers = this.watchHandlers.get(event);
-    if (watchHandlers == null || !watchHandlers.containsKey(handler)) {
-      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
-    } else {
-      Handler<Message<JsonObject>> wrappedHandler = watchHandlers.remove(handler);
-      eventBus.unregisterHandler(String.format("%s.%s.%s", map.name(), key, event.toString()), wrappedHandler, doneHandler);
-    }
+    watchers.unwatch(key, event, handler, doneHandler);
   }
 
 }
@@ -32,12 +32,25 @@ import net.kuujo.vertigo.cluster.data.AsyncMap;
 import net.kuujo.vertigo.cluster.data.AsyncMultiMap;
 import net.kuujo.vertigo.cluster.data.AsyncQueue;
 import net.kuujo.vertigo.cluster.data.AsyncSet;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.WatchableAsyncMap;
+import net.kuujo.vertigo.cluster.data.impl.AccumulatingAsyncCounter;
 import net.kuujo.vertigo.cluster.data.impl.DefaultAsyncCounter;
 import net.kuujo.vertigo.cluster.data.impl.DefaultAsyncList;
 import net.kuujo.vertigo.cluster.data.impl.DefaultAsyncMap;
 import net.kuujo.vertigo.cluster.data.impl.DefaultAsyncMultiMap;
 import net.kuujo.vertigo.cluster.data.impl.DefaultAsyncQueue;
 import net.kuujo.vertigo.cluster.data.impl.DefaultAsyncSet;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncCounter;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncList;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncMap;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncMultiMap;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncQueue;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncSet;
+import net.kuujo.vertigo.cluster.data.impl.NearCachedAsyncMap;
+import net.kuujo.vertigo.cluster.data.impl.WatchDispatcher;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterDataFactory;
 import net.kuujo.vertigo.component.ComponentConfig;
 import net.kuujo.vertigo.component.ModuleConfig;
 import net.kuujo.vertigo.network.ActiveNetwork;
@@ -69,13 +82,16 @@ public class DefaultCluster implements Cluster {
   private final String address;
   private final Vertx vertx;
   private final Container container;
+  private final ClusterData localData;
   private final Map<Handler<Node>, Handler<Message<String>>> joinHandlers = new HashMap<>();
   private final Map<Handler<Node>, Handler<Message<String>>> leaveHandlers = new HashMap<>();
+  private final Map<String, AccumulatingAsyncCounter> counters = new HashMap<>();
 
   public DefaultCluster(String address, Vertx vertx, Container container) {
     this.address = address;
     this.vertx = vertx;
     this.container = container;
+    this.localData = ClusterDataFactory.getLocalClusterData(vertx);
   }
 
   @Override
@@ -797,13 +813,12 @@ public class DefaultCluster implements Cluster {
    * Creates and returns an active network.
    */
   private void createActiveNetwork(final NetworkContext context, final Handler<AsyncResult<ActiveNetwork>> doneHandler) {
-    final DefaultActiveNetwork active = new DefaultActiveNetwork(context.config(), DefaultCluster.this);
-    vertx.eventBus().registerHandler(String.format("%s.%s.change", context.name(), context.name()), new Handler<Message<JsonObject>>() {
+    final DefaultActiveNetwork active = new DefaultActiveNetwork(context, DefaultCluster.this, vertx);
+    new WatchDispatcher<String, String>(context.name(), vertx).watch(context.name(), MapEvent.Type.CHANGE, new Handler<MapEvent<String, String>>() {
       @Override
-      public void handle(Message<JsonObject> message) {
-        String event = message.body().getString("type");
-        if (event.equals("change") && message.body().getString("value") != null) {
-          active.update(DefaultNetworkContext.fromJson(new JsonObject(message.body().getString("value"))));
+      public void handle(MapEvent<String, String> event) {
+        if (event.value() != null) {
+          active.update(DefaultNetworkContext.fromJson(new JsonObject(event.value())));
         }
       }
     }, new Handler<AsyncResult<Void>>() {
@@ -820,32 +835,64 @@ public class DefaultCluster implements Cluster {
 
   @Override
   public <K, V> AsyncMap<K, V> getMap(String name) {
-    return new DefaultAsyncMap<K, V>(address, name, vertx);
+    return localData != null ? new LocalAsyncMap<K, V>(address, name, vertx, localData) : new DefaultAsyncMap<K, V>(address, name, vertx);
+  }
+
+  @Override
+  public <K, V> WatchableAsyncMap<K, V> getMap(String name, int cacheSize, long cacheTtl) {
+    return new NearCachedAsyncMap<K, V>(this.<K, V>getMap(name), vertx, cacheSize, cacheTtl);
   }
 
   @Override
   public <K, V> AsyncMultiMap<K, V> getMultiMap(String name) {
-    return new DefaultAsyncMultiMap<K, V>(address, name, vertx);
+    return localData != null ? new LocalAsyncMultiMap<K, V>(address, name, vertx, localData) : new DefaultAsyncMultiMap<K, V>(address, name, vertx);
   }
 
   @Override
   public <T> AsyncSet<T> getSet(String name) {
-    return new DefaultAsyncSet<T>(address, name, vertx);
+    return localData != null ? new LocalAsyncSet<T>(address, name, vertx, localData) : new DefaultAsyncSet<T>(address, name, vertx);
   }
 
   @Override
   public <T> AsyncList<T> getList(String name) {
-    return new DefaultAsyncList<T>(address, name, vertx);
+    return localData != null ? new LocalAsyncList<T>(address, name, vertx, localData) : new DefaultAsyncList<T>(address, name, vertx);
   }
 
   @Override
   public <T> AsyncQueue<T> getQueue(String name) {
-    return new DefaultAsyncQueue<T>(address, name, vertx);
+    return localData != null ? new LocalAsyncQueue<T>(address, name, vertx, localData) : new DefaultAsyncQueue<T>(address, name, vertx);
   }
 
   @Override
   public AsyncCounter getCounter(String name) {
-    return new DefaultAsyncCounter(address, name, vertx);
+    return localData != null ? new LocalAsyncCounter(address, name, vertx, localData) : new DefaultAsyncCounter(address, name, vertx);
+  }
+
+  @Override
+  public AsyncCounter getCounter(String name, long flushInterval) {
+    String key = String.format("%s:%d", name, flushInterval);
+    AccumulatingAsyncCounter counter = counters.get(key);
+    if (counter == null) {
+      counter = new AccumulatingAsyncCounter(getCounter(name), vertx, flushInterval);
+      counters.put(key, counter);
+    }
+    return counter;
+  }
+
+  @Override
+  public Cluster close() {
+    return close(null);
+  }
+
+  @Override
+  public Cluster close(Handler<AsyncResult<Void>> doneHandler) {
+    final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(counters.size());
+    counter.setHandler(doneHandler);
+    for (AccumulatingAsyncCounter accumulating : counters.values()) {
+      accumulating.close(counter);
+    }
+    counters.clear();
+    return this;
   }
 
   @Override
@@ -27,6 +27,7 @@ import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.core.file.AsyncFile;
 import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.platform.Container;
 
@@ -75,6 +76,25 @@ public class DefaultNode implements Node {
     return this;
   }
 
+  @Override
+  public Node getEventLoopInfo(final Handler<AsyncResult<JsonArray>> resultHandler) {
+    JsonObject message = new JsonObject()
+        .putString("action", "loops");
+    vertx.eventBus().sendWithTimeout(address, message, DEFAULT_REPLY_TIMEOUT, new Handler<AsyncResult<Message<JsonObject>>>() {
+      @Override
+      public void handle(AsyncResult<Message<JsonObject>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<JsonArray>(new ClusterException(result.cause())).setHandler(resultHandler);
+        } else if (result.result().body().getString("status").equals("error")) {
+          new DefaultFutureResult<JsonArray>(new ClusterException(result.result().body().getString("message"))).setHandler(resultHandler);
+        } else if (result.result().body().getString("status").equals("ok")) {
+          new DefaultFutureResult<JsonArray>(result.result().body().getArray("result")).setHandler(resultHandler);
+        }
+      }
+    });
+    return this;
+  }
+
   @Override
   public Node installModule(String moduleName) {
     return installModule(moduleName);
@@ -24,6 +24,7 @@ import net.kuujo.vertigo.platform.PlatformManager;
 import net.kuujo.vertigo.platform.impl.DefaultPlatformManager;
 import net.kuujo.vertigo.util.ContextManager;
 import net.kuujo.vertigo.util.CountingCompletionHandler;
+import net.kuujo.vertigo.util.KeyedExecutor;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Future;
@@ -36,21 +37,32 @@ import org.vertx.java.platform.Verticle;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class ClusterAgent extends Verticle {
+  private static final int DEFAULT_CAPACITY = 10000;
   private ClusterManager cluster;
   private GroupManager group;
   private NodeManager node;
+  private PlatformManager platform;
+  private KeyedExecutor executor;
 
   @Override
   public void start(final Future<Void> startResult) {
     String clusterName = container.config().getString("cluster", "vertigo");
     String groupName = container.config().getString("group", "__DEFAULT__");
     String nodeAddress = container.config().getString("node", UUID.randomUUID().toString());
-    PlatformManager platform = new DefaultPlatformManager(vertx, container);
+    platform = new DefaultPlatformManager(vertx, container);
     ClusterListener listener = new ClusterListenerFactory(vertx).createClusterListener();
     ClusterData data = new ClusterDataFactory(vertx).createClusterData();
-    cluster = new DefaultClusterManager(clusterName, vertx, new ContextManager(vertx), platform, listener, data);
-    group = new DefaultGroupManager(String.format("%s.%s", clusterName, groupName), clusterName, vertx, new ContextManager(vertx), platform, listener, data);
-    node = new DefaultNodeManager(String.format("%s.%s.%s", clusterName, groupName, nodeAddress), String.format("%s.%s", clusterName, groupName), clusterName, vertx, new ContextManager(vertx), platform, listener, data);
+
+    // Keyed data operations are executed on a dedicated bounded executor shared
+    // by the managers. Unkeyed actions such as deployment bookkeeping are
+    // executed on the Vert.x background pool so neither competes with the other.
+    int threads = container.config().getInteger("threads", Math.max(2, Runtime.getRuntime().availableProcessors()));
+    int capacity = container.config().getInteger("capacity", DEFAULT_CAPACITY);
+    executor = new KeyedExecutor(vertx, threads, capacity);
+    ContextManager context = new ContextManager(vertx, executor);
+    cluster = new DefaultClusterManager(clusterName, vertx, context, platform, listener, data);
+    group = new DefaultGroupManager(String.format("%s.%s", clusterName, groupName), clusterName, vertx, context, platform, listener, data);
+    node = new DefaultNodeManager(String.format("%s.%s.%s", clusterName, groupName, nodeAddress), String.format("%s.%s", clusterName, groupName), clusterName, vertx, context, platform, listener, data);
     final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(3);
     counter.setHandler(new Handler<AsyncResult<Void>>() {
       @Override
@@ -72,6 +84,8 @@ public class ClusterAgent extends Verticle {
     cluster.stop();
     group.stop();
     node.stop();
+    platform.stop();
+    executor.shutdown();
   }
 
 }
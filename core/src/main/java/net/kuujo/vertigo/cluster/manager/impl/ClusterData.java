@@ -16,10 +16,16 @@
 package net.kuujo.vertigo.cluster.manager.impl;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+
+import org.vertx.java.core.Handler;
+
+import com.hazelcast.core.IAtomicLong;
 import com.hazelcast.core.MultiMap;
 
 /**
@@ -27,11 +33,52 @@ import com.hazelcast.core.MultiMap;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-interface ClusterData {
+public interface ClusterData {
 
   <K, V> MultiMap<K, V> getMultiMap(String name);
 
-  <K, V> Map<K, V> getMap(String name);
+  <K, V> ConcurrentMap<K, V> getMap(String name);
+
+  /**
+   * Puts a value in a map with a time to live.
+   *
+   * @param name The map name.
+   * @param key The key to set.
+   * @param value The value to set.
+   * @param ttl The time to live in milliseconds. If the time to live is <code>0</code>
+   *        then the entry never expires and any pending expiration is cancelled.
+   * @return The previous key value.
+   */
+  <K, V> V put(String name, K key, V value, long ttl);
+
+  /**
+   * Sets a handler to be called with a <code>DELETE</code> event when an entry
+   * in a map expires. Only the first handler set for a map is used.<p>
+   *
+   * Clustered data may only report expirations on the member that owns
+   * the expired key, so the handler should be set on every member.
+   *
+   * @param name The map name.
+   * @param handler The handler to be called when an entry expires.
+   */
+  <K, V> void expireHandler(String name, Handler<MapEvent<K, V>> handler);
+
+  /**
+   * Atomically merges a value into a map.<p>
+   *
+   * If the key is not set then it's set to the given value, otherwise it's set
+   * to the result of applying the merge operation to its current value and the
+   * given value. Concurrent changes to the key are retried until the merged
+   * value is set.
+   *
+   * @param name The map name.
+   * @param key The key to merge.
+   * @param value The value to merge.
+   * @param operation The merge operation.
+   * @return A <code>CREATE</code> event if the key was not set or an <code>UPDATE</code>
+   *         event, either containing the new key value.
+   */
+  <K, V> MapEvent<K, V> merge(String name, K key, V value, MergeOperation operation);
 
   <T> Set<T> getSet(String name);
 
@@ -39,4 +86,6 @@ interface ClusterData {
 
   <T> Queue<T> getQueue(String name);
 
+  IAtomicLong getAtomicLong(String name);
+
 }
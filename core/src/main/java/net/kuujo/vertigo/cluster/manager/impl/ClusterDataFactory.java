@@ -24,7 +24,7 @@ import com.hazelcast.core.HazelcastInstance;
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
-class ClusterDataFactory {
+public class ClusterDataFactory {
   private final Vertx vertx;
 
   ClusterDataFactory(Vertx vertx) {
@@ -45,4 +45,21 @@ class ClusterDataFactory {
     }
   }
 
+  /**
+   * Returns local cluster data if Vert.x is not clustered.<p>
+   *
+   * When Vert.x is not clustered the cluster manager stores all data in the
+   * shared data of the current Vert.x instance, so data structures can operate
+   * on the local data directly rather than through the cluster manager.
+   *
+   * @param vertx The current Vert.x instance.
+   * @return Local cluster data, or <code>null</code> if Vert.x is clustered.
+   */
+  public static ClusterData getLocalClusterData(Vertx vertx) {
+    if (ClusterListenerFactory.getHazelcastInstance() == null) {
+      return new VertxClusterData(vertx);
+    }
+    return null;
+  }
+
 }
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.cluster.manager.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.vertx.java.core.json.JsonArray;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MultiMap;
+
+/**
+ * Cluster manager cursor over a map or multi-map.<p>
+ *
+ * Cursors iterate over the keys of a data structure, and values are read
+ * one page of keys at a time. Data structures are resolved when the first
+ * page is read so that cursors can be created outside of the data executor.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+abstract class DataCursor {
+  private final ClusterData data;
+  private final String name;
+  private Iterator<Object> keys;
+
+  private DataCursor(ClusterData data, String name) {
+    this.data = data;
+    this.name = name;
+  }
+
+  /**
+   * Creates a cursor over the keys of a map.
+   */
+  static DataCursor mapKeys(ClusterData data, String name) {
+    return new DataCursor(data, name) {
+      @Override
+      protected Iterator<Object> open(ClusterData data, String name) {
+        return data.getMap(name).keySet().iterator();
+      }
+
+      @Override
+      protected void read(Iterator<Object> keys, JsonArray page, int size) {
+        while (page.size() < size && keys.hasNext()) {
+          page.add(keys.next());
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates a cursor over the values of a map.
+   */
+  static DataCursor mapValues(ClusterData data, String name) {
+    return new DataCursor(data, name) {
+      private Map<Object, Object> map;
+
+      @Override
+      protected Iterator<Object> open(ClusterData data, String name) {
+        map = data.getMap(name);
+        return map.keySet().iterator();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      protected void read(Iterator<Object> keys, JsonArray page, int size) {
+        List<Object> pageKeys = new ArrayList<>(size);
+        while (pageKeys.size() < size && keys.hasNext()) {
+          pageKeys.add(keys.next());
+        }
+
+        // Keys removed since the cursor was opened are skipped.
+        if (map instanceof IMap) {
+          for (Object value : ((IMap<Object, Object>) map).getAll(new HashSet<Object>(pageKeys)).values()) {
+            page.add(value);
+          }
+        } else {
+          for (Object key : pageKeys) {
+            Object value = map.get(key);
+            if (value != null) {
+              page.add(value);
+            }
+          }
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates a cursor over the keys of a multi-map.
+   */
+  static DataCursor multiMapKeys(ClusterData data, String name) {
+    return new DataCursor(data, name) {
+      @Override
+      protected Iterator<Object> open(ClusterData data, String name) {
+        return data.<Object, Object>getMultiMap(name).keySet().iterator();
+      }
+
+      @Override
+      protected void read(Iterator<Object> keys, JsonArray page, int size) {
+        while (page.size() < size && keys.hasNext()) {
+          page.add(keys.next());
+        }
+      }
+    };
+  }
+
+  /**
+   * Creates a cursor over the values of a multi-map.
+   */
+  static DataCursor multiMapValues(ClusterData data, String name) {
+    return new DataCursor(data, name) {
+      private MultiMap<Object, Object> map;
+      private Iterator<Object> values = Collections.emptyIterator();
+
+      @Override
+      protected Iterator<Object> open(ClusterData data, String name) {
+        map = data.getMultiMap(name);
+        return map.keySet().iterator();
+      }
+
+      @Override
+      protected void read(Iterator<Object> keys, JsonArray page, int size) {
+        while (page.size() < size && (values.hasNext() || keys.hasNext())) {
+          if (values.hasNext()) {
+            page.add(values.next());
+          } else {
+            Collection<Object> bucket = map.get(keys.next());
+            values = bucket != null ? bucket.iterator() : Collections.emptyIterator();
+          }
+        }
+      }
+
+      @Override
+      boolean hasNext() {
+        return values.hasNext() || super.hasNext();
+      }
+    };
+  }
+
+  /**
+   * Opens the cursor's key iterator.
+   */
+  protected abstract Iterator<Object> open(ClusterData data, String name);
+
+  /**
+   * Reads a page of values.
+   */
+  protected abstract void read(Iterator<Object> keys, JsonArray page, int size);
+
+  /**
+   * Reads the next page of values.
+   *
+   * @param size The maximum number of values to read.
+   * @return The next page of values.
+   */
+  JsonArray next(int size) {
+    if (keys == null) {
+      keys = open(data, name);
+    }
+    JsonArray page = new JsonArray();
+    read(keys, page, size);
+    return page;
+  }
+
+  /**
+   * Returns a boolean indicating whether the cursor has more values.
+   *
+   * @return Indicates whether the cursor has more values.
+   */
+  boolean hasNext() {
+    return keys == null || keys.hasNext();
+  }
+
+}
@@ -17,13 +17,22 @@ package net.kuujo.vertigo.cluster.manager.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import net.kuujo.vertigo.Config;
+import net.kuujo.vertigo.cluster.ClusterException;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+import net.kuujo.vertigo.cluster.data.impl.WatchDispatcher;
 import net.kuujo.vertigo.cluster.manager.ClusterManager;
 import net.kuujo.vertigo.network.NetworkConfig;
 import net.kuujo.vertigo.network.NetworkContext;
@@ -38,10 +47,13 @@ import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.impl.DefaultFutureResult;
 import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.spi.Action;
 
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IMap;
 import com.hazelcast.core.MultiMap;
 
 /**
@@ -51,6 +63,7 @@ import com.hazelcast.core.MultiMap;
  */
 public class DefaultClusterManager implements ClusterManager {
   private static final Serializer serializer = SerializerFactory.getSerializer(Config.class);
+  private static final long CURSOR_TIMEOUT = 30000;
   private final String cluster;
   private final Vertx vertx;
   private final ContextManager context;
@@ -61,6 +74,8 @@ public class DefaultClusterManager implements ClusterManager {
   private final MultiMap<String, String> groups;
   private final MultiMap<String, String> deployments;
   private final Set<String> networks;
+  private final Set<String> expiring;
+  private final Set<String> announced = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
   private final Map<Object, String> groupSelectors;
   private final Map<Object, String> nodeSelectors;
 
@@ -73,6 +88,9 @@ public class DefaultClusterManager implements ClusterManager {
           case "ping":
             doPing(message);
             break;
+          case "metrics":
+            doMetrics(message);
+            break;
           case "find":
             doFind(message);
             break;
@@ -88,6 +106,9 @@ public class DefaultClusterManager implements ClusterManager {
           case "undeploy":
             doUndeploy(message);
             break;
+          case "expire":
+            doExpire(message);
+            break;
           default:
             String type = message.body().getString("type");
             if (type == null) {
@@ -123,6 +144,12 @@ public class DefaultClusterManager implements ClusterManager {
                   case "get":
                     doCounterGet(message);
                     break;
+                  case "add":
+                    doCounterAdd(message);
+                    break;
+                  case "compareandset":
+                    doCounterCompareAndSet(message);
+                    break;
                   default:
                     message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid action " + action));
                     break;
@@ -157,6 +184,15 @@ public class DefaultClusterManager implements ClusterManager {
                   case "size":
                     doMultiMapSize(message);
                     break;
+                  case "putall":
+                    doMultiMapPutAll(message);
+                    break;
+                  case "getall":
+                    doMultiMapGetAll(message);
+                    break;
+                  case "removeall":
+                    doMultiMapRemoveAll(message);
+                    break;
                 }
                 break;
               case "map":
@@ -188,6 +224,27 @@ public class DefaultClusterManager implements ClusterManager {
                   case "size":
                     doMapSize(message);
                     break;
+                  case "putall":
+                    doMapPutAll(message);
+                    break;
+                  case "getall":
+                    doMapGetAll(message);
+                    break;
+                  case "removeall":
+                    doMapRemoveAll(message);
+                    break;
+                  case "putifabsent":
+                    doMapPutIfAbsent(message);
+                    break;
+                  case "replace":
+                    doMapReplace(message);
+                    break;
+                  case "removevalue":
+                    doMapRemoveValue(message);
+                    break;
+                  case "merge":
+                    doMapMerge(message);
+                    break;
                   default:
                     message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid action " + action));
                     break;
@@ -216,6 +273,15 @@ public class DefaultClusterManager implements ClusterManager {
                   case "clear":
                     doListClear(message);
                     break;
+                  case "addall":
+                    doCollectionAddAll(message);
+                    break;
+                  case "removeall":
+                    doCollectionRemoveAll(message);
+                    break;
+                  case "containsall":
+                    doCollectionContainsAll(message);
+                    break;
                   default:
                     message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid action " + action));
                     break;
@@ -241,6 +307,15 @@ public class DefaultClusterManager implements ClusterManager {
                   case "clear":
                     doSetClear(message);
                     break;
+                  case "addall":
+                    doCollectionAddAll(message);
+                    break;
+                  case "removeall":
+                    doCollectionRemoveAll(message);
+                    break;
+                  case "containsall":
+                    doCollectionContainsAll(message);
+                    break;
                   default:
                     message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid action " + action));
                     break;
@@ -278,6 +353,15 @@ public class DefaultClusterManager implements ClusterManager {
                   case "peek":
                     doQueuePeek(message);
                     break;
+                  case "addall":
+                    doCollectionAddAll(message);
+                    break;
+                  case "removeall":
+                    doCollectionRemoveAll(message);
+                    break;
+                  case "containsall":
+                    doCollectionContainsAll(message);
+                    break;
                   default:
                     message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid action " + action));
                     break;
@@ -317,6 +401,7 @@ public class DefaultClusterManager implements ClusterManager {
     this.groups = data.getMultiMap(String.format("groups.%s", cluster));
     this.deployments = data.getMultiMap(String.format("deployments.%s", cluster));
     this.networks = data.getSet(String.format("run.%s", cluster));
+    this.expiring = data.getSet(String.format("expiring.%s", cluster));
     this.groupSelectors = data.getMap(String.format("selectors.group.%s", cluster));
     this.nodeSelectors = data.getMap(String.format("selectors.node.%s", cluster));
   }
@@ -332,10 +417,31 @@ public class DefaultClusterManager implements ClusterManager {
   }
 
   @Override
-  public ClusterManager start(Handler<AsyncResult<Void>> doneHandler) {
+  public ClusterManager start(final Handler<AsyncResult<Void>> doneHandler) {
     listener.joinHandler(joinHandler);
     listener.leaveHandler(leaveHandler);
-    vertx.eventBus().registerHandler(address(), messageHandler, doneHandler);
+    vertx.eventBus().registerHandler(address(), messageHandler, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+        } else {
+          // Maps that were given expiring entries before this manager started
+          // are read only once the handler is registered so that no map that's
+          // announced in the meantime is missed.
+          context.execute(new Action<Void>() {
+            @Override
+            public Void perform() {
+              for (String name : expiring) {
+                watchExpirations(name);
+                announced.add(name);
+              }
+              return null;
+            }
+          }, doneHandler);
+        }
+      }
+    });
     return this;
   }
 
@@ -358,6 +464,40 @@ public class DefaultClusterManager implements ClusterManager {
     return String.format("%s.%s", cluster, key);
   }
 
+  /**
+   * Handles the expirations of a map.<p>
+   *
+   * Expired entries are only observed by the member that owns each key, so
+   * every cluster manager must handle expirations for each map that contains
+   * expiring entries. The first manager to put an expiring entry in a map
+   * records the map and announces it to the other managers.
+   */
+  private void watchExpirations(final String name) {
+    data.expireHandler(formatKey(name), new Handler<MapEvent<Object, Object>>() {
+      @Override
+      public void handle(MapEvent<Object, Object> event) {
+        WatchDispatcher.publish(vertx.eventBus(), name, event.type(), event.key(), event.value());
+      }
+    });
+  }
+
+  /**
+   * Handles the announcement of a map containing expiring entries.
+   */
+  private void doExpire(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name != null) {
+      context.execute(formatKey(name), new Action<Void>() {
+        @Override
+        public Void perform() {
+          watchExpirations(name);
+          announced.add(name);
+          return null;
+        }
+      }, null);
+    }
+  }
+
   /**
    * Called when a node joins the cluster.
    */
@@ -436,6 +576,13 @@ public class DefaultClusterManager implements ClusterManager {
     message.reply(new JsonObject().putString("status", "pong").putString("result", "cluster"));
   }
 
+  /**
+   * Replies with cluster data executor metrics.
+   */
+  private void doMetrics(final Message<JsonObject> message) {
+    message.reply(new JsonObject().putString("status", "ok").putObject("result", context.metrics()));
+  }
+
   /**
    * Finds a node in the cluster.
    */
@@ -840,7 +987,14 @@ public class DefaultClusterManager implements ClusterManager {
           }, new Handler<AsyncResult<String>>() {
             @Override
             public void handle(AsyncResult<String> result) {
-              message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+              if (result.failed()) {
+                // The deployment couldn't be recorded in the cluster, so undeploy it
+                // rather than leave a deployment the cluster doesn't know about.
+                platform.undeployModule(deploymentID, null);
+                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+              } else {
+                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+              }
             }
           });
         }
@@ -882,7 +1036,14 @@ public class DefaultClusterManager implements ClusterManager {
             }, new Handler<AsyncResult<String>>() {
               @Override
               public void handle(AsyncResult<String> result) {
-                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                if (result.failed()) {
+                  // The deployment couldn't be recorded in the cluster, so undeploy it
+                  // rather than leave a deployment the cluster doesn't know about.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                }
               }
             });
           }
@@ -905,7 +1066,14 @@ public class DefaultClusterManager implements ClusterManager {
             }, new Handler<AsyncResult<String>>() {
               @Override
               public void handle(AsyncResult<String> result) {
-                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                if (result.failed()) {
+                  // The deployment couldn't be recorded in the cluster, so undeploy it
+                  // rather than leave a deployment the cluster doesn't know about.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                }
               }
             });
           }
@@ -1002,16 +1170,20 @@ public class DefaultClusterManager implements ClusterManager {
       removeDeployment(deploymentID, new Handler<AsyncResult<Void>>() {
         @Override
         public void handle(AsyncResult<Void> result) {
-          platform.undeployModule(deploymentID, new Handler<AsyncResult<Void>>() {
-            @Override
-            public void handle(AsyncResult<Void> result) {
-              if (result.failed()) {
-                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
-              } else {
-                message.reply(new JsonObject().putString("status", "ok"));
+          if (result.failed()) {
+            message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+          } else {
+            platform.undeployModule(deploymentID, new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                if (result.failed()) {
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok"));
+                }
               }
-            }
-          });
+            });
+          }
         }
       });
     }
@@ -1028,16 +1200,20 @@ public class DefaultClusterManager implements ClusterManager {
       removeDeployment(deploymentID, new Handler<AsyncResult<Void>>() {
         @Override
         public void handle(AsyncResult<Void> result) {
-          platform.undeployVerticle(deploymentID, new Handler<AsyncResult<Void>>() {
-            @Override
-            public void handle(AsyncResult<Void> result) {
-              if (result.failed()) {
-                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
-              } else {
-                message.reply(new JsonObject().putString("status", "ok"));
+          if (result.failed()) {
+            message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+          } else {
+            platform.undeployVerticle(deploymentID, new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                if (result.failed()) {
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok"));
+                }
               }
-            }
-          });
+            });
+          }
         }
       });
     }
@@ -1205,6 +1381,13 @@ public class DefaultClusterManager implements ClusterManager {
     });
   }
 
+  /**
+   * Returns the atomic value of a counter.
+   */
+  private IAtomicLong getCounter(String name) {
+    return data.getAtomicLong(formatKey(String.format("counters.%s", name)));
+  }
+
   /**
    * Handles getting a counter.
    */
@@ -1215,15 +1398,10 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Long>() {
+    context.execute(formatKey(name), new Action<Long>() {
       @Override
       public Long perform() {
-        Map<Object, Long> counters = data.getMap(formatKey("counters"));
-        Long value = counters.get(name);
-        if (value == null) {
-          value = 0L;
-        }
-        return value;
+        return getCounter(name).get();
       }
     }, new Handler<AsyncResult<Long>>() {
       @Override
@@ -1247,17 +1425,10 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Long>() {
+    context.execute(formatKey(name), new Action<Long>() {
       @Override
       public Long perform() {
-        Map<Object, Long> counters = data.getMap(formatKey("counters"));
-        Long value = counters.get(name);
-        if (value == null) {
-          value = 0L;
-        }
-        value++;
-        counters.put(name, value);
-        return value;
+        return getCounter(name).incrementAndGet();
       }
     }, new Handler<AsyncResult<Long>>() {
       @Override
@@ -1281,17 +1452,43 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Long>() {
+    context.execute(formatKey(name), new Action<Long>() {
       @Override
       public Long perform() {
-        Map<Object, Long> counters = data.getMap(formatKey("counters"));
-        Long value = counters.get(name);
-        if (value == null) {
-          value = 0L;
+        return getCounter(name).decrementAndGet();
+      }
+    }, new Handler<AsyncResult<Long>>() {
+      @Override
+      public void handle(AsyncResult<Long> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putNumber("result", result.result()));
         }
-        value--;
-        counters.put(name, value);
-        return value;
+      }
+    });
+  }
+
+  /**
+   * Handles adding to a counter.
+   */
+  private void doCounterAdd(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Long delta = message.body().getLong("delta");
+    if (delta == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No delta specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Long>() {
+      @Override
+      public Long perform() {
+        return getCounter(name).addAndGet(delta);
       }
     }, new Handler<AsyncResult<Long>>() {
       @Override
@@ -1305,6 +1502,40 @@ public class DefaultClusterManager implements ClusterManager {
     });
   }
 
+  /**
+   * Handles setting a counter if it has an expected value.
+   */
+  private void doCounterCompareAndSet(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Long expect = message.body().getLong("expect");
+    final Long update = message.body().getLong("update");
+    if (expect == null || update == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No expected or updated value specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return getCounter(name).compareAndSet(expect, update);
+      }
+    }, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+        }
+      }
+    });
+  }
+
   /**
    * Handles a cluster multi-map put command.
    */
@@ -1327,7 +1558,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<Object>() {
       @Override
       public Object perform() {
         return data.getMultiMap(formatKey(name)).put(key, value);
@@ -1360,7 +1591,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Collection<Object>>() {
+    context.execute(formatKey(name), new Action<Collection<Object>>() {
       @Override
       public Collection<Object> perform() {
         return data.getMultiMap(formatKey(name)).get(key);
@@ -1395,7 +1626,7 @@ public class DefaultClusterManager implements ClusterManager {
 
     final Object value = message.body().getValue("value");
     if (value != null) {
-      context.execute(new Action<Boolean>() {
+      context.execute(formatKey(name), new Action<Boolean>() {
         @Override
         public Boolean perform() {
           return data.getMultiMap(formatKey(name)).remove(key, value);
@@ -1411,7 +1642,7 @@ public class DefaultClusterManager implements ClusterManager {
         }
       });
     } else {
-      context.execute(new Action<Collection<Object>>() {
+      context.execute(formatKey(name), new Action<Collection<Object>>() {
         @Override
         public Collection<Object> perform() {
           return data.getMultiMap(formatKey(name)).remove(key);
@@ -1443,7 +1674,7 @@ public class DefaultClusterManager implements ClusterManager {
     final Object value = message.body().getValue("value");
 
     if (key != null && value != null) {
-      context.execute(new Action<Boolean>() {
+      context.execute(formatKey(name), new Action<Boolean>() {
         @Override
         public Boolean perform() {
           return data.getMultiMap(formatKey(name)).containsEntry(key, value);
@@ -1459,7 +1690,7 @@ public class DefaultClusterManager implements ClusterManager {
         }
       });
     } else if (key != null) {
-      context.execute(new Action<Boolean>() {
+      context.execute(formatKey(name), new Action<Boolean>() {
         @Override
         public Boolean perform() {
           return data.getMultiMap(formatKey(name)).containsKey(key);
@@ -1475,7 +1706,7 @@ public class DefaultClusterManager implements ClusterManager {
         }
       });
     } else if (value != null) {
-      context.execute(new Action<Boolean>() {
+      context.execute(formatKey(name), new Action<Boolean>() {
         @Override
         public Boolean perform() {
           return data.getMultiMap(formatKey(name)).containsValue(key);
@@ -1505,7 +1736,12 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Set<Object>>() {
+    if (message.body().containsField("size")) {
+      doCursor(message, formatKey(name), DataCursor.multiMapKeys(data, formatKey(name)));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Set<Object>>() {
       @Override
       public Set<Object> perform() {
         return data.getMultiMap(formatKey(name)).keySet();
@@ -1532,7 +1768,12 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Collection<Object>>() {
+    if (message.body().containsField("size")) {
+      doCursor(message, formatKey(name), DataCursor.multiMapValues(data, formatKey(name)));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Collection<Object>>() {
       @Override
       public Collection<Object> perform() {
         return data.getMultiMap(formatKey(name)).values();
@@ -1559,7 +1800,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getMultiMap(formatKey(name)).size() == 0;
@@ -1586,7 +1827,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Integer>() {
+    context.execute(formatKey(name), new Action<Integer>() {
       @Override
       public Integer perform() {
         return data.getMultiMap(formatKey(name)).size();
@@ -1613,7 +1854,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Void>() {
+    context.execute(formatKey(name), new Action<Void>() {
       @Override
       public Void perform() {
         data.getMultiMap(formatKey(name)).clear();
@@ -1632,9 +1873,9 @@ public class DefaultClusterManager implements ClusterManager {
   }
 
   /**
-   * Handles a cluster map put command.
+   * Handles a cluster multi-map put all command.
    */
-  private void doMapPut(final Message<JsonObject> message) {
+  private void doMultiMapPutAll(final Message<JsonObject> message) {
     final String name = message.body().getString("name");
     if (name == null) {
       message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
@@ -1647,99 +1888,116 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    final Object value = message.body().getValue("value");
-    if (value == null) {
-      message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
+    final JsonArray values = message.body().getArray("values");
+    if (values == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No values specified."));
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
-      public Object perform() {
-        return data.getMap(formatKey(name)).put(key, value);
+      public Boolean perform() {
+        MultiMap<Object, Object> map = data.getMultiMap(formatKey(name));
+        boolean changed = false;
+        for (Object value : values) {
+          changed = map.put(key, value) || changed;
+        }
+        return changed;
       }
-    }, new Handler<AsyncResult<Object>>() {
+    }, new Handler<AsyncResult<Boolean>>() {
       @Override
-      public void handle(AsyncResult<Object> result) {
+      public void handle(AsyncResult<Boolean> result) {
         if (result.failed()) {
           message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
         } else {
-          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
         }
       }
     });
   }
 
   /**
-   * Handles a cluster map get command.
+   * Handles a cluster multi-map get all command.
    */
-  private void doMapGet(final Message<JsonObject> message) {
+  private void doMultiMapGetAll(final Message<JsonObject> message) {
     final String name = message.body().getString("name");
     if (name == null) {
       message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
       return;
     }
 
-    final Object key = message.body().getValue("key");
-    if (key == null) {
-      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+    final JsonArray keys = message.body().getArray("keys");
+    if (keys == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No keys specified."));
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<JsonArray>() {
       @Override
-      public Object perform() {
-        return data.getMap(formatKey(name)).get(key);
+      public JsonArray perform() {
+        MultiMap<Object, Object> map = data.getMultiMap(formatKey(name));
+        JsonArray entries = new JsonArray();
+        for (Object key : keys) {
+          Collection<Object> values = map.get(key);
+          if (values != null && !values.isEmpty()) {
+            entries.addArray(new JsonArray().add(key).addArray(new JsonArray(values.toArray(new Object[values.size()]))));
+          }
+        }
+        return entries;
       }
-    }, new Handler<AsyncResult<Object>>() {
+    }, new Handler<AsyncResult<JsonArray>>() {
       @Override
-      public void handle(AsyncResult<Object> result) {
+      public void handle(AsyncResult<JsonArray> result) {
         if (result.failed()) {
           message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
         } else {
-          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
+          message.reply(new JsonObject().putString("status", "ok").putArray("result", result.result()));
         }
       }
     });
   }
 
   /**
-   * Handles a cluster map remove command.
+   * Handles a cluster multi-map remove all command.
    */
-  private void doMapRemove(final Message<JsonObject> message) {
+  private void doMultiMapRemoveAll(final Message<JsonObject> message) {
     final String name = message.body().getString("name");
     if (name == null) {
       message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
       return;
     }
 
-    final Object key = message.body().getValue("key");
-    if (key == null) {
-      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+    final JsonArray keys = message.body().getArray("keys");
+    if (keys == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No keys specified."));
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<Void>() {
       @Override
-      public Object perform() {
-        return data.getMap(formatKey(name)).remove(key);
+      public Void perform() {
+        MultiMap<Object, Object> map = data.getMultiMap(formatKey(name));
+        for (Object key : keys) {
+          map.remove(key);
+        }
+        return null;
       }
-    }, new Handler<AsyncResult<Object>>() {
+    }, new Handler<AsyncResult<Void>>() {
       @Override
-      public void handle(AsyncResult<Object> result) {
+      public void handle(AsyncResult<Void> result) {
         if (result.failed()) {
           message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
         } else {
-          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
+          message.reply(new JsonObject().putString("status", "ok"));
         }
       }
     });
   }
 
   /**
-   * Handles a cluster exists command.
+   * Handles a cluster map put command.
    */
-  private void doMapContainsKey(final Message<JsonObject> message) {
+  private void doMapPut(final Message<JsonObject> message) {
     final String name = message.body().getString("name");
     if (name == null) {
       message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
@@ -1752,52 +2010,581 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    final Object value = message.body().getValue("value");
+    if (value == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
+      return;
+    }
+
+    final long ttl = message.body().getLong("ttl", 0);
+    if (ttl < 0) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid TTL."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Object>() {
       @Override
-      public Boolean perform() {
-        return data.getMap(formatKey(name)).containsKey(key);
+      public Object perform() {
+        // The cluster-wide set of expiring maps is only updated the first
+        // time this manager sees an expiring entry in the map.
+        if (ttl > 0 && !announced.contains(name)) {
+          watchExpirations(name);
+          if (expiring.add(name)) {
+            vertx.eventBus().publish(address(), new JsonObject().putString("action", "expire").putString("name", name));
+          }
+          announced.add(name);
+        }
+        return data.put(formatKey(name), key, value, ttl);
       }
-    }, new Handler<AsyncResult<Boolean>>() {
+    }, new Handler<AsyncResult<Object>>() {
       @Override
-      public void handle(AsyncResult<Boolean> result) {
+      public void handle(AsyncResult<Object> result) {
         if (result.failed()) {
           message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
         } else {
-          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
         }
       }
     });
   }
 
   /**
-   * Handles map keys command.
+   * Handles a cluster map put all command.
    */
-  private void doMapKeys(final Message<JsonObject> message) {
+  private void doMapPutAll(final Message<JsonObject> message) {
     final String name = message.body().getString("name");
     if (name == null) {
       message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
       return;
     }
 
-    context.execute(new Action<Set<Object>>() {
+    final JsonArray entries = message.body().getArray("entries");
+    if (entries == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No entries specified."));
+      return;
+    }
+
+    for (Object entry : entries) {
+      JsonArray pair = (JsonArray) entry;
+      if (pair.get(0) == null || pair.get(1) == null) {
+        message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid entry."));
+        return;
+      }
+    }
+
+    // The reply lists each key in the order in which it was received, along
+    // with its previous value if the key already existed, so the requester can
+    // publish create and update events for the chunk.
+    context.execute(formatKey(name), new Action<JsonArray>() {
       @Override
-      public Set<Object> perform() {
-        return data.getMap(formatKey(name)).keySet();
+      @SuppressWarnings("unchecked")
+      public JsonArray perform() {
+        Map<Object, Object> map = data.getMap(formatKey(name));
+        List<Object> previous = new ArrayList<>(entries.size());
+        if (map instanceof IMap) {
+          // Hazelcast puts are pipelined rather than applied one at a time.
+          List<Future<Object>> futures = new ArrayList<>(entries.size());
+          for (Object entry : entries) {
+            JsonArray pair = (JsonArray) entry;
+            futures.add(((IMap<Object, Object>) map).putAsync(pair.get(0), pair.get(1)));
+          }
+          try {
+            for (Future<Object> future : futures) {
+              previous.add(future.get());
+            }
+          } catch (InterruptedException | ExecutionException e) {
+            throw new ClusterException(e);
+          }
+        } else {
+          for (Object entry : entries) {
+            JsonArray pair = (JsonArray) entry;
+            previous.add(data.put(formatKey(name), pair.get(0), pair.get(1), 0));
+          }
+        }
+        JsonArray result = new JsonArray();
+        for (int i = 0; i < entries.size(); i++) {
+          JsonArray pair = new JsonArray().add(((JsonArray) entries.get(i)).get(0));
+          if (previous.get(i) != null) {
+            pair.add(previous.get(i));
+          }
+          result.addArray(pair);
+        }
+        return result;
       }
-    }, new Handler<AsyncResult<Set<Object>>>() {
+    }, new Handler<AsyncResult<JsonArray>>() {
       @Override
-      public void handle(AsyncResult<Set<Object>> result) {
+      public void handle(AsyncResult<JsonArray> result) {
         if (result.failed()) {
           message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
         } else {
-          message.reply(new JsonObject().putString("status", "ok").putArray("result", new JsonArray(result.result().toArray(new Object[result.result().size()]))));
+          message.reply(new JsonObject().putString("status", "ok").putArray("result", result.result()));
         }
       }
     });
   }
 
   /**
-   * Handles map values command.
+   * Handles a cluster map get all command.
+   */
+  private void doMapGetAll(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final JsonArray keys = message.body().getArray("keys");
+    if (keys == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No keys specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<JsonArray>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public JsonArray perform() {
+        Map<Object, Object> map = data.getMap(formatKey(name));
+        Map<Object, Object> values;
+        if (map instanceof IMap) {
+          values = ((IMap<Object, Object>) map).getAll(new HashSet<Object>(toList(keys)));
+        } else {
+          values = new HashMap<>();
+          for (Object key : keys) {
+            Object value = map.get(key);
+            if (value != null) {
+              values.put(key, value);
+            }
+          }
+        }
+        return toEntries(values);
+      }
+    }, new Handler<AsyncResult<JsonArray>>() {
+      @Override
+      public void handle(AsyncResult<JsonArray> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putArray("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a cluster map remove all command.
+   */
+  private void doMapRemoveAll(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final JsonArray keys = message.body().getArray("keys");
+    if (keys == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No keys specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<JsonArray>() {
+      @Override
+      public JsonArray perform() {
+        Map<Object, Object> map = data.getMap(formatKey(name));
+        Map<Object, Object> values = new HashMap<>();
+        for (Object key : keys) {
+          Object value = map.remove(key);
+          if (value != null) {
+            values.put(key, value);
+          }
+        }
+        return toEntries(values);
+      }
+    }, new Handler<AsyncResult<JsonArray>>() {
+      @Override
+      public void handle(AsyncResult<JsonArray> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putArray("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Replies to a paged keys or values request with the next page of a cursor.<p>
+   *
+   * If the cursor has more values then the page is sent with <code>more</code>
+   * set and the reply is awaited. The requester continues the cursor by replying
+   * with a <code>next</code> action or releases it with a <code>close</code> action.
+   * Continuing over the reply chain ensures each page is read from the cursor
+   * held by this manager regardless of which node received the original request.
+   */
+  private void doCursor(final Message<JsonObject> message, final String key, final DataCursor cursor) {
+    final Integer size = message.body().getInteger("size");
+    if (size == null || size < 1) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid page size."));
+      return;
+    }
+
+    context.execute(key, new Action<JsonArray>() {
+      @Override
+      public JsonArray perform() {
+        return cursor.next(size);
+      }
+    }, new Handler<AsyncResult<JsonArray>>() {
+      @Override
+      public void handle(AsyncResult<JsonArray> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else if (!cursor.hasNext()) {
+          message.reply(new JsonObject().putString("status", "ok").putArray("result", result.result()));
+        } else {
+          message.replyWithTimeout(new JsonObject().putString("status", "ok").putArray("result", result.result()).putBoolean("more", true), CURSOR_TIMEOUT, new Handler<AsyncResult<Message<JsonObject>>>() {
+            @Override
+            public void handle(AsyncResult<Message<JsonObject>> result) {
+              // If the requester closed the cursor or stopped responding then
+              // the cursor is simply dropped.
+              if (result.succeeded() && "next".equals(result.result().body().getString("action"))) {
+                result.result().body().putNumber("size", size);
+                doCursor(result.result(), key, cursor);
+              }
+            }
+          });
+        }
+      }
+    });
+  }
+
+  /**
+   * Converts a JSON array to a list of values.
+   */
+  private static List<Object> toList(JsonArray array) {
+    List<Object> values = new ArrayList<>(array.size());
+    for (Object value : array) {
+      values.add(value);
+    }
+    return values;
+  }
+
+  /**
+   * Converts a map to an array of key-value pairs.
+   */
+  private static JsonArray toEntries(Map<Object, Object> map) {
+    JsonArray entries = new JsonArray();
+    for (Map.Entry<Object, Object> entry : map.entrySet()) {
+      entries.addArray(new JsonArray().add(entry.getKey()).add(entry.getValue()));
+    }
+    return entries;
+  }
+
+  /**
+   * Handles a cluster map get command.
+   */
+  private void doMapGet(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Object key = message.body().getValue("key");
+    if (key == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Object>() {
+      @Override
+      public Object perform() {
+        return data.getMap(formatKey(name)).get(key);
+      }
+    }, new Handler<AsyncResult<Object>>() {
+      @Override
+      public void handle(AsyncResult<Object> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a cluster map remove command.
+   */
+  private void doMapRemove(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Object key = message.body().getValue("key");
+    if (key == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Object>() {
+      @Override
+      public Object perform() {
+        return data.getMap(formatKey(name)).remove(key);
+      }
+    }, new Handler<AsyncResult<Object>>() {
+      @Override
+      public void handle(AsyncResult<Object> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a cluster map put if absent command.
+   */
+  private void doMapPutIfAbsent(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Object key = message.body().getValue("key");
+    if (key == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+      return;
+    }
+
+    final Object value = message.body().getValue("value");
+    if (value == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Object>() {
+      @Override
+      public Object perform() {
+        return data.getMap(formatKey(name)).putIfAbsent(key, value);
+      }
+    }, new Handler<AsyncResult<Object>>() {
+      @Override
+      public void handle(AsyncResult<Object> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a cluster map replace command.
+   */
+  private void doMapReplace(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Object key = message.body().getValue("key");
+    if (key == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+      return;
+    }
+
+    final Object value = message.body().getValue("value");
+    if (value == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
+      return;
+    }
+
+    final Object expect = message.body().getValue("expect");
+    if (expect == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No expected value specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return data.getMap(formatKey(name)).replace(key, expect, value);
+      }
+    }, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a cluster map conditional remove command.
+   */
+  private void doMapRemoveValue(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Object key = message.body().getValue("key");
+    if (key == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+      return;
+    }
+
+    final Object value = message.body().getValue("value");
+    if (value == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return data.getMap(formatKey(name)).remove(key, value);
+      }
+    }, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a cluster map merge command.
+   */
+  private void doMapMerge(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Object key = message.body().getValue("key");
+    if (key == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+      return;
+    }
+
+    final Object value = message.body().getValue("value");
+    if (value == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
+      return;
+    }
+
+    final MergeOperation operation;
+    try {
+      operation = MergeOperation.parse(message.body().getString("operation", ""));
+    } catch (IllegalArgumentException e) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", e.getMessage()));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Object>() {
+      @Override
+      public Object perform() {
+        // Whether the key was created or updated is only known here, so merge
+        // events are published by the manager rather than by watchable maps.
+        MapEvent<Object, Object> event = data.merge(formatKey(name), key, value, operation);
+        WatchDispatcher.publish(vertx.eventBus(), name, event.type(), event.key(), event.value());
+        return event.value();
+      }
+    }, new Handler<AsyncResult<Object>>() {
+      @Override
+      public void handle(AsyncResult<Object> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putValue("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a cluster exists command.
+   */
+  private void doMapContainsKey(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final Object key = message.body().getValue("key");
+    if (key == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No key specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return data.getMap(formatKey(name)).containsKey(key);
+      }
+    }, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles map keys command.
+   */
+  private void doMapKeys(final Message<JsonObject> message) {
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    if (message.body().containsField("size")) {
+      doCursor(message, formatKey(name), DataCursor.mapKeys(data, formatKey(name)));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Set<Object>>() {
+      @Override
+      public Set<Object> perform() {
+        return data.getMap(formatKey(name)).keySet();
+      }
+    }, new Handler<AsyncResult<Set<Object>>>() {
+      @Override
+      public void handle(AsyncResult<Set<Object>> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putArray("result", new JsonArray(result.result().toArray(new Object[result.result().size()]))));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles map values command.
    */
   private void doMapValues(final Message<JsonObject> message) {
     final String name = message.body().getString("name");
@@ -1806,7 +2593,12 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Collection<Object>>() {
+    if (message.body().containsField("size")) {
+      doCursor(message, formatKey(name), DataCursor.mapValues(data, formatKey(name)));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Collection<Object>>() {
       @Override
       public Collection<Object> perform() {
         return data.getMap(formatKey(name)).values();
@@ -1833,7 +2625,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getMap(formatKey(name)).isEmpty();
@@ -1860,7 +2652,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Integer>() {
+    context.execute(formatKey(name), new Action<Integer>() {
       @Override
       public Integer perform() {
         return data.getMap(formatKey(name)).size();
@@ -1887,7 +2679,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Void>() {
+    context.execute(formatKey(name), new Action<Void>() {
       @Override
       public Void perform() {
         data.getMap(formatKey(name)).clear();
@@ -1921,7 +2713,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getList(formatKey(name)).add(value);
@@ -1954,7 +2746,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<Object>() {
       @Override
       public Object perform() {
         return data.getList(formatKey(name)).get(index);
@@ -1984,7 +2776,7 @@ public class DefaultClusterManager implements ClusterManager {
     if (message.body().containsField("index")) {
       final int index = message.body().getInteger("index");
 
-      context.execute(new Action<Object>() {
+      context.execute(formatKey(name), new Action<Object>() {
         @Override
         public Object perform() {
           return data.getList(formatKey(name)).remove(index);
@@ -2004,7 +2796,7 @@ public class DefaultClusterManager implements ClusterManager {
       if (value == null) {
         message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
       } else {
-        context.execute(new Action<Boolean>() {
+        context.execute(formatKey(name), new Action<Boolean>() {
           @Override
           public Boolean perform() {
             return data.getList(formatKey(name)).remove(value);
@@ -2039,7 +2831,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getList(formatKey(name)).contains(value);
@@ -2066,7 +2858,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getList(formatKey(name)).isEmpty();
@@ -2093,7 +2885,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Integer>() {
+    context.execute(formatKey(name), new Action<Integer>() {
       @Override
       public Integer perform() {
         return data.getList(formatKey(name)).size();
@@ -2120,7 +2912,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Void>() {
+    context.execute(formatKey(name), new Action<Void>() {
       @Override
       public Void perform() {
         data.getList(formatKey(name)).clear();
@@ -2154,7 +2946,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getSet(formatKey(name)).add(value);
@@ -2185,7 +2977,7 @@ public class DefaultClusterManager implements ClusterManager {
     if (value == null) {
       message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
     } else {
-      context.execute(new Action<Boolean>() {
+      context.execute(formatKey(name), new Action<Boolean>() {
         @Override
         public Boolean perform() {
           return data.getSet(formatKey(name)).remove(value);
@@ -2219,7 +3011,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getSet(formatKey(name)).contains(value);
@@ -2246,7 +3038,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getSet(formatKey(name)).isEmpty();
@@ -2273,7 +3065,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Integer>() {
+    context.execute(formatKey(name), new Action<Integer>() {
       @Override
       public Integer perform() {
         return data.getSet(formatKey(name)).size();
@@ -2300,7 +3092,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Void>() {
+    context.execute(formatKey(name), new Action<Void>() {
       @Override
       public Void perform() {
         data.getSet(formatKey(name)).clear();
@@ -2334,7 +3126,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getQueue(formatKey(name)).add(value);
@@ -2366,7 +3158,7 @@ public class DefaultClusterManager implements ClusterManager {
       message.reply(new JsonObject().putString("status", "error").putString("message", "No value specified."));
     } else {
 
-      context.execute(new Action<Boolean>() {
+      context.execute(formatKey(name), new Action<Boolean>() {
         @Override
         public Boolean perform() {
           return data.getQueue(formatKey(name)).remove(value);
@@ -2400,7 +3192,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getQueue(formatKey(name)).contains(value);
@@ -2427,7 +3219,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getQueue(formatKey(name)).isEmpty();
@@ -2454,7 +3246,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Integer>() {
+    context.execute(formatKey(name), new Action<Integer>() {
       @Override
       public Integer perform() {
         return data.getQueue(formatKey(name)).size();
@@ -2481,7 +3273,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Void>() {
+    context.execute(formatKey(name), new Action<Void>() {
       @Override
       public Void perform() {
         data.getQueue(formatKey(name)).clear();
@@ -2515,7 +3307,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Boolean>() {
+    context.execute(formatKey(name), new Action<Boolean>() {
       @Override
       public Boolean perform() {
         return data.getQueue(formatKey(name)).offer(value);
@@ -2542,7 +3334,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<Object>() {
       @Override
       public Object perform() {
         return data.getQueue(formatKey(name)).element();
@@ -2569,7 +3361,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<Object>() {
       @Override
       public Object perform() {
         return data.getQueue(formatKey(name)).poll();
@@ -2596,7 +3388,7 @@ public class DefaultClusterManager implements ClusterManager {
       return;
     }
 
-    context.execute(new Action<Object>() {
+    context.execute(formatKey(name), new Action<Object>() {
       @Override
       public Object perform() {
         return data.getQueue(formatKey(name)).peek();
@@ -2613,4 +3405,122 @@ public class DefaultClusterManager implements ClusterManager {
     });
   }
 
+  /**
+   * Returns the collection targeted by a bulk collection command.
+   */
+  private Collection<Object> getCollection(String type, String name) {
+    switch (type) {
+      case "list":
+        return data.getList(formatKey(name));
+      case "set":
+        return data.getSet(formatKey(name));
+      case "queue":
+        return data.getQueue(formatKey(name));
+      default:
+        throw new IllegalArgumentException("Invalid collection type " + type);
+    }
+  }
+
+  /**
+   * Handles a list, set or queue add all command.
+   */
+  private void doCollectionAddAll(final Message<JsonObject> message) {
+    final String type = message.body().getString("type");
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final JsonArray values = message.body().getArray("values");
+    if (values == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No values specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return getCollection(type, name).addAll(toList(values));
+      }
+    }, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a list, set or queue remove all command.
+   */
+  private void doCollectionRemoveAll(final Message<JsonObject> message) {
+    final String type = message.body().getString("type");
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final JsonArray values = message.body().getArray("values");
+    if (values == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No values specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return getCollection(type, name).removeAll(toList(values));
+      }
+    }, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+        }
+      }
+    });
+  }
+
+  /**
+   * Handles a list, set or queue contains all command.
+   */
+  private void doCollectionContainsAll(final Message<JsonObject> message) {
+    final String type = message.body().getString("type");
+    final String name = message.body().getString("name");
+    if (name == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No name specified."));
+      return;
+    }
+
+    final JsonArray values = message.body().getArray("values");
+    if (values == null) {
+      message.reply(new JsonObject().putString("status", "error").putString("message", "No values specified."));
+      return;
+    }
+
+    context.execute(formatKey(name), new Action<Boolean>() {
+      @Override
+      public Boolean perform() {
+        return getCollection(type, name).containsAll(toList(values));
+      }
+    }, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putBoolean("result", result.result()));
+        }
+      }
+    });
+  }
+
 }
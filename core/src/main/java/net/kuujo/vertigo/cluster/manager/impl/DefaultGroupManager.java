@@ -340,7 +340,14 @@ public class DefaultGroupManager implements GroupManager {
           }, new Handler<AsyncResult<String>>() {
             @Override
             public void handle(AsyncResult<String> result) {
-              message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+              if (result.failed()) {
+                // The deployment couldn't be recorded in the cluster, so undeploy it
+                // rather than leave a deployment the cluster doesn't know about.
+                platform.undeployModule(deploymentID, null);
+                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+              } else {
+                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+              }
             }
           });
         }
@@ -382,10 +389,16 @@ public class DefaultGroupManager implements GroupManager {
             }, new Handler<AsyncResult<String>>() {
               @Override
               public void handle(AsyncResult<String> result) {
-                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                if (result.failed()) {
+                  // The deployment couldn't be recorded in the cluster, so undeploy it
+                  // rather than leave a deployment the cluster doesn't know about.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                }
               }
             });
-            message.reply(new JsonObject().putString("status", "ok").putString("id", result.result()));
           }
         }
       });
@@ -406,10 +419,16 @@ public class DefaultGroupManager implements GroupManager {
             }, new Handler<AsyncResult<String>>() {
               @Override
               public void handle(AsyncResult<String> result) {
-                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                if (result.failed()) {
+                  // The deployment couldn't be recorded in the cluster, so undeploy it
+                  // rather than leave a deployment the cluster doesn't know about.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                }
               }
             });
-            message.reply(new JsonObject().putString("status", "ok").putString("id", result.result()));
           }
         }
       });
@@ -449,16 +468,20 @@ public class DefaultGroupManager implements GroupManager {
       removeDeployment(deploymentID, new Handler<AsyncResult<Void>>() {
         @Override
         public void handle(AsyncResult<Void> result) {
-          platform.undeployModule(deploymentID, new Handler<AsyncResult<Void>>() {
-            @Override
-            public void handle(AsyncResult<Void> result) {
-              if (result.failed()) {
-                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
-              } else {
-                message.reply(new JsonObject().putString("status", "ok"));
+          if (result.failed()) {
+            message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+          } else {
+            platform.undeployModule(deploymentID, new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                if (result.failed()) {
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok"));
+                }
               }
-            }
-          });
+            });
+          }
         }
       });
     }
@@ -475,16 +498,20 @@ public class DefaultGroupManager implements GroupManager {
       removeDeployment(deploymentID, new Handler<AsyncResult<Void>>() {
         @Override
         public void handle(AsyncResult<Void> result) {
-          platform.undeployVerticle(deploymentID, new Handler<AsyncResult<Void>>() {
-            @Override
-            public void handle(AsyncResult<Void> result) {
-              if (result.failed()) {
-                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
-              } else {
-                message.reply(new JsonObject().putString("status", "ok"));
+          if (result.failed()) {
+            message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+          } else {
+            platform.undeployVerticle(deploymentID, new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                if (result.failed()) {
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok"));
+                }
               }
-            }
-          });
+            });
+          }
         }
       });
     }
@@ -47,6 +47,7 @@ import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.core.file.AsyncFile;
 import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.spi.Action;
 
@@ -101,6 +102,9 @@ public class DefaultNodeManager implements NodeManager {
           case "undeploy":
             doUndeploy(message);
             break;
+          case "loops":
+            doLoops(message);
+            break;
           default:
             message.reply(new JsonObject().putString("status", "error").putString("message", "Invalid action " + action));
             break;
@@ -189,6 +193,22 @@ public class DefaultNodeManager implements NodeManager {
     message.reply(new JsonObject().putString("status", "pong").putString("result", "node"));
   }
 
+  /**
+   * Reports event loop placement on the node.
+   */
+  private void doLoops(final Message<JsonObject> message) {
+    platform.getEventLoopInfo(new Handler<AsyncResult<JsonArray>>() {
+      @Override
+      public void handle(AsyncResult<JsonArray> result) {
+        if (result.failed()) {
+          message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+        } else {
+          message.reply(new JsonObject().putString("status", "ok").putArray("result", result.result()));
+        }
+      }
+    });
+  }
+
   /**
    * Checks if a module is installed.
    */
@@ -432,7 +452,14 @@ public class DefaultNodeManager implements NodeManager {
           }, new Handler<AsyncResult<String>>() {
             @Override
             public void handle(AsyncResult<String> result) {
-              message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+              if (result.failed()) {
+                // The deployment couldn't be recorded in the cluster, so undeploy it
+                // rather than leave a deployment the cluster doesn't know about.
+                platform.undeployModule(deploymentID, null);
+                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+              } else {
+                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+              }
             }
           });
         }
@@ -474,7 +501,14 @@ public class DefaultNodeManager implements NodeManager {
             }, new Handler<AsyncResult<String>>() {
               @Override
               public void handle(AsyncResult<String> result) {
-                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                if (result.failed()) {
+                  // The deployment couldn't be recorded in the cluster, so undeploy it
+                  // rather than leave a deployment the cluster doesn't know about.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                }
               }
             });
           }
@@ -497,7 +531,14 @@ public class DefaultNodeManager implements NodeManager {
             }, new Handler<AsyncResult<String>>() {
               @Override
               public void handle(AsyncResult<String> result) {
-                message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                if (result.failed()) {
+                  // The deployment couldn't be recorded in the cluster, so undeploy it
+                  // rather than leave a deployment the cluster doesn't know about.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok").putString("id", deploymentID));
+                }
               }
             });
           }
@@ -563,9 +604,15 @@ public class DefaultNodeManager implements NodeManager {
             }, new Handler<AsyncResult<Void>>() {
               @Override
               public void handle(AsyncResult<Void> result) {
-                // And store the manager's deployment ID in the local managers map.
-                managers.put(context.address(), deploymentID);
-                doDeployNetwork(context, message);
+                if (result.failed()) {
+                  // The network couldn't be recorded in the cluster, so undeploy the manager.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  // And store the manager's deployment ID in the local managers map.
+                  managers.put(context.address(), deploymentID);
+                  doDeployNetwork(context, message);
+                }
               }
             });
           }
@@ -622,9 +669,15 @@ public class DefaultNodeManager implements NodeManager {
             }, new Handler<AsyncResult<Void>>() {
               @Override
               public void handle(AsyncResult<Void> result) {
-                // And store the manager's deployment ID in the local managers map.
-                managers.put(context.address(), deploymentID);
-                doDeployNetwork(context, message);
+                if (result.failed()) {
+                  // The network couldn't be recorded in the cluster, so undeploy the manager.
+                  platform.undeployVerticle(deploymentID, null);
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  // And store the manager's deployment ID in the local managers map.
+                  managers.put(context.address(), deploymentID);
+                  doDeployNetwork(context, message);
+                }
               }
             });
           }
@@ -720,16 +773,20 @@ public class DefaultNodeManager implements NodeManager {
       removeDeployment(deploymentID, new Handler<AsyncResult<Void>>() {
         @Override
         public void handle(AsyncResult<Void> result) {
-          platform.undeployModule(deploymentID, new Handler<AsyncResult<Void>>() {
-            @Override
-            public void handle(AsyncResult<Void> result) {
-              if (result.failed()) {
-                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
-              } else {
-                message.reply(new JsonObject().putString("status", "ok"));
+          if (result.failed()) {
+            message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+          } else {
+            platform.undeployModule(deploymentID, new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                if (result.failed()) {
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok"));
+                }
               }
-            }
-          });
+            });
+          }
         }
       });
     }
@@ -746,16 +803,20 @@ public class DefaultNodeManager implements NodeManager {
       removeDeployment(deploymentID, new Handler<AsyncResult<Void>>() {
         @Override
         public void handle(AsyncResult<Void> result) {
-          platform.undeployVerticle(deploymentID, new Handler<AsyncResult<Void>>() {
-            @Override
-            public void handle(AsyncResult<Void> result) {
-              if (result.failed()) {
-                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
-              } else {
-                message.reply(new JsonObject().putString("status", "ok"));
+          if (result.failed()) {
+            message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+          } else {
+            platform.undeployVerticle(deploymentID, new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                if (result.failed()) {
+                  message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                } else {
+                  message.reply(new JsonObject().putString("status", "ok"));
+                }
               }
-            }
-          });
+            });
+          }
         }
       });
     }
@@ -861,7 +922,11 @@ public class DefaultNodeManager implements NodeManager {
                         }, new Handler<AsyncResult<Void>>() {
                           @Override
                           public void handle(AsyncResult<Void> result) {
-                            message.reply(new JsonObject().putString("status", "ok"));
+                            if (result.failed()) {
+                              message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                            } else {
+                              message.reply(new JsonObject().putString("status", "ok"));
+                            }
                           }
                         });
                       }
@@ -955,7 +1020,11 @@ public class DefaultNodeManager implements NodeManager {
                           }, new Handler<AsyncResult<Void>>() {
                             @Override
                             public void handle(AsyncResult<Void> result) {
-                              message.reply(new JsonObject().putString("status", "ok"));
+                              if (result.failed()) {
+                                message.reply(new JsonObject().putString("status", "error").putString("message", result.cause().getMessage()));
+                              } else {
+                                message.reply(new JsonObject().putString("status", "ok"));
+                              }
                             }
                           });
                         }
@@ -15,21 +15,39 @@
  */
 package net.kuujo.vertigo.cluster.manager.impl;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+
+import org.vertx.java.core.Handler;
+
+import com.hazelcast.core.EntryAdapter;
+import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IMap;
 import com.hazelcast.core.MultiMap;
 
 /**
- * Hazelcast-based cluster data provider.
+ * Hazelcast-based cluster data provider.<p>
+ *
+ * Map entries with a time to live are expired by Hazelcast. Expirations are
+ * observed with a local entry listener so that each expiration is handled
+ * only by the member that owns the key, so the expire handler for a map must
+ * be set on every member.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 class HazelcastClusterData implements ClusterData {
   private final HazelcastInstance hazelcast;
+  private final Set<String> expiring = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
   public HazelcastClusterData(HazelcastInstance hazelcast) {
     this.hazelcast = hazelcast;
@@ -41,10 +59,51 @@ class HazelcastClusterData implements ClusterData {
   }
 
   @Override
-  public <K, V> Map<K, V> getMap(String name) {
+  public <K, V> ConcurrentMap<K, V> getMap(String name) {
     return hazelcast.getMap(name);
   }
 
+  @Override
+  public <K, V> V put(String name, K key, V value, long ttl) {
+    if (ttl > 0) {
+      return hazelcast.<K, V>getMap(name).put(key, value, ttl, TimeUnit.MILLISECONDS);
+    }
+    return hazelcast.<K, V>getMap(name).put(key, value);
+  }
+
+  @Override
+  public <K, V> void expireHandler(String name, final Handler<MapEvent<K, V>> handler) {
+    if (expiring.add(name)) {
+      hazelcast.<K, V>getMap(name).addLocalEntryListener(new EntryAdapter<K, V>() {
+        @Override
+        public void entryEvicted(EntryEvent<K, V> event) {
+          handler.handle(new MapEvent<K, V>(MapEvent.Type.DELETE, event.getKey(), event.getValue()));
+        }
+      });
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, V> MapEvent<K, V> merge(String name, K key, V value, MergeOperation operation) {
+    // The map's native conditional operations are used so that the key
+    // is only set if it hasn't changed since it was read.
+    IMap<K, V> map = hazelcast.getMap(name);
+    while (true) {
+      V current = map.get(key);
+      if (current == null) {
+        if (map.putIfAbsent(key, value) == null) {
+          return new MapEvent<K, V>(MapEvent.Type.CREATE, key, value);
+        }
+      } else {
+        V merged = (V) operation.merge(current, value);
+        if (map.replace(key, current, merged)) {
+          return new MapEvent<K, V>(MapEvent.Type.UPDATE, key, merged);
+        }
+      }
+    }
+  }
+
   @Override
   public <T> Set<T> getSet(String name) {
     return hazelcast.getSet(name);
@@ -60,4 +119,9 @@ class HazelcastClusterData implements ClusterData {
     return hazelcast.getQueue(name);
   }
 
+  @Override
+  public IAtomicLong getAtomicLong(String name) {
+    return hazelcast.getAtomicLong(name);
+  }
+
 }
@@ -15,44 +15,125 @@
  */
 package net.kuujo.vertigo.cluster.manager.impl;
 
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+import net.kuujo.vertigo.util.TimerWheel;
+
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.shareddata.Shareable;
 
 import com.hazelcast.core.EntryListener;
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.IFunction;
 import com.hazelcast.core.MultiMap;
 import com.hazelcast.monitor.LocalMultiMapStats;
 
 /**
- * Vert.x based cluster data.
+ * Vert.x based cluster data.<p>
+ *
+ * Maps and sets are stored directly in Vert.x shared data. Multi-maps, lists,
+ * queues and atomic longs are concurrent structures that are registered in shared data
+ * as {@link Shareable} objects so that all users of the same Vert.x instance
+ * operate on the same structures.<p>
+ *
+ * Map entries with a time to live are expired by a hashed {@link TimerWheel}
+ * that is shared by all maps and runs on its own event loop context. Writing
+ * an entry by any map operation cancels its pending expiration.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 class VertxClusterData implements ClusterData {
+  private static final String STRUCTURES_MAP = "__vertigo.data";
+  private static final String EXPIRY_KEY = "__expiry";
   private final Vertx vertx;
+  private final ConcurrentMap<String, Shareable> structures;
 
   public VertxClusterData(Vertx vertx) {
     this.vertx = vertx;
+    this.structures = vertx.sharedData().getMap(STRUCTURES_MAP);
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public <K, V> MultiMap<K, V> getMultiMap(String name) {
-    return new SharedDataMultiMap<K, V>(vertx.sharedData().<K, String>getMap(String.format("__map.%s", name)));
+    String key = String.format("__map.%s", name);
+    Shareable map = structures.get(key);
+    if (map == null) {
+      map = register(key, new SharedDataMultiMap<K, V>());
+    }
+    return (MultiMap<K, V>) map;
   }
 
   @Override
-  public <K, V> Map<K, V> getMap(String name) {
-    return vertx.sharedData().getMap(name);
+  public <K, V> ConcurrentMap<K, V> getMap(String name) {
+    ConcurrentMap<K, V> map = vertx.sharedData().getMap(name);
+    SharedDataExpiry expiry = (SharedDataExpiry) structures.get(EXPIRY_KEY);
+    return expiry != null ? new ExpiringMap<K, V>(name, map, expiry) : map;
+  }
+
+  @Override
+  public <K, V> V put(String name, K key, V value, long ttl) {
+    V previous = this.<K, V>getMap(name).put(key, value);
+    if (ttl > 0) {
+      getExpiry().schedule(name, key, value, ttl);
+    }
+    return previous;
+  }
+
+  @Override
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public <K, V> void expireHandler(String name, Handler<MapEvent<K, V>> handler) {
+    getExpiry().handlers.putIfAbsent(name, (Handler) handler);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, V> MapEvent<K, V> merge(String name, K key, V value, MergeOperation operation) {
+    ConcurrentMap<K, V> map = getMap(name);
+    while (true) {
+      V current = map.get(key);
+      if (current == null) {
+        if (map.putIfAbsent(key, value) == null) {
+          return new MapEvent<K, V>(MapEvent.Type.CREATE, key, value);
+        }
+      } else {
+        V merged = (V) operation.merge(current, value);
+        if (map.replace(key, current, merged)) {
+          return new MapEvent<K, V>(MapEvent.Type.UPDATE, key, merged);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the shared map expiry.
+   */
+  private SharedDataExpiry getExpiry() {
+    Shareable expiry = structures.get(EXPIRY_KEY);
+    if (expiry == null) {
+      expiry = register(EXPIRY_KEY, new SharedDataExpiry(vertx));
+    }
+    return (SharedDataExpiry) expiry;
   }
 
   @Override
@@ -61,25 +142,91 @@ class VertxClusterData implements ClusterData {
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public <T> List<T> getList(String name) {
-    return new SharedDataList<T>(vertx.sharedData().<Integer, Object>getMap(String.format("__list.%s", name)));
+    String key = String.format("__list.%s", name);
+    Shareable list = structures.get(key);
+    if (list == null) {
+      list = register(key, new SharedDataList<T>());
+    }
+    return (List<T>) list;
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public <T> Queue<T> getQueue(String name) {
-    return new SharedDataQueue<T>(vertx.sharedData().<Integer, Object>getMap(String.format("__queue.%s", name)));
+    String key = String.format("__queue.%s", name);
+    Shareable queue = structures.get(key);
+    if (queue == null) {
+      queue = register(key, new SharedDataQueue<T>());
+    }
+    return (Queue<T>) queue;
+  }
+
+  @Override
+  public IAtomicLong getAtomicLong(String name) {
+    String key = String.format("__long.%s", name);
+    Shareable value = structures.get(key);
+    if (value == null) {
+      value = register(key, new SharedDataAtomicLong(name));
+    }
+    return (IAtomicLong) value;
   }
 
-  private static class SharedDataMultiMap<K, V> implements MultiMap<K, V> {
-    private final Map<K, String> map;
+  /**
+   * Registers a structure, returning any structure that was registered concurrently.
+   */
+  private Shareable register(String key, Shareable structure) {
+    Shareable current = structures.putIfAbsent(key, structure);
+    return current != null ? current : structure;
+  }
 
-    public SharedDataMultiMap(Map<K, String> map) {
-      this.map = map;
+  /**
+   * Copies a value if it's a mutable JSON value.
+   */
+  @SuppressWarnings("unchecked")
+  private static <V> V copy(V value) {
+    if (value instanceof JsonObject) {
+      return (V) ((JsonObject) value).copy();
+    } else if (value instanceof JsonArray) {
+      return (V) ((JsonArray) value).copy();
+    }
+    return value;
+  }
+
+  /**
+   * Multi-map with values stored in per-key buckets.<p>
+   *
+   * Buckets are held in a concurrent map and each bucket is locked
+   * independently, so operations on different keys never contend.
+   * JSON values are copied in and out of the map since they're mutable.
+   */
+  private static class SharedDataMultiMap<K, V> implements MultiMap<K, V>, Shareable {
+    private final ConcurrentMap<K, Bucket<V>> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * A bucket of values for a single key. Once a bucket is emptied it is
+     * removed from the map and marked dead so that concurrent writers can
+     * retry with a new bucket.
+     */
+    @SuppressWarnings("serial")
+    private static class Bucket<V> extends ArrayList<V> {
+      private boolean dead;
+    }
+
+    private static <V> List<V> copyAll(Bucket<V> bucket) {
+      synchronized (bucket) {
+        List<V> values = new ArrayList<>(bucket.size());
+        for (V value : bucket) {
+          values.add(copy(value));
+        }
+        return values;
+      }
     }
 
     @Override
     public void destroy() {
-      map.clear();
+      clear();
     }
 
     @Override
@@ -114,31 +261,41 @@ class VertxClusterData implements ClusterData {
 
     @Override
     public void clear() {
-      map.clear();
+      for (K key : buckets.keySet()) {
+        remove(key);
+      }
     }
 
     @Override
     public boolean containsEntry(K key, V value) {
-      String sdata = map.get(key);
-      if (sdata == null) {
+      Bucket<V> bucket = buckets.get(key);
+      if (bucket == null) {
         return false;
       }
-      JsonArray data = new JsonArray(sdata);
-      return data.contains(value);
+      synchronized (bucket) {
+        return bucket.contains(value);
+      }
     }
 
     @Override
     public boolean containsKey(K key) {
-      return map.containsKey(key);
+      return buckets.containsKey(key);
     }
 
     @Override
     public boolean containsValue(Object value) {
-      return map.containsValue(value);
+      for (Bucket<V> bucket : buckets.values()) {
+        synchronized (bucket) {
+          if (bucket.contains(value)) {
+            return true;
+          }
+        }
+      }
+      return false;
     }
 
     @Override
-    public Set<Entry<K, V>> entrySet() {
+    public Set<Map.Entry<K, V>> entrySet() {
       throw new UnsupportedOperationException("entrySet not supported.");
     }
 
@@ -148,14 +305,9 @@ class VertxClusterData implements ClusterData {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Collection<V> get(K key) {
-      String sdata = map.get(key);
-      if (sdata == null) {
-        return null;
-      }
-      JsonArray data = new JsonArray(sdata);
-      return data.toList();
+      Bucket<V> bucket = buckets.get(key);
+      return bucket != null ? copyAll(bucket) : null;
     }
 
     @Override
@@ -175,12 +327,12 @@ class VertxClusterData implements ClusterData {
 
     @Override
     public Set<K> keySet() {
-      return map.keySet();
+      return buckets.keySet();
     }
 
     @Override
     public Set<K> localKeySet() {
-      return map.keySet();
+      return buckets.keySet();
     }
 
     @Override
@@ -195,59 +347,53 @@ class VertxClusterData implements ClusterData {
 
     @Override
     public boolean put(K key, V value) {
-      synchronized (map) {
-        String sdata = map.get(key);
-        JsonArray data = sdata != null ? new JsonArray(sdata) : new JsonArray();
-        data.add(value);
-        map.put(key, data.encode());
+      V copy = copy(value);
+      while (true) {
+        Bucket<V> bucket = buckets.get(key);
+        if (bucket == null) {
+          bucket = new Bucket<V>();
+          Bucket<V> current = buckets.putIfAbsent(key, bucket);
+          if (current != null) {
+            bucket = current;
+          }
+        }
+        synchronized (bucket) {
+          if (!bucket.dead) {
+            bucket.add(copy);
+            return true;
+          }
+        }
       }
-      return true;
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public Collection<V> remove(Object key) {
-      synchronized (map) {
-        String sdata = map.remove(key);
-        if (sdata == null) {
-          return null;
-        }
-        JsonArray data = new JsonArray(sdata);
-        return data.toList();
+      Bucket<V> bucket = buckets.remove(key);
+      if (bucket == null) {
+        return null;
+      }
+      synchronized (bucket) {
+        bucket.dead = true;
+        return new ArrayList<V>(bucket);
       }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public boolean remove(Object key, Object value) {
-      synchronized (map) {
-        String sdata = map.get(key);
-        if (sdata == null) {
+      Bucket<V> bucket = buckets.get(key);
+      if (bucket == null) {
+        return false;
+      }
+      synchronized (bucket) {
+        if (bucket.dead || !bucket.remove(value)) {
           return false;
         }
-        JsonArray data = new JsonArray(sdata);
-        if (data.contains(value)) {
-          JsonArray newData = new JsonArray();
-          boolean removed = false;
-          for (Object item : data) {
-            if (!removed) {
-              if (!item.equals(value)) {
-                newData.add(item);
-              } else {
-                removed = true;
-              }
-            } else {
-              newData.add(item);
-            }
-          }
-          if (newData.size() > 0) {
-            map.put((K) key, newData.encode());
-          } else {
-            map.remove((K) key);
-          }
-          return true;
+        if (bucket.isEmpty()) {
+          bucket.dead = true;
+          buckets.remove(key, bucket);
         }
-        return false;
+        return true;
       }
     }
 
@@ -258,7 +404,7 @@ class VertxClusterData implements ClusterData {
 
     @Override
     public int size() {
-      return map.size();
+      return buckets.size();
     }
 
     @Override
@@ -278,355 +424,389 @@ class VertxClusterData implements ClusterData {
 
     @Override
     public int valueCount(K key) {
-      String sdata = map.get(key);
-      JsonArray data = sdata != null ? new JsonArray(sdata) : new JsonArray();
-      return data.size();
+      Bucket<V> bucket = buckets.get(key);
+      if (bucket == null) {
+        return 0;
+      }
+      synchronized (bucket) {
+        return bucket.size();
+      }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public Collection<V> values() {
       List<V> values = new ArrayList<>();
-      for (Map.Entry<K, String> entry : map.entrySet()) {
-        values.addAll(new JsonArray(entry.getValue()).toList());
+      for (Bucket<V> bucket : buckets.values()) {
+        values.addAll(copyAll(bucket));
       }
       return values;
     }
-    
+
   }
 
-  private static class SharedDataList<T> implements List<T> {
-    private final Map<Integer, Object> map;
-    private int currentSize = 0;
-  
-    public SharedDataList(Map<Integer, Object> map) {
-      this.map = map;
-      this.currentSize = (int) (map.containsKey(-1) ? map.get(-1) : 0);
+  /**
+   * Copy-on-write list. Reads never block and writes are atomic.
+   * JSON values are copied in and out of the list since they're mutable.
+   */
+  @SuppressWarnings("serial")
+  private static class SharedDataList<T> extends CopyOnWriteArrayList<T> implements Shareable {
+
+    @Override
+    public boolean add(T value) {
+      return super.add(copy(value));
     }
-  
+
     @Override
-    public int size() {
-      return currentSize;
+    public void add(int index, T value) {
+      super.add(index, copy(value));
     }
-  
+
     @Override
-    public boolean isEmpty() {
-      return currentSize == 0;
+    public T set(int index, T value) {
+      return super.set(index, copy(value));
     }
-  
+
     @Override
-    public boolean contains(Object o) {
-      return map.values().contains(o);
+    public T get(int index) {
+      return copy(super.get(index));
     }
-  
+
     @Override
-    public Iterator<T> iterator() {
-      throw new UnsupportedOperationException("Not supported.");
+    public T remove(int index) {
+      return copy(super.remove(index));
     }
-  
+
+  }
+
+  /**
+   * Lock-free queue. JSON values are copied in and out of the queue
+   * since they're mutable.
+   */
+  @SuppressWarnings("serial")
+  private static class SharedDataQueue<T> extends ConcurrentLinkedQueue<T> implements Shareable {
+
     @Override
-    public Object[] toArray() {
-      throw new UnsupportedOperationException("Not supported.");
+    public boolean add(T value) {
+      return offer(value);
     }
-  
+
     @Override
-    @SuppressWarnings("hiding")
-    public <T> T[] toArray(T[] a) {
-      throw new UnsupportedOperationException("Not supported.");
+    public boolean offer(T value) {
+      return super.offer(copy(value));
     }
-  
+
     @Override
-    public boolean containsAll(Collection<?> c) {
-      return map.values().containsAll(c);
+    public T poll() {
+      return copy(super.poll());
     }
-  
+
+    @Override
+    public T peek() {
+      return copy(super.peek());
+    }
+
     @Override
-    public boolean addAll(Collection<? extends T> c) {
-      for (T value : c) {
-        add(value);
+    public T remove() {
+      T value = poll();
+      if (value == null) {
+        throw new IllegalStateException("Queue is empty.");
       }
-      return true;
+      return value;
     }
-  
+
     @Override
-    public boolean addAll(int index, Collection<? extends T> c) {
-      int i = index;
-      for (T value : c) {
-        add(i, value);
-        i++;
+    public T element() {
+      T value = peek();
+      if (value == null) {
+        throw new IllegalStateException("Queue is empty.");
       }
-      return true;
+      return value;
     }
-  
+
+  }
+
+  /**
+   * Atomic long.
+   */
+  @SuppressWarnings("serial")
+  private static class SharedDataAtomicLong extends AtomicLong implements IAtomicLong, Shareable {
+    private final String name;
+
+    private SharedDataAtomicLong(String name) {
+      this.name = name;
+    }
+
     @Override
-    public boolean removeAll(Collection<?> c) {
-      throw new UnsupportedOperationException("Not supported.");
+    public Object getId() {
+      return name;
     }
-  
+
     @Override
-    public boolean retainAll(Collection<?> c) {
-      throw new UnsupportedOperationException("Not supported.");
+    public String getName() {
+      return name;
     }
-  
+
     @Override
-    @SuppressWarnings("unchecked")
-    public T get(int index) {
-      if (index > currentSize-1) {
-        throw new IndexOutOfBoundsException("Index out of bounds.");
-      } else {
-        return (T) map.get(index);
-      }
+    public String getPartitionKey() {
+      throw new UnsupportedOperationException("getPartitionKey not supported.");
+    }
+
+    @Override
+    public String getServiceName() {
+      throw new UnsupportedOperationException("getServiceName not supported.");
     }
-  
+
     @Override
-    public boolean add(T e) {
-      map.put(currentSize, e);
-      currentSize++;
-      map.put(-1, currentSize);
-      return true;
+    public void destroy() {
+      set(0);
     }
-  
+
     @Override
-    public void add(int index, T element) {
-      map.put(currentSize, element);
-      currentSize++;
-      map.put(-1, currentSize);
+    public void alter(IFunction<Long, Long> function) {
+      alterAndGet(function);
     }
-  
+
     @Override
-    public int indexOf(Object o) {
-      for (int i = 0; i < currentSize; i++) {
-        if (map.get(i).equals(o)) {
-          return i;
+    public long alterAndGet(IFunction<Long, Long> function) {
+      while (true) {
+        long current = get();
+        long value = function.apply(current);
+        if (compareAndSet(current, value)) {
+          return value;
         }
       }
-      return -1;
     }
-  
+
     @Override
-    public int lastIndexOf(Object o) {
-      for (int i = currentSize-1; i > 0; i--) {
-        if (map.get(i).equals(o)) {
-          return i;
+    public long getAndAlter(IFunction<Long, Long> function) {
+      while (true) {
+        long current = get();
+        if (compareAndSet(current, function.apply(current))) {
+          return current;
         }
       }
-      return -1;
     }
-  
+
     @Override
-    public ListIterator<T> listIterator() {
-      throw new UnsupportedOperationException("Not supported.");
+    public <R> R apply(IFunction<Long, R> function) {
+      return function.apply(get());
     }
-  
-    @Override
-    public ListIterator<T> listIterator(int index) {
-      throw new UnsupportedOperationException("Not supported.");
+
+  }
+
+
+  /**
+   * Map entry expiry.<p>
+   *
+   * Expirations are scheduled on a timer wheel that is only accessed from
+   * the expiry's own context. Each scheduled entry is tagged with a version
+   * so that a later put of the same key supersedes the pending expiration,
+   * and the entry is only removed if it still holds the expiring value.
+   */
+  private static class SharedDataExpiry implements Shareable {
+    private final Vertx vertx;
+    private final Context context;
+    private final TimerWheel wheel;
+    private final AtomicLong versions = new AtomicLong();
+    private final ConcurrentMap<Map.Entry<String, Object>, Long> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Handler<MapEvent<Object, Object>>> handlers = new ConcurrentHashMap<>();
+
+    private SharedDataExpiry(Vertx vertx) {
+      if (!(vertx instanceof VertxInternal)) {
+        throw new IllegalArgumentException("Map expiry requires a VertxInternal instance");
+      }
+      this.vertx = vertx;
+      this.context = ((VertxInternal) vertx).createEventLoopContext();
+      this.wheel = new TimerWheel(vertx);
+    }
+
+    /**
+     * Schedules an entry to expire.
+     */
+    private void schedule(final String name, final Object key, final Object value, final long ttl) {
+      final Map.Entry<String, Object> entry = new AbstractMap.SimpleImmutableEntry<String, Object>(name, key);
+      final long version = versions.incrementAndGet();
+      entries.put(entry, version);
+      context.runOnContext(new Handler<Void>() {
+        @Override
+        public void handle(Void _) {
+          wheel.setTimer(ttl, new Handler<Long>() {
+            @Override
+            public void handle(Long timerID) {
+              expire(entry, version, value);
+            }
+          });
+        }
+      });
     }
-  
-    @Override
-    public List<T> subList(int fromIndex, int toIndex) {
-      throw new UnsupportedOperationException("Not supported.");
+
+    /**
+     * Cancels any pending expiration of an entry.
+     */
+    private void cancel(String name, Object key) {
+      if (!entries.isEmpty()) {
+        entries.remove(new AbstractMap.SimpleImmutableEntry<String, Object>(name, key));
+      }
     }
-  
-    @Override
-    @SuppressWarnings("unchecked")
-    public boolean remove(Object o) {
-      synchronized (map) {
-        for (int i = 0; i < currentSize; i++) {
-          T value = (T) map.get(i);
-          if (value != null && value.equals(o)) {
-            map.remove(i);
-            currentSize--;
-            i++;
-            while (map.containsKey(i)) {
-              map.put(i-1, map.remove(i));
-              i++;
-            }
-            return true;
+
+    /**
+     * Cancels all pending expirations in a map.
+     */
+    private void cancelAll(String name) {
+      if (!entries.isEmpty()) {
+        Iterator<Map.Entry<String, Object>> iterator = entries.keySet().iterator();
+        while (iterator.hasNext()) {
+          if (iterator.next().getKey().equals(name)) {
+            iterator.remove();
           }
         }
-        return false;
       }
     }
-  
-    @Override
-    public void clear() {
-      map.clear();
-      currentSize = 0;
-      map.put(-1, currentSize);
-    }
-  
-    @Override
-    @SuppressWarnings("unchecked")
-    public T set(int index, T element) {
-      return (T) map.put(index, element);
-    }
-  
-    @Override
-    @SuppressWarnings("unchecked")
-    public T remove(int index) {
-      if (index > currentSize-1) {
-        throw new IndexOutOfBoundsException("Index out of bounds.");
-      } else {
-        synchronized (map) {
-          T value = (T) map.remove(index);
-          int i = index+1;
-          while (map.containsKey(i)) {
-            map.put(i-1, map.remove(i));
-            i++;
-          }
-          currentSize--;
-          map.put(-1, currentSize);
-          return value;
+
+    /**
+     * Expires an entry if it hasn't been superseded.
+     */
+    private void expire(Map.Entry<String, Object> entry, long version, Object value) {
+      if (entries.remove(entry, version)
+          && vertx.sharedData().getMap(entry.getKey()).remove(entry.getValue(), value)) {
+        Handler<MapEvent<Object, Object>> handler = handlers.get(entry.getKey());
+        if (handler != null) {
+          handler.handle(new MapEvent<Object, Object>(MapEvent.Type.DELETE, entry.getValue(), value));
         }
       }
     }
-  
   }
 
-  private static class SharedDataQueue<T> implements Queue<T> {
-    private final Map<Integer, Object> map;
-    private int currentIndex;
 
-    public SharedDataQueue(Map<Integer, Object> map) {
+  /**
+   * Shared data map that cancels the pending expiration of each key it writes.<p>
+   *
+   * As with Hazelcast, writing an entry by any means clears its time to
+   * live, so a key that's written again isn't removed when its previous
+   * time to live elapses.
+   */
+  private static class ExpiringMap<K, V> implements ConcurrentMap<K, V> {
+    private final String name;
+    private final ConcurrentMap<K, V> map;
+    private final SharedDataExpiry expiry;
+
+    private ExpiringMap(String name, ConcurrentMap<K, V> map, SharedDataExpiry expiry) {
+      this.name = name;
       this.map = map;
-      this.currentIndex = (int) (map.containsKey(-1) ? map.get(-1) : 0);
+      this.expiry = expiry;
     }
 
     @Override
     public int size() {
-      return map.size() - 1;
+      return map.size();
     }
 
     @Override
     public boolean isEmpty() {
-      return map.size() == 1;
+      return map.isEmpty();
     }
 
     @Override
-    public boolean contains(Object o) {
-      return map.values().contains(o);
+    public boolean containsKey(Object key) {
+      return map.containsKey(key);
     }
 
     @Override
-    public Iterator<T> iterator() {
-      throw new UnsupportedOperationException("Not supported.");
+    public boolean containsValue(Object value) {
+      return map.containsValue(value);
     }
 
     @Override
-    public Object[] toArray() {
-      throw new UnsupportedOperationException("Not supported.");
+    public V get(Object key) {
+      return map.get(key);
     }
 
     @Override
-    @SuppressWarnings("hiding")
-    public <T> T[] toArray(T[] a) {
-      throw new UnsupportedOperationException("Not supported.");
+    public V put(K key, V value) {
+      expiry.cancel(name, key);
+      return map.put(key, value);
     }
 
     @Override
-    public boolean containsAll(Collection<?> c) {
-      return map.values().containsAll(c);
+    public V remove(Object key) {
+      expiry.cancel(name, key);
+      return map.remove(key);
     }
 
     @Override
-    public boolean addAll(Collection<? extends T> c) {
-      throw new UnsupportedOperationException("Not supported.");
+    public void putAll(Map<? extends K, ? extends V> entries) {
+      for (K key : entries.keySet()) {
+        expiry.cancel(name, key);
+      }
+      map.putAll(entries);
     }
 
     @Override
-    public boolean removeAll(Collection<?> c) {
-      throw new UnsupportedOperationException("Not supported.");
+    public void clear() {
+      expiry.cancelAll(name);
+      map.clear();
     }
 
     @Override
-    public boolean retainAll(Collection<?> c) {
-      throw new UnsupportedOperationException("Not supported.");
+    public Set<K> keySet() {
+      return map.keySet();
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public T remove() {
-      synchronized (map) {
-        if (map.containsKey(currentIndex)) {
-          T value = (T) map.remove(currentIndex);
-          currentIndex++;
-          map.put(-1, currentIndex);
-          return value;
-        } else {
-          throw new IllegalStateException("Queue is empty.");
-        }
-      }
+    public Collection<V> values() {
+      return map.values();
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public T poll() {
-      T value = (T) map.remove(currentIndex);
-      if (value != null) {
-        currentIndex++;
-        map.put(-1, currentIndex);
-      }
-      return value;
+    public Set<Map.Entry<K, V>> entrySet() {
+      return map.entrySet();
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public T element() {
-      T value = (T) map.get(currentIndex);
-      if (value != null) {
-        return value;
-      } else {
-        throw new IllegalStateException("Queue is empty.");
+    public V putIfAbsent(K key, V value) {
+      V current = map.putIfAbsent(key, value);
+      if (current == null) {
+        expiry.cancel(name, key);
       }
+      return current;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public T peek() {
-      return (T) map.get(currentIndex);
+    public boolean remove(Object key, Object value) {
+      if (map.remove(key, value)) {
+        expiry.cancel(name, key);
+        return true;
+      }
+      return false;
     }
 
     @Override
-    public boolean offer(T e) {
-      int index = currentIndex + map.size() - 1;
-      map.put(index, e);
-      return true;
+    public boolean replace(K key, V oldValue, V newValue) {
+      if (map.replace(key, oldValue, newValue)) {
+        expiry.cancel(name, key);
+        return true;
+      }
+      return false;
     }
 
     @Override
-    public boolean add(T e) {
-      int index = currentIndex + map.size() - 1;
-      map.put(index, e);
-      return true;
+    public V replace(K key, V value) {
+      V previous = map.replace(key, value);
+      if (previous != null) {
+        expiry.cancel(name, key);
+      }
+      return previous;
     }
 
     @Override
-    public boolean remove(Object o) {
-      synchronized (map) {
-        Iterator<Map.Entry<Integer, Object>> iter = map.entrySet().iterator();
-        while (iter.hasNext()) {
-          Map.Entry<Integer, Object> entry = iter.next();
-          if (entry.getValue().equals(o)) {
-            iter.remove();
-            int index = entry.getKey()+1;
-            while (map.containsKey(index)) {
-              map.put(index-1, map.remove(index));
-              index++;
-            }
-            return true;
-          }
-        }
-        return false;
-      }
+    public boolean equals(Object object) {
+      return map.equals(object);
     }
 
     @Override
-    public void clear() {
-      map.clear();
-      map.put(-1, currentIndex);
+    public int hashCode() {
+      return map.hashCode();
     }
-
   }
 
 }
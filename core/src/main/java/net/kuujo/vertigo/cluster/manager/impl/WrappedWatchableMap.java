@@ -16,20 +16,15 @@
 package net.kuujo.vertigo.cluster.manager.impl;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import net.kuujo.vertigo.cluster.data.MapEvent;
-import net.kuujo.vertigo.util.CountingCompletionHandler;
+import net.kuujo.vertigo.cluster.data.impl.WatchDispatcher;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
-import org.vertx.java.core.eventbus.EventBus;
-import org.vertx.java.core.eventbus.Message;
-import org.vertx.java.core.impl.DefaultFutureResult;
-import org.vertx.java.core.json.JsonObject;
 
 /**
  * Watchable map that implements the same event bus watch pattern as
@@ -42,15 +37,12 @@ import org.vertx.java.core.json.JsonObject;
  * @param <V> The map value type.
  */
 class WrappedWatchableMap<K, V> implements Map<K, V> {
-  private final String name;
   private final Map<K, V> map;
-  private final EventBus eventBus;
-  private final Map<MapEvent.Type, Map<Handler<MapEvent<K, V>>, Handler<Message<JsonObject>>>> watchHandlers = new HashMap<>();
+  private final WatchDispatcher<K, V> watchers;
 
   public WrappedWatchableMap(String name, Map<K, V> map, Vertx vertx) {
-    this.name = name;
     this.map = map;
-    this.eventBus = vertx.eventBus();
+    this.watchers = new WatchDispatcher<K, V>(name, vertx);
   }
 
   @Override
@@ -81,29 +73,14 @@ class WrappedWatchableMap<K, V> implements Map<K, V> {
   @Override
   public V put(K key, V value) {
     V result = map.put(key, value);
-    eventBus.publish(String.format("%s.%s.%s", name, key, MapEvent.Type.CHANGE.toString()), new JsonObject()
-        .putString("type", MapEvent.Type.CHANGE.toString())
-        .putValue("key", key)
-        .putValue("value", value));
-    String event = result == null ? MapEvent.Type.CREATE.toString() : MapEvent.Type.UPDATE.toString();
-    eventBus.publish(String.format("%s.%s.%s", name, key, event), new JsonObject()
-        .putString("type", event)
-        .putValue("key", key)
-        .putValue("value", value));
+    watchers.publish(result == null ? MapEvent.Type.CREATE : MapEvent.Type.UPDATE, key, value);
     return result;
   }
 
   @Override
   public V remove(Object key) {
     V result = map.remove(key);
-    eventBus.publish(String.format("%s.%s.%s", name, key, MapEvent.Type.CHANGE.toString()), new JsonObject()
-        .putString("type", MapEvent.Type.CHANGE.toString())
-        .putValue("key", key)
-        .putValue("value", result));
-    eventBus.publish(String.format("%s.%s.%s", name, key, MapEvent.Type.DELETE.toString()), new JsonObject()
-        .putString("type", MapEvent.Type.DELETE.toString())
-        .putValue("key", key)
-        .putValue("value", result));
+    watchers.publish(MapEvent.Type.DELETE, key, result);
     return result;
   }
 
@@ -132,62 +109,12 @@ class WrappedWatchableMap<K, V> implements Map<K, V> {
     return map.entrySet();
   }
 
-  public void watch(final K key, final MapEvent.Type event, final Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    if (event == null) {
-      final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(4).setHandler(doneHandler);
-      addWatcher(key, MapEvent.Type.CHANGE, handler, counter);
-      addWatcher(key, MapEvent.Type.CREATE, handler, counter);
-      addWatcher(key, MapEvent.Type.UPDATE, handler, counter);
-      addWatcher(key, MapEvent.Type.DELETE, handler, counter);
-    } else {
-      addWatcher(key, event, handler, doneHandler);
-    }
-  }
-
-  private void addWatcher(K key, final MapEvent.Type event, final Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    Map<Handler<MapEvent<K, V>>, Handler<Message<JsonObject>>> watchHandlers = this.watchHandlers.get(event);
-    if (watchHandlers == null) {
-      watchHandlers = new HashMap<>();
-      this.watchHandlers.put(event, watchHandlers);
-    }
-
-    Handler<Message<JsonObject>> wrappedHandler;
-    if (!watchHandlers.containsKey(handler)) {
-      wrappedHandler = new Handler<Message<JsonObject>>() {
-        @Override
-        public void handle(Message<JsonObject> message) {
-          K key = message.body().getValue("key");
-          V value = message.body().getValue("value");
-          handler.handle(new MapEvent<K, V>(event, key, value));
-        }
-      };
-      watchHandlers.put(handler, wrappedHandler);
-    } else {
-      wrappedHandler = watchHandlers.get(handler);
-    }
-    eventBus.registerHandler(String.format("%s.%s.%s", name, key, event.toString()), wrappedHandler, doneHandler);
+  public void watch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
+    watchers.watch(key, event, handler, doneHandler);
   }
 
   public void unwatch(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    if (event == null) {
-      final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(4).setHandler(doneHandler);
-      removeWatcher(key, MapEvent.Type.CHANGE, handler, counter);
-      removeWatcher(key, MapEvent.Type.CREATE, handler, counter);
-      removeWatcher(key, MapEvent.Type.UPDATE, handler, counter);
-      removeWatcher(key, MapEvent.Type.DELETE, handler, counter);
-    } else {
-      removeWatcher(key, event, handler, doneHandler);
-    }
-  }
-
-  private void removeWatcher(K key, MapEvent.Type event, Handler<MapEvent<K, V>> handler, Handler<AsyncResult<Void>> doneHandler) {
-    Map<Handler<MapEvent<K, V>>, Handler<Message<JsonObject>>> watchHandlers = this.watchHandlers.get(event);
-    if (watchHandlers == null || !watchHandlers.containsKey(handler)) {
-      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
-    } else {
-      Handler<Message<JsonObject>> wrappedHandler = watchHandlers.remove(handler);
-      eventBus.unregisterHandler(String.format("%s.%s.%s", name, key, event.toString()), wrappedHandler, doneHandler);
-    }
+    watchers.unwatch(key, event, handler, doneHandler);
   }
 
 }
@@ -18,12 +18,13 @@ package net.kuujo.vertigo.component;
 import net.kuujo.vertigo.cluster.Cluster;
 import net.kuujo.vertigo.io.InputCollector;
 import net.kuujo.vertigo.io.OutputCollector;
+import net.kuujo.vertigo.io.logging.PortLogger;
 import net.kuujo.vertigo.network.NetworkConfig;
+import net.kuujo.vertigo.state.KeyedState;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
-import org.vertx.java.core.logging.Logger;
 import org.vertx.java.platform.Container;
 
 /**
@@ -100,14 +101,27 @@ public interface Component {
    */
   Cluster cluster();
 
+  /**
+   * Returns the component instance's keyed state.<p>
+   *
+   * Keyed state is local to the component instance and is stored outside
+   * of the Java heap, so it can be used to hold large numbers of keys
+   * without round-tripping to the cluster for each read and write. State
+   * storage is allocated lazily once the first key is written.
+   *
+   * @return The instance keyed state.
+   */
+  KeyedState state();
+
   /**
    * Returns the instance logger. This is a special logger that references the
    * Vertigo component instance and can allow for fine grained control of logging
-   * within Vertigo components.
+   * within Vertigo components. Rate limits and batching of messages sent to
+   * log ports are configured directly on the returned logger.
    *
    * @return The logger for the component instance.
    */
-  Logger logger();
+  PortLogger logger();
 
   /**
    * Starts the component.
@@ -132,4 +146,13 @@ public interface Component {
    */
   Component start(Handler<AsyncResult<Component>> doneHandler);
 
+  /**
+   * Stops the component.<p>
+   *
+   * Stopping the component stops reporting and checkpointing, closes the
+   * instance's keyed state, releasing its storage, and flushes increments
+   * accumulated by counters obtained from the component's cluster.
+   */
+  void stop();
+
 }
@@ -93,6 +93,38 @@ public interface ComponentConfig<T extends ComponentConfig<T>> extends Config<T>
    */
   public static final String COMPONENT_HOOKS = "hooks";
 
+  /**
+   * <code>scaling</code> is an object defining the component's automatic scaling
+   * configuration. See the {@link ScalingConfig} documentation for details.
+   */
+  public static final String COMPONENT_SCALING = "scaling";
+
+  /**
+   * <code>affinity</code> is an array of component names with which instances of the
+   * component should preferably be deployed on the same node.
+   */
+  public static final String COMPONENT_AFFINITY = "affinity";
+
+  /**
+   * <code>anti-affinity</code> is an array of component names with which instances of
+   * the component should not be deployed on the same node.
+   */
+  public static final String COMPONENT_ANTI_AFFINITY = "anti-affinity";
+
+  /**
+   * <code>load</code> is the expected relative load of each component instance. The
+   * load is used to balance instances across event loops within a node. Defaults
+   * to <code>1</code>
+   */
+  public static final String COMPONENT_LOAD = "load";
+
+  /**
+   * <code>event-loop</code> is the index of the event loop to which instances of the
+   * component should preferably be assigned within a node. Defaults to <code>-1</code>,
+   * indicating that instances will be balanced across event loops by load.
+   */
+  public static final String COMPONENT_EVENT_LOOP = "event-loop";
+
   /**
    * Component type.
    *
@@ -210,4 +242,91 @@ public interface ComponentConfig<T extends ComponentConfig<T>> extends Config<T>
    */
   List<ComponentHook> getHooks();
 
+  /**
+   * Sets the component scaling configuration.
+   *
+   * @param scaling The component scaling configuration.
+   * @return The component configuration.
+   */
+  T setScaling(ScalingConfig scaling);
+
+  /**
+   * Returns the component scaling configuration.
+   *
+   * @return The component scaling configuration.
+   */
+  ScalingConfig getScaling();
+
+  /**
+   * Adds an affinity hint to the component.<p>
+   *
+   * When instances are placed in the cluster, nodes on which instances of
+   * the given component are deployed will be preferred.
+   *
+   * @param component The name of the component with which to co-locate instances.
+   * @return The component configuration.
+   */
+  T addAffinity(String component);
+
+  /**
+   * Returns a list of components with which instances should be co-located.
+   *
+   * @return A list of component names.
+   */
+  List<String> getAffinity();
+
+  /**
+   * Adds an anti-affinity hint to the component.<p>
+   *
+   * When instances are placed in the cluster, nodes on which instances of
+   * the given component are deployed will be avoided if possible.
+   *
+   * @param component The name of the component from which to separate instances.
+   * @return The component configuration.
+   */
+  T addAntiAffinity(String component);
+
+  /**
+   * Returns a list of components from which instances should be separated.
+   *
+   * @return A list of component names.
+   */
+  List<String> getAntiAffinity();
+
+  /**
+   * Sets the expected relative load of each component instance.<p>
+   *
+   * When instances are deployed on a node, each instance is assigned to the
+   * event loop with the least total expected load.
+   *
+   * @param load The expected relative load of each instance.
+   * @return The component configuration.
+   */
+  T setLoad(int load);
+
+  /**
+   * Returns the expected relative load of each component instance.
+   *
+   * @return The expected relative load of each instance.
+   */
+  int getLoad();
+
+  /**
+   * Sets the event loop to which instances should be assigned.<p>
+   *
+   * The event loop index is taken modulo the number of event loops on the node.
+   * Event loop assignment is a hint and is not guaranteed.
+   *
+   * @param eventLoop The event loop index, or <code>-1</code> to balance instances by load.
+   * @return The component configuration.
+   */
+  T setEventLoop(int eventLoop);
+
+  /**
+   * Returns the event loop to which instances should be assigned.
+   *
+   * @return The event loop index, or <code>-1</code> if instances are balanced by load.
+   */
+  int getEventLoop();
+
 }
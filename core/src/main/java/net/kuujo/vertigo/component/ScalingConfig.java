@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.component;
+
+import net.kuujo.vertigo.Config;
+import net.kuujo.vertigo.component.impl.DefaultScalingConfig;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Component scaling configuration.<p>
+ *
+ * When a scaling configuration is enabled for a component, the network
+ * manager will periodically evaluate the input lag and send queue depth
+ * reported by each of the component's instances and add or remove instances
+ * within the configured bounds.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@JsonTypeInfo(
+  use=JsonTypeInfo.Id.CLASS,
+  include=JsonTypeInfo.As.PROPERTY,
+  property="class",
+  defaultImpl=DefaultScalingConfig.class
+)
+public interface ScalingConfig extends Config<ScalingConfig> {
+
+  /**
+   * <code>enabled</code> is a boolean indicating whether automatic scaling is enabled
+   * for the component. Defaults to <code>false</code>
+   */
+  public static final String SCALING_ENABLED = "enabled";
+
+  /**
+   * <code>min-instances</code> is the minimum number of component instances. Defaults
+   * to <code>1</code>
+   */
+  public static final String SCALING_MIN_INSTANCES = "min-instances";
+
+  /**
+   * <code>max-instances</code> is the maximum number of component instances. Defaults
+   * to <code>1</code>
+   */
+  public static final String SCALING_MAX_INSTANCES = "max-instances";
+
+  /**
+   * <code>scale-out-lag</code> is the average number of unacknowledged messages per
+   * instance at or above which an instance will be added. Defaults to <code>1000</code>
+   */
+  public static final String SCALING_SCALE_OUT_LAG = "scale-out-lag";
+
+  /**
+   * <code>scale-in-lag</code> is the average number of unacknowledged messages per
+   * instance at or below which an instance will be removed. Defaults to <code>10</code>
+   */
+  public static final String SCALING_SCALE_IN_LAG = "scale-in-lag";
+
+  /**
+   * <code>scale-out-cooldown</code> is the minimum number of milliseconds between
+   * scale out operations. Defaults to <code>30000</code>
+   */
+  public static final String SCALING_SCALE_OUT_COOLDOWN = "scale-out-cooldown";
+
+  /**
+   * <code>scale-in-cooldown</code> is the minimum number of milliseconds between
+   * scale in operations. Defaults to <code>120000</code>
+   */
+  public static final String SCALING_SCALE_IN_COOLDOWN = "scale-in-cooldown";
+
+  /**
+   * <code>dry-run</code> is a boolean indicating whether scaling decisions should only
+   * be logged rather than applied. Defaults to <code>false</code>
+   */
+  public static final String SCALING_DRY_RUN = "dry-run";
+
+  /**
+   * Sets whether scaling is enabled.
+   *
+   * @param enabled Whether scaling is enabled.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setEnabled(boolean enabled);
+
+  /**
+   * Returns whether scaling is enabled.
+   *
+   * @return Whether scaling is enabled.
+   */
+  boolean isEnabled();
+
+  /**
+   * Sets the minimum number of component instances.
+   *
+   * @param instances The minimum number of instances.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setMinInstances(int instances);
+
+  /**
+   * Returns the minimum number of component instances.
+   *
+   * @return The minimum number of instances.
+   */
+  int getMinInstances();
+
+  /**
+   * Sets the maximum number of component instances.
+   *
+   * @param instances The maximum number of instances.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setMaxInstances(int instances);
+
+  /**
+   * Returns the maximum number of component instances.
+   *
+   * @return The maximum number of instances.
+   */
+  int getMaxInstances();
+
+  /**
+   * Sets the average per-instance lag at which the component is scaled out.
+   *
+   * @param lag The scale out lag threshold.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setScaleOutLag(int lag);
+
+  /**
+   * Returns the average per-instance lag at which the component is scaled out.
+   *
+   * @return The scale out lag threshold.
+   */
+  int getScaleOutLag();
+
+  /**
+   * Sets the average per-instance lag at which the component is scaled in.
+   *
+   * @param lag The scale in lag threshold.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setScaleInLag(int lag);
+
+  /**
+   * Returns the average per-instance lag at which the component is scaled in.
+   *
+   * @return The scale in lag threshold.
+   */
+  int getScaleInLag();
+
+  /**
+   * Sets the scale out cooldown period.
+   *
+   * @param cooldown The scale out cooldown in milliseconds.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setScaleOutCooldown(long cooldown);
+
+  /**
+   * Returns the scale out cooldown period.
+   *
+   * @return The scale out cooldown in milliseconds.
+   */
+  long getScaleOutCooldown();
+
+  /**
+   * Sets the scale in cooldown period.
+   *
+   * @param cooldown The scale in cooldown in milliseconds.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setScaleInCooldown(long cooldown);
+
+  /**
+   * Returns the scale in cooldown period.
+   *
+   * @return The scale in cooldown in milliseconds.
+   */
+  long getScaleInCooldown();
+
+  /**
+   * Sets whether scaling decisions should only be logged.
+   *
+   * @param dryRun Whether to only log scaling decisions.
+   * @return The scaling configuration.
+   */
+  ScalingConfig setDryRun(boolean dryRun);
+
+  /**
+   * Returns whether scaling decisions are only logged.
+   *
+   * @return Whether scaling decisions are only logged.
+   */
+  boolean isDryRun();
+
+}
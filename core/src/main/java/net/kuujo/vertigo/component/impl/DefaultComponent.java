@@ -26,7 +26,11 @@ import net.kuujo.vertigo.io.InputCollector;
 import net.kuujo.vertigo.io.OutputCollector;
 import net.kuujo.vertigo.io.impl.DefaultInputCollector;
 import net.kuujo.vertigo.io.impl.DefaultOutputCollector;
+import net.kuujo.vertigo.io.logging.PortLogger;
 import net.kuujo.vertigo.io.logging.PortLoggerFactory;
+import net.kuujo.vertigo.platform.impl.EventLoopBalancer;
+import net.kuujo.vertigo.state.KeyedState;
+import net.kuujo.vertigo.state.impl.DefaultKeyedState;
 import net.kuujo.vertigo.util.CountingCompletionHandler;
 
 import org.vertx.java.core.AsyncResult;
@@ -34,7 +38,6 @@ import org.vertx.java.core.Future;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.impl.DefaultFutureResult;
-import org.vertx.java.core.logging.Logger;
 import org.vertx.java.platform.Container;
 
 /**
@@ -49,12 +52,16 @@ public class DefaultComponent implements Component {
   protected final Vertx vertx;
   protected final Container container;
   protected final Cluster cluster;
-  protected final Logger logger;
+  protected final PortLogger logger;
   private final ComponentCoordinator coordinator;
   private final String address;
   protected InstanceContext context;
   protected final DefaultInputCollector input;
   protected final DefaultOutputCollector output;
+  private InstanceStatsReporter reporter;
+  private InstanceCheckpointer checkpointer;
+  private KeyedState state;
+  private String eventLoop;
   private boolean started;
 
   protected DefaultComponent(InstanceContext context, Vertx vertx, Container container, Cluster cluster) {
@@ -100,7 +107,15 @@ public class DefaultComponent implements Component {
   }
 
   @Override
-  public Logger logger() {
+  public KeyedState state() {
+    if (state == null) {
+      state = new DefaultKeyedState(address);
+    }
+    return state;
+  }
+
+  @Override
+  public PortLogger logger() {
     return logger;
   }
 
@@ -129,6 +144,19 @@ public class DefaultComponent implements Component {
             public void handle(AsyncResult<Void> result) {
               if (result.failed()) {
                 new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+              } else if (InstanceCheckpointer.isCheckpointed(context.component().network().config())) {
+                // If the network is checkpointed then restore the instance's last
+                // checkpoint before the component is started.
+                checkpointer = new InstanceCheckpointer(vertx, context, DefaultComponent.this);
+                checkpointer.restore(new Handler<AsyncResult<Void>>() {
+                  @Override
+                  public void handle(AsyncResult<Void> result) {
+                    if (result.failed()) {
+                      logger.error("Failed to restore checkpoint", result.cause());
+                    }
+                    coordinator.resume();
+                  }
+                });
               } else {
                 // Tell the coordinator we're ready for the network to start.
                 coordinator.resume();
@@ -155,6 +183,23 @@ public class DefaultComponent implements Component {
           for (ComponentHook hook : hooks) {
             hook.handleStart(DefaultComponent.this);
           }
+
+          // If any component in the network is automatically scaled or network
+          // metrics are enabled then report stats to the network manager.
+          if (InstanceStatsReporter.isEnabled(context.component().network().config())) {
+            reporter = new InstanceStatsReporter(vertx, context, input, output);
+            reporter.start();
+          }
+          if (checkpointer != null) {
+            checkpointer.start();
+          }
+
+          // Record the event loop on which the instance is running so the
+          // node can report the actual placement of instances on event loops.
+          if (vertx.isEventLoop()) {
+            eventLoop = Thread.currentThread().getName();
+            vertx.sharedData().getMap(EventLoopBalancer.LOOPS_MAP).put(address, eventLoop);
+          }
           new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
         }
       }
@@ -187,4 +232,30 @@ public class DefaultComponent implements Component {
     return this;
   }
 
+  @Override
+  public void stop() {
+    if (reporter != null) {
+      reporter.stop();
+      reporter = null;
+    }
+    if (checkpointer != null) {
+      checkpointer.stop();
+      checkpointer = null;
+    }
+    if (state != null) {
+      state.close();
+      state = null;
+    }
+
+    // The entry is removed here rather than only when the platform manager
+    // releases the instance since the instance may not have been placed or
+    // may be stopped by some other means. A newer instance with the same
+    // address may have replaced the entry, so only this instance's entry is removed.
+    if (eventLoop != null) {
+      vertx.sharedData().<String, String>getMap(EventLoopBalancer.LOOPS_MAP).remove(address, eventLoop);
+      eventLoop = null;
+    }
+    cluster.close();
+  }
+
 }
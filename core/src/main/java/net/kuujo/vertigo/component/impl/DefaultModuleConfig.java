@@ -21,12 +21,15 @@ import java.util.List;
 import java.util.Map;
 
 import net.kuujo.vertigo.component.ModuleConfig;
+import net.kuujo.vertigo.component.ScalingConfig;
 import net.kuujo.vertigo.hook.ComponentHook;
 import net.kuujo.vertigo.network.NetworkConfig;
 
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.platform.impl.ModuleIdentifier;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
  * Default module configuration implementation.
  *
@@ -34,12 +37,21 @@ import org.vertx.java.platform.impl.ModuleIdentifier;
  */
 public class DefaultModuleConfig implements ModuleConfig {
   private static final int DEFAULT_NUM_INSTANCES = 1;
+  private static final int DEFAULT_LOAD = 1;
+  private static final int DEFAULT_EVENT_LOOP = -1;
 
   private String name;
   private Map<String, Object> config;
   private int instances = DEFAULT_NUM_INSTANCES;
   private String group;
   private List<ComponentHook> hooks = new ArrayList<>();
+  private ScalingConfig scaling = new DefaultScalingConfig();
+  private List<String> affinity = new ArrayList<>();
+  @JsonProperty("anti-affinity")
+  private List<String> antiAffinity = new ArrayList<>();
+  private int load = DEFAULT_LOAD;
+  @JsonProperty("event-loop")
+  private int eventLoop = DEFAULT_EVENT_LOOP;
   private String module;
 
   public DefaultModuleConfig() {
@@ -114,6 +126,68 @@ public class DefaultModuleConfig implements ModuleConfig {
     return hooks;
   }
 
+  @Override
+  public ModuleConfig setScaling(ScalingConfig scaling) {
+    this.scaling = scaling != null ? scaling : new DefaultScalingConfig();
+    return this;
+  }
+
+  @Override
+  public ScalingConfig getScaling() {
+    return scaling;
+  }
+
+  @Override
+  public ModuleConfig addAffinity(String component) {
+    if (!affinity.contains(component)) {
+      affinity.add(component);
+    }
+    return this;
+  }
+
+  @Override
+  public List<String> getAffinity() {
+    return affinity;
+  }
+
+  @Override
+  public ModuleConfig addAntiAffinity(String component) {
+    if (!antiAffinity.contains(component)) {
+      antiAffinity.add(component);
+    }
+    return this;
+  }
+
+  @Override
+  public List<String> getAntiAffinity() {
+    return antiAffinity;
+  }
+
+  @Override
+  public ModuleConfig setLoad(int load) {
+    if (load < 1) {
+      throw new IllegalArgumentException("Load must be a positive number.");
+    }
+    this.load = load;
+    return this;
+  }
+
+  @Override
+  public int getLoad() {
+    return load;
+  }
+
+  @Override
+  public ModuleConfig setEventLoop(int eventLoop) {
+    this.eventLoop = eventLoop >= 0 ? eventLoop : DEFAULT_EVENT_LOOP;
+    return this;
+  }
+
+  @Override
+  public int getEventLoop() {
+    return eventLoop;
+  }
+
   @Override
   public ModuleConfig setModule(String moduleName) {
     // Instantiate a module identifier to force it to validate the module name.
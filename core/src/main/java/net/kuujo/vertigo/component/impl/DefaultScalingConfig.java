@@ -0,0 +1,163 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.component.impl;
+
+import net.kuujo.vertigo.component.ScalingConfig;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Default scaling configuration implementation.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class DefaultScalingConfig implements ScalingConfig {
+  private static final int DEFAULT_MIN_INSTANCES = 1;
+  private static final int DEFAULT_MAX_INSTANCES = 1;
+  private static final int DEFAULT_SCALE_OUT_LAG = 1000;
+  private static final int DEFAULT_SCALE_IN_LAG = 10;
+  private static final long DEFAULT_SCALE_OUT_COOLDOWN = 30000;
+  private static final long DEFAULT_SCALE_IN_COOLDOWN = 120000;
+
+  private boolean enabled = false;
+  @JsonProperty("min-instances")
+  private int minInstances = DEFAULT_MIN_INSTANCES;
+  @JsonProperty("max-instances")
+  private int maxInstances = DEFAULT_MAX_INSTANCES;
+  @JsonProperty("scale-out-lag")
+  private int scaleOutLag = DEFAULT_SCALE_OUT_LAG;
+  @JsonProperty("scale-in-lag")
+  private int scaleInLag = DEFAULT_SCALE_IN_LAG;
+  @JsonProperty("scale-out-cooldown")
+  private long scaleOutCooldown = DEFAULT_SCALE_OUT_COOLDOWN;
+  @JsonProperty("scale-in-cooldown")
+  private long scaleInCooldown = DEFAULT_SCALE_IN_COOLDOWN;
+  @JsonProperty("dry-run")
+  private boolean dryRun = false;
+
+  public DefaultScalingConfig() {
+  }
+
+  public DefaultScalingConfig(int minInstances, int maxInstances) {
+    setMinInstances(minInstances);
+    setMaxInstances(maxInstances);
+    this.enabled = true;
+  }
+
+  @Override
+  public ScalingConfig setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public ScalingConfig setMinInstances(int instances) {
+    if (instances < 1) {
+      throw new IllegalArgumentException("Minimum instances must be a positive integer.");
+    }
+    this.minInstances = instances;
+    if (maxInstances < minInstances) {
+      maxInstances = minInstances;
+    }
+    return this;
+  }
+
+  @Override
+  public int getMinInstances() {
+    return minInstances;
+  }
+
+  @Override
+  public ScalingConfig setMaxInstances(int instances) {
+    if (instances < minInstances) {
+      throw new IllegalArgumentException("Maximum instances must be greater than or equal to minimum instances.");
+    }
+    this.maxInstances = instances;
+    return this;
+  }
+
+  @Override
+  public int getMaxInstances() {
+    return maxInstances;
+  }
+
+  @Override
+  public ScalingConfig setScaleOutLag(int lag) {
+    if (lag <= scaleInLag) {
+      throw new IllegalArgumentException("Scale out lag must be greater than scale in lag.");
+    }
+    this.scaleOutLag = lag;
+    return this;
+  }
+
+  @Override
+  public int getScaleOutLag() {
+    return scaleOutLag;
+  }
+
+  @Override
+  public ScalingConfig setScaleInLag(int lag) {
+    if (lag < 0 || lag >= scaleOutLag) {
+      throw new IllegalArgumentException("Scale in lag must be non-negative and less than scale out lag.");
+    }
+    this.scaleInLag = lag;
+    return this;
+  }
+
+  @Override
+  public int getScaleInLag() {
+    return scaleInLag;
+  }
+
+  @Override
+  public ScalingConfig setScaleOutCooldown(long cooldown) {
+    this.scaleOutCooldown = cooldown;
+    return this;
+  }
+
+  @Override
+  public long getScaleOutCooldown() {
+    return scaleOutCooldown;
+  }
+
+  @Override
+  public ScalingConfig setScaleInCooldown(long cooldown) {
+    this.scaleInCooldown = cooldown;
+    return this;
+  }
+
+  @Override
+  public long getScaleInCooldown() {
+    return scaleInCooldown;
+  }
+
+  @Override
+  public ScalingConfig setDryRun(boolean dryRun) {
+    this.dryRun = dryRun;
+    return this;
+  }
+
+  @Override
+  public boolean isDryRun() {
+    return dryRun;
+  }
+
+}
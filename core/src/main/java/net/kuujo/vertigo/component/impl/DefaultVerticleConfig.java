@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import net.kuujo.vertigo.component.VerticleConfig;
+import net.kuujo.vertigo.component.ScalingConfig;
 import net.kuujo.vertigo.hook.ComponentHook;
 import net.kuujo.vertigo.network.NetworkConfig;
 
@@ -36,12 +37,21 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class DefaultVerticleConfig implements VerticleConfig {
   private static final int DEFAULT_NUM_INSTANCES = 1;
   private static final String DEFAULT_GROUP = "__DEFAULT__";
+  private static final int DEFAULT_LOAD = 1;
+  private static final int DEFAULT_EVENT_LOOP = -1;
 
   private String name;
   private Map<String, Object> config;
   private int instances = DEFAULT_NUM_INSTANCES;
   private String group = DEFAULT_GROUP;
   private List<ComponentHook> hooks = new ArrayList<>();
+  private ScalingConfig scaling = new DefaultScalingConfig();
+  private List<String> affinity = new ArrayList<>();
+  @JsonProperty("anti-affinity")
+  private List<String> antiAffinity = new ArrayList<>();
+  private int load = DEFAULT_LOAD;
+  @JsonProperty("event-loop")
+  private int eventLoop = DEFAULT_EVENT_LOOP;
   private String main;
   private boolean worker = false;
   @JsonProperty("multi-threaded")
@@ -119,6 +129,68 @@ public class DefaultVerticleConfig implements VerticleConfig {
     return hooks;
   }
 
+  @Override
+  public VerticleConfig setScaling(ScalingConfig scaling) {
+    this.scaling = scaling != null ? scaling : new DefaultScalingConfig();
+    return this;
+  }
+
+  @Override
+  public ScalingConfig getScaling() {
+    return scaling;
+  }
+
+  @Override
+  public VerticleConfig addAffinity(String component) {
+    if (!affinity.contains(component)) {
+      affinity.add(component);
+    }
+    return this;
+  }
+
+  @Override
+  public List<String> getAffinity() {
+    return affinity;
+  }
+
+  @Override
+  public VerticleConfig addAntiAffinity(String component) {
+    if (!antiAffinity.contains(component)) {
+      antiAffinity.add(component);
+    }
+    return this;
+  }
+
+  @Override
+  public List<String> getAntiAffinity() {
+    return antiAffinity;
+  }
+
+  @Override
+  public VerticleConfig setLoad(int load) {
+    if (load < 1) {
+      throw new IllegalArgumentException("Load must be a positive number.");
+    }
+    this.load = load;
+    return this;
+  }
+
+  @Override
+  public int getLoad() {
+    return load;
+  }
+
+  @Override
+  public VerticleConfig setEventLoop(int eventLoop) {
+    this.eventLoop = eventLoop >= 0 ? eventLoop : DEFAULT_EVENT_LOOP;
+    return this;
+  }
+
+  @Override
+  public int getEventLoop() {
+    return eventLoop;
+  }
+
   @Override
   public VerticleConfig setMain(String main) {
     this.main = main;
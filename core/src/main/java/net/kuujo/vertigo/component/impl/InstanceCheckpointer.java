@@ -0,0 +1,662 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.component.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import net.kuujo.vertigo.component.Component;
+import net.kuujo.vertigo.component.ComponentException;
+import net.kuujo.vertigo.component.InstanceContext;
+import net.kuujo.vertigo.io.InputCollector;
+import net.kuujo.vertigo.io.OutputCollector;
+import net.kuujo.vertigo.io.connection.InputConnection;
+import net.kuujo.vertigo.io.connection.OutputConnection;
+import net.kuujo.vertigo.io.connection.impl.DefaultInputConnection;
+import net.kuujo.vertigo.io.connection.impl.DefaultOutputConnection;
+import net.kuujo.vertigo.io.connection.impl.OutputConnectionSnapshot;
+import net.kuujo.vertigo.io.port.InputPort;
+import net.kuujo.vertigo.io.port.OutputPort;
+import net.kuujo.vertigo.io.port.impl.DefaultInputPort;
+import net.kuujo.vertigo.io.port.impl.DefaultOutputPort;
+import net.kuujo.vertigo.io.stream.OutputStream;
+import net.kuujo.vertigo.io.stream.impl.DefaultOutputStream;
+import net.kuujo.vertigo.network.NetworkConfig;
+import net.kuujo.vertigo.state.KeyedState;
+import net.kuujo.vertigo.state.StateSnapshot;
+import net.kuujo.vertigo.util.ContextManager;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * Component instance checkpointer.<p>
+ *
+ * Checkpoints are triggered by the network manager and are aligned on
+ * barriers that flow through the network's connections. Instances without
+ * input connections take a checkpoint as soon as it's triggered. All other
+ * instances wait until the checkpoint's barrier has been received on each
+ * input connection, buffering messages on connections that have already
+ * received the barrier. Once aligned, the instance records the last message
+ * received on each input connection, the replay state of each output
+ * connection, and a snapshot of its keyed state, forwards the barrier on all
+ * output connections and resumes processing. The checkpoint is written to
+ * the local file system asynchronously and acknowledged to the manager. The
+ * keyed state and output connection snapshots reference the state's off-heap
+ * storage and the connections' queued and spilled messages rather than
+ * copying them, and they're written to disk by a background thread. Output
+ * connections retain acked messages only up to a fixed limit, applying
+ * back-pressure until a checkpoint completes.<p>
+ *
+ * Once all instances have acknowledged a checkpoint, the manager completes
+ * it and each instance commits the checkpoint to its upstream connections,
+ * allowing them to discard messages that will never be replayed. When an
+ * instance is restarted it restores its last completed checkpoint, and its
+ * upstream connections replay only messages sent after the checkpoint.
+ * Processing is therefore at-least-once across instance failures.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class InstanceCheckpointer {
+  private static final Logger log = LoggerFactory.getLogger(InstanceCheckpointer.class);
+
+  /**
+   * <code>vertigo.checkpoint.dir</code> is the system property indicating the
+   * directory in which to store checkpoints. Defaults to <code>vertigo/checkpoints</code>
+   * in the system temporary directory.
+   */
+  public static final String CHECKPOINT_DIRECTORY_PROPERTY = "vertigo.checkpoint.dir";
+
+  public static final String CHECKPOINT_ACTION = "action";
+  public static final String CHECKPOINT_ID = "checkpoint";
+  public static final String CHECKPOINT_INSTANCE = "instance";
+  public static final String ACTION_TRIGGER = "trigger";
+  public static final String ACTION_COMPLETE = "complete";
+  public static final String ACTION_ACK = "ack";
+
+  private static final String LATEST_FILE = "latest";
+  private static final long MIN_ALIGNMENT_TIMEOUT = 10000;
+
+  private final Vertx vertx;
+  private final InstanceContext context;
+  private final Component component;
+  private final InputCollector input;
+  private final OutputCollector output;
+  private final String managerAddress;
+  private final String instancesAddress;
+  private final File directory;
+  private final ContextManager executor;
+  private final TreeMap<Long, JsonObject> pending = new TreeMap<>();
+  private final Set<DefaultInputConnection> aligned = new HashSet<>();
+  private long lastCheckpoint;
+  private long aligning;
+  private long alignmentTimer;
+
+  private final Handler<Message<JsonObject>> messageHandler = new Handler<Message<JsonObject>>() {
+    @Override
+    public void handle(Message<JsonObject> message) {
+      String action = message.body().getString(CHECKPOINT_ACTION);
+      Long checkpoint = message.body().getLong(CHECKPOINT_ID);
+      if (action != null && checkpoint != null) {
+        switch (action) {
+          case ACTION_TRIGGER:
+            doTrigger(checkpoint);
+            break;
+          case ACTION_COMPLETE:
+            doComplete(checkpoint);
+            break;
+        }
+      }
+    }
+  };
+
+  public InstanceCheckpointer(Vertx vertx, InstanceContext context, Component component) {
+    this.vertx = vertx;
+    this.context = context;
+    this.component = component;
+    this.input = component.input();
+    this.output = component.output();
+    String network = context.component().network().address();
+    this.managerAddress = managerAddress(network);
+    this.instancesAddress = instancesAddress(network);
+    String root = System.getProperty(CHECKPOINT_DIRECTORY_PROPERTY);
+    if (root == null) {
+      root = new File(new File(System.getProperty("java.io.tmpdir"), "vertigo"), "checkpoints").getPath();
+    }
+    this.directory = new File(root, context.address().replaceAll("[^A-Za-z0-9_.\\-]", "_"));
+    this.executor = new ContextManager(vertx);
+  }
+
+  /**
+   * Returns the address at which the network manager receives checkpoint
+   * acknowledgements for the given network address.
+   *
+   * @param network The network address.
+   * @return The checkpoint manager address.
+   */
+  public static String managerAddress(String network) {
+    return String.format("%s.checkpoint", network);
+  }
+
+  /**
+   * Returns the address to which the network manager publishes checkpoint
+   * triggers and completions for the given network address.
+   *
+   * @param network The network address.
+   * @return The checkpoint instances address.
+   */
+  public static String instancesAddress(String network) {
+    return String.format("%s.checkpoint.instances", network);
+  }
+
+  /**
+   * Returns a boolean indicating whether checkpointing is enabled for a network.
+   *
+   * @param network The network configuration.
+   * @return Indicates whether the network is checkpointed.
+   */
+  public static boolean isCheckpointed(NetworkConfig network) {
+    return network != null && network.getCheckpointInterval() > 0;
+  }
+
+  /**
+   * Restores the last completed checkpoint, if any.<p>
+   *
+   * This should be called once the instance's input and output collectors
+   * have been opened but before the component has been started.
+   *
+   * @param doneHandler An asynchronous handler to be called once the checkpoint
+   *        has been restored.
+   */
+  public void restore(final Handler<AsyncResult<Void>> doneHandler) {
+    final String latest = new File(directory, LATEST_FILE).getPath();
+    vertx.fileSystem().exists(latest, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed() || !result.result()) {
+          new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+        } else {
+          vertx.fileSystem().readFile(latest, new Handler<AsyncResult<Buffer>>() {
+            @Override
+            public void handle(AsyncResult<Buffer> result) {
+              if (result.failed()) {
+                new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+              } else {
+                final long checkpoint = Long.parseLong(result.result().toString().trim());
+                vertx.fileSystem().readFile(checkpointFile(checkpoint), new Handler<AsyncResult<Buffer>>() {
+                  @Override
+                  public void handle(AsyncResult<Buffer> result) {
+                    if (result.failed()) {
+                      new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+                    } else {
+                      readState(checkpoint, new JsonObject(result.result().toString()), doneHandler);
+                    }
+                  }
+                });
+              }
+            }
+          });
+        }
+      }
+    });
+  }
+
+  /**
+   * Reads the keyed state snapshot for a checkpoint, if any, and restores the checkpoint.
+   */
+  private void readState(final long checkpoint, final JsonObject state, final Handler<AsyncResult<Void>> doneHandler) {
+    final String path = stateFile(checkpoint);
+    vertx.fileSystem().exists(path, new Handler<AsyncResult<Boolean>>() {
+      @Override
+      public void handle(AsyncResult<Boolean> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+        } else if (!result.result()) {
+          readReplay(checkpoint, state, doneHandler);
+        } else {
+          // The state is restored by a background thread before the component
+          // is started, so it's never accessed concurrently.
+          final KeyedState keyedState = component.state();
+          executor.execute(new Action<Void>() {
+            @Override
+            public Void perform() {
+              keyedState.restore(path);
+              return null;
+            }
+          }, new Handler<AsyncResult<Void>>() {
+            @Override
+            public void handle(AsyncResult<Void> result) {
+              if (result.failed()) {
+                new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+              } else {
+                readReplay(checkpoint, state, doneHandler);
+              }
+            }
+          });
+        }
+      }
+    });
+  }
+
+  /**
+   * Reads the output connection snapshots for a checkpoint, if any, and restores the checkpoint.
+   */
+  private void readReplay(final long checkpoint, final JsonObject state, final Handler<AsyncResult<Void>> doneHandler) {
+    executor.execute(new Action<Map<String, OutputConnectionSnapshot>>() {
+      @Override
+      public Map<String, OutputConnectionSnapshot> perform() {
+        Map<String, OutputConnectionSnapshot> snapshots = new HashMap<>();
+        File file = new File(replayFile(checkpoint));
+        if (file.exists()) {
+          try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+              OutputConnectionSnapshot snapshot = OutputConnectionSnapshot.readFrom(in);
+              snapshots.put(snapshot.address(), snapshot);
+            }
+          } catch (IOException e) {
+            throw new ComponentException("Failed to read checkpoint " + file.getPath(), e);
+          }
+        }
+        return snapshots;
+      }
+    }, new Handler<AsyncResult<Map<String, OutputConnectionSnapshot>>>() {
+      @Override
+      public void handle(AsyncResult<Map<String, OutputConnectionSnapshot>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+        } else {
+          doRestore(checkpoint, state, result.result(), doneHandler);
+        }
+      }
+    });
+  }
+
+  /**
+   * Restores connection state from a checkpoint.
+   */
+  private void doRestore(long checkpoint, JsonObject state, Map<String, OutputConnectionSnapshot> outputs, Handler<AsyncResult<Void>> doneHandler) {
+    for (DefaultOutputConnection connection : outputConnections()) {
+      OutputConnectionSnapshot snapshot = outputs.get(connection.address());
+      if (snapshot != null) {
+        connection.restore(snapshot);
+      }
+    }
+
+    JsonObject inputs = state.getObject("inputs", new JsonObject());
+    for (DefaultInputConnection connection : inputConnections()) {
+      Long lastReceived = inputs.getLong(connection.address());
+      if (lastReceived != null) {
+        connection.restore(lastReceived);
+      }
+    }
+    lastCheckpoint = checkpoint;
+    log.info(String.format("%s - Restored checkpoint %d", context.address(), checkpoint));
+    new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+  }
+
+  /**
+   * Starts the checkpointer.
+   */
+  public void start() {
+    vertx.eventBus().registerHandler(instancesAddress, messageHandler);
+    registerBarrierHandlers();
+  }
+
+  /**
+   * Stops the checkpointer.
+   */
+  public void stop() {
+    vertx.eventBus().unregisterHandler(instancesAddress, messageHandler);
+    release();
+  }
+
+  /**
+   * Handles a checkpoint trigger from the network manager.
+   */
+  private void doTrigger(long checkpoint) {
+    if (inputConnections().isEmpty()) {
+      if (checkpoint > lastCheckpoint) {
+        checkpoint(checkpoint);
+      }
+    } else {
+      // Make sure barriers are handled on all connections, including
+      // connections that were added since the last checkpoint.
+      registerBarrierHandlers();
+    }
+  }
+
+  /**
+   * Registers barrier handlers on all input connections.
+   */
+  private void registerBarrierHandlers() {
+    for (final DefaultInputConnection connection : inputConnections()) {
+      connection.barrierHandler(new Handler<Long>() {
+        @Override
+        public void handle(Long checkpoint) {
+          doBarrier(connection, checkpoint);
+        }
+      });
+    }
+  }
+
+  /**
+   * Handles a checkpoint barrier on an input connection.
+   */
+  private void doBarrier(DefaultInputConnection connection, long checkpoint) {
+    if (checkpoint <= lastCheckpoint) {
+      return;
+    }
+
+    // If a barrier for a newer checkpoint is received while still aligning an
+    // older checkpoint, the older checkpoint will never complete.
+    if (checkpoint != aligning) {
+      release();
+      aligning = checkpoint;
+      alignmentTimer = vertx.setTimer(alignmentTimeout(), new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          alignmentTimer = 0;
+          log.warn(String.format("%s - Checkpoint %d alignment timed out", context.address(), aligning));
+          lastCheckpoint = Math.max(lastCheckpoint, aligning);
+          release();
+        }
+      });
+    }
+
+    connection.block();
+    aligned.add(connection);
+    if (aligned.containsAll(inputConnections())) {
+      checkpoint(checkpoint);
+    }
+  }
+
+  /**
+   * Returns the checkpoint alignment timeout.
+   */
+  private long alignmentTimeout() {
+    NetworkConfig network = context.component().network().config();
+    return Math.max(MIN_ALIGNMENT_TIMEOUT, network != null ? network.getCheckpointInterval() * 2 : 0);
+  }
+
+  /**
+   * Ends checkpoint alignment, unblocking all input connections.
+   */
+  private void release() {
+    if (alignmentTimer > 0) {
+      vertx.cancelTimer(alignmentTimer);
+      alignmentTimer = 0;
+    }
+    aligning = 0;
+    List<DefaultInputConnection> connections = new ArrayList<>(aligned);
+    aligned.clear();
+    for (DefaultInputConnection connection : connections) {
+      connection.unblock();
+    }
+  }
+
+  /**
+   * Takes a checkpoint.
+   */
+  private void checkpoint(final long checkpoint) {
+    lastCheckpoint = checkpoint;
+
+    JsonObject inputs = new JsonObject();
+    for (DefaultInputConnection connection : inputConnections()) {
+      inputs.putNumber(connection.address(), connection.lastReceived());
+    }
+    final JsonObject state = new JsonObject()
+        .putNumber(CHECKPOINT_ID, checkpoint)
+        .putString(CHECKPOINT_INSTANCE, context.address())
+        .putObject("inputs", inputs);
+
+    // Output connection and keyed state snapshots only reference messages and
+    // the state's storage, so processing can resume without waiting for them
+    // to be written to disk. An empty state is never written since it's the
+    // same as no state.
+    List<DefaultOutputConnection> connections = outputConnections();
+    List<OutputConnectionSnapshot> outputs = new ArrayList<>(connections.size());
+    for (DefaultOutputConnection connection : connections) {
+      outputs.add(connection.snapshot());
+    }
+    KeyedState keyedState = component.state();
+    final StateSnapshot snapshot = keyedState.isEmpty() ? null : keyedState.snapshot();
+
+    // Forward the barrier downstream and resume processing. The checkpoint
+    // is written to disk asynchronously.
+    for (DefaultOutputConnection connection : connections) {
+      try {
+        connection.checkpoint(checkpoint);
+      } catch (IllegalStateException e) {
+        // The connection is not open. Downstream instances will time out.
+      }
+    }
+    pending.put(checkpoint, inputs);
+    release();
+    write(checkpoint, state, outputs, snapshot);
+  }
+
+  /**
+   * Writes a checkpoint to disk and acknowledges it to the manager.
+   */
+  private void write(final long checkpoint, final JsonObject state, final List<OutputConnectionSnapshot> outputs, final StateSnapshot snapshot) {
+    vertx.fileSystem().mkdir(directory.getPath(), true, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          failWrite(checkpoint, result.cause());
+        } else {
+          executor.execute(new Action<Void>() {
+            @Override
+            public Void perform() {
+              writeReplay(replayFile(checkpoint), outputs);
+              if (snapshot != null) {
+                snapshot.writeTo(stateFile(checkpoint));
+              }
+              return null;
+            }
+          }, new Handler<AsyncResult<Void>>() {
+            @Override
+            public void handle(AsyncResult<Void> result) {
+              if (result.failed()) {
+                failWrite(checkpoint, result.cause());
+              } else {
+                vertx.fileSystem().writeFile(checkpointFile(checkpoint), new Buffer(state.encode()), new Handler<AsyncResult<Void>>() {
+                  @Override
+                  public void handle(AsyncResult<Void> result) {
+                    if (result.failed()) {
+                      failWrite(checkpoint, result.cause());
+                    } else {
+                      vertx.eventBus().send(managerAddress, new JsonObject()
+                          .putString(CHECKPOINT_ACTION, ACTION_ACK)
+                          .putNumber(CHECKPOINT_ID, checkpoint)
+                          .putString(CHECKPOINT_INSTANCE, context.address()));
+                    }
+                  }
+                });
+              }
+            }
+          });
+        }
+      }
+    });
+  }
+
+  /**
+   * Writes output connection snapshots to a file.
+   */
+  private static void writeReplay(String path, List<OutputConnectionSnapshot> outputs) {
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+      out.writeInt(outputs.size());
+      for (OutputConnectionSnapshot snapshot : outputs) {
+        snapshot.writeTo(out);
+      }
+    } catch (IOException e) {
+      throw new ComponentException("Failed to write checkpoint " + path, e);
+    }
+  }
+
+  /**
+   * Handles a failure to write a checkpoint.
+   */
+  private void failWrite(long checkpoint, Throwable cause) {
+    log.error(String.format("%s - Failed to write checkpoint %d", context.address(), checkpoint), cause);
+    pending.remove(checkpoint);
+  }
+
+  /**
+   * Handles completion of a checkpoint by all instances in the network.
+   */
+  private void doComplete(final long checkpoint) {
+    final JsonObject inputs = pending.get(checkpoint);
+    if (inputs == null) {
+      return;
+    }
+
+    vertx.fileSystem().writeFile(new File(directory, LATEST_FILE).getPath(), new Buffer(String.valueOf(checkpoint)), new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          log.error(String.format("%s - Failed to complete checkpoint %d", context.address(), checkpoint), result.cause());
+          return;
+        }
+
+        // Now that the checkpoint will be restored if the instance fails, upstream
+        // connections no longer need to retain messages included in the checkpoint.
+        for (DefaultInputConnection connection : inputConnections()) {
+          Long lastReceived = inputs.getLong(connection.address());
+          if (lastReceived != null) {
+            connection.commit(lastReceived);
+          }
+        }
+
+        // Remove this and any earlier checkpoints from the pending checkpoints
+        // and delete earlier checkpoints from disk.
+        Iterator<Map.Entry<Long, JsonObject>> iter = pending.headMap(checkpoint, true).entrySet().iterator();
+        while (iter.hasNext()) {
+          long previous = iter.next().getKey();
+          iter.remove();
+          if (previous != checkpoint) {
+            delete(previous);
+          }
+        }
+        deleteBefore(checkpoint);
+      }
+    });
+  }
+
+  /**
+   * Deletes completed checkpoints earlier than the given checkpoint.
+   */
+  private void deleteBefore(final long checkpoint) {
+    vertx.fileSystem().readDir(directory.getPath(), "checkpoint-\\d+\\.json", new Handler<AsyncResult<String[]>>() {
+      @Override
+      public void handle(AsyncResult<String[]> result) {
+        if (result.succeeded()) {
+          for (String path : result.result()) {
+            String name = new File(path).getName();
+            long previous = Long.parseLong(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+            if (previous < checkpoint && !pending.containsKey(previous)) {
+              delete(previous);
+            }
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Deletes a checkpoint from disk.
+   */
+  private void delete(long checkpoint) {
+    vertx.fileSystem().delete(checkpointFile(checkpoint), null);
+    vertx.fileSystem().delete(stateFile(checkpoint), null);
+    vertx.fileSystem().delete(replayFile(checkpoint), null);
+  }
+
+  private String checkpointFile(long checkpoint) {
+    return new File(directory, String.format("checkpoint-%d.json", checkpoint)).getPath();
+  }
+
+  private String replayFile(long checkpoint) {
+    return new File(directory, String.format("checkpoint-%d.replay", checkpoint)).getPath();
+  }
+
+  private String stateFile(long checkpoint) {
+    return new File(directory, String.format("checkpoint-%d.state", checkpoint)).getPath();
+  }
+
+  /**
+   * Returns a list of all the instance's input connections.
+   */
+  private List<DefaultInputConnection> inputConnections() {
+    List<DefaultInputConnection> connections = new ArrayList<>();
+    for (InputPort port : input.ports()) {
+      if (port instanceof DefaultInputPort) {
+        for (InputConnection connection : ((DefaultInputPort) port).connections()) {
+          if (connection instanceof DefaultInputConnection) {
+            connections.add((DefaultInputConnection) connection);
+          }
+        }
+      }
+    }
+    return connections;
+  }
+
+  /**
+   * Returns a list of all the instance's output connections.
+   */
+  private List<DefaultOutputConnection> outputConnections() {
+    List<DefaultOutputConnection> connections = new ArrayList<>();
+    for (OutputPort port : output.ports()) {
+      if (port instanceof DefaultOutputPort) {
+        for (OutputStream stream : ((DefaultOutputPort) port).streams()) {
+          if (stream instanceof DefaultOutputStream) {
+            for (OutputConnection connection : ((DefaultOutputStream) stream).connections()) {
+              if (connection instanceof DefaultOutputConnection) {
+                connections.add((DefaultOutputConnection) connection);
+              }
+            }
+          }
+        }
+      }
+    }
+    return connections;
+  }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.component.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.kuujo.vertigo.component.ComponentConfig;
+import net.kuujo.vertigo.component.InstanceContext;
+import net.kuujo.vertigo.hook.ProfilingHook;
+import net.kuujo.vertigo.hook.TracingHook;
+import net.kuujo.vertigo.io.InputCollector;
+import net.kuujo.vertigo.io.OutputCollector;
+import net.kuujo.vertigo.io.connection.InputConnection;
+import net.kuujo.vertigo.io.connection.OutputConnection;
+import net.kuujo.vertigo.io.connection.impl.DefaultInputConnection;
+import net.kuujo.vertigo.io.connection.impl.DefaultOutputConnection;
+import net.kuujo.vertigo.io.port.InputPort;
+import net.kuujo.vertigo.io.port.OutputPort;
+import net.kuujo.vertigo.io.port.impl.DefaultInputPort;
+import net.kuujo.vertigo.io.port.impl.DefaultOutputPort;
+import net.kuujo.vertigo.io.stream.OutputStream;
+import net.kuujo.vertigo.io.stream.impl.DefaultOutputStream;
+import net.kuujo.vertigo.network.NetworkConfig;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Component instance statistics reporter.<p>
+ *
+ * The reporter periodically publishes the number of unacknowledged messages
+ * on each of the instance's output connections, including messages spilled to
+ * disk, to the network's stats address. The network manager uses these reports
+ * to determine the input lag of downstream instances when automatically scaling
+ * components.<p>
+ *
+ * Each report also contains the number of messages sent and received and the
+ * time output connections were paused since the previous report, along with
+ * per-connection edge statistics and, if the component has a {@link TracingHook},
+ * its traced component latency. If the component has a {@link ProfilingHook}
+ * its latest handler time profile is reported as well. The network manager rolls these up into
+ * network metrics when metrics are enabled.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class InstanceStatsReporter {
+  public static final String STATS_INSTANCE = "instance";
+  public static final String STATS_COMPONENT = "component";
+  public static final String STATS_CONNECTIONS = "connections";
+  public static final String STATS_QUEUED = "queued";
+  public static final String STATS_FULL = "full";
+  public static final String STATS_SPILLED = "spilled";
+  public static final String STATS_SENT = "sent";
+  public static final String STATS_RECEIVED = "received";
+  public static final String STATS_PAUSED = "paused";
+  public static final String STATS_EDGES = "edges";
+  public static final String STATS_LATENCY = "latency";
+  public static final String STATS_PROFILE = "profile";
+  public static final long REPORT_INTERVAL = 1000;
+
+  private final Vertx vertx;
+  private final InstanceContext context;
+  private final InputCollector input;
+  private final OutputCollector output;
+  private final String address;
+  private final Map<String, long[]> lastEdges = new HashMap<>();
+  private long lastReceived;
+  private long timerID;
+
+  public InstanceStatsReporter(Vertx vertx, InstanceContext context, OutputCollector output) {
+    this(vertx, context, null, output);
+  }
+
+  public InstanceStatsReporter(Vertx vertx, InstanceContext context, InputCollector input, OutputCollector output) {
+    this.vertx = vertx;
+    this.context = context;
+    this.input = input;
+    this.output = output;
+    this.address = statsAddress(context.component().network().address());
+  }
+
+  /**
+   * Returns the stats address for the given network address.
+   *
+   * @param network The network address.
+   * @return The network's stats address.
+   */
+  public static String statsAddress(String network) {
+    return String.format("%s.stats", network);
+  }
+
+  /**
+   * Returns a boolean indicating whether any component in the network is scalable.
+   *
+   * @param network The network configuration.
+   * @return Indicates whether any component in the network has scaling enabled.
+   */
+  public static boolean isScalable(NetworkConfig network) {
+    if (network != null) {
+      for (ComponentConfig<?> component : network.getComponents()) {
+        if (component.getScaling() != null && component.getScaling().isEnabled()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns a boolean indicating whether instances in the network should report stats.
+   *
+   * @param network The network configuration.
+   * @return Indicates whether any component is scalable or network metrics are enabled.
+   */
+  public static boolean isEnabled(NetworkConfig network) {
+    return isScalable(network) || (network != null && network.getMetricsInterval() > 0);
+  }
+
+  /**
+   * Starts the reporter.
+   */
+  public void start() {
+    if (timerID == 0) {
+      timerID = vertx.setPeriodic(REPORT_INTERVAL, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          report();
+        }
+      });
+    }
+  }
+
+  /**
+   * Stops the reporter.
+   */
+  public void stop() {
+    if (timerID > 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+    }
+  }
+
+  /**
+   * Publishes a single report.
+   */
+  private void report() {
+    JsonObject connections = new JsonObject();
+    JsonObject edges = new JsonObject();
+    int queued = 0;
+    long spilled = 0;
+    long sent = 0;
+    long paused = 0;
+    boolean full = false;
+    for (OutputPort port : output.ports()) {
+      if (port instanceof DefaultOutputPort) {
+        for (OutputStream stream : ((DefaultOutputPort) port).streams()) {
+          if (stream instanceof DefaultOutputStream) {
+            for (OutputConnection connection : ((DefaultOutputStream) stream).connections()) {
+              int size = connection.size();
+              connections.putNumber(connection.address(), size);
+              queued += size;
+              if (connection instanceof DefaultOutputConnection) {
+                DefaultOutputConnection outputConnection = (DefaultOutputConnection) connection;
+                if (outputConnection.spill() != null) {
+                  spilled += outputConnection.spill().bytes();
+                }
+
+                // Sent messages and paused time are reported as deltas since the last report.
+                long[] last = lastEdges.get(connection.address());
+                if (last == null) {
+                  last = new long[2];
+                  lastEdges.put(connection.address(), last);
+                }
+                long edgeSent = outputConnection.sent() - last[0];
+                long edgePaused = outputConnection.pausedTime() - last[1];
+                last[0] = outputConnection.sent();
+                last[1] = outputConnection.pausedTime();
+                sent += edgeSent;
+                paused += edgePaused;
+                edges.putObject(connection.address(), new JsonObject()
+                    .putNumber(STATS_QUEUED, size)
+                    .putNumber(STATS_SENT, edgeSent)
+                    .putNumber(STATS_PAUSED, edgePaused));
+              }
+            }
+          }
+        }
+      }
+      full = full || port.sendQueueFull();
+    }
+
+    long received = 0;
+    if (input != null) {
+      for (InputPort port : input.ports()) {
+        if (port instanceof DefaultInputPort) {
+          for (InputConnection connection : ((DefaultInputPort) port).connections()) {
+            if (connection instanceof DefaultInputConnection) {
+              received += ((DefaultInputConnection) connection).received();
+            }
+          }
+        }
+      }
+    }
+    long receivedDelta = Math.max(0, received - lastReceived);
+    lastReceived = received;
+
+    JsonObject report = new JsonObject()
+        .putString(STATS_INSTANCE, context.address())
+        .putString(STATS_COMPONENT, context.component().name())
+        .putObject(STATS_CONNECTIONS, connections)
+        .putNumber(STATS_QUEUED, queued)
+        .putBoolean(STATS_FULL, full)
+        .putNumber(STATS_SPILLED, spilled)
+        .putNumber(STATS_SENT, sent)
+        .putNumber(STATS_RECEIVED, receivedDelta)
+        .putNumber(STATS_PAUSED, paused)
+        .putObject(STATS_EDGES, edges);
+
+    TracingHook tracer = TracingHook.find(context.component());
+    if (tracer != null && tracer.componentLatency().count() > 0) {
+      report.putObject(STATS_LATENCY, tracer.componentLatency().toJson());
+    }
+    ProfilingHook profiler = ProfilingHook.find(context.component());
+    if (profiler != null && profiler.profile() != null) {
+      report.putObject(STATS_PROFILE, profiler.profile());
+    }
+    vertx.eventBus().publish(address, report);
+  }
+
+}
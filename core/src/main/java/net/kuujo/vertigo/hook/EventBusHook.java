@@ -19,7 +19,12 @@ import net.kuujo.vertigo.component.Component;
 import net.kuujo.vertigo.component.InstanceContext;
 import net.kuujo.vertigo.component.impl.DefaultInstanceContext;
 
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonElement;
 import org.vertx.java.core.json.JsonObject;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -35,6 +40,15 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * an <code>event</code> key which indicates the event that occurred. Additional
  * keys depend on the event.<p>
  *
+ * To limit the traffic generated by the hook, send and receive events can be
+ * sampled, rate limited, and truncated. Only one in every <code>sampleRate</code>
+ * send and receive events is published, at most <code>maxRate</code> events are
+ * published per second, and message payloads longer than <code>maxPayloadSize</code>
+ * are truncated to a string of that length with a <code>truncated</code> flag.
+ * If a batch interval is set, events are published once per interval as a single
+ * <code>batch</code> event with an <code>events</code> array and a count of the
+ * events <code>dropped</code> by the rate limit since the last batch.<p>
+ *
  * You can use an {@link EventBusHookListener} to listen for messages from an
  * <code>EventBusHook</code>. This listener will handle parsing messages and
  * calling event handlers.
@@ -42,9 +56,29 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class EventBusHook implements ComponentHook {
+  private static final int MAX_BATCH_SIZE = 1000;
   @JsonIgnore private InstanceContext context;
   @JsonIgnore private EventBus eventBus;
+  @JsonIgnore private Vertx vertx;
+  @JsonIgnore private JsonArray batch;
+  @JsonIgnore private long batchTimer;
+  @JsonIgnore private int sampleCount;
+  @JsonIgnore private long rateWindow;
+  @JsonIgnore private int rateCount;
+  @JsonIgnore private long dropped;
   private String address;
+  private int sampleRate = 1;
+  private int maxRate;
+  private int maxPayloadSize;
+  private long batchInterval;
+
+  @JsonIgnore
+  private final Handler<Long> batchHandler = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      flush();
+    }
+  };
 
   public EventBusHook() {
   }
@@ -53,29 +87,203 @@ public class EventBusHook implements ComponentHook {
     this.address = address;
   }
 
+  /**
+   * Sets the event sample rate.
+   *
+   * @param sampleRate The number of send and receive events per published event.
+   * @return The hook.
+   */
+  public EventBusHook setSampleRate(int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("Sample rate must be a positive number.");
+    }
+    this.sampleRate = sampleRate;
+    return this;
+  }
+
+  /**
+   * Returns the event sample rate.
+   *
+   * @return The number of send and receive events per published event. Defaults to <code>1</code>
+   */
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Sets the maximum number of events to publish per second.
+   *
+   * @param maxRate The maximum number of send and receive events per second.
+   *        If <code>0</code> then the event rate is not limited.
+   * @return The hook.
+   */
+  public EventBusHook setMaxRate(int maxRate) {
+    this.maxRate = maxRate;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of events to publish per second.
+   *
+   * @return The maximum number of events per second. Defaults to <code>0</code>
+   */
+  public int getMaxRate() {
+    return maxRate;
+  }
+
+  /**
+   * Sets the maximum payload size.
+   *
+   * @param maxPayloadSize The maximum length of published message payloads.
+   *        If <code>0</code> then payloads are not truncated.
+   * @return The hook.
+   */
+  public EventBusHook setMaxPayloadSize(int maxPayloadSize) {
+    this.maxPayloadSize = maxPayloadSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum payload size.
+   *
+   * @return The maximum length of published message payloads. Defaults to <code>0</code>
+   */
+  public int getMaxPayloadSize() {
+    return maxPayloadSize;
+  }
+
+  /**
+   * Sets the batch interval.
+   *
+   * @param batchInterval The interval in milliseconds at which to publish batches
+   *        of events. If <code>0</code> then events are published immediately.
+   * @return The hook.
+   */
+  public EventBusHook setBatchInterval(long batchInterval) {
+    this.batchInterval = batchInterval;
+    return this;
+  }
+
+  /**
+   * Returns the batch interval.
+   *
+   * @return The batch interval in milliseconds. Defaults to <code>0</code>
+   */
+  public long getBatchInterval() {
+    return batchInterval;
+  }
+
   @Override
   public void handleStart(Component component) {
-    this.eventBus = component.vertx().eventBus();
+    this.vertx = component.vertx();
+    this.eventBus = vertx.eventBus();
     this.context = component.context();
     if (this.address == null) {
       this.address = component.context().component().address();
     }
     eventBus.publish(address, new JsonObject().putString("event", "start").putObject("context", DefaultInstanceContext.toJson(context)));
+    if (batchInterval > 0) {
+      batch = new JsonArray();
+      batchTimer = vertx.setPeriodic(batchInterval, batchHandler);
+    }
   }
 
   @Override
   public void handleSend(Object message) {
-    eventBus.publish(address, new JsonObject().putString("event", "send").putValue("message", message));
+    if (sample()) {
+      publish(createEvent("send", message));
+    }
   }
 
   @Override
   public void handleReceive(Object message) {
-    eventBus.publish(address, new JsonObject().putString("event", "receive").putValue("message", message));
+    if (sample()) {
+      publish(createEvent("receive", message));
+    }
   }
 
   @Override
   public void handleStop(Component subject) {
+    if (batchTimer > 0) {
+      vertx.cancelTimer(batchTimer);
+      batchTimer = 0;
+      flush();
+    }
     eventBus.publish(address, new JsonObject().putString("event", "stop").putObject("context", DefaultInstanceContext.toJson(context)));
   }
 
+  /**
+   * Determines whether to publish a send or receive event.
+   */
+  private boolean sample() {
+    if (sampleRate > 1 && ++sampleCount < sampleRate) {
+      return false;
+    }
+    sampleCount = 0;
+    if (maxRate > 0) {
+      long window = System.currentTimeMillis() / 1000;
+      if (window != rateWindow) {
+        rateWindow = window;
+        rateCount = 0;
+      }
+      if (++rateCount > maxRate) {
+        dropped++;
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Creates a message event, truncating the payload if necessary.
+   */
+  private JsonObject createEvent(String event, Object message) {
+    JsonObject json = new JsonObject().putString("event", event);
+    if (maxPayloadSize > 0 && message != null) {
+      String value = null;
+      if (message instanceof String) {
+        value = (String) message;
+      } else if (message instanceof JsonElement) {
+        value = message instanceof JsonObject ? ((JsonObject) message).encode() : ((JsonArray) message).encode();
+      } else if (message instanceof Buffer || message instanceof byte[]) {
+        int length = message instanceof Buffer ? ((Buffer) message).length() : ((byte[]) message).length;
+        if (length > maxPayloadSize) {
+          return json.putString("message", String.format("<%d bytes>", length)).putBoolean("truncated", true);
+        }
+      }
+      if (value != null && value.length() > maxPayloadSize) {
+        return json.putString("message", value.substring(0, maxPayloadSize)).putBoolean("truncated", true);
+      }
+    }
+    return json.putValue("message", message);
+  }
+
+  /**
+   * Publishes or batches an event.
+   */
+  private void publish(JsonObject event) {
+    if (batch != null) {
+      batch.addObject(event);
+      if (batch.size() >= MAX_BATCH_SIZE) {
+        flush();
+      }
+    } else {
+      eventBus.publish(address, event);
+    }
+  }
+
+  /**
+   * Publishes the current batch of events.
+   */
+  private void flush() {
+    if (batch != null && (batch.size() > 0 || dropped > 0)) {
+      eventBus.publish(address, new JsonObject()
+          .putString("event", "batch")
+          .putArray("events", batch)
+          .putNumber("dropped", dropped));
+      batch = new JsonArray();
+      dropped = 0;
+    }
+  }
+
 }
@@ -22,6 +22,7 @@ import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.eventbus.EventBus;
 import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 
 /**
@@ -46,31 +47,7 @@ public class EventBusHookListener {
     @Override
     @SuppressWarnings("unchecked")
     public void handle(Message<JsonObject> message) {
-      String event = message.body().getString("event");
-      if (event != null) {
-        switch (event) {
-          case "start":
-            if (startHandler != null) {
-              startHandler.handle(DefaultInstanceContext.fromJson(message.body().getObject("context")));
-            }
-            break;
-          case "send":
-            if (sendHandler != null) {
-              sendHandler.handle(message.body().getValue("message"));
-            }
-            break;
-          case "receive":
-            if (receiveHandler != null) {
-              receiveHandler.handle(message.body().getValue("message"));
-            }
-            break;
-          case "stop":
-            if (stopHandler != null) {
-              stopHandler.handle(DefaultInstanceContext.fromJson(message.body().getObject("context")));
-            }
-            break;
-        }
-      }
+      handleEvent(message.body());
     }
   };
 
@@ -79,6 +56,48 @@ public class EventBusHookListener {
     this.eventBus = eventBus;
   }
 
+  /**
+   * Handles a hook event.
+   */
+  @SuppressWarnings("unchecked")
+  private void handleEvent(JsonObject body) {
+    String event = body.getString("event");
+    if (event != null) {
+      switch (event) {
+        case "start":
+          if (startHandler != null) {
+            startHandler.handle(DefaultInstanceContext.fromJson(body.getObject("context")));
+          }
+          break;
+        case "send":
+          if (sendHandler != null) {
+            sendHandler.handle(body.getValue("message"));
+          }
+          break;
+        case "receive":
+          if (receiveHandler != null) {
+            receiveHandler.handle(body.getValue("message"));
+          }
+          break;
+        case "batch":
+          JsonArray events = body.getArray("events");
+          if (events != null) {
+            for (Object batchEvent : events) {
+              if (batchEvent instanceof JsonObject) {
+                handleEvent((JsonObject) batchEvent);
+              }
+            }
+          }
+          break;
+        case "stop":
+          if (stopHandler != null) {
+            stopHandler.handle(DefaultInstanceContext.fromJson(body.getObject("context")));
+          }
+          break;
+      }
+    }
+  }
+
   /**
    * Starts the hook listener, registering a handler on the event bus.
    *
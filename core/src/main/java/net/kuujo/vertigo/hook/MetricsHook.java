@@ -15,9 +15,15 @@
  */
 package net.kuujo.vertigo.hook;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import net.kuujo.vertigo.component.Component;
 import net.kuujo.vertigo.component.InstanceContext;
+import net.kuujo.vertigo.metrics.Histogram;
+import net.kuujo.vertigo.metrics.MetricsRegistry;
 
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
 import org.vertx.java.core.eventbus.EventBus;
 import org.vertx.java.core.json.JsonObject;
 
@@ -32,12 +38,56 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
  * network.addVerticle("foo", Foo.class.getName()).addHook(new MetricsHook("com.bloidonia.metrics"));
  * </pre>
  *
+ * Rather than sending a metrics message for each message sent or received,
+ * the hook counts messages locally and flushes the counts to the metrics
+ * module once per flush interval. On each flush the hook increments the
+ * <code>[address].send.count</code> and <code>[address].receive.count</code>
+ * counters and sets the <code>[address].send.rate</code>,
+ * <code>[address].receive.rate</code> and <code>[address].process.*</code>
+ * gauges. The processing time is the time in microseconds between receiving
+ * a message and sending the next message from the instance. If the flush
+ * interval is <code>0</code> then the hook instead marks the
+ * <code>[address].send</code> and <code>[address].receive</code> meters for
+ * each message. Aggregates are published under their own names so they
+ * never collide with those meters.<p>
+ *
+ * If the registry is enabled, each flush also publishes a snapshot of the
+ * instance metrics to the in-process {@link MetricsRegistry}, in which case
+ * the metrics module address may be <code>null</code>.
+ *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class MetricsHook implements ComponentHook {
+
+  /**
+   * <code>1000</code> is the default flush interval in milliseconds.
+   */
+  public static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
   @JsonIgnore private InstanceContext context;
   @JsonIgnore private EventBus eventBus;
+  @JsonIgnore private Vertx vertx;
+  @JsonIgnore private final AtomicLong sent = new AtomicLong();
+  @JsonIgnore private final AtomicLong received = new AtomicLong();
+  @JsonIgnore private final Histogram processTime = new Histogram();
+  @JsonIgnore private long lastSent;
+  @JsonIgnore private long lastReceived;
+  @JsonIgnore private long lastFlush;
+  @JsonIgnore private long receiveTime;
+  @JsonIgnore private long timerID;
+  @JsonIgnore private String sendName;
+  @JsonIgnore private String receiveName;
   private String address;
+  private long interval = DEFAULT_FLUSH_INTERVAL;
+  private boolean registry;
+
+  @JsonIgnore
+  private final Handler<Long> flushHandler = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      flush();
+    }
+  };
 
   public MetricsHook() {
   }
@@ -46,29 +96,147 @@ public class MetricsHook implements ComponentHook {
     this.address = address;
   }
 
+  public MetricsHook(String address, long interval) {
+    this.address = address;
+    this.interval = interval;
+  }
+
+  /**
+   * Sets the metrics flush interval.
+   *
+   * @param interval The interval in milliseconds at which to flush metrics. If
+   *        the interval is <code>0</code> then metrics will be sent for each message.
+   * @return The metrics hook.
+   */
+  public MetricsHook setFlushInterval(long interval) {
+    this.interval = interval;
+    return this;
+  }
+
+  /**
+   * Returns the metrics flush interval.
+   *
+   * @return The metrics flush interval in milliseconds.
+   */
+  public long getFlushInterval() {
+    return interval;
+  }
+
+  /**
+   * Sets whether to publish metrics to the in-process registry.
+   *
+   * @param enabled Whether to publish metrics to the registry.
+   * @return The metrics hook.
+   */
+  public MetricsHook setRegistryEnabled(boolean enabled) {
+    this.registry = enabled;
+    return this;
+  }
+
+  /**
+   * Returns whether metrics are published to the in-process registry.
+   *
+   * @return Indicates whether metrics are published to the registry.
+   */
+  public boolean isRegistryEnabled() {
+    return registry;
+  }
+
   @Override
   public void handleStart(Component component) {
     context = component.context();
-    eventBus = component.vertx().eventBus();
+    vertx = component.vertx();
+    eventBus = vertx.eventBus();
+    sendName = String.format("%s.send", context.address());
+    receiveName = String.format("%s.receive", context.address());
+    lastFlush = System.currentTimeMillis();
+    if (interval > 0) {
+      timerID = vertx.setPeriodic(interval, flushHandler);
+    }
   }
 
   @Override
   public void handleReceive(Object message) {
-    eventBus.send(address, new JsonObject()
-      .putString("action", "mark")
-      .putString("name", String.format("%s.receive", context.address())));
+    received.incrementAndGet();
+    receiveTime = System.nanoTime();
+    if (interval <= 0 && address != null) {
+      eventBus.send(address, new JsonObject()
+        .putString("action", "mark")
+        .putString("name", receiveName));
+    }
   }
 
   @Override
   public void handleSend(Object message) {
-    eventBus.send(address, new JsonObject()
-      .putString("action", "mark")
-      .putString("name", String.format("%s.send", context.address())));
+    sent.incrementAndGet();
+    if (receiveTime > 0) {
+      processTime.record((System.nanoTime() - receiveTime) / 1000);
+      receiveTime = 0;
+    }
+    if (interval <= 0 && address != null) {
+      eventBus.send(address, new JsonObject()
+        .putString("action", "mark")
+        .putString("name", sendName));
+    }
+  }
+
+  /**
+   * Flushes metrics to the metrics module and registry.
+   */
+  private void flush() {
+    long now = System.currentTimeMillis();
+    long elapsed = Math.max(1, now - lastFlush);
+    long sent = this.sent.get();
+    long received = this.received.get();
+    long sentDelta = sent - lastSent;
+    long receivedDelta = received - lastReceived;
+    double sendRate = sentDelta * 1000d / elapsed;
+    double receiveRate = receivedDelta * 1000d / elapsed;
+
+    if (address != null) {
+      if (sentDelta > 0) {
+        eventBus.send(address, new JsonObject().putString("action", "inc").putString("name", sendName + ".count").putNumber("n", sentDelta));
+      }
+      if (receivedDelta > 0) {
+        eventBus.send(address, new JsonObject().putString("action", "inc").putString("name", receiveName + ".count").putNumber("n", receivedDelta));
+      }
+      if (sentDelta > 0 || receivedDelta > 0) {
+        eventBus.send(address, new JsonObject().putString("action", "set").putString("name", sendName + ".rate").putNumber("n", sendRate));
+        eventBus.send(address, new JsonObject().putString("action", "set").putString("name", receiveName + ".rate").putNumber("n", receiveRate));
+      }
+      if (processTime.count() > 0) {
+        eventBus.send(address, new JsonObject().putString("action", "set").putString("name", context.address() + ".process.p50").putNumber("n", processTime.percentile(50)));
+        eventBus.send(address, new JsonObject().putString("action", "set").putString("name", context.address() + ".process.p99").putNumber("n", processTime.percentile(99)));
+      }
+    }
+
+    if (registry) {
+      MetricsRegistry.register(context.address(), new JsonObject()
+          .putString("address", context.address())
+          .putNumber("time", now)
+          .putNumber("sent", sent)
+          .putNumber("received", received)
+          .putNumber("send-rate", sendRate)
+          .putNumber("receive-rate", receiveRate)
+          .putObject("process", processTime.toJson()));
+    }
+
+    processTime.reset();
+    lastSent = sent;
+    lastReceived = received;
+    lastFlush = now;
   }
 
   @Override
   public void handleStop(Component component) {
-    
+    if (timerID > 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+      flush();
+    }
+    if (registry) {
+      MetricsRegistry.unregister(context.address());
+    }
   }
 
 }
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.hook;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.kuujo.vertigo.component.Component;
+import net.kuujo.vertigo.component.ComponentContext;
+import net.kuujo.vertigo.metrics.Histogram;
+import net.kuujo.vertigo.metrics.MetricsRegistry;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Handler execution time profiling hook.<p>
+ *
+ * When a profiling hook is added to a component, the component's input
+ * connections measure the wall time of each call to a message handler and
+ * record it in a per-port histogram. The hook also keeps the slowest messages
+ * it has seen. Once per check interval the hook computes a profile of the
+ * interval, flags each port whose 99th percentile handler time exceeds the
+ * threshold, and resets its histograms. Since handlers run on the component's
+ * event loop, a slow handler stalls every connection on the context, so
+ * flagged ports are logged as warnings.<p>
+ *
+ * <pre>
+ * network.addVerticle("foo", Foo.class.getName()).addHook(new ProfilingHook(50));
+ * </pre>
+ *
+ * The latest profile is included in the component's stats reports, which are
+ * rolled up into network metrics, and is published to the {@link MetricsRegistry}
+ * as <code>[address].profile</code>.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class ProfilingHook implements ComponentHook {
+  private static final Logger log = LoggerFactory.getLogger(ProfilingHook.class);
+  private static final int MAX_MESSAGE_LENGTH = 100;
+
+  /**
+   * <code>100</code> is the default handler time threshold in milliseconds.
+   */
+  public static final long DEFAULT_THRESHOLD = 100;
+
+  /**
+   * <code>10</code> is the default number of slowest messages to keep.
+   */
+  public static final int DEFAULT_SLOWEST = 10;
+
+  /**
+   * <code>5000</code> is the default check interval in milliseconds.
+   */
+  public static final long DEFAULT_INTERVAL = 5000;
+
+  @JsonIgnore private final Map<String, Histogram> ports = new ConcurrentHashMap<>();
+  @JsonIgnore private final Set<String> flagged = new HashSet<>();
+  @JsonIgnore private Vertx vertx;
+  @JsonIgnore private String address;
+  @JsonIgnore private String name;
+  @JsonIgnore private long timerID;
+  @JsonIgnore private JsonObject[] slowestMessages;
+  @JsonIgnore private long slowestMinimum;
+  @JsonIgnore private volatile JsonObject profile;
+  private long threshold = DEFAULT_THRESHOLD;
+  private int slowest = DEFAULT_SLOWEST;
+  private long interval = DEFAULT_INTERVAL;
+
+  @JsonIgnore
+  private final Handler<Long> checkHandler = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      check();
+    }
+  };
+
+  public ProfilingHook() {
+  }
+
+  public ProfilingHook(long threshold) {
+    this.threshold = threshold;
+  }
+
+  /**
+   * Finds the profiling hook for a component.
+   *
+   * @param context The component context.
+   * @return The component's profiling hook, or <code>null</code> if the component
+   *         has no profiling hook.
+   */
+  public static ProfilingHook find(ComponentContext<?> context) {
+    if (context != null) {
+      for (ComponentHook hook : context.hooks()) {
+        if (hook instanceof ProfilingHook) {
+          return (ProfilingHook) hook;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Sets the handler time threshold.
+   *
+   * @param threshold The 99th percentile handler time in milliseconds above
+   *        which ports are flagged as slow.
+   * @return The profiling hook.
+   */
+  public ProfilingHook setThreshold(long threshold) {
+    this.threshold = threshold;
+    return this;
+  }
+
+  /**
+   * Returns the handler time threshold.
+   *
+   * @return The handler time threshold in milliseconds.
+   */
+  public long getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Sets the number of slowest messages to keep.
+   *
+   * @param slowest The number of slowest messages to keep.
+   * @return The profiling hook.
+   */
+  public ProfilingHook setSlowest(int slowest) {
+    this.slowest = slowest;
+    return this;
+  }
+
+  /**
+   * Returns the number of slowest messages to keep.
+   *
+   * @return The number of slowest messages to keep.
+   */
+  public int getSlowest() {
+    return slowest;
+  }
+
+  /**
+   * Sets the check interval.
+   *
+   * @param interval The interval in milliseconds at which to check handler times.
+   * @return The profiling hook.
+   */
+  public ProfilingHook setCheckInterval(long interval) {
+    this.interval = interval;
+    return this;
+  }
+
+  /**
+   * Returns the check interval.
+   *
+   * @return The interval in milliseconds at which handler times are checked.
+   */
+  public long getCheckInterval() {
+    return interval;
+  }
+
+  /**
+   * Records the execution time of a message handler.
+   *
+   * @param port The name of the port on which the message was received.
+   * @param message The message that was handled.
+   * @param nanos The handler execution time in nanoseconds.
+   */
+  public void record(String port, Object message, long nanos) {
+    long micros = nanos / 1000;
+    Histogram histogram = ports.get(port);
+    if (histogram == null) {
+      histogram = new Histogram();
+      ports.put(port, histogram);
+    }
+    histogram.record(micros);
+    if (slowest > 0 && micros > slowestMinimum) {
+      recordSlowest(port, message, micros);
+    }
+  }
+
+  /**
+   * Records a message in the slowest messages, replacing the fastest.
+   */
+  private void recordSlowest(String port, Object message, long micros) {
+    if (slowestMessages == null || slowestMessages.length != slowest) {
+      slowestMessages = new JsonObject[slowest];
+    }
+    int replace = 0;
+    for (int i = 0; i < slowestMessages.length; i++) {
+      if (slowestMessages[i] == null) {
+        replace = i;
+        break;
+      } else if (slowestMessages[i].getLong("time") < slowestMessages[replace].getLong("time")) {
+        replace = i;
+      }
+    }
+    String value = String.valueOf(message);
+    if (value.length() > MAX_MESSAGE_LENGTH) {
+      value = value.substring(0, MAX_MESSAGE_LENGTH);
+    }
+    slowestMessages[replace] = new JsonObject()
+        .putString("port", port)
+        .putNumber("time", micros)
+        .putNumber("timestamp", System.currentTimeMillis())
+        .putString("message", value);
+
+    // Only messages slower than the fastest of the slowest messages are recorded.
+    long minimum = Long.MAX_VALUE;
+    for (JsonObject slow : slowestMessages) {
+      if (slow == null) {
+        minimum = 0;
+        break;
+      }
+      minimum = Math.min(minimum, slow.getLong("time"));
+    }
+    slowestMinimum = minimum;
+  }
+
+  /**
+   * Returns the latest profile.<p>
+   *
+   * The profile contains the <code>threshold</code>, a <code>ports</code> object
+   * with handler times in microseconds and a <code>slow</code> flag for each port
+   * over the last check interval, a <code>slowest</code> array of the slowest
+   * messages, and a <code>slow</code> flag indicating whether any port is slow.
+   *
+   * @return The latest profile, or <code>null</code> if no profile has been computed.
+   */
+  public JsonObject profile() {
+    return profile;
+  }
+
+  /**
+   * Returns a boolean indicating whether any port was flagged as slow in the latest profile.
+   *
+   * @return Indicates whether any port is slow.
+   */
+  public boolean isSlow() {
+    JsonObject profile = this.profile;
+    return profile != null && profile.getBoolean("slow", false);
+  }
+
+  /**
+   * Computes a profile of the last interval.
+   */
+  public void check() {
+    JsonObject portProfiles = new JsonObject();
+    boolean slow = false;
+    for (Map.Entry<String, Histogram> entry : ports.entrySet()) {
+      Histogram histogram = entry.getValue();
+      if (histogram.count() == 0) {
+        continue;
+      }
+      boolean portSlow = histogram.percentile(99) > threshold * 1000;
+      if (portSlow && flagged.add(entry.getKey())) {
+        log.warn(String.format("Slow message handler on %s port %s, p99 handler time %dms exceeds %dms", address, entry.getKey(), histogram.percentile(99) / 1000, threshold));
+      } else if (!portSlow) {
+        flagged.remove(entry.getKey());
+      }
+      slow = slow || portSlow;
+      portProfiles.putObject(entry.getKey(), histogram.toJson().putBoolean("slow", portSlow));
+      histogram.reset();
+    }
+
+    JsonArray slowestArray = new JsonArray();
+    if (slowestMessages != null) {
+      for (JsonObject message : slowestMessages) {
+        if (message != null) {
+          slowestArray.addObject(message.copy());
+        }
+      }
+    }
+
+    profile = new JsonObject()
+        .putNumber("threshold", threshold)
+        .putBoolean("slow", slow)
+        .putObject("ports", portProfiles)
+        .putArray("slowest", slowestArray);
+    if (name != null) {
+      MetricsRegistry.register(name, profile);
+    }
+  }
+
+  @Override
+  public void handleStart(Component component) {
+    vertx = component.vertx();
+    address = component.context().address();
+    name = String.format("%s.profile", address);
+    if (interval > 0) {
+      timerID = vertx.setPeriodic(interval, checkHandler);
+    }
+  }
+
+  @Override
+  public void handleReceive(Object message) {
+  }
+
+  @Override
+  public void handleSend(Object message) {
+  }
+
+  @Override
+  public void handleStop(Component component) {
+    if (timerID > 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+    }
+    if (name != null) {
+      MetricsRegistry.unregister(name);
+    }
+  }
+
+}
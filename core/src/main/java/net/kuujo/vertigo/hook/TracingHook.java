@@ -0,0 +1,307 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.hook;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.kuujo.vertigo.component.Component;
+import net.kuujo.vertigo.component.ComponentContext;
+import net.kuujo.vertigo.metrics.Histogram;
+import net.kuujo.vertigo.metrics.MetricsRegistry;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Sampled latency tracing hook.<p>
+ *
+ * When a tracing hook is added to a component, one in every <code>sampleRate</code>
+ * messages sent by the component is tagged with a trace containing the time
+ * at which the message originated. Each connection the traced message crosses
+ * appends a hop recording the times at which the message was sent and received.
+ * Messages sent by a component while it's handling a traced message carry the
+ * trace forward, so traces follow messages through every component that has
+ * a tracing hook. Messages that aren't sampled only pay for a counter check.<p>
+ *
+ * Each hook records three kinds of latency in milliseconds: the end-to-end
+ * latency from the trace origin to the component, the latency of each edge
+ * (input connection) into the component, and the component latency from
+ * receiving a traced message to sending its first message. Since timestamps
+ * are taken from the system clock, edge and end-to-end latencies across nodes
+ * are only as accurate as the clock synchronization between the nodes.<p>
+ *
+ * <pre>
+ * network.addVerticle("foo", Foo.class.getName()).addHook(new TracingHook(1000));
+ * </pre>
+ *
+ * If the registry interval is positive, a snapshot of the latency histograms
+ * is published to the {@link MetricsRegistry} as <code>[address].trace</code>
+ * once per interval.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TracingHook implements ComponentHook {
+
+  /**
+   * <code>1000</code> is the default sample rate.
+   */
+  public static final int DEFAULT_SAMPLE_RATE = 1000;
+
+  /**
+   * <code>trace</code> is the message field containing the trace.
+   */
+  public static final String TRACE_FIELD = "trace";
+
+  @JsonIgnore private final Histogram endToEndLatency = new Histogram();
+  @JsonIgnore private final Histogram componentLatency = new Histogram();
+  @JsonIgnore private final Map<String, Histogram> edgeLatency = new ConcurrentHashMap<>();
+  @JsonIgnore private Vertx vertx;
+  @JsonIgnore private String name;
+  @JsonIgnore private long timerID;
+  @JsonIgnore private int count;
+  @JsonIgnore private JsonObject current;
+  @JsonIgnore private long currentReceived;
+  @JsonIgnore private boolean currentSent;
+  private int sampleRate = DEFAULT_SAMPLE_RATE;
+  private long interval;
+
+  @JsonIgnore
+  private final Handler<Long> registryHandler = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      MetricsRegistry.register(name, metrics());
+    }
+  };
+
+  public TracingHook() {
+  }
+
+  public TracingHook(int sampleRate) {
+    setSampleRate(sampleRate);
+  }
+
+  /**
+   * Finds the tracing hook for a component.
+   *
+   * @param context The component context.
+   * @return The component's tracing hook, or <code>null</code> if the component
+   *         has no tracing hook.
+   */
+  public static TracingHook find(ComponentContext<?> context) {
+    if (context != null) {
+      Collection<ComponentHook> hooks = context.hooks();
+      for (ComponentHook hook : hooks) {
+        if (hook instanceof TracingHook) {
+          return (TracingHook) hook;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Sets the trace sample rate.
+   *
+   * @param sampleRate The number of messages per traced message.
+   * @return The tracing hook.
+   */
+  public TracingHook setSampleRate(int sampleRate) {
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException("Sample rate must be a positive number.");
+    }
+    this.sampleRate = sampleRate;
+    return this;
+  }
+
+  /**
+   * Returns the trace sample rate.
+   *
+   * @return The number of messages per traced message.
+   */
+  public int getSampleRate() {
+    return sampleRate;
+  }
+
+  /**
+   * Sets the interval at which to publish latencies to the metrics registry.
+   *
+   * @param interval The registry interval in milliseconds. If the interval
+   *        is <code>0</code> then latencies won't be published to the registry.
+   * @return The tracing hook.
+   */
+  public TracingHook setRegistryInterval(long interval) {
+    this.interval = interval;
+    return this;
+  }
+
+  /**
+   * Returns the interval at which latencies are published to the metrics registry.
+   *
+   * @return The registry interval in milliseconds.
+   */
+  public long getRegistryInterval() {
+    return interval;
+  }
+
+  /**
+   * Returns the end-to-end latency histogram.
+   *
+   * @return The latency from trace origins to the component in milliseconds.
+   */
+  public Histogram endToEndLatency() {
+    return endToEndLatency;
+  }
+
+  /**
+   * Returns the component latency histogram.
+   *
+   * @return The latency from receiving traced messages to sending messages in milliseconds.
+   */
+  public Histogram componentLatency() {
+    return componentLatency;
+  }
+
+  /**
+   * Returns the latency histogram for an edge.
+   *
+   * @param address The input connection address.
+   * @return The edge latency in milliseconds, or <code>null</code> if no traces
+   *         have been received on the connection.
+   */
+  public Histogram edgeLatency(String address) {
+    return edgeLatency.get(address);
+  }
+
+  /**
+   * Returns a summary of all traced latencies.
+   *
+   * @return A JSON summary of traced latencies.
+   */
+  public JsonObject metrics() {
+    JsonObject edges = new JsonObject();
+    for (Map.Entry<String, Histogram> entry : edgeLatency.entrySet()) {
+      edges.putObject(entry.getKey(), entry.getValue().toJson());
+    }
+    return new JsonObject()
+        .putObject("end-to-end", endToEndLatency.toJson())
+        .putObject("component", componentLatency.toJson())
+        .putObject("edges", edges);
+  }
+
+  /**
+   * Returns a trace for a message being sent on a connection.<p>
+   *
+   * If a traced message is currently being handled then the trace is carried
+   * forward, otherwise a new trace is started for one in every
+   * <code>sampleRate</code> messages.
+   *
+   * @param address The output connection address.
+   * @return The trace to add to the message, or <code>null</code> if the message
+   *         should not be traced.
+   */
+  public JsonObject trace(String address) {
+    JsonObject trace;
+    long now;
+    if (current != null) {
+      now = System.currentTimeMillis();
+      if (!currentSent) {
+        componentLatency.record(now - currentReceived);
+        currentSent = true;
+      }
+      trace = current.copy();
+    } else if (++count >= sampleRate) {
+      count = 0;
+      now = System.currentTimeMillis();
+      trace = new JsonObject().putNumber("origin", now).putArray("hops", new JsonArray());
+    } else {
+      return null;
+    }
+    trace.getArray("hops").addArray(new JsonArray().addString(address).addNumber(now));
+    return trace;
+  }
+
+  /**
+   * Handles receiving a traced message on a connection.<p>
+   *
+   * The trace remains current until {@link #complete()} is called, so any
+   * messages sent while handling the traced message will carry the trace.
+   *
+   * @param address The input connection address.
+   * @param trace The message trace.
+   */
+  public void receive(String address, JsonObject trace) {
+    long now = System.currentTimeMillis();
+    JsonArray hops = trace.getArray("hops");
+    if (hops != null && hops.size() > 0) {
+      JsonArray hop = hops.get(hops.size() - 1);
+      Number sent = hop.get(1);
+      hop.addNumber(now);
+      Histogram histogram = edgeLatency.get(address);
+      if (histogram == null) {
+        histogram = new Histogram();
+        edgeLatency.put(address, histogram);
+      }
+      histogram.record(now - sent.longValue());
+    }
+    Number origin = trace.getNumber("origin");
+    if (origin != null) {
+      endToEndLatency.record(now - origin.longValue());
+    }
+    current = trace;
+    currentReceived = now;
+    currentSent = false;
+  }
+
+  /**
+   * Completes handling of the current traced message.
+   */
+  public void complete() {
+    current = null;
+  }
+
+  @Override
+  public void handleStart(Component component) {
+    vertx = component.vertx();
+    name = String.format("%s.trace", component.context().address());
+    if (interval > 0) {
+      timerID = vertx.setPeriodic(interval, registryHandler);
+    }
+  }
+
+  @Override
+  public void handleReceive(Object message) {
+  }
+
+  @Override
+  public void handleSend(Object message) {
+  }
+
+  @Override
+  public void handleStop(Component component) {
+    if (timerID > 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+      MetricsRegistry.unregister(name);
+    }
+  }
+
+}
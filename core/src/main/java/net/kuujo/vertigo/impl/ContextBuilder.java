@@ -226,6 +226,11 @@ public final class ContextBuilder {
             for (IOHook hook : connection.getHooks()) {
               outConnection.addHook(hook);
             }
+
+            // Spilling is only performed on the output side of the connection.
+            if (connection.getSpill() != null) {
+              outConnection.setSpill(connection.getSpill());
+            }
             outStream.addConnection(outConnection.build());
           }
 
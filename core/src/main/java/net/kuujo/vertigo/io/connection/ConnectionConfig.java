@@ -73,6 +73,12 @@ public interface ConnectionConfig extends Config<ConnectionConfig> {
    */
   public static final String CONNECTION_SELECTOR = "selector";
 
+  /**
+   * <code>spill</code> is an object defining the connection spill configuration. See
+   * the {@link SpillConfig} documentation for spill options.
+   */
+  public static final String CONNECTION_SPILL = "spill";
+
   /**
    * Returns the connection source.
    *
@@ -102,6 +108,21 @@ public interface ConnectionConfig extends Config<ConnectionConfig> {
    */
   List<IOHook> getHooks();
 
+  /**
+   * Sets the connection spill configuration.
+   *
+   * @param spill The spill configuration.
+   * @return The connection configuration.
+   */
+  ConnectionConfig setSpill(SpillConfig spill);
+
+  /**
+   * Returns the connection spill configuration.
+   *
+   * @return The connection spill configuration.
+   */
+  SpillConfig getSpill();
+
   /**
    * Returns the connection selector.
    *
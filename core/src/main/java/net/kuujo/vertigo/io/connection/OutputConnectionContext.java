@@ -51,4 +51,11 @@ public interface OutputConnectionContext extends ConnectionContext<OutputConnect
    */
   List<OutputHook> hooks();
 
+  /**
+   * Returns the connection spill configuration.
+   *
+   * @return The connection spill configuration.
+   */
+  SpillConfig spill();
+
 }
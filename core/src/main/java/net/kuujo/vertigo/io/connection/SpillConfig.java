@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection;
+
+import net.kuujo.vertigo.Config;
+import net.kuujo.vertigo.io.connection.impl.DefaultSpillConfig;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+
+/**
+ * Connection spill configuration.<p>
+ *
+ * When spilling is enabled for a connection, messages sent while the
+ * connection's in-memory send queue is full are appended to memory-mapped
+ * segment files rather than held on the heap. Spilled messages are sent in
+ * order as the other side of the connection acknowledges earlier messages.
+ * The connection only reports that its send queue is full once the spilled
+ * messages reach the configured maximum size.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@JsonTypeInfo(
+  use=JsonTypeInfo.Id.CLASS,
+  include=JsonTypeInfo.As.PROPERTY,
+  property="class",
+  defaultImpl=DefaultSpillConfig.class
+)
+public interface SpillConfig extends Config<SpillConfig> {
+
+  /**
+   * <code>enabled</code> is a boolean indicating whether spilling is enabled
+   * for the connection. Defaults to <code>false</code>
+   */
+  public static final String SPILL_ENABLED = "enabled";
+
+  /**
+   * <code>max-size</code> is the maximum number of bytes that may be spilled
+   * by each output connection. Defaults to <code>67108864</code> (64MB)
+   */
+  public static final String SPILL_MAX_SIZE = "max-size";
+
+  /**
+   * <code>segment-size</code> is the size of each spill segment file in bytes.
+   * Defaults to <code>4194304</code> (4MB)
+   */
+  public static final String SPILL_SEGMENT_SIZE = "segment-size";
+
+  /**
+   * Sets whether spilling is enabled.
+   *
+   * @param enabled Whether spilling is enabled.
+   * @return The spill configuration.
+   */
+  SpillConfig setEnabled(boolean enabled);
+
+  /**
+   * Returns whether spilling is enabled.
+   *
+   * @return Whether spilling is enabled.
+   */
+  boolean isEnabled();
+
+  /**
+   * Sets the maximum number of bytes spilled by each output connection.
+   *
+   * @param maxSize The maximum spill size in bytes.
+   * @return The spill configuration.
+   */
+  SpillConfig setMaxSize(long maxSize);
+
+  /**
+   * Returns the maximum number of bytes spilled by each output connection.
+   *
+   * @return The maximum spill size in bytes.
+   */
+  long getMaxSize();
+
+  /**
+   * Sets the spill segment size.
+   *
+   * @param segmentSize The segment size in bytes.
+   * @return The spill configuration.
+   */
+  SpillConfig setSegmentSize(int segmentSize);
+
+  /**
+   * Returns the spill segment size.
+   *
+   * @return The segment size in bytes.
+   */
+  int getSegmentSize();
+
+}
@@ -22,6 +22,7 @@ import net.kuujo.vertigo.hook.IOHook;
 import net.kuujo.vertigo.hook.InputHook;
 import net.kuujo.vertigo.hook.OutputHook;
 import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.io.connection.SpillConfig;
 import net.kuujo.vertigo.io.selector.AllSelector;
 import net.kuujo.vertigo.io.selector.CustomSelector;
 import net.kuujo.vertigo.io.selector.FairSelector;
@@ -44,6 +45,7 @@ public class DefaultConnectionConfig implements ConnectionConfig {
   private Target target = new DefaultTarget();
   private List<IOHook> hooks = new ArrayList<>();
   private Selector selector;
+  private SpillConfig spill = new DefaultSpillConfig();
 
   public DefaultConnectionConfig() {
     super();
@@ -94,6 +96,17 @@ public class DefaultConnectionConfig implements ConnectionConfig {
     return hooks;
   }
 
+  @Override
+  public ConnectionConfig setSpill(SpillConfig spill) {
+    this.spill = spill;
+    return this;
+  }
+
+  @Override
+  public SpillConfig getSpill() {
+    return spill;
+  }
+
   @Override
   public Selector getSelector() {
     return selector;
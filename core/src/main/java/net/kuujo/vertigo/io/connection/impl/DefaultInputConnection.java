@@ -15,17 +15,22 @@
  */
 package net.kuujo.vertigo.io.connection.impl;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 
 import net.kuujo.vertigo.hook.InputHook;
+import net.kuujo.vertigo.hook.ProfilingHook;
+import net.kuujo.vertigo.hook.TracingHook;
 import net.kuujo.vertigo.io.batch.InputBatch;
 import net.kuujo.vertigo.io.connection.InputConnection;
 import net.kuujo.vertigo.io.connection.InputConnectionContext;
 import net.kuujo.vertigo.io.group.InputGroup;
 import net.kuujo.vertigo.io.impl.InputDeserializer;
+import net.kuujo.vertigo.util.TimerWheel;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
@@ -42,12 +47,17 @@ import org.vertx.java.core.json.JsonObject;
 public class DefaultInputConnection implements InputConnection {
   private static final long BATCH_SIZE = 1000;
   private static final long MAX_BATCH_TIME = 100;
+  private static final long MAX_FEEDBACK_TIME = 1000;
   private final Vertx vertx;
   private final EventBus eventBus;
+  private final TimerWheel timers;
   private final InputConnectionContext context;
   private final String inAddress;
   private final String outAddress;
   private List<InputHook> hooks = new ArrayList<>();
+  private final TracingHook tracer;
+  private final ProfilingHook profiler;
+  private final String portName;
   private Handler<InputGroup> groupHandler;
   private final Map<String, Handler<InputGroup>> groupHandlers = new HashMap<>();
   private final Map<String, DefaultConnectionInputGroup> groups = new HashMap<>();
@@ -55,13 +65,18 @@ public class DefaultInputConnection implements InputConnection {
   @SuppressWarnings("rawtypes")
   private Handler messageHandler;
   private Handler<InputBatch> batchHandler;
+  private Handler<Long> barrierHandler;
+  private final Queue<JsonObject> blockedMessages = new ArrayDeque<>();
   private DefaultConnectionInputBatch currentBatch;
   private long lastReceived;
+  private long lastAcked;
+  private long received;
   private long lastFeedbackTime;
   private long feedbackTimerID;
   private boolean open;
   private boolean connected;
   private boolean paused;
+  private boolean blocked;
 
   private final Handler<Long> internalTimer = new Handler<Long>() {
     @Override
@@ -69,8 +84,8 @@ public class DefaultInputConnection implements InputConnection {
       // Ensure that feedback messages are sent at least every second or so.
       // This will ensure that feedback is still provided when output connections
       // are full, otherwise the feedback will never be triggered.
-      long currentTime = System.currentTimeMillis();
-      if (currentTime - lastFeedbackTime > 1000) {
+      feedbackTimerID = 0;
+      if (lastReceived != lastAcked) {
         ack();
       }
     }
@@ -82,52 +97,75 @@ public class DefaultInputConnection implements InputConnection {
       if (open && !paused) {
         String action = message.body().getString("action");
         switch (action) {
-          case "message":
-            if (checkID(message.body().getLong("id"))) {
-              doMessage(message.body());
-            }
-            break;
-          case "startGroup":
-            if (checkID(message.body().getLong("id"))) {
-              doGroupStart(message.body());
-            }
-            break;
-          case "group":
-            if (checkID(message.body().getLong("id"))) {
-              doGroupMessage(message.body());
-            }
-            break;
-          case "endGroup":
-            if (checkID(message.body().getLong("id"))) {
-              doGroupEnd(message.body());
-            }
-            break;
-          case "startBatch":
-            if (checkID(message.body().getLong("id"))) {
-              doBatchStart(message.body());
-            }
-            break;
-          case "batch":
-            if (checkID(message.body().getLong("id"))) {
-              doBatchMessage(message.body());
-            }
-            break;
-          case "endBatch":
-            if (checkID(message.body().getLong("id"))) {
-              doBatchEnd(message.body());
-            }
-            break;
           case "connect":
             doConnect(message);
             break;
           case "disconnect":
             doDisconnect(message);
             break;
+          default:
+            // While the connection is blocked for checkpoint alignment,
+            // messages are buffered in order and handled once unblocked.
+            if (blocked) {
+              blockedMessages.add(message.body());
+            } else {
+              handleMessage(message.body());
+            }
+            break;
         }
       }
     }
   };
 
+  /**
+   * Handles an ordered message.
+   */
+  private void handleMessage(JsonObject message) {
+    String action = message.getString("action");
+    switch (action) {
+      case "message":
+        if (checkID(message.getLong("id"))) {
+          doMessage(message);
+        }
+        break;
+      case "startGroup":
+        if (checkID(message.getLong("id"))) {
+          doGroupStart(message);
+        }
+        break;
+      case "group":
+        if (checkID(message.getLong("id"))) {
+          doGroupMessage(message);
+        }
+        break;
+      case "endGroup":
+        if (checkID(message.getLong("id"))) {
+          doGroupEnd(message);
+        }
+        break;
+      case "startBatch":
+        if (checkID(message.getLong("id"))) {
+          doBatchStart(message);
+        }
+        break;
+      case "batch":
+        if (checkID(message.getLong("id"))) {
+          doBatchMessage(message);
+        }
+        break;
+      case "endBatch":
+        if (checkID(message.getLong("id"))) {
+          doBatchEnd(message);
+        }
+        break;
+      case "barrier":
+        if (checkID(message.getLong("id"))) {
+          doBarrier(message);
+        }
+        break;
+    }
+  }
+
   public DefaultInputConnection(Vertx vertx, String address) {
     this(vertx, DefaultInputConnectionContext.Builder.newBuilder().setAddress(address).build());
   }
@@ -135,10 +173,34 @@ public class DefaultInputConnection implements InputConnection {
   public DefaultInputConnection(Vertx vertx, InputConnectionContext context) {
     this.vertx = vertx;
     this.eventBus = vertx.eventBus();
+    this.timers = TimerWheel.get(vertx);
     this.context = context;
     this.inAddress = String.format("%s.in", context.address());
     this.outAddress = String.format("%s.out", context.address());
     this.hooks = context.hooks();
+    this.tracer = findTracer(context);
+    this.profiler = findProfiler(context);
+    this.portName = context.port() != null ? context.port().name() : context.address();
+  }
+
+  /**
+   * Finds the profiling hook for the connection's component.
+   */
+  private static ProfilingHook findProfiler(InputConnectionContext context) {
+    if (context.port() != null && context.port().input() != null && context.port().input().instance() != null) {
+      return ProfilingHook.find(context.port().input().instance().component());
+    }
+    return null;
+  }
+
+  /**
+   * Finds the tracing hook for the connection's component.
+   */
+  private static TracingHook findTracer(InputConnectionContext context) {
+    if (context.port() != null && context.port().input() != null && context.port().input().instance() != null) {
+      return TracingHook.find(context.port().input().instance().component());
+    }
+    return null;
   }
 
   @Override
@@ -167,9 +229,6 @@ public class DefaultInputConnection implements InputConnection {
       @Override
       public void handle(AsyncResult<Void> result) {
         if (result.succeeded()) {
-          if (feedbackTimerID == 0) {
-            feedbackTimerID = vertx.setPeriodic(MAX_BATCH_TIME, internalTimer);
-          }
           open = true;
         }
         doneHandler.handle(result);
@@ -191,6 +250,8 @@ public class DefaultInputConnection implements InputConnection {
       // source that it's okay to remove all previous messages.
       if (lastReceived % BATCH_SIZE == 0) {
         ack();
+      } else {
+        checkFeedback();
       }
       return true;
     } else {
@@ -199,6 +260,18 @@ public class DefaultInputConnection implements InputConnection {
     return false;
   }
 
+  /**
+   * Schedules feedback for received messages if necessary.
+   */
+  private void checkFeedback() {
+    // Feedback timers are only scheduled while there are received messages
+    // that haven't been acked, so idle connections don't schedule timers.
+    if (feedbackTimerID == 0 && lastReceived != lastAcked) {
+      long delay = Math.max(MAX_BATCH_TIME, MAX_FEEDBACK_TIME - (System.currentTimeMillis() - lastFeedbackTime));
+      feedbackTimerID = timers.setTimer(delay, internalTimer);
+    }
+  }
+
   /**
    * Sends an ack message for the current received count.
    */
@@ -209,6 +282,7 @@ public class DefaultInputConnection implements InputConnection {
     if (open && connected) {
       eventBus.send(outAddress, new JsonObject().putString("action", "ack").putNumber("id", lastReceived));
       lastFeedbackTime = System.currentTimeMillis();
+      lastAcked = lastReceived;
     }
   }
 
@@ -278,11 +352,122 @@ public class DefaultInputConnection implements InputConnection {
   @SuppressWarnings("unchecked")
   private void doMessage(final JsonObject message) {
     Object value = deserializer.deserialize(message);
-    if (value != null && messageHandler != null) {
-      messageHandler.handle(value);
+    received++;
+    boolean traced = startTrace(message);
+    try {
+      if (value != null && messageHandler != null) {
+        if (profiler != null) {
+          long start = System.nanoTime();
+          messageHandler.handle(value);
+          profiler.record(portName, value, System.nanoTime() - start);
+        } else {
+          messageHandler.handle(value);
+        }
+      }
+      for (InputHook hook : hooks) {
+        hook.handleReceive(value);
+      }
+    } finally {
+      if (traced) {
+        tracer.complete();
+      }
     }
-    for (InputHook hook : hooks) {
-      hook.handleReceive(value);
+  }
+
+  /**
+   * Starts handling a traced message.
+   */
+  private boolean startTrace(JsonObject message) {
+    if (tracer != null) {
+      JsonObject trace = message.getObject(TracingHook.TRACE_FIELD);
+      if (trace != null) {
+        tracer.receive(context.address(), trace);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the total number of messages received on the connection.
+   *
+   * @return The number of messages received on the connection.
+   */
+  public long received() {
+    return received;
+  }
+
+  /**
+   * Sets a checkpoint barrier handler on the connection.<p>
+   *
+   * The handler will be called with the checkpoint ID each time a checkpoint
+   * barrier is received. All messages preceding the barrier will have been
+   * handled by the time the handler is called.
+   *
+   * @param handler The barrier handler.
+   * @return The input connection.
+   */
+  public InputConnection barrierHandler(Handler<Long> handler) {
+    this.barrierHandler = handler;
+    return this;
+  }
+
+  /**
+   * Blocks the connection for checkpoint alignment. While blocked, messages
+   * are buffered and are not handled until the connection is unblocked.
+   */
+  public void block() {
+    blocked = true;
+  }
+
+  /**
+   * Unblocks the connection, handling all buffered messages.
+   */
+  public void unblock() {
+    blocked = false;
+    while (!blocked && !blockedMessages.isEmpty()) {
+      handleMessage(blockedMessages.poll());
+    }
+  }
+
+  /**
+   * Returns the ID of the last message received in order.
+   *
+   * @return The last received message ID.
+   */
+  public long lastReceived() {
+    return lastReceived;
+  }
+
+  /**
+   * Restores the last received message ID from a checkpoint. The other side
+   * of the connection will replay all messages after the restored ID.
+   *
+   * @param id The last received message ID.
+   */
+  public void restore(long id) {
+    lastReceived = id;
+    fail();
+  }
+
+  /**
+   * Commits a checkpoint, indicating to the other side of the connection that
+   * messages up to the given ID will never need to be replayed.
+   *
+   * @param id The ID of the last message included in the checkpoint.
+   */
+  public void commit(long id) {
+    if (open && connected) {
+      eventBus.send(outAddress, new JsonObject().putString("action", "commit").putNumber("id", id));
+    }
+  }
+
+  /**
+   * Handles a checkpoint barrier.
+   */
+  private void doBarrier(final JsonObject message) {
+    if (barrierHandler != null) {
+      barrierHandler.handle(message.getLong("checkpoint"));
     }
   }
 
@@ -334,8 +519,22 @@ public class DefaultInputConnection implements InputConnection {
     DefaultConnectionInputGroup group = groups.get(groupID);
     if (group != null) {
       Object value = deserializer.deserialize(message);
+      received++;
       if (value != null) {
-        group.handleMessage(value);
+        boolean traced = startTrace(message);
+        try {
+          if (profiler != null) {
+            long start = System.nanoTime();
+            group.handleMessage(value);
+            profiler.record(portName, value, System.nanoTime() - start);
+          } else {
+            group.handleMessage(value);
+          }
+        } finally {
+          if (traced) {
+            tracer.complete();
+          }
+        }
       }
     }
   }
@@ -380,8 +579,22 @@ public class DefaultInputConnection implements InputConnection {
     String batchID = message.getString("batch");
     if (currentBatch != null && currentBatch.id().equals(batchID)) {
       Object value = deserializer.deserialize(message);
+      received++;
       if (value != null) {
-        currentBatch.handleMessage(value);
+        boolean traced = startTrace(message);
+        try {
+          if (profiler != null) {
+            long start = System.nanoTime();
+            currentBatch.handleMessage(value);
+            profiler.record(portName, value, System.nanoTime() - start);
+          } else {
+            currentBatch.handleMessage(value);
+          }
+        } finally {
+          if (traced) {
+            tracer.complete();
+          }
+        }
       }
     }
   }
@@ -404,6 +617,12 @@ public class DefaultInputConnection implements InputConnection {
       if (!connected) {
         groups.clear();
         connected = true;
+        // If messages have already been received, request that the other side
+        // replay anything after the last message received. This ensures the
+        // connection resumes where it left off if either side was restarted.
+        if (lastReceived > 0) {
+          fail();
+        }
       }
       message.reply(true);
     } else {
@@ -437,7 +656,7 @@ public class DefaultInputConnection implements InputConnection {
       @Override
       public void handle(AsyncResult<Void> result) {
         if (feedbackTimerID > 0) {
-          vertx.cancelTimer(feedbackTimerID);
+          timers.cancelTimer(feedbackTimerID);
           feedbackTimerID = 0;
         }
         open = false;
@@ -23,9 +23,11 @@ import java.util.TreeMap;
 import java.util.UUID;
 
 import net.kuujo.vertigo.hook.OutputHook;
+import net.kuujo.vertigo.hook.TracingHook;
 import net.kuujo.vertigo.io.connection.ConnectionOutputBatch;
 import net.kuujo.vertigo.io.connection.OutputConnection;
 import net.kuujo.vertigo.io.connection.OutputConnectionContext;
+import net.kuujo.vertigo.io.connection.SpillConfig;
 import net.kuujo.vertigo.io.group.OutputGroup;
 import net.kuujo.vertigo.io.impl.OutputSerializer;
 
@@ -48,6 +50,7 @@ import org.vertx.java.core.json.JsonObject;
  */
 public class DefaultOutputConnection implements OutputConnection {
   private static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+  private static final int DEFAULT_MAX_RETAINED_SIZE = 10000;
   private final Vertx vertx;
   private final EventBus eventBus;
   private final OutputConnectionContext context;
@@ -55,15 +58,24 @@ public class DefaultOutputConnection implements OutputConnection {
   private final String inAddress;
   private final OutputSerializer serializer = new OutputSerializer();
   private List<OutputHook> hooks = new ArrayList<>();
+  private final TracingHook tracer;
   private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+  private int maxRetainedSize = DEFAULT_MAX_RETAINED_SIZE;
   private Handler<Void> drainHandler;
   private long currentMessage = 1;
   private final TreeMap<Long, JsonObject> messages = new TreeMap<>();
+  private final TreeMap<Long, JsonObject> retained = new TreeMap<>();
   private final Map<String, DefaultConnectionOutputGroup> groups = new HashMap<>();
   private DefaultConnectionOutputBatch currentBatch;
   private boolean open;
   private boolean full;
   private boolean paused;
+  private long pausedSince;
+  private long pausedTime;
+  private long sent;
+  private boolean retaining;
+  private final SpillConfig spillConfig;
+  private SpillQueue spill;
 
   private final Handler<Message<JsonObject>> internalMessageHandler = new Handler<Message<JsonObject>>() {
     @Override
@@ -83,6 +95,9 @@ public class DefaultOutputConnection implements OutputConnection {
           case "fail":
             doFail(message.body().getLong("id"));
             break;
+          case "commit":
+            doCommit(message.body().getLong("id"));
+            break;
           case "pause":
             doPause(message.body().getLong("id"));
             break;
@@ -103,10 +118,23 @@ public class DefaultOutputConnection implements OutputConnection {
     this.eventBus = vertx.eventBus();
     this.context = context;
     this.hooks = context.hooks();
+    this.spillConfig = context.spill();
+    this.tracer = findTracer(context);
     this.outAddress = String.format("%s.out", context.address());
     this.inAddress = String.format("%s.in", context.address());
   }
 
+  /**
+   * Finds the tracing hook for the connection's component.
+   */
+  private static TracingHook findTracer(OutputConnectionContext context) {
+    if (context.stream() != null && context.stream().port() != null && context.stream().port().output() != null
+        && context.stream().port().output().instance() != null) {
+      return TracingHook.find(context.stream().port().output().instance().component());
+    }
+    return null;
+  }
+
   @Override
   public String address() {
     return context.address();
@@ -176,14 +204,89 @@ public class DefaultOutputConnection implements OutputConnection {
     return maxQueueSize;
   }
 
+  /**
+   * Sets the maximum number of acked messages retained for replay.<p>
+   *
+   * Once a checkpoint has been taken, acked messages are retained until the
+   * other side of the connection commits a checkpoint that includes them. If
+   * checkpoints stop completing, the send queue is reported as full once the
+   * limit is reached and until a checkpoint is committed.
+   *
+   * @param maxSize The maximum number of retained messages.
+   * @return The output connection.
+   */
+  public DefaultOutputConnection setRetainedMaxSize(int maxSize) {
+    this.maxRetainedSize = maxSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of acked messages retained for replay.
+   *
+   * @return The maximum number of retained messages.
+   */
+  public int getRetainedMaxSize() {
+    return maxRetainedSize;
+  }
+
+  /**
+   * Returns the number of acked messages retained for replay.
+   *
+   * @return The number of retained messages.
+   */
+  public int retained() {
+    return retained.size();
+  }
+
   @Override
   public int size() {
-    return messages.size();
+    return messages.size() + (spill != null ? spill.size() : 0);
   }
 
   @Override
   public boolean sendQueueFull() {
-    return paused || messages.size() >= maxQueueSize;
+    return paused || queueFull();
+  }
+
+  /**
+   * Returns the total number of messages sent on the connection.
+   *
+   * @return The number of messages sent on the connection.
+   */
+  public long sent() {
+    return sent;
+  }
+
+  /**
+   * Returns the total time the connection has been paused by the other side.
+   *
+   * @return The total paused time in milliseconds.
+   */
+  public long pausedTime() {
+    return paused ? pausedTime + System.currentTimeMillis() - pausedSince : pausedTime;
+  }
+
+  /**
+   * Returns the connection's spill queue.
+   *
+   * @return The spill queue, or <code>null</code> if no messages have been spilled.
+   */
+  public SpillQueue spill() {
+    return spill;
+  }
+
+  /**
+   * Indicates whether the queue is full. If spilling is enabled then the
+   * queue is only full once the spill queue is full.
+   */
+  private boolean queueFull() {
+    if (retained.size() >= maxRetainedSize) {
+      return true;
+    }
+    if (spillConfig != null && spillConfig.isEnabled()) {
+      return spill != null && spill.isFull();
+    }
+    return messages.size() >= maxQueueSize;
   }
 
   @Override
@@ -239,6 +342,10 @@ public class DefaultOutputConnection implements OutputConnection {
 
   @Override
   public void close(final Handler<AsyncResult<Void>> doneHandler) {
+    if (spill != null) {
+      spill.close();
+      spill = null;
+    }
     eventBus.unregisterHandler(outAddress, internalMessageHandler, new Handler<AsyncResult<Void>>() {
       @Override
       public void handle(AsyncResult<Void> result) {
@@ -286,7 +393,7 @@ public class DefaultOutputConnection implements OutputConnection {
    * Checks whether the connection is full.
    */
   private void checkFull() {
-    if (!full && messages.size() >= maxQueueSize) {
+    if (!full && queueFull()) {
       full = true;
     }
   }
@@ -295,7 +402,8 @@ public class DefaultOutputConnection implements OutputConnection {
    * Checks whether the connection has been drained.
    */
   private void checkDrain() {
-    if (full && !paused && messages.size() < maxQueueSize / 2) {
+    if (full && !paused && retained.size() < maxRetainedSize / 2
+        && (spill != null ? spill.isDrained() : messages.size() < maxQueueSize / 2)) {
       full = false;
       if (drainHandler != null) {
         drainHandler.handle((Void) null);
@@ -328,11 +436,25 @@ public class DefaultOutputConnection implements OutputConnection {
   private void doAck(long id) {
     // The other side of the connection has sent a message indicating which
     // messages it has seen. We can clear any messages before the indicated ID.
-    if (messages.containsKey(id+1)) {
-      messages.tailMap(id+1);
-    } else {
-      messages.clear();
+    // If the connection is checkpointed then acked messages are retained until
+    // the other side commits a checkpoint so that they can be replayed.
+    Map<Long, JsonObject> acked = messages.headMap(id, true);
+    if (retaining) {
+      retained.putAll(acked);
     }
+    acked.clear();
+    refill();
+    checkDrain();
+  }
+
+  /**
+   * Handles a checkpoint commit.
+   */
+  private void doCommit(long id) {
+    // The other side of the connection has completed a checkpoint which
+    // includes all messages up to the indicated ID. They will never need
+    // to be replayed.
+    retained.headMap(id, true).clear();
     checkDrain();
   }
 
@@ -342,7 +464,11 @@ public class DefaultOutputConnection implements OutputConnection {
   private void doFail(long id) {
     // The other side of the connection has sent a message indicating that
     // it received a message out of order. We have to resend all the messages
-    // after that point in order.
+    // after that point in order, including any retained messages which will
+    // be acked again.
+    Map<Long, JsonObject> replay = retained.tailMap(id, false);
+    messages.putAll(replay);
+    replay.clear();
     if (messages.containsKey(id+1)) {
       for (long i = id+1; i <= messages.lastKey(); i++) {
         eventBus.send(inAddress, messages.get(i));
@@ -354,6 +480,9 @@ public class DefaultOutputConnection implements OutputConnection {
    * Handles a connection pause.
    */
   private void doPause(long id) {
+    if (!paused) {
+      pausedSince = System.currentTimeMillis();
+    }
     paused = true;
   }
 
@@ -363,10 +492,49 @@ public class DefaultOutputConnection implements OutputConnection {
   private void doResume(long id) {
     if (paused) {
       paused = false;
+      pausedTime += System.currentTimeMillis() - pausedSince;
+      refill();
       checkDrain();
     }
   }
 
+  /**
+   * Queues and sends a message.
+   */
+  private void enqueue(JsonObject message) {
+    // Once the in-memory queue is full, messages are spilled to disk. If any
+    // messages have already been spilled then new messages must be spilled
+    // as well to preserve ordering.
+    if (spill != null && !spill.isEmpty()) {
+      spill.add(message);
+    } else if (messages.size() >= maxQueueSize && spillConfig != null && spillConfig.isEnabled()) {
+      if (spill == null) {
+        spill = new SpillQueue(context.address(), spillConfig);
+      }
+      spill.add(message);
+    } else {
+      messages.put(message.getLong("id"), message);
+      if (open && !paused) {
+        eventBus.send(inAddress, message);
+      }
+    }
+  }
+
+  /**
+   * Sends spilled messages as space becomes available in the in-memory queue.
+   */
+  private void refill() {
+    if (spill != null) {
+      while (!spill.isEmpty() && messages.size() < maxQueueSize) {
+        JsonObject message = spill.poll();
+        messages.put(message.getLong("id"), message);
+        if (open && !paused) {
+          eventBus.send(inAddress, message);
+        }
+      }
+    }
+  }
+
   /**
    * Sends a message.
    */
@@ -374,9 +542,8 @@ public class DefaultOutputConnection implements OutputConnection {
     checkOpen();
     JsonObject message = createMessage(value)
         .putString("action", "message");
-    if (open && !paused) {
-      eventBus.send(inAddress, message);
-    }
+    enqueue(message);
+    sent++;
     for (OutputHook hook : hooks) {
       hook.handleSend(value);
     }
@@ -394,9 +561,7 @@ public class DefaultOutputConnection implements OutputConnection {
         .putString("name", name)
         .putString("parent", parent)
         .putString("action", "startGroup");
-    if (open && !paused) {
-      eventBus.send(inAddress, message);
-    }
+    enqueue(message);
     checkFull();
   }
 
@@ -408,9 +573,8 @@ public class DefaultOutputConnection implements OutputConnection {
     JsonObject message = createMessage(value)
         .putString("action", "group")
         .putString("group", group);
-    if (open && !paused) {
-      eventBus.send(inAddress, message);
-    }
+    enqueue(message);
+    sent++;
     for (OutputHook hook : hooks) {
       hook.handleSend(value);
     }
@@ -425,9 +589,7 @@ public class DefaultOutputConnection implements OutputConnection {
     JsonObject message = createMessage()
         .putString("action", "endGroup")
         .putString("group", group);
-    if (open && !paused) {
-      eventBus.send(inAddress, message);
-    }
+    enqueue(message);
     groups.remove(group);
   }
 
@@ -439,9 +601,7 @@ public class DefaultOutputConnection implements OutputConnection {
     JsonObject message = createMessage()
         .putString("batch", batch)
         .putString("action", "startBatch");
-    if (open && !paused) {
-      eventBus.send(inAddress, message);
-    }
+    enqueue(message);
     checkFull();
   }
 
@@ -453,9 +613,8 @@ public class DefaultOutputConnection implements OutputConnection {
     JsonObject message = createMessage(value)
         .putString("action", "batch")
         .putString("batch", batch);
-    if (open && !paused) {
-      eventBus.send(inAddress, message);
-    }
+    enqueue(message);
+    sent++;
     for (OutputHook hook : hooks) {
       hook.handleSend(value);
     }
@@ -470,14 +629,61 @@ public class DefaultOutputConnection implements OutputConnection {
     JsonObject message = createMessage()
         .putString("action", "endBatch")
         .putString("batch", batch);
-    if (open && !paused) {
-      eventBus.send(inAddress, message);
-    }
+    enqueue(message);
     if (currentBatch != null && currentBatch.id().equals(batch)) {
       currentBatch = null;
     }
   }
 
+  /**
+   * Sends a checkpoint barrier.<p>
+   *
+   * The barrier is ordered along with all other messages on the connection.
+   * Once a barrier has been sent, acked messages are retained until they're
+   * committed by the other side of the connection.
+   *
+   * @param checkpoint The checkpoint ID.
+   */
+  public void checkpoint(long checkpoint) {
+    checkOpen();
+    retaining = true;
+    JsonObject message = createMessage()
+        .putString("action", "barrier")
+        .putNumber("checkpoint", checkpoint);
+    enqueue(message);
+  }
+
+  /**
+   * Returns a snapshot of the connection's replay state.<p>
+   *
+   * The snapshot references queued messages and spilled segments rather
+   * than copying or encoding them, so it's encoded when it's written.
+   *
+   * @return The next message ID and all messages that may need to be replayed.
+   */
+  public OutputConnectionSnapshot snapshot() {
+    List<JsonObject> replay = new ArrayList<>(retained.size() + messages.size());
+    replay.addAll(retained.values());
+    replay.addAll(messages.values());
+    return new OutputConnectionSnapshot(context.address(), currentMessage, replay, spill != null ? spill.snapshot() : null);
+  }
+
+  /**
+   * Restores the connection's replay state from a snapshot.<p>
+   *
+   * Restored messages are not sent immediately. They will be replayed once
+   * the other side of the connection indicates which messages it's missing.
+   *
+   * @param snapshot A snapshot of the connection state.
+   */
+  public void restore(OutputConnectionSnapshot snapshot) {
+    currentMessage = Math.max(currentMessage, snapshot.next());
+    for (JsonObject message : snapshot.messages()) {
+      messages.put(message.getLong("id"), message);
+    }
+    retaining = true;
+  }
+
   /**
    * Creates an empty message.
    */
@@ -488,7 +694,6 @@ public class DefaultOutputConnection implements OutputConnection {
     JsonObject message = new JsonObject();
     long id = currentMessage++;
     message.putNumber("id", id);
-    messages.put(id, message);
     return message;
   }
 
@@ -502,7 +707,12 @@ public class DefaultOutputConnection implements OutputConnection {
     JsonObject message = serializer.serialize(value);
     long id = currentMessage++;
     message.putNumber("id", id);
-    messages.put(id, message);
+    if (tracer != null) {
+      JsonObject trace = tracer.trace(context.address());
+      if (trace != null) {
+        message.putObject(TracingHook.TRACE_FIELD, trace);
+      }
+    }
     return message;
   }
 
@@ -22,6 +22,7 @@ import java.util.List;
 import net.kuujo.vertigo.hook.OutputHook;
 import net.kuujo.vertigo.impl.BaseContext;
 import net.kuujo.vertigo.io.connection.OutputConnectionContext;
+import net.kuujo.vertigo.io.connection.SpillConfig;
 import net.kuujo.vertigo.io.stream.OutputStreamContext;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -35,6 +36,7 @@ public class DefaultOutputConnectionContext extends DefaultConnectionContext<Out
   @JsonIgnore
   private OutputStreamContext stream;
   private List<OutputHook> hooks = new ArrayList<>();
+  private SpillConfig spill = new DefaultSpillConfig();
 
   public DefaultOutputConnectionContext setStream(OutputStreamContext stream) {
     this.stream = stream;
@@ -56,6 +58,11 @@ public class DefaultOutputConnectionContext extends DefaultConnectionContext<Out
     return hooks;
   }
 
+  @Override
+  public SpillConfig spill() {
+    return spill;
+  }
+
   /**
    * Output connection context builder.
    *
@@ -123,6 +130,17 @@ public class DefaultOutputConnectionContext extends DefaultConnectionContext<Out
       return this;
     }
 
+    /**
+     * Sets the connection spill configuration.
+     *
+     * @param spill The spill configuration.
+     * @return The context builder.
+     */
+    public Builder setSpill(SpillConfig spill) {
+      context.spill = spill;
+      return this;
+    }
+
     /**
      * Removes a hook from the output.
      *
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import net.kuujo.vertigo.io.connection.SpillConfig;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Default spill configuration implementation.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class DefaultSpillConfig implements SpillConfig {
+  private static final long DEFAULT_MAX_SIZE = 1024 * 1024 * 64;
+  private static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024 * 4;
+  private static final int MIN_SEGMENT_SIZE = 1024;
+
+  private boolean enabled = false;
+  @JsonProperty("max-size")
+  private long maxSize = DEFAULT_MAX_SIZE;
+  @JsonProperty("segment-size")
+  private int segmentSize = DEFAULT_SEGMENT_SIZE;
+
+  public DefaultSpillConfig() {
+  }
+
+  public DefaultSpillConfig(long maxSize) {
+    setMaxSize(maxSize);
+    this.enabled = true;
+  }
+
+  @Override
+  public SpillConfig setEnabled(boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public SpillConfig setMaxSize(long maxSize) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("Maximum spill size must be a positive number.");
+    }
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  @Override
+  public SpillConfig setSegmentSize(int segmentSize) {
+    if (segmentSize < MIN_SEGMENT_SIZE) {
+      throw new IllegalArgumentException("Spill segment size must be at least " + MIN_SEGMENT_SIZE + " bytes.");
+    }
+    this.segmentSize = segmentSize;
+    return this;
+  }
+
+  @Override
+  public int getSegmentSize() {
+    return segmentSize;
+  }
+
+}
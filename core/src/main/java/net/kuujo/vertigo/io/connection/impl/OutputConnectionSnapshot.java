@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Snapshot of an output connection's replay state.<p>
+ *
+ * The snapshot references the connection's retained and queued messages and
+ * a snapshot of its spill queue rather than copying them. Messages are never
+ * modified once they've been queued, so the snapshot can be written by a
+ * thread other than the connection's event loop.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class OutputConnectionSnapshot {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private final String address;
+  private final long next;
+  private final List<JsonObject> messages;
+  private final SpillQueue.Snapshot spill;
+
+  public OutputConnectionSnapshot(String address, long next, List<JsonObject> messages, SpillQueue.Snapshot spill) {
+    this.address = address;
+    this.next = next;
+    this.messages = messages;
+    this.spill = spill;
+  }
+
+  /**
+   * Returns the connection address.
+   *
+   * @return The connection address.
+   */
+  public String address() {
+    return address;
+  }
+
+  /**
+   * Returns the ID of the next message to be sent on the connection.
+   *
+   * @return The next message ID.
+   */
+  public long next() {
+    return next;
+  }
+
+  /**
+   * Returns the messages that may need to be replayed, excluding spilled messages.
+   *
+   * @return A list of messages.
+   */
+  public List<JsonObject> messages() {
+    return messages;
+  }
+
+  /**
+   * Writes the snapshot to a stream.
+   *
+   * @param out The stream to which to write the snapshot.
+   * @throws IOException If the snapshot could not be written.
+   */
+  public void writeTo(DataOutputStream out) throws IOException {
+    out.writeUTF(address);
+    out.writeLong(next);
+    out.writeInt(messages.size() + (spill != null ? spill.size() : 0));
+    for (JsonObject message : messages) {
+      byte[] bytes = message.encode().getBytes(UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+    if (spill != null) {
+      spill.writeTo(out);
+    }
+  }
+
+  /**
+   * Reads a snapshot from a stream.
+   *
+   * @param in The stream from which to read the snapshot.
+   * @return The snapshot, including all spilled messages.
+   * @throws IOException If the snapshot could not be read.
+   */
+  public static OutputConnectionSnapshot readFrom(DataInputStream in) throws IOException {
+    String address = in.readUTF();
+    long next = in.readLong();
+    int count = in.readInt();
+    List<JsonObject> messages = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      messages.add(new JsonObject(new String(bytes, UTF_8)));
+    }
+    return new OutputConnectionSnapshot(address, next, messages, null);
+  }
+
+}
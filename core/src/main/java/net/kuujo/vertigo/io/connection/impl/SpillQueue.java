@@ -0,0 +1,401 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.io.connection.impl;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import net.kuujo.vertigo.io.connection.SpillConfig;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Disk-backed FIFO queue of connection messages.<p>
+ *
+ * Messages are encoded and appended to fixed-size memory-mapped segment
+ * files. Segments are read in order, and once a segment has been completely
+ * read it's recycled for writing rather than unmapped. If a message cannot
+ * be written because the queue has reached its maximum size, or because the
+ * message is larger than a segment, it's queued on the heap instead and all
+ * subsequent messages are queued on the heap until the overflow has been
+ * drained, preserving message order.<p>
+ *
+ * A {@link Snapshot} of the queue references the encoded messages in the
+ * queue's segments rather than decoding them. Segments referenced by a
+ * snapshot are never recycled, so the snapshot can be written by another
+ * thread while the queue continues to be used.<p>
+ *
+ * The queue is not thread safe.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class SpillQueue {
+
+  /**
+   * <code>vertigo.spill.dir</code> is the system property indicating the directory
+   * in which to create spill segments. Defaults to <code>vertigo/spill</code> in
+   * the system temporary directory.
+   */
+  public static final String SPILL_DIRECTORY_PROPERTY = "vertigo.spill.dir";
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int MAX_FREE_SEGMENTS = 2;
+  private final File directory;
+  private final String name;
+  private final int segmentSize;
+  private final long maxSize;
+  private final Deque<Segment> segments = new ArrayDeque<>();
+  private final Deque<Segment> free = new ArrayDeque<>();
+  private final Deque<JsonObject> overflow = new ArrayDeque<>();
+  private int size;
+  private long bytes;
+  private long spilledBytes;
+  private long spilledMessages;
+
+  public SpillQueue(String name, SpillConfig config) {
+    this(defaultDirectory(), name, config.getSegmentSize(), config.getMaxSize());
+  }
+
+  public SpillQueue(File directory, String name, int segmentSize, long maxSize) {
+    this.directory = directory;
+    this.name = name.replaceAll("[^A-Za-z0-9_.\\-]", "_");
+    this.segmentSize = segmentSize;
+    this.maxSize = maxSize;
+  }
+
+  private static File defaultDirectory() {
+    String directory = System.getProperty(SPILL_DIRECTORY_PROPERTY);
+    if (directory != null) {
+      return new File(directory);
+    }
+    return new File(new File(System.getProperty("java.io.tmpdir"), "vertigo"), "spill");
+  }
+
+  /**
+   * A memory-mapped segment.
+   */
+  private static class Segment {
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private int readPosition;
+    private int writePosition;
+    private int count;
+    private boolean pinned;
+
+    private Segment(File file, MappedByteBuffer buffer) {
+      this.file = file;
+      this.buffer = buffer;
+    }
+  }
+
+  /**
+   * Returns the number of queued messages.
+   *
+   * @return The number of queued messages.
+   */
+  public int size() {
+    return size + overflow.size();
+  }
+
+  /**
+   * Returns a boolean indicating whether the queue is empty.
+   *
+   * @return Indicates whether the queue is empty.
+   */
+  public boolean isEmpty() {
+    return size == 0 && overflow.isEmpty();
+  }
+
+  /**
+   * Returns a boolean indicating whether the queue has reached its maximum size.
+   *
+   * @return Indicates whether the queue is full.
+   */
+  public boolean isFull() {
+    return bytes >= maxSize || !overflow.isEmpty();
+  }
+
+  /**
+   * Returns a boolean indicating whether the queue has drained to below half
+   * of its maximum size.
+   *
+   * @return Indicates whether the queue has drained.
+   */
+  public boolean isDrained() {
+    return bytes < maxSize / 2 && overflow.isEmpty();
+  }
+
+  /**
+   * Returns the number of bytes currently spilled to disk.
+   *
+   * @return The number of spilled bytes waiting to be read.
+   */
+  public long bytes() {
+    return bytes;
+  }
+
+  /**
+   * Returns the number of bytes mapped by the queue's segments.
+   *
+   * @return The number of mapped bytes.
+   */
+  public long residentBytes() {
+    return (long) (segments.size() + free.size()) * segmentSize;
+  }
+
+  /**
+   * Returns the total number of bytes ever spilled to disk.
+   *
+   * @return The total number of spilled bytes.
+   */
+  public long spilledBytes() {
+    return spilledBytes;
+  }
+
+  /**
+   * Returns the total number of messages ever spilled to disk.
+   *
+   * @return The total number of spilled messages.
+   */
+  public long spilledMessages() {
+    return spilledMessages;
+  }
+
+  /**
+   * Appends a message to the queue.
+   *
+   * @param message The message to append.
+   */
+  public void add(JsonObject message) {
+    if (!overflow.isEmpty()) {
+      overflow.add(message);
+      return;
+    }
+
+    byte[] bytes = message.encode().getBytes(UTF_8);
+    int length = bytes.length + 4;
+    if (length > segmentSize || this.bytes + length > maxSize) {
+      overflow.add(message);
+      return;
+    }
+
+    Segment segment = segments.peekLast();
+    if (segment == null || segment.writePosition + length > segmentSize) {
+      segment = nextSegment();
+      if (segment == null) {
+        overflow.add(message);
+        return;
+      }
+      segments.add(segment);
+    }
+
+    segment.buffer.position(segment.writePosition);
+    segment.buffer.putInt(bytes.length);
+    segment.buffer.put(bytes);
+    segment.writePosition += length;
+    segment.count++;
+    size++;
+    this.bytes += length;
+    spilledBytes += length;
+    spilledMessages++;
+  }
+
+  /**
+   * Removes the next message from the queue.
+   *
+   * @return The next message or <code>null</code> if the queue is empty.
+   */
+  public JsonObject poll() {
+    Segment segment = segments.peekFirst();
+    if (segment == null) {
+      return overflow.poll();
+    }
+
+    int length = segment.buffer.getInt(segment.readPosition);
+    byte[] bytes = new byte[length];
+    segment.buffer.position(segment.readPosition + 4);
+    segment.buffer.get(bytes);
+    segment.readPosition += length + 4;
+    segment.count--;
+    size--;
+    this.bytes -= length + 4;
+
+    // Once a segment has been completely read it can be reused.
+    if (segment.count == 0) {
+      segments.pollFirst();
+      recycle(segment);
+    }
+    return new JsonObject(new String(bytes, UTF_8));
+  }
+
+  /**
+   * Returns a copy of all queued messages without removing them.
+   *
+   * @return A list of queued messages in order.
+   */
+  public List<JsonObject> messages() {
+    List<JsonObject> messages = new ArrayList<>(size());
+    for (Segment segment : segments) {
+      int position = segment.readPosition;
+      while (position < segment.writePosition) {
+        int length = segment.buffer.getInt(position);
+        byte[] bytes = new byte[length];
+        segment.buffer.position(position + 4);
+        segment.buffer.get(bytes);
+        messages.add(new JsonObject(new String(bytes, UTF_8)));
+        position += length + 4;
+      }
+    }
+    for (JsonObject message : overflow) {
+      messages.add(message.copy());
+    }
+    return messages;
+  }
+
+  /**
+   * Takes a snapshot of all queued messages without removing them.
+   *
+   * @return A snapshot of the queued messages.
+   */
+  public Snapshot snapshot() {
+    List<ByteBuffer> regions = new ArrayList<>(segments.size());
+    int count = 0;
+    for (Segment segment : segments) {
+      ByteBuffer region = segment.buffer.duplicate();
+      region.limit(segment.writePosition);
+      region.position(segment.readPosition);
+      regions.add(region.slice());
+      count += segment.count;
+      segment.pinned = true;
+    }
+    return new Snapshot(count, regions, new ArrayList<>(overflow));
+  }
+
+  /**
+   * Removes all messages and deletes all segment files.
+   */
+  public void close() {
+    for (Segment segment : segments) {
+      segment.file.delete();
+    }
+    for (Segment segment : free) {
+      segment.file.delete();
+    }
+    segments.clear();
+    free.clear();
+    overflow.clear();
+    size = 0;
+    bytes = 0;
+  }
+
+  /**
+   * Returns a free segment, mapping a new segment if necessary.
+   */
+  private Segment nextSegment() {
+    Segment segment = free.poll();
+    if (segment != null) {
+      return segment;
+    }
+
+    if (!directory.exists() && !directory.mkdirs()) {
+      return null;
+    }
+    try {
+      File file = File.createTempFile(name + "-", ".spill", directory);
+      file.deleteOnExit();
+      try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+        return new Segment(file, raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+      }
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Recycles a completely read segment.
+   */
+  private void recycle(Segment segment) {
+    segment.readPosition = 0;
+    segment.writePosition = 0;
+    if (!segment.pinned && free.size() < MAX_FREE_SEGMENTS) {
+      free.add(segment);
+    } else {
+      segment.file.delete();
+    }
+  }
+
+  /**
+   * Snapshot of the messages in a spill queue.<p>
+   *
+   * Spilled messages are referenced in their encoded form, so a snapshot
+   * can be written by a thread other than the one using the queue.
+   */
+  public static class Snapshot {
+    private final int count;
+    private final List<ByteBuffer> regions;
+    private final List<JsonObject> overflow;
+
+    private Snapshot(int count, List<ByteBuffer> regions, List<JsonObject> overflow) {
+      this.count = count;
+      this.regions = regions;
+      this.overflow = overflow;
+    }
+
+    /**
+     * Returns the number of messages in the snapshot.
+     *
+     * @return The number of messages in the snapshot.
+     */
+    public int size() {
+      return count + overflow.size();
+    }
+
+    /**
+     * Writes the messages in the snapshot to a stream. Each message is
+     * written as its encoded length followed by the encoded message.
+     *
+     * @param out The stream to which to write messages.
+     * @throws IOException If the messages could not be written.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+      byte[] chunk = new byte[8192];
+      for (ByteBuffer region : regions) {
+        ByteBuffer buffer = region.duplicate();
+        while (buffer.hasRemaining()) {
+          int length = Math.min(chunk.length, buffer.remaining());
+          buffer.get(chunk, 0, length);
+          out.write(chunk, 0, length);
+        }
+      }
+      for (JsonObject message : overflow) {
+        byte[] bytes = message.encode().getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+  }
+
+}
@@ -15,9 +15,16 @@
  */
 package net.kuujo.vertigo.io.logging;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import net.kuujo.vertigo.io.OutputCollector;
+import net.kuujo.vertigo.io.group.OutputGroup;
 import net.kuujo.vertigo.io.port.OutputPort;
+import net.kuujo.vertigo.util.TimerWheel;
 
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
 import org.vertx.java.core.logging.Logger;
 
 /**
@@ -32,6 +39,15 @@ import org.vertx.java.core.logging.Logger;
  * {@link Logger} as well, so there's no need to use two loggers in
  * order to log messages to log files.<p>
  *
+ * Messages are only sent to a port if the port is connected and, for
+ * info, debug and trace messages, if the level is enabled on the underlying
+ * logger. Each port can be rate limited, in which case messages beyond the
+ * limit within any second are only logged to the underlying logger. If a batch
+ * interval is set then messages are sent to each port once per interval as
+ * an output group named <code>log</code>, so consumers of batched log ports
+ * should receive messages through a group handler. Batches are flushed by
+ * the context's shared {@link TimerWheel}.<p>
+ *
  * Port loggers are a core element of each component, so users
  * should never need to contstruct port loggers themselves.
  *
@@ -69,23 +85,176 @@ public class PortLogger extends Logger {
    */
   public static final String TRACE_PORT = "trace";
 
+  /**
+   * <code>log</code> is the name of output groups containing batched log messages.
+   */
+  public static final String LOG_GROUP = "log";
+
   private final Logger logger;
-  private final OutputPort fatal;
-  private final OutputPort error;
-  private final OutputPort warn;
-  private final OutputPort info;
-  private final OutputPort debug;
-  private final OutputPort trace;
+  private final Vertx vertx;
+  private final LogPort fatal;
+  private final LogPort error;
+  private final LogPort warn;
+  private final LogPort info;
+  private final LogPort debug;
+  private final LogPort trace;
+  private final LogPort[] ports;
+  private long batchInterval;
+  private TimerWheel wheel;
+  private long flushTimer;
+
+  private final Handler<Long> flushHandler = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      flushTimer = 0;
+      for (LogPort port : ports) {
+        port.flush();
+      }
+    }
+  };
+
+  /**
+   * Rate limited and batched log port.
+   */
+  private class LogPort {
+    private final OutputPort port;
+    private int maxRate;
+    private long rateWindow;
+    private int rateCount;
+    private List<Object> batch;
+
+    private LogPort(OutputPort port) {
+      this.port = port;
+    }
+
+    private void send(Object message) {
+      if (!port.isConnected()) {
+        return;
+      }
+      if (maxRate > 0) {
+        long window = System.currentTimeMillis() / 1000;
+        if (window != rateWindow) {
+          rateWindow = window;
+          rateCount = 0;
+        }
+        if (++rateCount > maxRate) {
+          return;
+        }
+      }
+      if (batchInterval > 0) {
+        if (batch == null) {
+          batch = new ArrayList<>();
+        }
+        batch.add(message);
+        if (flushTimer == 0) {
+          wheel = TimerWheel.get(vertx);
+          flushTimer = wheel.setTimer(batchInterval, flushHandler);
+        }
+      } else {
+        port.send(message);
+      }
+    }
+
+    private void flush() {
+      if (batch != null && !batch.isEmpty()) {
+        final List<Object> messages = batch;
+        batch = null;
+        port.group(LOG_GROUP, new Handler<OutputGroup>() {
+          @Override
+          public void handle(OutputGroup group) {
+            for (Object message : messages) {
+              group.send(message);
+            }
+            group.end();
+          }
+        });
+      }
+    }
+  }
 
   PortLogger(Logger logger, OutputCollector output) {
     super(null);
     this.logger = logger;
-    this.fatal = output.port(FATAL_PORT);
-    this.error = output.port(ERROR_PORT);
-    this.warn = output.port(WARN_PORT);
-    this.info = output.port(INFO_PORT);
-    this.debug = output.port(DEBUG_PORT);
-    this.trace = output.port(TRACE_PORT);
+    this.fatal = new LogPort(output.port(FATAL_PORT));
+    this.error = new LogPort(output.port(ERROR_PORT));
+    this.warn = new LogPort(output.port(WARN_PORT));
+    this.info = new LogPort(output.port(INFO_PORT));
+    this.debug = new LogPort(output.port(DEBUG_PORT));
+    this.trace = new LogPort(output.port(TRACE_PORT));
+    this.ports = new LogPort[]{fatal, error, warn, info, debug, trace};
+    this.vertx = fatal.port.vertx();
+  }
+
+  /**
+   * Returns the log port for the given port name.
+   */
+  private LogPort port(String name) {
+    switch (name) {
+      case FATAL_PORT:
+        return fatal;
+      case ERROR_PORT:
+        return error;
+      case WARN_PORT:
+        return warn;
+      case INFO_PORT:
+        return info;
+      case DEBUG_PORT:
+        return debug;
+      case TRACE_PORT:
+        return trace;
+      default:
+        throw new IllegalArgumentException("Invalid log port " + name);
+    }
+  }
+
+  /**
+   * Sets the maximum number of messages per second to send to a log port.
+   *
+   * @param port The log port name.
+   * @param maxRate The maximum number of messages per second. If <code>0</code>
+   *        then messages sent to the port are not limited.
+   * @return The port logger.
+   */
+  public PortLogger setMaxRate(String port, int maxRate) {
+    port(port).maxRate = maxRate;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of messages per second sent to a log port.
+   *
+   * @param port The log port name.
+   * @return The maximum number of messages per second. Defaults to <code>0</code>
+   */
+  public int getMaxRate(String port) {
+    return port(port).maxRate;
+  }
+
+  /**
+   * Sets the interval at which to send batches of log messages.
+   *
+   * @param batchInterval The batch interval in milliseconds. If <code>0</code>
+   *        then messages are sent to log ports immediately.
+   * @return The port logger.
+   */
+  public PortLogger setBatchInterval(long batchInterval) {
+    this.batchInterval = batchInterval;
+    if (batchInterval <= 0) {
+      if (flushTimer > 0) {
+        wheel.cancelTimer(flushTimer);
+      }
+      flushHandler.handle(flushTimer);
+    }
+    return this;
+  }
+
+  /**
+   * Returns the interval at which batches of log messages are sent.
+   *
+   * @return The batch interval in milliseconds. Defaults to <code>0</code>
+   */
+  public long getBatchInterval() {
+    return batchInterval;
   }
 
   @Override
@@ -141,38 +310,50 @@ public class PortLogger extends Logger {
 
   @Override
   public void info(final Object message) {
-    logger.info(message);
-    info.send(message);
+    if (logger.isInfoEnabled()) {
+      logger.info(message);
+      info.send(message);
+    }
   }
 
   @Override
   public void info(final Object message, final Throwable t) {
-    logger.info(message, t);
-    info.send(message);
+    if (logger.isInfoEnabled()) {
+      logger.info(message, t);
+      info.send(message);
+    }
   }
 
   @Override
   public void debug(final Object message) {
-    logger.debug(message);
-    debug.send(message);
+    if (logger.isDebugEnabled()) {
+      logger.debug(message);
+      debug.send(message);
+    }
   }
 
   @Override
   public void debug(final Object message, final Throwable t) {
-    logger.debug(message, t);
-    debug.send(message);
+    if (logger.isDebugEnabled()) {
+      logger.debug(message, t);
+      debug.send(message);
+    }
   }
 
   @Override
   public void trace(final Object message) {
-    logger.trace(message);
-    trace.send(message);
+    if (logger.isTraceEnabled()) {
+      logger.trace(message);
+      trace.send(message);
+    }
   }
 
   @Override
   public void trace(final Object message, final Throwable t) {
-    logger.trace(message, t);
-    trace.send(message);
+    if (logger.isTraceEnabled()) {
+      logger.trace(message, t);
+      trace.send(message);
+    }
   }
 
 }
@@ -46,4 +46,11 @@ public interface OutputPort extends Port<OutputPort>, Output<OutputPort>, Output
    */
   OutputPort batch(Handler<OutputBatch> handler);
 
+  /**
+   * Returns a boolean indicating whether the port is connected.
+   *
+   * @return Indicates whether the port has any output streams.
+   */
+  boolean isConnected();
+
 }
@@ -84,6 +84,15 @@ public class DefaultInputPort implements InputPort, Observer<InputPortContext> {
     return vertx;
   }
 
+  /**
+   * Returns a list of port connections.
+   *
+   * @return A list of input connections.
+   */
+  public List<InputConnection> connections() {
+    return connections;
+  }
+
   @Override
   public void update(final InputPortContext update) {
     // All updates are run sequentially to prevent race conditions
@@ -83,6 +83,15 @@ public class DefaultOutputPort implements OutputPort, Observer<OutputPortContext
     return vertx;
   }
 
+  /**
+   * Returns a list of port streams.
+   *
+   * @return A list of output streams.
+   */
+  public List<OutputStream> streams() {
+    return streams;
+  }
+
   @Override
   public void update(final OutputPortContext update) {
     // All updates are run sequentially to prevent race conditions
@@ -213,6 +222,11 @@ public class DefaultOutputPort implements OutputPort, Observer<OutputPortContext
     return highest;
   }
 
+  @Override
+  public boolean isConnected() {
+    return !streams.isEmpty();
+  }
+
   @Override
   public boolean sendQueueFull() {
     for (OutputStream stream : streams) {
@@ -69,6 +69,15 @@ public class DefaultOutputStream implements OutputStream {
     return context.address();
   }
 
+  /**
+   * Returns a list of stream connections.
+   *
+   * @return A list of output connections.
+   */
+  public List<OutputConnection> connections() {
+    return connections;
+  }
+
   @Override
   public OutputStream open() {
     return open(null);
@@ -22,11 +22,12 @@ import net.kuujo.vertigo.component.Component;
 import net.kuujo.vertigo.component.InstanceContext;
 import net.kuujo.vertigo.io.InputCollector;
 import net.kuujo.vertigo.io.OutputCollector;
+import net.kuujo.vertigo.io.logging.PortLogger;
+import net.kuujo.vertigo.state.KeyedState;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Future;
 import org.vertx.java.core.Handler;
-import org.vertx.java.core.logging.Logger;
 import org.vertx.java.platform.Verticle;
 
 /**
@@ -58,10 +59,16 @@ import org.vertx.java.platform.Verticle;
  * which can be used to access Hazelcast data structures.<p>
  *
  * The component also has a special <code>logger</code> which is a
- * {@link net.kuujo.vertigo.io.logging.logger.PortLogger} that is specific to
+ * {@link net.kuujo.vertigo.io.logging.PortLogger} that is specific to
  * the component instance. The port logger will log any messages to
  * the underlying Vert.x {@link org.vertx.java.core.logging.Logger}
- * as well as the corresponding output port.
+ * as well as the corresponding output port.<p>
+ *
+ * Finally, the component has a {@link KeyedState} local to the component
+ * instance which is accessed by calling {@link #state()}. Keyed state is held
+ * outside of the Java heap and can be used to store large numbers of keys
+ * without the overhead of accessing cluster-wide shared data. The state is
+ * only created once it's first accessed.
  * 
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
@@ -70,7 +77,7 @@ public abstract class ComponentVerticle extends Verticle {
   protected Vertigo vertigo;
   protected InstanceContext context;
   protected Cluster cluster;
-  protected Logger logger;
+  protected PortLogger logger;
   protected InputCollector input;
   protected OutputCollector output;
 
@@ -96,4 +103,24 @@ public abstract class ComponentVerticle extends Verticle {
     });
   }
 
+  /**
+   * Returns the component instance's keyed state, creating it on first use.
+   *
+   * @return The instance keyed state.
+   */
+  protected KeyedState state() {
+    return component.state();
+  }
+
+  /**
+   * Stops the component. Subclasses that override this method should call
+   * <code>super.stop()</code> so that the component's state is released.
+   */
+  @Override
+  public void stop() {
+    if (component != null) {
+      component.stop();
+    }
+  }
+
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Lock-free histogram.<p>
+ *
+ * Values are counted in buckets of exponentially increasing size, with
+ * eight linear sub-buckets per power of two, so percentiles are accurate
+ * to within 12.5% of the recorded value. Recording a value does not
+ * allocate and does not lock, and the histogram may be read from any
+ * thread while values are being recorded. Negative values are recorded
+ * as <code>0</code>.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class Histogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value.
+   *
+   * @param value The value to record.
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    buckets.incrementAndGet(index(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long current = max.get();
+    while (value > current && !max.compareAndSet(current, value)) {
+      current = max.get();
+    }
+  }
+
+  /**
+   * Returns the number of recorded values.
+   *
+   * @return The number of recorded values.
+   */
+  public long count() {
+    return count.get();
+  }
+
+  /**
+   * Returns the mean of recorded values.
+   *
+   * @return The mean of recorded values.
+   */
+  public double mean() {
+    long count = this.count.get();
+    return count > 0 ? (double) sum.get() / count : 0;
+  }
+
+  /**
+   * Returns the maximum recorded value.
+   *
+   * @return The maximum recorded value.
+   */
+  public long max() {
+    return max.get();
+  }
+
+  /**
+   * Returns the value at the given percentile.
+   *
+   * @param percentile The percentile, between <code>0</code> and <code>100</code>
+   * @return The upper bound of the bucket containing the percentile.
+   */
+  public long percentile(double percentile) {
+    long count = this.count.get();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Resets the histogram.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+
+  /**
+   * Returns a summary of the histogram.
+   *
+   * @return A JSON summary of the histogram.
+   */
+  public JsonObject toJson() {
+    return new JsonObject()
+        .putNumber("count", count())
+        .putNumber("mean", mean())
+        .putNumber("max", max())
+        .putNumber("p50", percentile(50))
+        .putNumber("p90", percentile(90))
+        .putNumber("p99", percentile(99));
+  }
+
+  /**
+   * Returns the bucket index for a value.
+   */
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Returns the largest value counted in a bucket.
+   */
+  private static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long sub = index % SUB_BUCKETS;
+    long lower = (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.metrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * In-process metrics registry.<p>
+ *
+ * Metrics hooks that are configured to use the registry publish their
+ * most recent snapshot to the registry each time they flush. Any code
+ * in the same class loader can then query the latest metrics for an
+ * instance without going through the event bus.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public final class MetricsRegistry {
+  private static final ConcurrentMap<String, JsonObject> metrics = new ConcurrentHashMap<>();
+
+  private MetricsRegistry() {
+  }
+
+  /**
+   * Registers a metrics snapshot.
+   *
+   * @param name The metrics name, usually an instance address.
+   * @param snapshot The metrics snapshot.
+   */
+  public static void register(String name, JsonObject snapshot) {
+    metrics.put(name, snapshot);
+  }
+
+  /**
+   * Unregisters metrics.
+   *
+   * @param name The metrics name.
+   */
+  public static void unregister(String name) {
+    metrics.remove(name);
+  }
+
+  /**
+   * Returns the latest metrics snapshot.
+   *
+   * @param name The metrics name.
+   * @return A copy of the latest metrics snapshot, or <code>null</code> if
+   *         no metrics are registered with the given name.
+   */
+  public static JsonObject get(String name) {
+    JsonObject snapshot = metrics.get(name);
+    return snapshot != null ? snapshot.copy() : null;
+  }
+
+  /**
+   * Returns the names of all registered metrics.
+   *
+   * @return A set of registered metrics names.
+   */
+  public static Set<String> names() {
+    return Collections.unmodifiableSet(metrics.keySet());
+  }
+
+}
@@ -615,4 +615,19 @@ public interface ActiveNetwork extends ActiveConfig<NetworkConfig> {
    */
   ActiveNetwork destroyConnection(String source, String out, String target, String in, Handler<AsyncResult<ActiveNetwork>> doneHandler);
 
+  /**
+   * Loads recent network metrics.<p>
+   *
+   * Metrics are only collected if the network's metrics interval is set. The
+   * result contains the metrics <code>interval</code>, the <code>current</code>
+   * rollup, and a <code>history</code> array of recent rollups from oldest to
+   * newest. Each rollup contains <code>network</code> totals along with
+   * <code>components</code> and <code>connections</code> objects keyed by
+   * component name and connection address.
+   *
+   * @param resultHandler An asynchronous handler to be called with the metrics.
+   * @return The active network.
+   */
+  ActiveNetwork metrics(Handler<AsyncResult<JsonObject>> resultHandler);
+
 }
@@ -61,6 +61,20 @@ public interface NetworkConfig extends Config<NetworkConfig> {
    */
   public static final String NETWORK_COMPONENTS = "components";
 
+  /**
+   * <code>checkpoint-interval</code> is a number indicating the interval in milliseconds
+   * at which the network manager triggers checkpoints of component instance state.
+   * Defaults to <code>0</code>, in which case checkpointing is disabled.
+   */
+  public static final String NETWORK_CHECKPOINT_INTERVAL = "checkpoint-interval";
+
+  /**
+   * <code>metrics-interval</code> is a number indicating the interval in milliseconds
+   * at which the network manager rolls up metrics reported by component instances.
+   * Defaults to <code>0</code>, in which case metrics are not collected.
+   */
+  public static final String NETWORK_METRICS_INTERVAL = "metrics-interval";
+
   /**
    * Returns the network name.<p>
    *
@@ -70,6 +84,50 @@ public interface NetworkConfig extends Config<NetworkConfig> {
    */
   String getName();
 
+  /**
+   * Sets the network checkpoint interval.<p>
+   *
+   * When checkpointing is enabled, the network manager periodically triggers
+   * barrier-aligned checkpoints of each component instance's connection state
+   * and keyed state. When an instance is restarted it resumes from its last
+   * completed checkpoint rather than from scratch.
+   *
+   * @param interval The checkpoint interval in milliseconds, or <code>0</code>
+   *        to disable checkpointing.
+   * @return The network configuration.
+   */
+  NetworkConfig setCheckpointInterval(long interval);
+
+  /**
+   * Gets the network checkpoint interval.
+   *
+   * @return The checkpoint interval in milliseconds, or <code>0</code> if
+   *         checkpointing is disabled.
+   */
+  long getCheckpointInterval();
+
+  /**
+   * Sets the network metrics interval.<p>
+   *
+   * When metrics are enabled, each component instance periodically reports its
+   * throughput, queue depth, pause time and latency to the network manager, which
+   * rolls the reports up per component, per connection and for the whole network
+   * once per interval. Recent rollups can be queried through the active network.
+   *
+   * @param interval The metrics interval in milliseconds, or <code>0</code>
+   *        to disable metrics.
+   * @return The network configuration.
+   */
+  NetworkConfig setMetricsInterval(long interval);
+
+  /**
+   * Gets the network metrics interval.
+   *
+   * @return The metrics interval in milliseconds, or <code>0</code> if
+   *         metrics are disabled.
+   */
+  long getMetricsInterval();
+
   /**
    * Gets a list of network components.
    * 
@@ -15,6 +15,7 @@
  */
 package net.kuujo.vertigo.network.impl;
 
+import net.kuujo.vertigo.VertigoException;
 import net.kuujo.vertigo.cluster.Cluster;
 import net.kuujo.vertigo.component.ComponentConfig;
 import net.kuujo.vertigo.component.ModuleConfig;
@@ -24,10 +25,13 @@ import net.kuujo.vertigo.io.selector.Selector;
 import net.kuujo.vertigo.network.ActiveNetwork;
 import net.kuujo.vertigo.network.NetworkConfig;
 import net.kuujo.vertigo.network.NetworkContext;
+import net.kuujo.vertigo.network.manager.NetworkMetrics;
 import net.kuujo.vertigo.util.Observer;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.Message;
 import org.vertx.java.core.impl.DefaultFutureResult;
 import org.vertx.java.core.json.JsonObject;
 
@@ -37,14 +41,24 @@ import org.vertx.java.core.json.JsonObject;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class DefaultActiveNetwork implements ActiveNetwork, Observer<NetworkContext> {
+  private static final long METRICS_TIMEOUT = 30000;
   private NetworkConfig network;
   private Cluster cluster;
+  private Vertx vertx;
+  private String address;
 
   public DefaultActiveNetwork(NetworkConfig network, Cluster cluster) {
     this.network = network;
     this.cluster = cluster;
   }
 
+  public DefaultActiveNetwork(NetworkContext context, Cluster cluster, Vertx vertx) {
+    this.network = context.config();
+    this.address = context.address();
+    this.cluster = cluster;
+    this.vertx = vertx;
+  }
+
   @Override
   public void update(NetworkContext context) {
     network = context.config();
@@ -464,4 +478,27 @@ public class DefaultActiveNetwork implements ActiveNetwork, Observer<NetworkCont
     return this;
   }
 
+  @Override
+  public ActiveNetwork metrics(final Handler<AsyncResult<JsonObject>> resultHandler) {
+    if (vertx == null || address == null) {
+      new DefaultFutureResult<JsonObject>(new IllegalStateException("Network metrics are not available")).setHandler(resultHandler);
+      return this;
+    }
+    vertx.eventBus().sendWithTimeout(NetworkMetrics.metricsAddress(address), new JsonObject(), METRICS_TIMEOUT, new Handler<AsyncResult<Message<JsonObject>>>() {
+      @Override
+      public void handle(AsyncResult<Message<JsonObject>> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<JsonObject>(result.cause()).setHandler(resultHandler);
+        } else if (!"ok".equals(result.result().body().getString("status"))) {
+          new DefaultFutureResult<JsonObject>(new VertigoException(result.result().body().getString("message"))).setHandler(resultHandler);
+        } else {
+          JsonObject metrics = result.result().body();
+          metrics.removeField("status");
+          new DefaultFutureResult<JsonObject>(metrics).setHandler(resultHandler);
+        }
+      }
+    });
+    return this;
+  }
+
 }
@@ -37,6 +37,8 @@ import net.kuujo.vertigo.network.NetworkConfig;
 
 import org.vertx.java.core.json.JsonObject;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 /**
  * Default network configuration implementation.
  *
@@ -46,6 +48,10 @@ public class DefaultNetworkConfig implements NetworkConfig {
   private String name;
   private Map<String, ComponentConfig<?>> components = new HashMap<String, ComponentConfig<?>>();
   private List<ConnectionConfig> connections = new ArrayList<>();
+  @JsonProperty("checkpoint-interval")
+  private long checkpointInterval;
+  @JsonProperty("metrics-interval")
+  private long metricsInterval;
 
   public DefaultNetworkConfig() {
     name = UUID.randomUUID().toString();
@@ -60,6 +66,34 @@ public class DefaultNetworkConfig implements NetworkConfig {
     return name;
   }
 
+  @Override
+  public NetworkConfig setCheckpointInterval(long interval) {
+    if (interval < 0) {
+      throw new IllegalArgumentException("Checkpoint interval must be a positive number.");
+    }
+    this.checkpointInterval = interval;
+    return this;
+  }
+
+  @Override
+  public long getCheckpointInterval() {
+    return checkpointInterval;
+  }
+
+  @Override
+  public NetworkConfig setMetricsInterval(long interval) {
+    if (interval < 0) {
+      throw new IllegalArgumentException("Metrics interval must be a positive number.");
+    }
+    this.metricsInterval = interval;
+    return this;
+  }
+
+  @Override
+  public long getMetricsInterval() {
+    return metricsInterval;
+  }
+
   @Override
   public List<ComponentConfig<?>> getComponents() {
     List<ComponentConfig<?>> components = new ArrayList<ComponentConfig<?>>();
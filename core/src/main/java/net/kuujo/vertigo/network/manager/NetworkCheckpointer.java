@@ -0,0 +1,176 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.network.manager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import net.kuujo.vertigo.component.ComponentContext;
+import net.kuujo.vertigo.component.InstanceContext;
+import net.kuujo.vertigo.component.impl.InstanceCheckpointer;
+import net.kuujo.vertigo.network.NetworkContext;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+/**
+ * Network checkpoint coordinator.<p>
+ *
+ * When checkpointing is enabled for the network, the checkpointer periodically
+ * triggers a new checkpoint by publishing it to all component instances. Each
+ * instance acknowledges the checkpoint once its state has been written, and
+ * once all instances in the network have acknowledged a checkpoint the
+ * checkpointer publishes its completion. Only completed checkpoints are
+ * restored by instances. If a checkpoint has not completed by the time the
+ * next checkpoint is due it is abandoned.<p>
+ *
+ * Checkpoint IDs are derived from the current time so that they continue to
+ * increase if the network manager is restarted.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class NetworkCheckpointer {
+  private static final Logger log = LoggerFactory.getLogger(NetworkCheckpointer.class);
+  private final Vertx vertx;
+  private final String managerAddress;
+  private final String instancesAddress;
+  private final Set<String> acks = new HashSet<>();
+  private NetworkContext context;
+  private long interval;
+  private long timerID;
+  private long checkpoint;
+  private boolean inProgress;
+
+  private final Handler<Message<JsonObject>> ackHandler = new Handler<Message<JsonObject>>() {
+    @Override
+    public void handle(Message<JsonObject> message) {
+      Long id = message.body().getLong(InstanceCheckpointer.CHECKPOINT_ID);
+      String instance = message.body().getString(InstanceCheckpointer.CHECKPOINT_INSTANCE);
+      if (inProgress && id != null && id == checkpoint && instance != null) {
+        acks.add(instance);
+        checkComplete();
+      }
+    }
+  };
+
+  public NetworkCheckpointer(Vertx vertx, String address) {
+    this.vertx = vertx;
+    this.managerAddress = InstanceCheckpointer.managerAddress(address);
+    this.instancesAddress = InstanceCheckpointer.instancesAddress(address);
+  }
+
+  /**
+   * Starts the checkpointer.
+   */
+  public void start() {
+    vertx.eventBus().registerHandler(managerAddress, ackHandler);
+  }
+
+  /**
+   * Stops the checkpointer.
+   */
+  public void stop() {
+    cancel();
+    vertx.eventBus().unregisterHandler(managerAddress, ackHandler);
+  }
+
+  /**
+   * Updates the current network context.<p>
+   *
+   * This should be called by the network manager any time the network's
+   * configuration changes. Any checkpoint in progress is abandoned since
+   * the set of instances participating in it has changed.
+   *
+   * @param context The current network context.
+   */
+  public void update(NetworkContext context) {
+    this.context = context;
+    inProgress = false;
+    acks.clear();
+    long interval = context != null && context.config() != null ? context.config().getCheckpointInterval() : 0;
+    if (interval != this.interval) {
+      cancel();
+      this.interval = interval;
+      if (interval > 0) {
+        timerID = vertx.setPeriodic(interval, new Handler<Long>() {
+          @Override
+          public void handle(Long timerID) {
+            trigger();
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Cancels the checkpoint timer.
+   */
+  private void cancel() {
+    if (timerID > 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+    }
+    interval = 0;
+  }
+
+  /**
+   * Triggers a new checkpoint.
+   */
+  private void trigger() {
+    if (inProgress) {
+      log.warn(String.format("Checkpoint %d did not complete in time, %d of %d instances acknowledged", checkpoint, acks.size(), instances().size()));
+    }
+    checkpoint = Math.max(checkpoint + 1, System.currentTimeMillis());
+    inProgress = true;
+    acks.clear();
+    vertx.eventBus().publish(instancesAddress, new JsonObject()
+        .putString(InstanceCheckpointer.CHECKPOINT_ACTION, InstanceCheckpointer.ACTION_TRIGGER)
+        .putNumber(InstanceCheckpointer.CHECKPOINT_ID, checkpoint));
+  }
+
+  /**
+   * Checks whether all instances have acknowledged the current checkpoint.
+   */
+  private void checkComplete() {
+    if (acks.containsAll(instances())) {
+      inProgress = false;
+      acks.clear();
+      vertx.eventBus().publish(instancesAddress, new JsonObject()
+          .putString(InstanceCheckpointer.CHECKPOINT_ACTION, InstanceCheckpointer.ACTION_COMPLETE)
+          .putNumber(InstanceCheckpointer.CHECKPOINT_ID, checkpoint));
+    }
+  }
+
+  /**
+   * Returns the set of all instance addresses in the network.
+   */
+  private Set<String> instances() {
+    Set<String> instances = new HashSet<>();
+    if (context != null) {
+      for (ComponentContext<?> component : context.components()) {
+        for (InstanceContext instance : component.instances()) {
+          instances.add(instance.address());
+        }
+      }
+    }
+    return instances;
+  }
+
+}
@@ -97,6 +97,10 @@ public class NetworkManager extends Verticle {
   private NetworkContext currentContext;
   private AsyncMap<String, String> deploymentIDs;
   private AsyncMap<String, String> deploymentNodes;
+  private NetworkScaler scaler;
+  private NetworkCheckpointer checkpointer;
+  private NetworkMetrics metrics;
+  private final PlacementEngine placement = new PlacementEngine();
   private final TaskRunner tasks = new TaskRunner();
 
   private final Map<String, Handler<MapEvent<String, String>>> watchHandlers = new HashMap<>();
@@ -136,7 +140,7 @@ public class NetworkManager extends Verticle {
       return;
     }
 
-    String scluster = container.config().getString("cluster");
+    final String scluster = container.config().getString("cluster");
     if (scluster == null) {
       startResult.setFailure(new IllegalArgumentException("No cluster address specified."));
       return;
@@ -161,6 +165,12 @@ public class NetworkManager extends Verticle {
               startResult.setFailure(result.cause());
             } else {
               data = new WrappedWatchableAsyncMap<String, String>(cluster.<String, String>getMap(address), vertx);
+              scaler = new NetworkScaler(vertx, address, scluster, data);
+              scaler.start();
+              checkpointer = new NetworkCheckpointer(vertx, address);
+              checkpointer.start();
+              metrics = new NetworkMetrics(vertx, address);
+              metrics.start();
               data.watch(address, watchHandler, new Handler<AsyncResult<Void>>() {
                 @Override
                 public void handle(AsyncResult<Void> result) {
@@ -176,6 +186,11 @@ public class NetworkManager extends Verticle {
                           startResult.setFailure(result.cause());
                         } else if (result.result() != null) {
                           currentContext = DefaultNetworkContext.fromJson(new JsonObject(result.result()));
+                          scaler.update(currentContext);
+                          checkpointer.update(currentContext);
+                          metrics.update(currentContext);
+                          placement.update(currentContext);
+                          loadPlacements();
 
                           final CountingCompletionHandler<Void> componentCounter = new CountingCompletionHandler<Void>(currentContext.components().size());
                           componentCounter.setHandler(new Handler<AsyncResult<Void>>() {
@@ -246,6 +261,10 @@ public class NetworkManager extends Verticle {
       @Override
       public void handle(final Task task) {
         currentContext = context;
+        scaler.update(currentContext);
+        checkpointer.update(currentContext);
+        metrics.update(currentContext);
+        placement.update(currentContext);
 
         // Any time the network is being reconfigured, unready the network.
         // This will cause components to pause during the reconfiguration.
@@ -294,7 +313,10 @@ public class NetworkManager extends Verticle {
               if (currentContext != null) {
                 final NetworkContext runningContext = currentContext;
                 currentContext = context;
-                
+                scaler.update(currentContext);
+                checkpointer.update(currentContext);
+                metrics.update(currentContext);
+                placement.update(currentContext);
 
                 // We have to update all instance contexts before deploying
                 // any new components in order to ensure connections are
@@ -317,11 +339,21 @@ public class NetworkManager extends Verticle {
                             deployAddedComponents(currentContext, runningContext, new Handler<AsyncResult<Void>>() {
                               @Override
                               public void handle(AsyncResult<Void> result) {
-                                task.complete();
                                 if (result.failed()) {
                                   log.error(result.cause());
+                                  task.complete();
                                 } else {
-                                  checkReady();
+                                  updateComponentInstances(currentContext, runningContext, new Handler<AsyncResult<Void>>() {
+                                    @Override
+                                    public void handle(AsyncResult<Void> result) {
+                                      task.complete();
+                                      if (result.failed()) {
+                                        log.error(result.cause());
+                                      } else {
+                                        checkReady();
+                                      }
+                                    }
+                                  });
                                 }
                               }
                             });
@@ -335,6 +367,10 @@ public class NetworkManager extends Verticle {
               else {
                 // Just deploy the entire network if it wasn't already deployed.
                 currentContext = context;
+                scaler.update(currentContext);
+                checkpointer.update(currentContext);
+                metrics.update(currentContext);
+                placement.update(currentContext);
                 deployNetwork(context, new Handler<AsyncResult<NetworkContext>>() {
                   @Override
                   public void handle(AsyncResult<NetworkContext> result) {
@@ -416,6 +452,62 @@ public class NetworkManager extends Verticle {
     }
   }
 
+  /**
+   * Deploys and undeploys instances of components whose number of
+   * instances changed, e.g. when a component is scaled.
+   */
+  private void updateComponentInstances(final NetworkContext context, NetworkContext runningContext, final Handler<AsyncResult<Void>> doneHandler) {
+    final List<InstanceContext> addedInstances = new ArrayList<>();
+    final List<InstanceContext> removedInstances = new ArrayList<>();
+    for (ComponentContext<?> component : context.components()) {
+      ComponentContext<?> runningComponent = runningContext.component(component.name());
+      if (runningComponent != null) {
+        for (InstanceContext instance : component.instances()) {
+          if (runningComponent.instance(instance.address()) == null) {
+            addedInstances.add(instance);
+          }
+        }
+        for (InstanceContext instance : runningComponent.instances()) {
+          if (component.instance(instance.address()) == null) {
+            removedInstances.add(instance);
+          }
+        }
+      }
+    }
+
+    if (addedInstances.isEmpty() && removedInstances.isEmpty()) {
+      new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+      return;
+    }
+
+    final CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(removedInstances.size());
+    counter.setHandler(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+        } else {
+          // Removed instances are no longer required for the network to be ready.
+          for (InstanceContext instance : removedInstances) {
+            ready.remove(instance.address());
+          }
+          deployInstances(addedInstances, new Handler<AsyncResult<Void>>() {
+            @Override
+            public void handle(AsyncResult<Void> result) {
+              if (result.failed()) {
+                new DefaultFutureResult<Void>(result.cause()).setHandler(doneHandler);
+              } else {
+                log.info(String.format("Added %d and removed %d instances in %s", addedInstances.size(), removedInstances.size(), context.name()));
+                new DefaultFutureResult<Void>((Void) null).setHandler(doneHandler);
+              }
+            }
+          });
+        }
+      }
+    });
+    undeployInstances(removedInstances, counter);
+  }
+
   /**
    * Handles the deletion of the network.
    */
@@ -423,6 +515,9 @@ public class NetworkManager extends Verticle {
     tasks.runTask(new Handler<Task>() {
       @Override
       public void handle(final Task task) {
+        scaler.stop();
+        checkpointer.stop();
+        metrics.stop();
         unready(new Handler<AsyncResult<Void>>() {
           @Override
           public void handle(AsyncResult<Void> result) {
@@ -675,8 +770,8 @@ public class NetworkManager extends Verticle {
     // and referenced by the instance once it's deployed.
     log.info(String.format("Deploying instance %d of %s", instance.number(), instance.component().name()));
 
-    // First we need to select a node from the component's deployment group
-    // to which to deploy the component.
+    // First we need to get the nodes in the component's deployment group
+    // from which the placement engine will select a node for the instance.
     // If the component doesn't specify a group then deploy to any node in the cluster.
     if (instance.component().group() != null) {
       cluster.getGroup(instance.component().group(), new Handler<AsyncResult<Group>>() {
@@ -685,9 +780,9 @@ public class NetworkManager extends Verticle {
           if (result.failed()) {
             counter.fail(result.cause());
           } else {
-            result.result().selectNode(instance.address(), new Handler<AsyncResult<Node>>() {
+            result.result().getNodes(new Handler<AsyncResult<Collection<Node>>>() {
               @Override
-              public void handle(AsyncResult<Node> result) {
+              public void handle(AsyncResult<Collection<Node>> result) {
                 if (result.failed()) {
                   counter.fail(result.cause());
                 } else {
@@ -699,9 +794,9 @@ public class NetworkManager extends Verticle {
         }
       });
     } else {
-      cluster.selectNode(instance.address(), new Handler<AsyncResult<Node>>() {
+      cluster.getNodes(new Handler<AsyncResult<Collection<Node>>>() {
         @Override
-        public void handle(AsyncResult<Node> result) {
+        public void handle(AsyncResult<Collection<Node>> result) {
           if (result.failed()) {
             counter.fail(result.cause());
           } else {
@@ -712,6 +807,18 @@ public class NetworkManager extends Verticle {
     }
   }
 
+  /**
+   * Places an instance on one of the given nodes and deploys it.
+   */
+  private void deployInstance(Collection<Node> nodes, final InstanceContext instance, final CountingCompletionHandler<Void> counter) {
+    Node node = placement.select(instance, nodes);
+    if (node == null) {
+      counter.fail(new IllegalStateException(String.format("No nodes available for instance %d of %s", instance.number(), instance.component().name())));
+    } else {
+      deployInstance(node, instance, counter);
+    }
+  }
+
   /**
    * Deploys an instance to a specific node.
    */
@@ -745,22 +852,22 @@ public class NetworkManager extends Verticle {
                 } else {
                   watchHandlers.put(instance.address(), watchHandler);
                   if (instance.component().isModule()) {
-                    deployModule(instance, counter);
+                    deployModule(node, instance, counter);
                   } else if (instance.component().isVerticle() && !instance.component().asVerticle().isWorker()) {
-                    deployVerticle(instance, counter);
+                    deployVerticle(node, instance, counter);
                   } else if (instance.component().isVerticle() && instance.component().asVerticle().isWorker()) {
-                    deployWorkerVerticle(instance, counter);
+                    deployWorkerVerticle(node, instance, counter);
                   }
                 }
               }
             });
           } else {
             if (instance.component().isModule()) {
-              deployModule(instance, counter);
+              deployModule(node, instance, counter);
             } else if (instance.component().isVerticle() && !instance.component().asVerticle().isWorker()) {
-              deployVerticle(instance, counter);
+              deployVerticle(node, instance, counter);
             } else if (instance.component().isVerticle() && instance.component().asVerticle().isWorker()) {
-              deployWorkerVerticle(instance, counter);
+              deployWorkerVerticle(node, instance, counter);
             }
           }
         }
@@ -769,95 +876,75 @@ public class NetworkManager extends Verticle {
   }
 
   /**
-   * Deploys a module component instance in the network's cluster.
+   * Deploys a module component instance on a node.
    */
-  private void deployModule(final InstanceContext instance, final CountingCompletionHandler<Void> counter) {
-    cluster.getGroup(instance.component().group(), new Handler<AsyncResult<Group>>() {
+  private void deployModule(final Node node, final InstanceContext instance, final CountingCompletionHandler<Void> counter) {
+    node.deployModule(instance.component().asModule().module(), buildConfig(instance, cluster), 1, new Handler<AsyncResult<String>>() {
       @Override
-      public void handle(AsyncResult<Group> result) {
+      public void handle(AsyncResult<String> result) {
         if (result.failed()) {
+          placement.unassign(instance.address());
           counter.fail(result.cause());
         } else {
-          result.result().deployModule(instance.component().asModule().module(), buildConfig(instance, cluster), 1, new Handler<AsyncResult<String>>() {
-            @Override
-            public void handle(AsyncResult<String> result) {
-              if (result.failed()) {
-                counter.fail(result.cause());
-              } else {
-                deploymentIDs.put(instance.address(), result.result(), new Handler<AsyncResult<String>>() {
-                  @Override
-                  public void handle(AsyncResult<String> result) {
-                    counter.succeed();
-                  }
-                });
-              }
-            }
-          });
+          storeDeployment(node, instance, result.result(), counter);
         }
       }
     });
   }
 
   /**
-   * Deploys a verticle component instance in the network's cluster.
+   * Deploys a verticle component instance on a node.
    */
-  private void deployVerticle(final InstanceContext instance, final CountingCompletionHandler<Void> counter) {
-    cluster.getGroup(instance.component().group(), new Handler<AsyncResult<Group>>() {
+  private void deployVerticle(final Node node, final InstanceContext instance, final CountingCompletionHandler<Void> counter) {
+    node.deployVerticle(instance.component().asVerticle().main(), buildConfig(instance, cluster), 1, new Handler<AsyncResult<String>>() {
       @Override
-      public void handle(AsyncResult<Group> result) {
+      public void handle(AsyncResult<String> result) {
         if (result.failed()) {
+          placement.unassign(instance.address());
           counter.fail(result.cause());
         } else {
-          result.result().deployVerticle(instance.component().asVerticle().main(), buildConfig(instance, cluster), 1, new Handler<AsyncResult<String>>() {
-            @Override
-            public void handle(AsyncResult<String> result) {
-              if (result.failed()) {
-                counter.fail(result.cause());
-              } else {
-                deploymentIDs.put(instance.address(), result.result(), new Handler<AsyncResult<String>>() {
-                  @Override
-                  public void handle(AsyncResult<String> result) {
-                    counter.succeed();
-                  }
-                });
-              }
-            }
-          });
+          storeDeployment(node, instance, result.result(), counter);
         }
       }
     });
   }
 
   /**
-   * Deploys a worker verticle component instance in the network's cluster.
+   * Deploys a worker verticle component instance on a node.
    */
-  private void deployWorkerVerticle(final InstanceContext instance, final CountingCompletionHandler<Void> counter) {
-    cluster.getGroup(instance.component().group(), new Handler<AsyncResult<Group>>() {
+  private void deployWorkerVerticle(final Node node, final InstanceContext instance, final CountingCompletionHandler<Void> counter) {
+    node.deployWorkerVerticle(instance.component().asVerticle().main(), buildConfig(instance, cluster), 1, instance.component().asVerticle().isMultiThreaded(), new Handler<AsyncResult<String>>() {
       @Override
-      public void handle(AsyncResult<Group> result) {
+      public void handle(AsyncResult<String> result) {
         if (result.failed()) {
+          placement.unassign(instance.address());
           counter.fail(result.cause());
         } else {
-          result.result().deployWorkerVerticle(instance.component().asVerticle().main(), buildConfig(instance, cluster), 1,instance.component().asVerticle().isMultiThreaded(), new Handler<AsyncResult<String>>() {
-            @Override
-            public void handle(AsyncResult<String> result) {
-              if (result.failed()) {
-                counter.fail(result.cause());
-              } else {
-                deploymentIDs.put(instance.address(), result.result(), new Handler<AsyncResult<String>>() {
-                  @Override
-                  public void handle(AsyncResult<String> result) {
-                    counter.succeed();
-                  }
-                });
-              }
-            }
-          });
+          storeDeployment(node, instance, result.result(), counter);
         }
       }
     });
   }
 
+  /**
+   * Stores the deployment ID and node of a deployed instance.
+   */
+  private void storeDeployment(final Node node, final InstanceContext instance, final String deploymentID, final CountingCompletionHandler<Void> counter) {
+    deploymentIDs.put(instance.address(), deploymentID, new Handler<AsyncResult<String>>() {
+      @Override
+      public void handle(AsyncResult<String> result) {
+        // Store the node to which the instance was deployed so the instance
+        // can be reassigned if the node leaves the cluster.
+        deploymentNodes.put(instance.address(), node.address(), new Handler<AsyncResult<String>>() {
+          @Override
+          public void handle(AsyncResult<String> result) {
+            counter.succeed();
+          }
+        });
+      }
+    });
+  }
+
   /**
    * Installs all modules on a node.
    */
@@ -988,7 +1075,7 @@ public class NetworkManager extends Verticle {
         if (result.failed()) {
           counter.fail(result.cause());
         } else if (result.result() != null) {
-          cluster.undeployModule(result.result(), new Handler<AsyncResult<Void>>() {
+          undeployDeployment(instance, result.result(), new Handler<AsyncResult<Void>>() {
             @Override
             public void handle(AsyncResult<Void> result) {
               unwatchInstance(instance, counter);
@@ -1011,7 +1098,7 @@ public class NetworkManager extends Verticle {
         if (result.failed()) {
           counter.fail(result.cause());
         } else if (result.result() != null) {
-          cluster.undeployVerticle(result.result(), new Handler<AsyncResult<Void>>() {
+          undeployDeployment(instance, result.result(), new Handler<AsyncResult<Void>>() {
             @Override
             public void handle(AsyncResult<Void> result) {
               unwatchInstance(instance, counter);
@@ -1024,6 +1111,68 @@ public class NetworkManager extends Verticle {
     });
   }
 
+  /**
+   * Undeploys an instance deployment from the node to which it was deployed.
+   */
+  private void undeployDeployment(final InstanceContext instance, final String deploymentID, final Handler<AsyncResult<Void>> doneHandler) {
+    placement.unassign(instance.address());
+    deploymentNodes.remove(instance.address(), new Handler<AsyncResult<String>>() {
+      @Override
+      public void handle(AsyncResult<String> result) {
+        if (result.succeeded() && result.result() != null) {
+          cluster.getNode(result.result(), new Handler<AsyncResult<Node>>() {
+            @Override
+            public void handle(AsyncResult<Node> result) {
+              if (result.failed()) {
+                undeployDeployment(instance.component().isModule(), deploymentID, doneHandler);
+              } else if (instance.component().isModule()) {
+                result.result().undeployModule(deploymentID, doneHandler);
+              } else {
+                result.result().undeployVerticle(deploymentID, doneHandler);
+              }
+            }
+          });
+        } else {
+          undeployDeployment(instance.component().isModule(), deploymentID, doneHandler);
+        }
+      }
+    });
+  }
+
+  /**
+   * Undeploys a deployment through the cluster.
+   */
+  private void undeployDeployment(boolean module, String deploymentID, Handler<AsyncResult<Void>> doneHandler) {
+    if (module) {
+      cluster.undeployModule(deploymentID, doneHandler);
+    } else {
+      cluster.undeployVerticle(deploymentID, doneHandler);
+    }
+  }
+
+  /**
+   * Loads the nodes to which instances are currently deployed.
+   */
+  private void loadPlacements() {
+    deploymentNodes.keySet(new Handler<AsyncResult<Set<String>>>() {
+      @Override
+      public void handle(AsyncResult<Set<String>> result) {
+        if (result.succeeded()) {
+          for (final String instanceAddress : result.result()) {
+            deploymentNodes.get(instanceAddress, new Handler<AsyncResult<String>>() {
+              @Override
+              public void handle(AsyncResult<String> result) {
+                if (result.succeeded() && result.result() != null && placement.placement(instanceAddress) == null) {
+                  placement.assign(instanceAddress, result.result());
+                }
+              }
+            });
+          }
+        }
+      }
+    });
+  }
+
   /**
    * Updates a network.
    */
@@ -1134,7 +1283,8 @@ public class NetworkManager extends Verticle {
                   deploymentNodes.get(instanceAddress, new Handler<AsyncResult<String>>() {
                     @Override
                     public void handle(AsyncResult<String> result) {
-                      if (result.succeeded() && result.result().equals(node.address())) {
+                      if (result.succeeded() && node.address().equals(result.result())) {
+                        placement.unassign(instanceAddress);
                         // Look up the current instance context in the cluster.
                         data.get(instanceAddress, new Handler<AsyncResult<String>>() {
                           @Override
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.network.manager;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import net.kuujo.vertigo.component.ComponentContext;
+import net.kuujo.vertigo.component.impl.InstanceStatsReporter;
+import net.kuujo.vertigo.network.NetworkContext;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Network metrics aggregator.<p>
+ *
+ * When metrics are enabled for the network, the aggregator collects the stats
+ * reports published by each component instance and once per metrics interval
+ * rolls them up per component, per connection edge, and for the whole network.
+ * Rollups include throughput in messages per second, current queue depth, time
+ * spent paused by downstream instances and, for traced components, latency.
+ * Components with a profiled instance whose handler times exceed the profiling
+ * threshold are flagged as slow.
+ * The latest report of each instance is used for queue depths and latency
+ * until the instance has not reported for {@link #REPORT_EXPIRATION} report
+ * intervals, after which the instance is left out of rollups.
+ * The most recent rollups are kept in a bounded history for trend analysis and
+ * can be queried on the network's metrics address.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class NetworkMetrics {
+
+  /**
+   * <code>60</code> is the number of rollups kept in the metrics history.
+   */
+  public static final int HISTORY_SIZE = 60;
+
+  /**
+   * <code>3</code> is the number of report intervals after which an instance's
+   * latest report is expired.
+   */
+  public static final int REPORT_EXPIRATION = 3;
+
+  private static final long MIN_INTERVAL = InstanceStatsReporter.REPORT_INTERVAL;
+  private final Vertx vertx;
+  private final String statsAddress;
+  private final String metricsAddress;
+  private final Map<String, Report> reports = new HashMap<>();
+  private final Map<String, Accumulator> components = new HashMap<>();
+  private final Map<String, Accumulator> edges = new HashMap<>();
+  private final ArrayDeque<JsonObject> history = new ArrayDeque<>(HISTORY_SIZE);
+  private NetworkContext context;
+  private long interval;
+  private long timerID;
+  private long lastRollup;
+
+  /**
+   * The latest report received from an instance.
+   */
+  private static class Report {
+    private final JsonObject body;
+    private final long time;
+
+    private Report(JsonObject body, long time) {
+      this.body = body;
+      this.time = time;
+    }
+  }
+
+  /**
+   * Accumulates counts over a single interval.
+   */
+  private static class Accumulator {
+    private long sent;
+    private long received;
+    private long paused;
+  }
+
+  private final Handler<Message<JsonObject>> reportHandler = new Handler<Message<JsonObject>>() {
+    @Override
+    public void handle(Message<JsonObject> message) {
+      if (timerID > 0) {
+        handleReport(message.body());
+      }
+    }
+  };
+
+  private final Handler<Message<JsonObject>> queryHandler = new Handler<Message<JsonObject>>() {
+    @Override
+    public void handle(Message<JsonObject> message) {
+      message.reply(new JsonObject()
+          .putString("status", "ok")
+          .putNumber("interval", interval)
+          .putObject("current", history.peekLast())
+          .putArray("history", history()));
+    }
+  };
+
+  public NetworkMetrics(Vertx vertx, String address) {
+    this.vertx = vertx;
+    this.statsAddress = InstanceStatsReporter.statsAddress(address);
+    this.metricsAddress = metricsAddress(address);
+  }
+
+  /**
+   * Returns the metrics address for the given network address.
+   *
+   * @param network The network address.
+   * @return The network's metrics address.
+   */
+  public static String metricsAddress(String network) {
+    return String.format("%s.metrics", network);
+  }
+
+  /**
+   * Starts the metrics aggregator.
+   */
+  public void start() {
+    vertx.eventBus().registerHandler(statsAddress, reportHandler);
+    vertx.eventBus().registerHandler(metricsAddress, queryHandler);
+  }
+
+  /**
+   * Stops the metrics aggregator.
+   */
+  public void stop() {
+    cancel();
+    vertx.eventBus().unregisterHandler(statsAddress, reportHandler);
+    vertx.eventBus().unregisterHandler(metricsAddress, queryHandler);
+    history.clear();
+  }
+
+  /**
+   * Updates the current network context.<p>
+   *
+   * This should be called by the network manager any time the network's
+   * configuration changes. Reports from instances that no longer exist
+   * are discarded.
+   *
+   * @param context The current network context.
+   */
+  public void update(NetworkContext context) {
+    this.context = context;
+    if (context != null) {
+      Iterator<String> iter = reports.keySet().iterator();
+      while (iter.hasNext()) {
+        String instance = iter.next();
+        boolean exists = false;
+        for (ComponentContext<?> component : context.components()) {
+          if (component.instance(instance) != null) {
+            exists = true;
+            break;
+          }
+        }
+        if (!exists) {
+          iter.remove();
+        }
+      }
+    } else {
+      reports.clear();
+    }
+
+    long interval = context != null && context.config() != null ? context.config().getMetricsInterval() : 0;
+    if (interval > 0) {
+      interval = Math.max(interval, MIN_INTERVAL);
+    }
+    if (interval != this.interval) {
+      cancel();
+      this.interval = interval;
+      if (interval > 0) {
+        lastRollup = System.currentTimeMillis();
+        timerID = vertx.setPeriodic(interval, new Handler<Long>() {
+          @Override
+          public void handle(Long timerID) {
+            rollup();
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Cancels the rollup timer.
+   */
+  private void cancel() {
+    if (timerID > 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+    }
+    interval = 0;
+    components.clear();
+    edges.clear();
+  }
+
+  /**
+   * Returns the rollup history.
+   *
+   * @return An array of the most recent rollups, oldest first.
+   */
+  public JsonArray history() {
+    JsonArray history = new JsonArray();
+    for (JsonObject rollup : this.history) {
+      history.addObject(rollup);
+    }
+    return history;
+  }
+
+  /**
+   * Handles an instance stats report.<p>
+   *
+   * Counts in the report are accumulated until the next rollup, and the
+   * report replaces any previous report from the same instance.
+   *
+   * @param report The instance stats report.
+   */
+  public void handleReport(JsonObject report) {
+    String instance = report.getString(InstanceStatsReporter.STATS_INSTANCE);
+    String component = report.getString(InstanceStatsReporter.STATS_COMPONENT);
+    if (instance == null || component == null) {
+      return;
+    }
+    reports.put(instance, new Report(report, System.currentTimeMillis()));
+
+    Accumulator accumulator = accumulator(components, component);
+    accumulator.sent += report.getLong(InstanceStatsReporter.STATS_SENT, 0);
+    accumulator.received += report.getLong(InstanceStatsReporter.STATS_RECEIVED, 0);
+    accumulator.paused += report.getLong(InstanceStatsReporter.STATS_PAUSED, 0);
+
+    JsonObject edgeReports = report.getObject(InstanceStatsReporter.STATS_EDGES);
+    if (edgeReports != null) {
+      for (String address : edgeReports.getFieldNames()) {
+        JsonObject edgeReport = edgeReports.getObject(address);
+        Accumulator edge = accumulator(edges, address);
+        edge.sent += edgeReport.getLong(InstanceStatsReporter.STATS_SENT, 0);
+        edge.paused += edgeReport.getLong(InstanceStatsReporter.STATS_PAUSED, 0);
+      }
+    }
+  }
+
+  /**
+   * Returns the accumulator for the given key, creating it if necessary.
+   */
+  private static Accumulator accumulator(Map<String, Accumulator> accumulators, String key) {
+    Accumulator accumulator = accumulators.get(key);
+    if (accumulator == null) {
+      accumulator = new Accumulator();
+      accumulators.put(key, accumulator);
+    }
+    return accumulator;
+  }
+
+  /**
+   * Rolls up all reports received since the last rollup.<p>
+   *
+   * This is called once per metrics interval while metrics are enabled.
+   * The rollup is added to the history, discarding the oldest rollup once
+   * the history holds {@link #HISTORY_SIZE} rollups.
+   *
+   * @return The rollup.
+   */
+  public JsonObject rollup() {
+    long now = System.currentTimeMillis();
+    double seconds = Math.max(1, now - lastRollup) / 1000d;
+    lastRollup = now;
+
+    // Reports from instances that have stopped reporting are expired so that
+    // stopped or failed instances don't hold their last queue depths forever.
+    Iterator<Report> iter = reports.values().iterator();
+    while (iter.hasNext()) {
+      if (now - iter.next().time > REPORT_EXPIRATION * InstanceStatsReporter.REPORT_INTERVAL) {
+        iter.remove();
+      }
+    }
+
+    // Queue depth and latency are taken from the latest report of each instance.
+    Map<String, Long> queued = new HashMap<>();
+    Map<String, Integer> instances = new HashMap<>();
+    Map<String, JsonObject> latencies = new HashMap<>();
+    Map<String, Boolean> slow = new HashMap<>();
+    Map<String, Long> edgeQueued = new HashMap<>();
+    for (Report latest : reports.values()) {
+      JsonObject report = latest.body;
+      String component = report.getString(InstanceStatsReporter.STATS_COMPONENT);
+      Long current = queued.get(component);
+      queued.put(component, (current != null ? current : 0) + report.getLong(InstanceStatsReporter.STATS_QUEUED, 0));
+      Integer count = instances.get(component);
+      instances.put(component, (count != null ? count : 0) + 1);
+      JsonObject latency = report.getObject(InstanceStatsReporter.STATS_LATENCY);
+      if (latency != null) {
+        latencies.put(component, mergeLatency(latencies.get(component), latency));
+      }
+      JsonObject profile = report.getObject(InstanceStatsReporter.STATS_PROFILE);
+      if (profile != null && profile.getBoolean("slow", false)) {
+        slow.put(component, true);
+      }
+      JsonObject edgeReports = report.getObject(InstanceStatsReporter.STATS_EDGES);
+      if (edgeReports != null) {
+        for (String address : edgeReports.getFieldNames()) {
+          edgeQueued.put(address, edgeReports.getObject(address).getLong(InstanceStatsReporter.STATS_QUEUED, 0));
+        }
+      }
+    }
+
+    long totalSent = 0;
+    long totalReceived = 0;
+    long totalPaused = 0;
+    long totalQueued = 0;
+    JsonObject componentRollups = new JsonObject();
+    for (String component : instances.keySet()) {
+      Accumulator accumulator = accumulator(components, component);
+      long componentQueued = queued.get(component);
+      JsonObject rollup = new JsonObject()
+          .putNumber("instances", instances.get(component))
+          .putNumber("sent", accumulator.sent)
+          .putNumber("received", accumulator.received)
+          .putNumber("throughput", accumulator.received / seconds)
+          .putNumber("queued", componentQueued)
+          .putNumber("paused", accumulator.paused)
+          .putBoolean("slow", slow.containsKey(component));
+      if (latencies.containsKey(component)) {
+        rollup.putObject("latency", latencies.get(component));
+      }
+      componentRollups.putObject(component, rollup);
+      totalSent += accumulator.sent;
+      totalReceived += accumulator.received;
+      totalPaused += accumulator.paused;
+      totalQueued += componentQueued;
+    }
+
+    JsonObject edgeRollups = new JsonObject();
+    for (Map.Entry<String, Long> entry : edgeQueued.entrySet()) {
+      Accumulator accumulator = accumulator(edges, entry.getKey());
+      edgeRollups.putObject(entry.getKey(), new JsonObject()
+          .putNumber("sent", accumulator.sent)
+          .putNumber("throughput", accumulator.sent / seconds)
+          .putNumber("queued", entry.getValue())
+          .putNumber("paused", accumulator.paused));
+    }
+
+    JsonObject network = new JsonObject()
+        .putNumber("sent", totalSent)
+        .putNumber("received", totalReceived)
+        .putNumber("throughput", totalReceived / seconds)
+        .putNumber("queued", totalQueued)
+        .putNumber("paused", totalPaused);
+
+    JsonObject rollup = new JsonObject()
+        .putNumber("time", now)
+        .putObject("network", network)
+        .putObject("components", componentRollups)
+        .putObject("connections", edgeRollups);
+    if (history.size() == HISTORY_SIZE) {
+      history.removeFirst();
+    }
+    history.addLast(rollup);
+    components.clear();
+    edges.clear();
+    return rollup;
+  }
+
+  /**
+   * Merges instance latencies into a component latency.<p>
+   *
+   * Means are weighted by count, while percentiles and maximums take the
+   * highest instance value, so component percentiles are an upper bound.
+   */
+  private static JsonObject mergeLatency(JsonObject merged, JsonObject latency) {
+    if (merged == null) {
+      return latency.copy();
+    }
+    long count = merged.getLong("count", 0) + latency.getLong("count", 0);
+    double mean = count > 0 ? (merged.getNumber("mean", 0).doubleValue() * merged.getLong("count", 0)
+        + latency.getNumber("mean", 0).doubleValue() * latency.getLong("count", 0)) / count : 0;
+    merged.putNumber("count", count);
+    merged.putNumber("mean", mean);
+    for (String field : new String[]{"max", "p50", "p90", "p99"}) {
+      merged.putNumber(field, Math.max(merged.getLong(field, 0), latency.getLong(field, 0)));
+    }
+    return merged;
+  }
+
+}
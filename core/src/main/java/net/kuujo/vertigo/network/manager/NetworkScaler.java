@@ -0,0 +1,283 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.network.manager;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import net.kuujo.vertigo.cluster.data.AsyncMap;
+import net.kuujo.vertigo.component.ComponentConfig;
+import net.kuujo.vertigo.component.ComponentContext;
+import net.kuujo.vertigo.component.InstanceContext;
+import net.kuujo.vertigo.component.ScalingConfig;
+import net.kuujo.vertigo.component.impl.InstanceStatsReporter;
+import net.kuujo.vertigo.impl.ContextBuilder;
+import net.kuujo.vertigo.io.connection.InputConnectionContext;
+import net.kuujo.vertigo.io.port.InputPortContext;
+import net.kuujo.vertigo.network.NetworkConfig;
+import net.kuujo.vertigo.network.NetworkContext;
+import net.kuujo.vertigo.network.impl.DefaultNetworkContext;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+/**
+ * Network component auto-scaler.<p>
+ *
+ * The scaler collects output queue reports published by component instances
+ * and periodically evaluates the input lag of each component for which scaling
+ * is enabled. The input lag of an instance is the number of messages that have
+ * been sent to the instance by upstream instances but not yet acknowledged.
+ * When the average lag of a component's instances crosses the configured
+ * thresholds, the scaler updates the component's number of instances and
+ * stores the updated network context in the cluster. The network manager then
+ * deploys or undeploys instances through the normal reconfiguration process.<p>
+ *
+ * Only a single scaling operation is performed per evaluation, and scale out
+ * is skipped when the component's own output queues are full since in that
+ * case the bottleneck is downstream of the component.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class NetworkScaler {
+  private static final Logger log = LoggerFactory.getLogger(NetworkScaler.class);
+  private static final long EVALUATE_INTERVAL = 5000;
+  private static final long REPORT_TIMEOUT = InstanceStatsReporter.REPORT_INTERVAL * 3;
+  private final Vertx vertx;
+  private final String address;
+  private final String cluster;
+  private final AsyncMap<String, String> data;
+  private final Map<String, JsonObject> reports = new HashMap<>();
+  private final Map<String, Long> reportTimes = new HashMap<>();
+  private final Map<String, Long> lastScaleOut = new HashMap<>();
+  private final Map<String, Long> lastScaleIn = new HashMap<>();
+  private NetworkContext context;
+  private boolean scaling;
+  private long timerID;
+
+  private final Handler<Message<JsonObject>> reportHandler = new Handler<Message<JsonObject>>() {
+    @Override
+    public void handle(Message<JsonObject> message) {
+      String instance = message.body().getString(InstanceStatsReporter.STATS_INSTANCE);
+      if (instance != null) {
+        reports.put(instance, message.body());
+        reportTimes.put(instance, System.currentTimeMillis());
+      }
+    }
+  };
+
+  public NetworkScaler(Vertx vertx, String address, String cluster, AsyncMap<String, String> data) {
+    this.vertx = vertx;
+    this.address = address;
+    this.cluster = cluster;
+    this.data = data;
+  }
+
+  /**
+   * Starts the scaler.
+   */
+  public void start() {
+    if (timerID == 0) {
+      vertx.eventBus().registerHandler(InstanceStatsReporter.statsAddress(address), reportHandler);
+      timerID = vertx.setPeriodic(EVALUATE_INTERVAL, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          evaluate();
+        }
+      });
+    }
+  }
+
+  /**
+   * Stops the scaler.
+   */
+  public void stop() {
+    if (timerID > 0) {
+      vertx.cancelTimer(timerID);
+      vertx.eventBus().unregisterHandler(InstanceStatsReporter.statsAddress(address), reportHandler);
+      timerID = 0;
+    }
+    reports.clear();
+    reportTimes.clear();
+  }
+
+  /**
+   * Updates the current network context.<p>
+   *
+   * This should be called by the network manager any time the network's
+   * configuration changes. Stale instance reports are discarded.
+   *
+   * @param context The current network context.
+   */
+  public void update(NetworkContext context) {
+    this.context = context;
+    if (context != null) {
+      Iterator<String> iter = reports.keySet().iterator();
+      while (iter.hasNext()) {
+        String instance = iter.next();
+        boolean exists = false;
+        for (ComponentContext<?> component : context.components()) {
+          if (component.instance(instance) != null) {
+            exists = true;
+            break;
+          }
+        }
+        if (!exists) {
+          iter.remove();
+          reportTimes.remove(instance);
+        }
+      }
+    } else {
+      reports.clear();
+      reportTimes.clear();
+    }
+  }
+
+  /**
+   * Evaluates all scalable components in the network.
+   */
+  private void evaluate() {
+    if (context == null || scaling) {
+      return;
+    }
+
+    long now = System.currentTimeMillis();
+
+    // Collect the current size of each connection from recent instance reports.
+    Map<String, Integer> sizes = new HashMap<>();
+    Map<String, Boolean> full = new HashMap<>();
+    for (Map.Entry<String, JsonObject> entry : reports.entrySet()) {
+      Long time = reportTimes.get(entry.getKey());
+      if (time != null && now - time <= REPORT_TIMEOUT) {
+        JsonObject connections = entry.getValue().getObject(InstanceStatsReporter.STATS_CONNECTIONS);
+        if (connections != null) {
+          for (String connection : connections.getFieldNames()) {
+            sizes.put(connection, connections.getInteger(connection));
+          }
+        }
+        full.put(entry.getKey(), entry.getValue().getBoolean(InstanceStatsReporter.STATS_FULL, false));
+      }
+    }
+
+    for (ComponentContext<?> component : context.components()) {
+      ComponentConfig<?> config = context.config().getComponent(component.name());
+      if (config == null || config.getScaling() == null || !config.getScaling().isEnabled()) {
+        continue;
+      }
+
+      ScalingConfig scaling = config.getScaling();
+      int instances = component.instances().size();
+
+      // Always bring the component back within its configured bounds.
+      int target = instances;
+      if (instances < scaling.getMinInstances()) {
+        target = scaling.getMinInstances();
+      } else if (instances > scaling.getMaxInstances()) {
+        target = scaling.getMaxInstances();
+      } else {
+        long lag = 0;
+        int known = 0;
+        boolean saturated = false;
+        for (InstanceContext instance : component.instances()) {
+          for (InputPortContext port : instance.input().ports()) {
+            for (InputConnectionContext connection : port.connections()) {
+              Integer size = sizes.get(connection.address());
+              if (size != null) {
+                lag += size;
+                known++;
+              }
+            }
+          }
+          Boolean instanceFull = full.get(instance.address());
+          saturated = saturated || (instanceFull != null && instanceFull);
+        }
+
+        // If no upstream instance has reported then there's nothing to evaluate.
+        if (known == 0) {
+          continue;
+        }
+
+        long averageLag = lag / instances;
+        Long lastOut = lastScaleOut.get(component.name());
+        Long lastIn = lastScaleIn.get(component.name());
+        if (lastOut == null) {
+          lastScaleOut.put(component.name(), now);
+          lastOut = now;
+        }
+        if (lastIn == null) {
+          lastScaleIn.put(component.name(), now);
+          lastIn = now;
+        }
+
+        if (averageLag >= scaling.getScaleOutLag() && instances < scaling.getMaxInstances()
+            && now - lastOut >= scaling.getScaleOutCooldown()) {
+          if (saturated) {
+            log.debug(String.format("Not scaling out %s, output queues are full", component.name()));
+          } else {
+            target = instances + 1;
+          }
+        } else if (averageLag <= scaling.getScaleInLag() && instances > scaling.getMinInstances()
+            && now - lastIn >= scaling.getScaleInCooldown() && now - lastOut >= scaling.getScaleInCooldown()) {
+          target = instances - 1;
+        }
+      }
+
+      if (target != instances) {
+        if (target > instances) {
+          lastScaleOut.put(component.name(), now);
+        } else {
+          lastScaleIn.put(component.name(), now);
+        }
+
+        if (scaling.isDryRun()) {
+          log.info(String.format("Would scale %s from %d to %d instances", component.name(), instances, target));
+        } else {
+          log.info(String.format("Scaling %s from %d to %d instances", component.name(), instances, target));
+          scale(component.name(), target);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Updates the number of instances of a component through a network reconfiguration.
+   */
+  private void scale(String name, int instances) {
+    // Copy the network configuration so the current context isn't modified.
+    NetworkConfig config = DefaultNetworkContext.fromJson(DefaultNetworkContext.toJson(context)).config();
+    config.getComponent(name).setInstances(instances);
+    NetworkContext updatedContext = ContextBuilder.buildContext(config, cluster);
+
+    scaling = true;
+    data.put(address, DefaultNetworkContext.toJson(updatedContext).encode(), new Handler<AsyncResult<String>>() {
+      @Override
+      public void handle(AsyncResult<String> result) {
+        scaling = false;
+        if (result.failed()) {
+          log.error(result.cause());
+        }
+      }
+    });
+  }
+
+}
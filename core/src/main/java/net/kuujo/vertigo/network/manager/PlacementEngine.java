@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.network.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.kuujo.vertigo.cluster.Node;
+import net.kuujo.vertigo.component.ComponentConfig;
+import net.kuujo.vertigo.component.ComponentContext;
+import net.kuujo.vertigo.component.InstanceContext;
+import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.network.NetworkContext;
+
+/**
+ * Topology-aware instance placement engine.<p>
+ *
+ * The placement engine selects the node to which each component instance
+ * is deployed. Nodes are scored according to the network's connection graph
+ * and the component's placement hints:
+ * <ul>
+ * <li>Nodes hosting instances of directly connected components are preferred
+ * in order to keep messages between upstream and downstream instances local.</li>
+ * <li>Nodes hosting instances of components in the component's affinity list
+ * are preferred.</li>
+ * <li>Nodes hosting other instances of the same component are penalized in
+ * order to spread replicas for fault tolerance.</li>
+ * <li>Nodes hosting instances of components in the component's anti-affinity
+ * list are excluded unless no other node is available.</li>
+ * <li>Remaining ties are broken by the number of instances already placed
+ * on each node.</li>
+ * </ul>
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class PlacementEngine {
+  private static final int COLOCATION_WEIGHT = 4;
+  private static final int AFFINITY_WEIGHT = 4;
+  private static final int SPREAD_WEIGHT = 8;
+  private static final int LOAD_WEIGHT = 1;
+  private final Map<String, String> placements = new HashMap<>();
+  private final Map<String, String> instanceComponents = new HashMap<>();
+  private final Map<String, Set<String>> neighbors = new HashMap<>();
+  private NetworkContext context;
+
+  /**
+   * Updates the network context used to compute placements.
+   *
+   * @param context The current network context.
+   */
+  public void update(NetworkContext context) {
+    this.context = context;
+    instanceComponents.clear();
+    neighbors.clear();
+    if (context != null) {
+      for (ComponentContext<?> component : context.components()) {
+        for (InstanceContext instance : component.instances()) {
+          instanceComponents.put(instance.address(), component.name());
+        }
+      }
+      for (ConnectionConfig connection : context.config().getConnections()) {
+        String source = connection.getSource().getComponent();
+        String target = connection.getTarget().getComponent();
+        if (source != null && target != null && !source.equals(target)) {
+          addNeighbor(source, target);
+          addNeighbor(target, source);
+        }
+      }
+    }
+  }
+
+  private void addNeighbor(String component, String neighbor) {
+    Set<String> componentNeighbors = neighbors.get(component);
+    if (componentNeighbors == null) {
+      componentNeighbors = new HashSet<>();
+      neighbors.put(component, componentNeighbors);
+    }
+    componentNeighbors.add(neighbor);
+  }
+
+  /**
+   * Records the node on which an instance is deployed.
+   *
+   * @param instance The instance address.
+   * @param node The node address.
+   */
+  public void assign(String instance, String node) {
+    placements.put(instance, node);
+  }
+
+  /**
+   * Removes the placement of an instance.
+   *
+   * @param instance The instance address.
+   */
+  public void unassign(String instance) {
+    placements.remove(instance);
+  }
+
+  /**
+   * Returns the node on which an instance is placed.
+   *
+   * @param instance The instance address.
+   * @return The node address or <code>null</code> if the instance isn't placed.
+   */
+  public String placement(String instance) {
+    return placements.get(instance);
+  }
+
+  /**
+   * Selects a node for an instance and records the placement.
+   *
+   * @param instance The instance to place.
+   * @param nodes A collection of candidate nodes.
+   * @return The selected node or <code>null</code> if no nodes are available.
+   */
+  public Node select(InstanceContext instance, Collection<Node> nodes) {
+    if (nodes == null || nodes.isEmpty()) {
+      return null;
+    }
+
+    // If the instance is already placed on an available node then keep it there.
+    String current = placements.get(instance.address());
+    if (current != null) {
+      for (Node node : nodes) {
+        if (node.address().equals(current)) {
+          return node;
+        }
+      }
+    }
+
+    String component = instance.component().name();
+    ComponentConfig<?> config = context != null ? context.config().getComponent(component) : null;
+    List<String> affinity = config != null ? config.getAffinity() : new ArrayList<String>();
+    List<String> antiAffinity = config != null ? config.getAntiAffinity() : new ArrayList<String>();
+    Set<String> componentNeighbors = neighbors.containsKey(component) ? neighbors.get(component) : new HashSet<String>();
+
+    // Count the instances of each component on each node.
+    Map<String, Map<String, Integer>> nodeComponents = new HashMap<>();
+    Map<String, Integer> nodeLoad = new HashMap<>();
+    for (Map.Entry<String, String> entry : placements.entrySet()) {
+      String placedComponent = instanceComponents.get(entry.getKey());
+      if (placedComponent != null && !entry.getKey().equals(instance.address())) {
+        Map<String, Integer> counts = nodeComponents.get(entry.getValue());
+        if (counts == null) {
+          counts = new HashMap<>();
+          nodeComponents.put(entry.getValue(), counts);
+        }
+        Integer count = counts.get(placedComponent);
+        counts.put(placedComponent, count != null ? count + 1 : 1);
+        Integer load = nodeLoad.get(entry.getValue());
+        nodeLoad.put(entry.getValue(), load != null ? load + 1 : 1);
+      }
+    }
+
+    // Exclude nodes that violate anti-affinity hints if possible.
+    List<Node> candidates = new ArrayList<>();
+    for (Node node : nodes) {
+      Map<String, Integer> counts = nodeComponents.get(node.address());
+      boolean excluded = false;
+      if (counts != null) {
+        for (String name : antiAffinity) {
+          if (counts.containsKey(name)) {
+            excluded = true;
+            break;
+          }
+        }
+      }
+      if (!excluded) {
+        candidates.add(node);
+      }
+    }
+    if (candidates.isEmpty()) {
+      candidates.addAll(nodes);
+    }
+
+    Node selected = null;
+    int bestScore = Integer.MIN_VALUE;
+    for (Node node : candidates) {
+      Map<String, Integer> counts = nodeComponents.get(node.address());
+      int score = 0;
+      if (counts != null) {
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+          if (entry.getKey().equals(component)) {
+            score -= SPREAD_WEIGHT * entry.getValue();
+          } else {
+            if (componentNeighbors.contains(entry.getKey())) {
+              score += COLOCATION_WEIGHT * entry.getValue();
+            }
+            if (affinity.contains(entry.getKey())) {
+              score += AFFINITY_WEIGHT * entry.getValue();
+            }
+          }
+        }
+      }
+      Integer load = nodeLoad.get(node.address());
+      score -= LOAD_WEIGHT * (load != null ? load : 0);
+
+      // Break remaining ties by node address so placement is deterministic.
+      if (selected == null || score > bestScore || (score == bestScore && node.address().compareTo(selected.address()) < 0)) {
+        selected = node;
+        bestScore = score;
+      }
+    }
+
+    placements.put(instance.address(), selected.address());
+    return selected;
+  }
+
+}
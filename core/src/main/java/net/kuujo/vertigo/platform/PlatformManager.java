@@ -19,6 +19,7 @@ import java.util.Collection;
 
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 
 /**
@@ -131,4 +132,26 @@ public interface PlatformManager {
    */
   PlatformManager undeployVerticle(String deploymentID, Handler<AsyncResult<Void>> doneHandler);
 
+  /**
+   * Loads event loop placement info for the local container.<p>
+   *
+   * Component instances deployed through the platform manager are balanced
+   * across the container's event loops. The result is an array with an object
+   * for each event loop containing the loop <code>index</code> and <code>thread</code>,
+   * the addresses of the <code>instances</code> assigned to the loop, the total
+   * expected <code>load</code> of the instances, the average scheduling <code>lag</code>
+   * in milliseconds, and the fraction of time the loop was busy as <code>utilization</code>.
+   *
+   * @param resultHandler An asynchronous handler to be called with the event loop info.
+   * @return The platform manager.
+   */
+  PlatformManager getEventLoopInfo(Handler<AsyncResult<JsonArray>> resultHandler);
+
+  /**
+   * Stops the platform manager.<p>
+   *
+   * Stopping the platform manager stops monitoring of the container's event loops.
+   */
+  void stop();
+
 }
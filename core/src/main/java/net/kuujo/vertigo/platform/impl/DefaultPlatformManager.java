@@ -47,7 +47,9 @@ import net.kuujo.vertigo.util.ContextManager;
 import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.DefaultFutureResult;
 import org.vertx.java.core.json.DecodeException;
+import org.vertx.java.core.json.JsonArray;
 import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.spi.Action;
 import org.vertx.java.platform.Container;
@@ -67,6 +69,7 @@ public class DefaultPlatformManager implements PlatformManager {
   private final Vertx vertx;
   private final ContextManager context;
   private final Container container;
+  private final EventLoopBalancer balancer;
   private File modRoot;
 
   public DefaultPlatformManager(Vertx vertx, Container container) {
@@ -77,6 +80,7 @@ public class DefaultPlatformManager implements PlatformManager {
     this.vertx = vertx;
     this.container = container;
     this.context = context;
+    this.balancer = new EventLoopBalancer(vertx);
     String modDir = System.getProperty(MODS_DIR_PROP_NAME);
     if (modDir != null && !modDir.trim().equals("")) {
       modRoot = new File(modDir);
@@ -167,13 +171,15 @@ public class DefaultPlatformManager implements PlatformManager {
 
   @Override
   public PlatformManager deployModule(String moduleName, JsonObject config, int instances, Handler<AsyncResult<String>> doneHandler) {
-    container.deployModule(moduleName, config, instances, doneHandler);
+    int loop = balancer.place(config);
+    container.deployModule(moduleName, config, instances, createAssignHandler(loop, config, doneHandler));
     return this;
   }
 
   @Override
   public PlatformManager deployVerticle(String main, JsonObject config, int instances, Handler<AsyncResult<String>> doneHandler) {
-    container.deployVerticle(main, config, instances, doneHandler);
+    int loop = balancer.place(config);
+    container.deployVerticle(main, config, instances, createAssignHandler(loop, config, doneHandler));
     return this;
   }
 
@@ -185,16 +191,46 @@ public class DefaultPlatformManager implements PlatformManager {
 
   @Override
   public PlatformManager undeployModule(String deploymentID, Handler<AsyncResult<Void>> doneHandler) {
+    balancer.release(deploymentID);
     container.undeployModule(deploymentID, doneHandler);
     return this;
   }
 
   @Override
   public PlatformManager undeployVerticle(String deploymentID, Handler<AsyncResult<Void>> doneHandler) {
+    balancer.release(deploymentID);
     container.undeployVerticle(deploymentID, doneHandler);
     return this;
   }
 
+  @Override
+  public PlatformManager getEventLoopInfo(Handler<AsyncResult<JsonArray>> resultHandler) {
+    new DefaultFutureResult<JsonArray>(balancer.report()).setHandler(resultHandler);
+    return this;
+  }
+
+  @Override
+  public void stop() {
+    balancer.stop();
+  }
+
+  /**
+   * Creates a deployment handler that records the event loop assignment of a deployment.
+   */
+  private Handler<AsyncResult<String>> createAssignHandler(final int loop, final JsonObject config, final Handler<AsyncResult<String>> doneHandler) {
+    return new Handler<AsyncResult<String>>() {
+      @Override
+      public void handle(AsyncResult<String> result) {
+        if (result.succeeded()) {
+          balancer.assign(result.result(), loop, config);
+        }
+        if (doneHandler != null) {
+          doneHandler.handle(result);
+        }
+      }
+    };
+  }
+
   /**
    * Locates all modules in the local repository.
    */
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.platform.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Event loop placement for component instances deployed on a node.<p>
+ *
+ * Vert.x assigns each new verticle context to the next event loop in a
+ * round-robin fashion, so instances of busy components may end up sharing
+ * an event loop while other loops sit idle. The balancer tracks the expected
+ * load of the instances assigned to each event loop and, before each
+ * deployment, advances the round-robin so that the deployment lands on the
+ * least loaded event loop or on the event loop pinned by the component.
+ * Since other contexts may be created concurrently, placement is best effort.
+ * Components record the event loop on which they were actually started, and
+ * the balancer reports the actual placement when it is available.<p>
+ *
+ * While instances are assigned, the balancer also probes each event loop
+ * periodically, recording the delay before a task submitted to the loop is
+ * run. The fraction of probes that find the loop busy is reported as the
+ * loop's utilization. Probing stops when the last assignment is released or
+ * when the balancer is stopped.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class EventLoopBalancer {
+
+  /**
+   * <code>__vertigo.loops</code> is the name of the shared data map in which
+   * component instances record the event loop on which they were started.
+   */
+  public static final String LOOPS_MAP = "__vertigo.loops";
+
+  private static final long PROBE_INTERVAL = 100;
+  private static final int PROBE_WINDOW = 50;
+  private static final long BUSY_THRESHOLD = 1000000;
+  private final Vertx vertx;
+  private final List<Loop> loops = new ArrayList<>();
+  private final Map<String, Assignment> assignments = new HashMap<>();
+  private long probeTimer;
+
+  public EventLoopBalancer(Vertx vertx) {
+    this.vertx = vertx;
+    if (vertx instanceof VertxInternal) {
+      EventLoopGroup group = ((VertxInternal) vertx).getEventLoopGroup();
+      if (group != null) {
+        for (EventExecutor executor : group) {
+          if (executor instanceof EventLoop) {
+            loops.add(new Loop(loops.size(), (EventLoop) executor));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns a boolean indicating whether event loop placement is supported.
+   *
+   * @return Indicates whether event loop placement is supported.
+   */
+  public boolean isEnabled() {
+    return !loops.isEmpty();
+  }
+
+  /**
+   * Prepares for the deployment of a component instance.<p>
+   *
+   * The event loop round-robin is advanced so that the next context created by
+   * Vert.x is assigned to the selected event loop.
+   *
+   * @param config The instance deployment configuration.
+   * @return The index of the selected event loop, or <code>-1</code> if no event loop was selected.
+   */
+  public synchronized int place(JsonObject config) {
+    JsonObject hints = config.getObject("__loop__");
+    if (!isEnabled() || hints == null) {
+      return -1;
+    }
+
+    int pin = hints.getInteger("event-loop", -1);
+    Loop target;
+    if (pin >= 0) {
+      target = loops.get(pin % loops.size());
+    } else {
+      target = loops.get(0);
+      for (Loop loop : loops) {
+        if (loop.load < target.load || (loop.load == target.load && loop.utilization() < target.utilization())) {
+          target = loop;
+        }
+      }
+    }
+
+    // Vert.x 2 provides no way to choose the event loop of a new verticle,
+    // so create contexts until the context preceding the target loop has
+    // been created. The contexts are never started or referenced, so they
+    // hold no resources and are simply garbage collected. At most one
+    // context is created per event loop for each deployment, which is
+    // negligible next to the cost of the deployment itself.
+    if (loops.size() > 1) {
+      EventLoop previous = loops.get((target.index + loops.size() - 1) % loops.size()).loop;
+      for (int i = 0; i < loops.size(); i++) {
+        if (((VertxInternal) vertx).createEventLoopContext().getEventLoop() == previous) {
+          break;
+        }
+      }
+    }
+    return target.index;
+  }
+
+  /**
+   * Records the deployment of a component instance.
+   *
+   * @param deploymentID The instance deployment ID.
+   * @param index The index of the event loop selected for the instance.
+   * @param config The instance deployment configuration.
+   */
+  public synchronized void assign(String deploymentID, int index, JsonObject config) {
+    JsonObject hints = config.getObject("__loop__");
+    JsonObject context = config.getObject("__context__");
+    if (index >= 0 && index < loops.size() && hints != null && context != null) {
+      Assignment assignment = new Assignment(context.getString("address"), hints.getInteger("load", 1), loops.get(index));
+      assignments.put(deploymentID, assignment);
+      assignment.loop.load += assignment.load;
+      startProbing();
+    }
+  }
+
+  /**
+   * Releases the event loop assignment of an undeployed component instance.
+   *
+   * @param deploymentID The instance deployment ID.
+   */
+  public synchronized void release(String deploymentID) {
+    Assignment assignment = assignments.remove(deploymentID);
+    if (assignment != null) {
+      assignment.loop.load -= assignment.load;
+      if (assignment.address != null) {
+        vertx.sharedData().getMap(LOOPS_MAP).remove(assignment.address);
+      }
+      if (assignments.isEmpty()) {
+        stop();
+      }
+    }
+  }
+
+  /**
+   * Returns a report of the instances assigned to each event loop.<p>
+   *
+   * Each event loop is reported as an object containing the loop
+   * <code>index</code> and <code>thread</code>, the assigned <code>instances</code>,
+   * the total expected <code>load</code>, the average probe <code>lag</code> in
+   * milliseconds, and the loop <code>utilization</code>. Loops are only probed
+   * while instances are assigned.
+   *
+   * @return An array of event loop reports.
+   */
+  public synchronized JsonArray report() {
+    Map<String, Object> actual = vertx.sharedData().getMap(LOOPS_MAP);
+    Map<Loop, JsonArray> instances = new HashMap<>();
+    Map<Loop, Integer> load = new HashMap<>();
+    for (Loop loop : loops) {
+      instances.put(loop, new JsonArray());
+      load.put(loop, 0);
+    }
+
+    for (Assignment assignment : assignments.values()) {
+      Loop loop = assignment.loop;
+      Object thread = assignment.address != null ? actual.get(assignment.address) : null;
+      if (thread != null) {
+        for (Loop other : loops) {
+          if (thread.equals(other.thread)) {
+            loop = other;
+            break;
+          }
+        }
+      }
+      instances.get(loop).addString(assignment.address);
+      load.put(loop, load.get(loop) + assignment.load);
+    }
+
+    JsonArray report = new JsonArray();
+    for (Loop loop : loops) {
+      report.addObject(new JsonObject()
+          .putNumber("index", loop.index)
+          .putString("thread", loop.thread)
+          .putArray("instances", instances.get(loop))
+          .putNumber("load", load.get(loop))
+          .putNumber("lag", loop.lag())
+          .putNumber("utilization", loop.utilization()));
+    }
+    return report;
+  }
+
+  /**
+   * Stops probing event loops.
+   */
+  public synchronized void stop() {
+    if (probeTimer > 0) {
+      vertx.cancelTimer(probeTimer);
+      probeTimer = 0;
+    }
+  }
+
+  /**
+   * Starts periodically probing event loops.
+   */
+  private void startProbing() {
+    if (probeTimer == 0 && isEnabled()) {
+      probeTimer = vertx.setPeriodic(PROBE_INTERVAL, new Handler<Long>() {
+        @Override
+        public void handle(Long timerID) {
+          for (Loop loop : loops) {
+            loop.probe();
+          }
+        }
+      });
+    }
+  }
+
+  /**
+   * Event loop statistics.
+   */
+  private static class Loop {
+    private final int index;
+    private final EventLoop loop;
+    private final boolean[] busy = new boolean[PROBE_WINDOW];
+    private volatile String thread;
+    private int load;
+    private int probes;
+    private long lag;
+
+    private Loop(int index, EventLoop loop) {
+      this.index = index;
+      this.loop = loop;
+    }
+
+    /**
+     * Submits a probe task to the event loop.
+     */
+    private void probe() {
+      final long start = System.nanoTime();
+      loop.execute(new Runnable() {
+        @Override
+        public void run() {
+          record(Thread.currentThread().getName(), System.nanoTime() - start);
+        }
+      });
+    }
+
+    /**
+     * Records the result of a probe.
+     */
+    private synchronized void record(String thread, long delay) {
+      this.thread = thread;
+      busy[probes++ % PROBE_WINDOW] = delay > BUSY_THRESHOLD;
+      lag = lag == 0 ? delay : (lag * 7 + delay) / 8;
+    }
+
+    /**
+     * Returns the average probe delay in milliseconds.
+     */
+    private synchronized double lag() {
+      return lag / 1000000d;
+    }
+
+    /**
+     * Returns the fraction of recent probes that found the loop busy.
+     */
+    private synchronized double utilization() {
+      int count = Math.min(probes, PROBE_WINDOW);
+      if (count == 0) {
+        return 0;
+      }
+      int total = 0;
+      for (int i = 0; i < count; i++) {
+        if (busy[i]) {
+          total++;
+        }
+      }
+      return (double) total / count;
+    }
+  }
+
+  /**
+   * Instance event loop assignment.
+   */
+  private static class Assignment {
+    private final String address;
+    private final int load;
+    private final Loop loop;
+
+    private Assignment(String address, int load, Loop loop) {
+      this.address = address;
+      this.load = load;
+      this.loop = loop;
+    }
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.state;
+
+/**
+ * Per-instance keyed state.<p>
+ *
+ * Keyed state is a local key-value store owned by a single component
+ * instance. Unlike the cluster data structures, reads and writes are
+ * synchronous and never leave the instance. Entries are stored outside
+ * of the Java heap - either in direct memory or in memory-mapped files -
+ * so that an instance can hold many millions of keys without increasing
+ * garbage collection pressure, and recently read entries are held in a
+ * small on-heap cache.<p>
+ *
+ * Keyed state is not thread safe and should only be accessed from the
+ * component's event loop. To persist state across restarts, use
+ * {@link #snapshot(String)} and {@link #restore(String)}, or take a
+ * {@link StateSnapshot} with {@link #snapshot()} and write it from a
+ * background thread.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface KeyedState {
+
+  /**
+   * Gets the value of a key.
+   *
+   * @param key The key to get.
+   * @return The key value or <code>null</code> if the key doesn't exist.
+   */
+  String get(String key);
+
+  /**
+   * Sets the value of a key.
+   *
+   * @param key The key to set.
+   * @param value The value to set.
+   * @return The keyed state.
+   */
+  KeyedState put(String key, String value);
+
+  /**
+   * Removes a key.
+   *
+   * @param key The key to remove.
+   * @return Indicates whether the key existed.
+   */
+  boolean remove(String key);
+
+  /**
+   * Checks whether a key exists.
+   *
+   * @param key The key to check.
+   * @return Indicates whether the key exists.
+   */
+  boolean containsKey(String key);
+
+  /**
+   * Returns the number of keys in the state.
+   *
+   * @return The number of keys in the state.
+   */
+  long size();
+
+  /**
+   * Returns a boolean indicating whether the state is empty.
+   *
+   * @return Indicates whether the state is empty.
+   */
+  boolean isEmpty();
+
+  /**
+   * Removes all keys from the state.
+   *
+   * @return The keyed state.
+   */
+  KeyedState clear();
+
+  /**
+   * Writes a snapshot of the state to a file.<p>
+   *
+   * The snapshot is written to a temporary file which replaces the
+   * target file once complete, so an existing snapshot is never left
+   * partially written. Note that this method blocks while the snapshot
+   * is written.
+   *
+   * @param path The snapshot file path.
+   * @return The keyed state.
+   * @throws StateException If the snapshot could not be written.
+   */
+  KeyedState snapshot(String path);
+
+  /**
+   * Replaces the state with a snapshot read from a file.<p>
+   *
+   * Note that this method blocks while the snapshot is read.
+   *
+   * @param path The snapshot file path.
+   * @return The keyed state.
+   * @throws StateException If the snapshot could not be read.
+   */
+  KeyedState restore(String path);
+
+  /**
+   * Takes a point-in-time snapshot of the state.<p>
+   *
+   * The snapshot references the state's storage rather than copying it, so
+   * it can be taken on the event loop and written to storage from a
+   * background thread while the state continues to be modified.
+   *
+   * @return The state snapshot.
+   */
+  StateSnapshot snapshot();
+
+  /**
+   * Returns current state metrics.
+   *
+   * @return State metrics.
+   */
+  StateMetrics metrics();
+
+  /**
+   * Closes the state, releasing all storage.
+   */
+  void close();
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.state;
+
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Keyed state metrics.<p>
+ *
+ * Metrics are a point-in-time view of a {@link KeyedState} store.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class StateMetrics {
+  private final long size;
+  private final long hits;
+  private final long misses;
+  private final long residentBytes;
+  private final long liveBytes;
+
+  public StateMetrics(long size, long hits, long misses, long residentBytes, long liveBytes) {
+    this.size = size;
+    this.hits = hits;
+    this.misses = misses;
+    this.residentBytes = residentBytes;
+    this.liveBytes = liveBytes;
+  }
+
+  /**
+   * Returns the number of keys in the store.
+   *
+   * @return The number of keys in the store.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of reads served by the hot cache.
+   *
+   * @return The number of hot cache hits.
+   */
+  public long hits() {
+    return hits;
+  }
+
+  /**
+   * Returns the number of reads that missed the hot cache.
+   *
+   * @return The number of hot cache misses.
+   */
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   * Returns the hot cache hit rate.
+   *
+   * @return The ratio of hot cache hits to reads, or <code>0</code> if no
+   *         reads have been performed.
+   */
+  public double hitRate() {
+    long reads = hits + misses;
+    return reads > 0 ? (double) hits / reads : 0;
+  }
+
+  /**
+   * Returns the number of bytes allocated outside of the heap, including
+   * the index and all data segments.
+   *
+   * @return The number of resident bytes.
+   */
+  public long residentBytes() {
+    return residentBytes;
+  }
+
+  /**
+   * Returns the number of data bytes held by live entries.
+   *
+   * @return The number of live bytes.
+   */
+  public long liveBytes() {
+    return liveBytes;
+  }
+
+  /**
+   * Returns the metrics as a JSON object.
+   *
+   * @return A JSON representation of the metrics.
+   */
+  public JsonObject toJson() {
+    return new JsonObject()
+        .putNumber("size", size)
+        .putNumber("hits", hits)
+        .putNumber("misses", misses)
+        .putNumber("hit-rate", hitRate())
+        .putNumber("resident-bytes", residentBytes)
+        .putNumber("live-bytes", liveBytes);
+  }
+
+  @Override
+  public String toString() {
+    return toJson().encode();
+  }
+
+}
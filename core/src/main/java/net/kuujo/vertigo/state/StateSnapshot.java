@@ -0,0 +1,50 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.state;
+
+/**
+ * Point-in-time snapshot of keyed state.<p>
+ *
+ * A snapshot references the state's off-heap storage rather than copying
+ * it, and it's unaffected by later changes to the state. Unlike the state
+ * itself, a snapshot may be written from any thread, so it can be taken on
+ * the event loop and written to storage by a background thread.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public interface StateSnapshot {
+
+  /**
+   * Returns the number of keys in the snapshot.
+   *
+   * @return The number of keys in the snapshot.
+   */
+  long size();
+
+  /**
+   * Writes the snapshot to a file.<p>
+   *
+   * The snapshot is written to a temporary file which replaces the
+   * target file once complete, so an existing snapshot is never left
+   * partially written. Note that this method blocks while the snapshot
+   * is written.
+   *
+   * @param path The snapshot file path.
+   * @throws StateException If the snapshot could not be written.
+   */
+  void writeTo(String path);
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.state.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import net.kuujo.vertigo.state.KeyedState;
+import net.kuujo.vertigo.state.StateException;
+import net.kuujo.vertigo.state.StateMetrics;
+import net.kuujo.vertigo.state.StateSnapshot;
+
+/**
+ * Default keyed state implementation.<p>
+ *
+ * Entries are stored in an {@link OffHeapStore} and recently read entries
+ * are held in an on-heap LRU cache. Writes are applied to both the cache
+ * and the store. By default the store is held in direct memory. If the
+ * <code>vertigo.state.dir</code> system property is set then the store is
+ * instead mapped from files in a subdirectory of that directory.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class DefaultKeyedState implements KeyedState {
+
+  /**
+   * <code>vertigo.state.dir</code> is the system property indicating the
+   * directory in which to map state files.
+   */
+  public static final String STATE_DIRECTORY_PROPERTY = "vertigo.state.dir";
+
+  /**
+   * <code>10000</code> is the default number of entries in the hot cache.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 10000;
+
+  /**
+   * <code>16MB</code> is the default state segment size.
+   */
+  public static final int DEFAULT_SEGMENT_SIZE = 1024 * 1024 * 16;
+
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private final OffHeapStore store;
+  private final Map<String, String> cache;
+  private long hits;
+  private long misses;
+
+  public DefaultKeyedState(String name) {
+    this(directory(name), DEFAULT_SEGMENT_SIZE, DEFAULT_CACHE_SIZE);
+  }
+
+  public DefaultKeyedState(File directory, int segmentSize, final int cacheSize) {
+    this.store = new OffHeapStore(directory, segmentSize);
+    this.cache = new LinkedHashMap<String, String>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Returns the state directory for the given state name.
+   */
+  private static File directory(String name) {
+    String directory = System.getProperty(STATE_DIRECTORY_PROPERTY);
+    if (directory == null) {
+      return null;
+    }
+    return new File(directory, name.replaceAll("[^A-Za-z0-9_.\\-]", "_"));
+  }
+
+  @Override
+  public String get(String key) {
+    String value = cache.get(key);
+    if (value != null) {
+      hits++;
+      return value;
+    }
+    misses++;
+    byte[] bytes = store.get(key);
+    if (bytes == null) {
+      return null;
+    }
+    value = new String(bytes, UTF_8);
+    cache.put(key, value);
+    return value;
+  }
+
+  @Override
+  public KeyedState put(String key, String value) {
+    if (value == null) {
+      remove(key);
+    } else {
+      store.put(key, value.getBytes(UTF_8));
+      cache.put(key, value);
+    }
+    return this;
+  }
+
+  @Override
+  public boolean remove(String key) {
+    cache.remove(key);
+    return store.remove(key);
+  }
+
+  @Override
+  public boolean containsKey(String key) {
+    return cache.containsKey(key) || store.contains(key);
+  }
+
+  @Override
+  public long size() {
+    return store.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return store.size() == 0;
+  }
+
+  @Override
+  public KeyedState clear() {
+    cache.clear();
+    store.clear();
+    return this;
+  }
+
+  @Override
+  public KeyedState snapshot(String path) {
+    write(store.view(), path);
+    return this;
+  }
+
+  /**
+   * Writes a store snapshot to a file.
+   */
+  private static void write(OffHeapStore.Snapshot snapshot, String path) {
+    File file = new File(path);
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.exists() && !parent.mkdirs()) {
+      throw new StateException("Failed to create snapshot directory " + parent);
+    }
+    File temp = new File(file.getPath() + ".tmp");
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+      snapshot.writeTo(out);
+    } catch (IOException e) {
+      temp.delete();
+      throw new StateException("Failed to write state snapshot " + path, e);
+    }
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      temp.delete();
+      throw new StateException("Failed to replace state snapshot " + path, e);
+    }
+  }
+
+  @Override
+  public KeyedState restore(String path) {
+    cache.clear();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+      store.readFrom(in);
+    } catch (IOException e) {
+      store.clear();
+      throw new StateException("Failed to read state snapshot " + path, e);
+    }
+    return this;
+  }
+
+  @Override
+  public StateSnapshot snapshot() {
+    final OffHeapStore.Snapshot snapshot = store.snapshot();
+    return new StateSnapshot() {
+      @Override
+      public long size() {
+        return snapshot.size();
+      }
+      @Override
+      public void writeTo(String path) {
+        write(snapshot, path);
+      }
+    };
+  }
+
+  @Override
+  public StateMetrics metrics() {
+    return new StateMetrics(store.size(), hits, misses, store.residentBytes(), store.liveBytes());
+  }
+
+  @Override
+  public void close() {
+    cache.clear();
+    store.clear();
+  }
+
+}
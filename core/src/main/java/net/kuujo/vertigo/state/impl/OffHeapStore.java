@@ -0,0 +1,603 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.state.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.kuujo.vertigo.state.StateException;
+
+/**
+ * Off-heap hash store.<p>
+ *
+ * The store consists of an open addressing index and an append-only log
+ * of entries, both held outside of the Java heap. Each index slot holds the
+ * key hash and a reference to the entry's position in the log. The index is
+ * split across direct buffers of up to 2^20 slots so that it can grow beyond
+ * the 2GB limit of a single buffer, and the log is split into fixed-size
+ * segments which are either allocated in direct memory or mapped from files
+ * in the store directory. Overwritten and removed
+ * entries are left in the log and reclaimed by compaction once they account
+ * for more than half of the log.<p>
+ *
+ * Since the log is append-only, a {@link Snapshot} of the store only needs to
+ * reference the current index and log segments. Index buffers referenced by
+ * a snapshot are copied by the store before they're next modified, so the
+ * snapshot remains consistent and can be written by another thread while the
+ * store continues to be modified.<p>
+ *
+ * The store is not thread safe.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class OffHeapStore {
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final int SNAPSHOT_MAGIC = 0x56535431;
+  private static final int SLOT_SIZE = 16;
+  private static final int HEADER_SIZE = 8;
+  private static final int MIN_CAPACITY = 1024;
+  private static final int INDEX_SEGMENT_SHIFT = 20;
+  private static final int INDEX_SEGMENT_SLOTS = 1 << INDEX_SEGMENT_SHIFT;
+  private static final int MAX_CAPACITY = 1 << 30;
+  private static final float LOAD_FACTOR = 0.7f;
+  private static final int MAX_SIZE = (int) (MAX_CAPACITY * LOAD_FACTOR);
+  private static final long EMPTY = 0;
+  private static final long DELETED = -1;
+  private final File directory;
+  private final int segmentSize;
+  private List<ByteBuffer> segments = new ArrayList<>();
+  private List<File> files = new ArrayList<>();
+  private ByteBuffer[] index;
+  private boolean[] shared;
+  private int capacity;
+  private int mask;
+  private int size;
+  private int tombstones;
+  private long position;
+  private long liveBytes;
+  private long garbageBytes;
+  private int generation;
+
+  /**
+   * Creates a store.
+   *
+   * @param directory The directory in which to map segment files, or <code>null</code>
+   *        to allocate segments in direct memory.
+   * @param segmentSize The log segment size in bytes.
+   */
+  public OffHeapStore(File directory, int segmentSize) {
+    if (segmentSize <= HEADER_SIZE) {
+      throw new IllegalArgumentException("Segment size must be greater than " + HEADER_SIZE);
+    }
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+  }
+
+  /**
+   * Returns the number of entries in the store.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of bytes allocated by the index and log.
+   */
+  public long residentBytes() {
+    return (long) segments.size() * segmentSize + (long) capacity * SLOT_SIZE;
+  }
+
+  /**
+   * Returns the number of log bytes held by live entries.
+   */
+  public long liveBytes() {
+    return liveBytes;
+  }
+
+  /**
+   * Gets the value of a key.
+   *
+   * @param key The key to get.
+   * @return The value bytes or <code>null</code> if the key doesn't exist.
+   */
+  public byte[] get(String key) {
+    if (size == 0) {
+      return null;
+    }
+    int slot = find(hash(key), key.getBytes(UTF_8));
+    if (slot < 0) {
+      return null;
+    }
+    long offset = ref(index, slot) - 1;
+    ByteBuffer segment = segments.get(segment(offset));
+    int position = (int) (offset % segmentSize);
+    int keyLength = segment.getInt(position);
+    byte[] value = new byte[segment.getInt(position + 4)];
+    segment.position(position + HEADER_SIZE + keyLength);
+    segment.get(value);
+    return value;
+  }
+
+  /**
+   * Checks whether a key exists.
+   *
+   * @param key The key to check.
+   * @return Indicates whether the key exists.
+   */
+  public boolean contains(String key) {
+    return size > 0 && find(hash(key), key.getBytes(UTF_8)) >= 0;
+  }
+
+  /**
+   * Sets the value of a key.
+   *
+   * @param key The key to set.
+   * @param value The value bytes.
+   */
+  public void put(String key, byte[] value) {
+    put(hash(key), key.getBytes(UTF_8), value);
+  }
+
+  private void put(int hash, byte[] key, byte[] value) {
+    if (index == null) {
+      allocateIndex(MIN_CAPACITY);
+    }
+
+    int slot = hash & mask;
+    int free = -1;
+    long ref;
+    while ((ref = ref(index, slot)) != EMPTY) {
+      if (ref == DELETED) {
+        if (free < 0) {
+          free = slot;
+        }
+      } else if (hash(index, slot) == hash && matches(ref - 1, key)) {
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (ref == EMPTY && size >= MAX_SIZE) {
+      throw new StateException("State size exceeds the maximum of " + MAX_SIZE + " keys");
+    }
+
+    long offset = append(key, value);
+    if (ref != EMPTY) {
+      int previous = length(ref - 1);
+      liveBytes -= previous;
+      garbageBytes += previous;
+    } else {
+      if (free >= 0) {
+        slot = free;
+        tombstones--;
+      }
+      size++;
+    }
+    set(slot, hash, offset + 1);
+    liveBytes += HEADER_SIZE + key.length + value.length;
+
+    if (size + tombstones > capacity * LOAD_FACTOR) {
+      rehash(capacity < MAX_CAPACITY && size > capacity * LOAD_FACTOR / 2 ? capacity * 2 : capacity);
+    }
+    if (garbageBytes > segmentSize && garbageBytes > liveBytes) {
+      compact();
+    }
+  }
+
+  /**
+   * Removes a key.
+   *
+   * @param key The key to remove.
+   * @return Indicates whether the key existed.
+   */
+  public boolean remove(String key) {
+    if (size == 0) {
+      return false;
+    }
+    int slot = find(hash(key), key.getBytes(UTF_8));
+    if (slot < 0) {
+      return false;
+    }
+    int length = length(ref(index, slot) - 1);
+    liveBytes -= length;
+    garbageBytes += length;
+    set(slot, hash(index, slot), DELETED);
+    size--;
+    tombstones++;
+    if (size == 0) {
+      clear();
+    }
+    return true;
+  }
+
+  /**
+   * Removes all entries and releases all storage.
+   */
+  public void clear() {
+    index = null;
+    shared = null;
+    capacity = 0;
+    mask = 0;
+    size = 0;
+    tombstones = 0;
+    position = 0;
+    liveBytes = 0;
+    garbageBytes = 0;
+    release(segments, files);
+    segments = new ArrayList<>();
+    files = new ArrayList<>();
+  }
+
+  /**
+   * Writes all entries to a stream.
+   *
+   * @param out The stream to which to write entries.
+   * @throws IOException If the entries could not be written.
+   */
+  public void writeTo(DataOutputStream out) throws IOException {
+    view().writeTo(out);
+  }
+
+  /**
+   * Returns a snapshot of the store that's only valid until the store is
+   * next modified. The view must be used by the thread using the store.
+   *
+   * @return A view of the store.
+   */
+  public Snapshot view() {
+    return new Snapshot(index, capacity, size, segments, segmentSize);
+  }
+
+  /**
+   * Takes a snapshot of the store.<p>
+   *
+   * The snapshot references the store's current index and log segments
+   * rather than copying them, so it's taken in time proportional to the
+   * number of segments.
+   *
+   * @return A snapshot of the store.
+   */
+  public Snapshot snapshot() {
+    if (shared != null) {
+      Arrays.fill(shared, true);
+    }
+    List<ByteBuffer> views = new ArrayList<>(segments.size());
+    for (ByteBuffer segment : segments) {
+      views.add(segment.duplicate());
+    }
+    return new Snapshot(index != null ? index.clone() : null, capacity, size, views, segmentSize);
+  }
+
+  /**
+   * Replaces all entries with entries read from a stream.
+   *
+   * @param in The stream from which to read entries.
+   * @throws IOException If the entries could not be read.
+   */
+  public void readFrom(DataInputStream in) throws IOException {
+    if (in.readInt() != SNAPSHOT_MAGIC) {
+      throw new IOException("Invalid state snapshot");
+    }
+    clear();
+    int count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      byte[] key = new byte[in.readInt()];
+      byte[] value = new byte[in.readInt()];
+      in.readFully(key);
+      in.readFully(value);
+      put(hash(new String(key, UTF_8)), key, value);
+    }
+  }
+
+  /**
+   * Spreads the key hash code so that keys with similar hashes
+   * are not clustered in the index.
+   */
+  private static int hash(String key) {
+    int h = key.hashCode() * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Finds the index slot of a key.
+   */
+  private int find(int hash, byte[] key) {
+    int slot = hash & mask;
+    long ref;
+    while ((ref = ref(index, slot)) != EMPTY) {
+      if (ref != DELETED && hash(index, slot) == hash && matches(ref - 1, key)) {
+        return slot;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Compares the key of the entry at the given offset.
+   */
+  private boolean matches(long offset, byte[] key) {
+    ByteBuffer segment = segments.get(segment(offset));
+    int position = (int) (offset % segmentSize);
+    if (segment.getInt(position) != key.length) {
+      return false;
+    }
+    position += HEADER_SIZE;
+    for (int i = 0; i < key.length; i++) {
+      if (segment.get(position + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the length of the entry at the given offset.
+   */
+  private int length(long offset) {
+    ByteBuffer segment = segments.get(segment(offset));
+    int position = (int) (offset % segmentSize);
+    return HEADER_SIZE + segment.getInt(position) + segment.getInt(position + 4);
+  }
+
+  private int segment(long offset) {
+    return (int) (offset / segmentSize);
+  }
+
+  /**
+   * Reads the raw entry at the given offset.
+   */
+  private byte[] record(List<ByteBuffer> segments, long offset) {
+    return record(segments, segmentSize, offset);
+  }
+
+  private static byte[] record(List<ByteBuffer> segments, int segmentSize, long offset) {
+    ByteBuffer segment = segments.get((int) (offset / segmentSize));
+    int position = (int) (offset % segmentSize);
+    byte[] record = new byte[HEADER_SIZE + segment.getInt(position) + segment.getInt(position + 4)];
+    segment.position(position);
+    segment.get(record);
+    return record;
+  }
+
+  /**
+   * Appends an entry to the log, returning the entry offset.
+   */
+  private long append(byte[] key, byte[] value) {
+    int length = HEADER_SIZE + key.length + value.length;
+    ByteBuffer segment = reserve(length);
+    segment.putInt(key.length);
+    segment.putInt(value.length);
+    segment.put(key);
+    segment.put(value);
+    long offset = position;
+    position += length;
+    return offset;
+  }
+
+  /**
+   * Appends a raw entry to the log, returning the entry offset.
+   */
+  private long append(byte[] record) {
+    reserve(record.length).put(record);
+    long offset = position;
+    position += record.length;
+    return offset;
+  }
+
+  /**
+   * Reserves space for an entry in the log. Entries never span segments,
+   * so if the entry doesn't fit in the current segment the remainder of the
+   * segment is skipped.
+   */
+  private ByteBuffer reserve(int length) {
+    if (length > segmentSize) {
+      throw new StateException("Entry size " + length + " exceeds state segment size " + segmentSize);
+    }
+    int remaining = segmentSize - (int) (position % segmentSize);
+    if (length > remaining) {
+      position += remaining;
+      garbageBytes += remaining;
+    }
+    int segment = segment(position);
+    if (segment == segments.size()) {
+      segments.add(allocateSegment(segment));
+    }
+    ByteBuffer buffer = segments.get(segment);
+    buffer.position((int) (position % segmentSize));
+    return buffer;
+  }
+
+  /**
+   * Allocates a log segment.
+   */
+  private ByteBuffer allocateSegment(int segment) {
+    if (directory == null) {
+      return ByteBuffer.allocateDirect(segmentSize);
+    }
+    if (!directory.exists() && !directory.mkdirs()) {
+      throw new StateException("Failed to create state directory " + directory);
+    }
+    File file = new File(directory, String.format("segment-%d-%d.dat", generation, segment));
+    file.deleteOnExit();
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      ByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+      files.add(file);
+      return buffer;
+    } catch (IOException e) {
+      throw new StateException("Failed to map state segment " + file, e);
+    }
+  }
+
+  /**
+   * Releases log segments.
+   */
+  private static void release(List<ByteBuffer> segments, List<File> files) {
+    segments.clear();
+    for (File file : files) {
+      file.delete();
+    }
+    files.clear();
+  }
+
+  /**
+   * Allocates an index with the given number of slots. The capacity must be
+   * a power of two so that slots can be addressed by masking the key hash.
+   */
+  private void allocateIndex(int capacity) {
+    if (capacity <= 0 || capacity > MAX_CAPACITY || Integer.bitCount(capacity) != 1) {
+      throw new StateException("Invalid state capacity " + capacity);
+    }
+    int slots = Math.min(capacity, INDEX_SEGMENT_SLOTS);
+    ByteBuffer[] index = new ByteBuffer[capacity / slots];
+    for (int i = 0; i < index.length; i++) {
+      index[i] = ByteBuffer.allocateDirect(slots * SLOT_SIZE);
+    }
+    this.index = index;
+    this.shared = new boolean[index.length];
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Returns the key hash held in an index slot.
+   */
+  private static int hash(ByteBuffer[] index, int slot) {
+    return index[slot >>> INDEX_SEGMENT_SHIFT].getInt((slot & (INDEX_SEGMENT_SLOTS - 1)) * SLOT_SIZE);
+  }
+
+  /**
+   * Returns the entry reference held in an index slot.
+   */
+  private static long ref(ByteBuffer[] index, int slot) {
+    return index[slot >>> INDEX_SEGMENT_SHIFT].getLong((slot & (INDEX_SEGMENT_SLOTS - 1)) * SLOT_SIZE + 8);
+  }
+
+  /**
+   * Sets the key hash and entry reference of an index slot, first copying
+   * the slot's index buffer if it's referenced by a snapshot.
+   */
+  private void set(int slot, int hash, long ref) {
+    int i = slot >>> INDEX_SEGMENT_SHIFT;
+    if (shared[i]) {
+      ByteBuffer copy = ByteBuffer.allocateDirect(index[i].capacity());
+      copy.put(index[i].duplicate());
+      index[i] = copy;
+      shared[i] = false;
+    }
+    ByteBuffer segment = index[i];
+    int position = (slot & (INDEX_SEGMENT_SLOTS - 1)) * SLOT_SIZE;
+    segment.putInt(position, hash);
+    segment.putLong(position + 8, ref);
+  }
+
+  /**
+   * Rebuilds the index, dropping tombstones.
+   */
+  private void rehash(int newCapacity) {
+    ByteBuffer[] oldIndex = index;
+    int oldCapacity = capacity;
+    allocateIndex(newCapacity);
+    for (int slot = 0; slot < oldCapacity; slot++) {
+      long ref = ref(oldIndex, slot);
+      if (ref != EMPTY && ref != DELETED) {
+        int hash = hash(oldIndex, slot);
+        int newSlot = hash & mask;
+        while (ref(index, newSlot) != EMPTY) {
+          newSlot = (newSlot + 1) & mask;
+        }
+        set(newSlot, hash, ref);
+      }
+    }
+    tombstones = 0;
+  }
+
+  /**
+   * Copies all live entries to a new log and releases the old log.
+   */
+  private void compact() {
+    List<ByteBuffer> oldSegments = segments;
+    List<File> oldFiles = files;
+    segments = new ArrayList<>();
+    files = new ArrayList<>();
+    position = 0;
+    garbageBytes = 0;
+    generation++;
+    for (int slot = 0; slot < capacity; slot++) {
+      long ref = ref(index, slot);
+      if (ref != EMPTY && ref != DELETED) {
+        set(slot, hash(index, slot), append(record(oldSegments, ref - 1)) + 1);
+      }
+    }
+    release(oldSegments, oldFiles);
+  }
+
+  /**
+   * Point-in-time snapshot of a store.<p>
+   *
+   * A snapshot only reads storage that's no longer modified by the store,
+   * so it can be written by a thread other than the one using the store.
+   */
+  public static class Snapshot {
+    private final ByteBuffer[] index;
+    private final int capacity;
+    private final int size;
+    private final List<ByteBuffer> segments;
+    private final int segmentSize;
+
+    private Snapshot(ByteBuffer[] index, int capacity, int size, List<ByteBuffer> segments, int segmentSize) {
+      this.index = index;
+      this.capacity = capacity;
+      this.size = size;
+      this.segments = segments;
+      this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Returns the number of entries in the snapshot.
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Writes all entries in the snapshot to a stream.
+     *
+     * @param out The stream to which to write entries.
+     * @throws IOException If the entries could not be written.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+      out.writeInt(SNAPSHOT_MAGIC);
+      out.writeInt(size);
+      for (int slot = 0; slot < capacity; slot++) {
+        long ref = ref(index, slot);
+        if (ref != EMPTY && ref != DELETED) {
+          out.write(record(segments, segmentSize, ref - 1));
+        }
+      }
+    }
+  }
+
+}
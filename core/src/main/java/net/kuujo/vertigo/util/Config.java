@@ -17,6 +17,7 @@ package net.kuujo.vertigo.util;
 
 import net.kuujo.vertigo.cluster.Cluster;
 import net.kuujo.vertigo.cluster.impl.DefaultCluster;
+import net.kuujo.vertigo.component.ComponentConfig;
 import net.kuujo.vertigo.component.InstanceContext;
 import net.kuujo.vertigo.component.impl.DefaultInstanceContext;
 
@@ -54,8 +55,17 @@ public final class Config {
    */
   public static JsonObject buildConfig(InstanceContext context, Cluster cluster) {
     JsonObject config = context.component().config().copy();
-    return config.putObject("__context__", DefaultInstanceContext.toJson(context))
+    config.putObject("__context__", DefaultInstanceContext.toJson(context))
         .putString("__cluster__", cluster.address());
+
+    // Include event loop placement hints for the node's platform manager.
+    ComponentConfig<?> component = context.component().network().config().getComponent(context.component().name());
+    if (component != null) {
+      config.putObject("__loop__", new JsonObject()
+          .putNumber(ComponentConfig.COMPONENT_LOAD, component.getLoad())
+          .putNumber(ComponentConfig.COMPONENT_EVENT_LOOP, component.getEventLoop()));
+    }
+    return config;
   }
 
   /**
@@ -70,6 +80,7 @@ public final class Config {
       throw new IllegalArgumentException("No component context found.");
     }
     config.removeField("__context__");
+    config.removeField("__loop__");
     return DefaultInstanceContext.fromJson(context);
   }
 
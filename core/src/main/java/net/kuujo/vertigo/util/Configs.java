@@ -75,6 +75,14 @@ public final class Configs {
       throw new IllegalArgumentException("Cannot merge networks of different names.");
     }
 
+    if (merge.getCheckpointInterval() > 0) {
+      base.setCheckpointInterval(merge.getCheckpointInterval());
+    }
+
+    if (merge.getMetricsInterval() > 0) {
+      base.setMetricsInterval(merge.getMetricsInterval());
+    }
+
     for (ComponentConfig<?> component : merge.getComponents()) {
       if (!base.hasComponent(component.getName())) {
         base.addComponent(component);
@@ -21,6 +21,7 @@ import org.vertx.java.core.AsyncResult;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 import org.vertx.java.core.impl.VertxInternal;
+import org.vertx.java.core.json.JsonObject;
 import org.vertx.java.core.spi.Action;
 
 /**
@@ -30,12 +31,18 @@ import org.vertx.java.core.spi.Action;
  */
 public class ContextManager {
   private final VertxInternal vertx;
+  private final KeyedExecutor executor;
 
   public ContextManager(Vertx vertx) {
+    this(vertx, null);
+  }
+
+  public ContextManager(Vertx vertx, KeyedExecutor executor) {
     if (!(vertx instanceof VertxInternal)) {
       throw new IllegalArgumentException("ContextManager requires a VertxInternal instance");
     }
     this.vertx = (VertxInternal) vertx;
+    this.executor = executor;
   }
 
   /**
@@ -71,15 +78,50 @@ public class ContextManager {
   }
 
   /**
-   * Executes a blocking action on a background thread.
+   * Executes a blocking action on the Vert.x background pool.<p>
+   *
+   * Unkeyed actions are never executed by the context manager's executor,
+   * so actions that aren't data operations don't compete with data operations
+   * for the executor's bounded capacity.
    *
    * @param action The action to execute.
    * @param resultHandler A handler to be called with the action result.
    * @return The context manager.
    */
   public <T> ContextManager execute(Action<T> action, Handler<AsyncResult<T>> resultHandler) {
-    vertx.executeBlocking(action, resultHandler);
+    return execute(null, action, resultHandler);
+  }
+
+  /**
+   * Executes a blocking action on a background thread.<p>
+   *
+   * If the context manager was created with an executor, keyed actions are
+   * executed by that executor and actions with the same key are executed in
+   * the order in which they were submitted. Actions without a key are executed
+   * on the Vert.x background pool.
+   *
+   * @param key The action key.
+   * @param action The action to execute.
+   * @param resultHandler A handler to be called with the action result.
+   * @return The context manager.
+   */
+  public <T> ContextManager execute(String key, Action<T> action, Handler<AsyncResult<T>> resultHandler) {
+    if (executor != null && key != null) {
+      executor.execute(key, action, resultHandler);
+    } else {
+      vertx.executeBlocking(action, resultHandler);
+    }
     return this;
   }
 
+  /**
+   * Returns executor metrics.
+   *
+   * @return A JSON object of executor metrics, or an empty object if the
+   *         context manager uses the Vert.x background pool.
+   */
+  public JsonObject metrics() {
+    return executor != null ? executor.metrics() : new JsonObject();
+  }
+
 }
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.kuujo.vertigo.VertigoException;
+
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonObject;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * Bounded executor for blocking actions.<p>
+ *
+ * Actions are executed on a dedicated fixed-size thread pool so that they
+ * neither starve nor are starved by other users of the Vert.x background
+ * pool. Actions submitted with the same key are executed serially in
+ * submission order, while actions with different keys run concurrently.
+ * Once the number of pending actions reaches the executor's capacity new
+ * actions are failed immediately rather than queued, and results are
+ * always completed on the submitting context.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class KeyedExecutor {
+  private static final int BATCH_SIZE = 32;
+  private final Vertx vertx;
+  private final int capacity;
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentMap<String, SerialQueue> queues = new ConcurrentHashMap<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong totalWaitTime = new AtomicLong();
+
+  public KeyedExecutor(Vertx vertx, int threads, int capacity) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be a positive number.");
+    }
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be a positive number.");
+    }
+    this.vertx = vertx;
+    this.capacity = capacity;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, String.format("vertigo-executor-%d", count.incrementAndGet()));
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Executes an action with no ordering guarantees.
+   *
+   * @param action The action to execute.
+   * @param resultHandler A handler to be called with the action result.
+   * @return The executor.
+   */
+  public <T> KeyedExecutor execute(Action<T> action, Handler<AsyncResult<T>> resultHandler) {
+    return execute(null, action, resultHandler);
+  }
+
+  /**
+   * Executes an action after all previously submitted actions with the same key.
+   *
+   * @param key The action key. If <code>null</code> the action is not ordered.
+   * @param action The action to execute.
+   * @param resultHandler A handler to be called with the action result.
+   * @return The executor.
+   */
+  public <T> KeyedExecutor execute(String key, Action<T> action, Handler<AsyncResult<T>> resultHandler) {
+    if (pending.incrementAndGet() > capacity) {
+      pending.decrementAndGet();
+      rejected.incrementAndGet();
+      complete(vertx.currentContext(), new DefaultFutureResult<T>(new VertigoException("Executor capacity exceeded.")), resultHandler);
+      return this;
+    }
+
+    Task<T> task = new Task<T>(action, resultHandler, vertx.currentContext());
+    if (key == null) {
+      executor.execute(task);
+      return this;
+    }
+
+    // Add the task to the key's queue, replacing queues that were
+    // concurrently drained and removed.
+    while (true) {
+      SerialQueue queue = queues.get(key);
+      if (queue == null) {
+        queue = new SerialQueue(key);
+        SerialQueue current = queues.putIfAbsent(key, queue);
+        if (current != null) {
+          queue = current;
+        }
+      }
+      if (queue.add(task)) {
+        return this;
+      }
+    }
+  }
+
+  /**
+   * Returns executor metrics.
+   *
+   * @return A JSON object of executor metrics.
+   */
+  public JsonObject metrics() {
+    long count = completed.get() + failed.get();
+    return new JsonObject()
+        .putNumber("threads", executor.getCorePoolSize())
+        .putNumber("active", executor.getActiveCount())
+        .putNumber("capacity", capacity)
+        .putNumber("pending", pending.get())
+        .putNumber("keys", queues.size())
+        .putNumber("completed", completed.get())
+        .putNumber("failed", failed.get())
+        .putNumber("rejected", rejected.get())
+        .putNumber("wait", count > 0 ? totalWaitTime.get() / (double) count : 0);
+  }
+
+  /**
+   * Shuts down the executor.
+   */
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private <T> void complete(Context context, final DefaultFutureResult<T> result, final Handler<AsyncResult<T>> handler) {
+    if (handler != null) {
+      Handler<Void> callback = new Handler<Void>() {
+        @Override
+        public void handle(Void _) {
+          result.setHandler(handler);
+        }
+      };
+      if (context != null) {
+        context.runOnContext(callback);
+      } else {
+        vertx.runOnContext(callback);
+      }
+    }
+  }
+
+  /**
+   * A single action execution.
+   */
+  private class Task<T> implements Runnable {
+    private final Action<T> action;
+    private final Handler<AsyncResult<T>> handler;
+    private final Context context;
+    private final long created = System.currentTimeMillis();
+
+    private Task(Action<T> action, Handler<AsyncResult<T>> handler, Context context) {
+      this.action = action;
+      this.handler = handler;
+      this.context = context;
+    }
+
+    @Override
+    public void run() {
+      totalWaitTime.addAndGet(System.currentTimeMillis() - created);
+      DefaultFutureResult<T> result;
+      try {
+        result = new DefaultFutureResult<T>(action.perform());
+        completed.incrementAndGet();
+      } catch (Exception e) {
+        result = new DefaultFutureResult<T>(e);
+        failed.incrementAndGet();
+      }
+      pending.decrementAndGet();
+      complete(context, result, handler);
+    }
+  }
+
+  /**
+   * Queue of tasks that are executed serially. At most one drain of the queue
+   * is scheduled on the thread pool at any time, and a busy queue yields its
+   * thread after a batch of tasks. Once drained the queue is removed and
+   * closed so that new tasks are added to a new queue.
+   */
+  private class SerialQueue implements Runnable {
+    private final String key;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private boolean running;
+    private boolean closed;
+
+    private SerialQueue(String key) {
+      this.key = key;
+    }
+
+    private synchronized boolean add(Runnable task) {
+      if (closed) {
+        return false;
+      }
+      tasks.add(task);
+      if (!running) {
+        running = true;
+        executor.execute(this);
+      }
+      return true;
+    }
+
+    @Override
+    public void run() {
+      for (int i = 0; ; i++) {
+        Runnable task;
+        synchronized (this) {
+          if (i == BATCH_SIZE && !tasks.isEmpty()) {
+            executor.execute(this);
+            return;
+          }
+          task = tasks.poll();
+          if (task == null) {
+            running = false;
+            closed = true;
+            queues.remove(key, this);
+            return;
+          }
+        }
+        task.run();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,349 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.vertx.java.core.Context;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.logging.Logger;
+import org.vertx.java.core.logging.impl.LoggerFactory;
+
+/**
+ * Hashed timer wheel.<p>
+ *
+ * The timer wheel multiplexes any number of timers onto a single one-shot
+ * Vert.x timer. Timers are hashed into a fixed number of slots by their
+ * deadline tick, so scheduling and cancelling timers are constant time
+ * operations. The underlying Vert.x timer is armed for the earliest deadline
+ * and re-armed each time the wheel advances, so the wheel only wakes the
+ * event loop when a timer is due, and an idle wheel causes no wakeups.<p>
+ *
+ * Timers have a resolution of one tick, and timer handlers are called on
+ * the context that created the wheel. Use {@link #get(Vertx)} to get the
+ * wheel shared by all timers on the current context. The wheel is not
+ * thread safe and must only be used from that context.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TimerWheel {
+  private static final Logger log = LoggerFactory.getLogger(TimerWheel.class);
+  private static final Map<Object, TimerWheel> wheels = new WeakHashMap<>();
+
+  /**
+   * <code>10</code> is the default tick duration in milliseconds.
+   */
+  public static final long DEFAULT_TICK_DURATION = 10;
+
+  /**
+   * <code>512</code> is the default number of wheel slots.
+   */
+  public static final int DEFAULT_WHEEL_SIZE = 512;
+
+  private final Vertx vertx;
+  private final long tickDuration;
+  private final List<Timeout>[] wheel;
+  private final int mask;
+  private final Map<Long, Timeout> timeouts = new HashMap<>();
+  private final List<Timeout> expired = new ArrayList<>();
+  private long timerID;
+  private long armedTick;
+  private boolean running;
+  private boolean advancing;
+  private long startTime;
+  private long currentTick;
+  private long nextID = 1;
+  private long wakeups;
+
+  private final Handler<Long> tickHandler = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      TimerWheel.this.timerID = 0;
+      wakeups++;
+      advance();
+    }
+  };
+
+  /**
+   * A scheduled timeout.
+   */
+  private static class Timeout {
+    private final long id;
+    private final long period;
+    private final Handler<Long> handler;
+    private long deadline;
+    private boolean cancelled;
+
+    private Timeout(long id, long period, Handler<Long> handler) {
+      this.id = id;
+      this.period = period;
+      this.handler = handler;
+    }
+  }
+
+  public TimerWheel(Vertx vertx) {
+    this(vertx, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public TimerWheel(Vertx vertx, long tickDuration, int wheelSize) {
+    if (tickDuration < 1) {
+      throw new IllegalArgumentException("Tick duration must be a positive number.");
+    }
+    if (wheelSize < 1 || (wheelSize & (wheelSize - 1)) != 0) {
+      throw new IllegalArgumentException("Wheel size must be a power of two.");
+    }
+    this.vertx = vertx;
+    this.tickDuration = tickDuration;
+    this.wheel = new List[wheelSize];
+    for (int i = 0; i < wheelSize; i++) {
+      wheel[i] = new ArrayList<>();
+    }
+    this.mask = wheelSize - 1;
+  }
+
+  /**
+   * Returns the timer wheel for the current Vert.x context.<p>
+   *
+   * All callers on the same context share a single wheel. If called from
+   * outside of a Vert.x context then a wheel is shared per Vert.x instance.
+   *
+   * @param vertx The Vert.x instance.
+   * @return The shared timer wheel.
+   */
+  public static TimerWheel get(Vertx vertx) {
+    Context context = vertx.currentContext();
+    Object key = context != null ? context : vertx;
+    synchronized (wheels) {
+      TimerWheel wheel = wheels.get(key);
+      if (wheel == null) {
+        wheel = new TimerWheel(vertx);
+        wheels.put(key, wheel);
+      }
+      return wheel;
+    }
+  }
+
+  /**
+   * Sets a one-shot timer.
+   *
+   * @param delay The delay in milliseconds after which to call the handler.
+   * @param handler A handler to be called with the timer ID.
+   * @return The timer ID.
+   */
+  public long setTimer(long delay, Handler<Long> handler) {
+    return schedule(delay, 0, handler);
+  }
+
+  /**
+   * Sets a periodic timer.
+   *
+   * @param period The period in milliseconds at which to call the handler.
+   * @param handler A handler to be called with the timer ID.
+   * @return The timer ID.
+   */
+  public long setPeriodic(long period, Handler<Long> handler) {
+    if (period < 1) {
+      throw new IllegalArgumentException("Timer period must be a positive number.");
+    }
+    return schedule(period, period, handler);
+  }
+
+  /**
+   * Cancels a timer.
+   *
+   * @param id The timer ID.
+   * @return Indicates whether the timer was cancelled.
+   */
+  public boolean cancelTimer(long id) {
+    Timeout timeout = timeouts.remove(id);
+    if (timeout != null) {
+      timeout.cancelled = true;
+      if (timeouts.isEmpty() && !advancing) {
+        stop();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of scheduled timers.
+   *
+   * @return The number of scheduled timers.
+   */
+  public int size() {
+    return timeouts.size();
+  }
+
+  /**
+   * Returns the number of times the wheel has been woken by the underlying timer.
+   *
+   * @return The number of wheel ticks handled.
+   */
+  public long wakeups() {
+    return wakeups;
+  }
+
+  /**
+   * Schedules a timeout.
+   */
+  private long schedule(long delay, long period, Handler<Long> handler) {
+    if (!running) {
+      start();
+    }
+    Timeout timeout = new Timeout(nextID++, period, handler);
+    timeouts.put(timeout.id, timeout);
+    add(timeout, Math.max(currentTick, elapsedTicks()) + ticks(delay));
+
+    // The wheel is re-armed once it's finished advancing.
+    if (!advancing) {
+      arm(timeout.deadline);
+    }
+    return timeout.id;
+  }
+
+  /**
+   * Adds a timeout to the wheel.
+   */
+  private void add(Timeout timeout, long deadline) {
+    timeout.deadline = deadline;
+    wheel[(int) (deadline & mask)].add(timeout);
+  }
+
+  /**
+   * Returns the number of ticks for the given delay, rounding up.
+   */
+  private long ticks(long delay) {
+    return Math.max(1, (delay + tickDuration - 1) / tickDuration);
+  }
+
+  /**
+   * Returns the number of ticks elapsed since the wheel was started.
+   */
+  private long elapsedTicks() {
+    return (System.currentTimeMillis() - startTime) / tickDuration;
+  }
+
+  /**
+   * Starts the wheel.
+   */
+  private void start() {
+    startTime = System.currentTimeMillis();
+    currentTick = 0;
+    running = true;
+  }
+
+  /**
+   * Arms the underlying timer for the given tick if it's earlier than the armed tick.
+   */
+  private void arm(long tick) {
+    if (timerID != 0) {
+      if (tick >= armedTick) {
+        return;
+      }
+      vertx.cancelTimer(timerID);
+    }
+    armedTick = tick;
+    timerID = vertx.setTimer(Math.max(1, startTime + tick * tickDuration - System.currentTimeMillis()), tickHandler);
+  }
+
+  /**
+   * Returns the earliest deadline of all scheduled timeouts. If no timeout
+   * is due within a rotation of the wheel then the wheel wakes once per rotation.
+   */
+  private long nextDeadline() {
+    for (long tick = currentTick + 1; tick <= currentTick + wheel.length; tick++) {
+      for (Timeout timeout : wheel[(int) (tick & mask)]) {
+        if (!timeout.cancelled && timeout.deadline == tick) {
+          return tick;
+        }
+      }
+    }
+    return currentTick + wheel.length;
+  }
+
+  /**
+   * Stops the wheel once no timers are scheduled.
+   */
+  private void stop() {
+    if (timerID != 0) {
+      vertx.cancelTimer(timerID);
+      timerID = 0;
+    }
+    running = false;
+    for (List<Timeout> slot : wheel) {
+      slot.clear();
+    }
+  }
+
+  /**
+   * Advances the wheel to the current time, expiring all due timeouts.
+   */
+  private void advance() {
+    advancing = true;
+    long target = elapsedTicks();
+    long ticks = Math.min(target - currentTick, wheel.length);
+    for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+      List<Timeout> slot = wheel[(int) (tick & mask)];
+      int i = 0;
+      while (i < slot.size()) {
+        Timeout timeout = slot.get(i);
+        if (timeout.cancelled || timeout.deadline <= target) {
+          // Remove the timeout by swapping in the last timeout in the slot.
+          int last = slot.size() - 1;
+          slot.set(i, slot.get(last));
+          slot.remove(last);
+          if (!timeout.cancelled) {
+            expired.add(timeout);
+          }
+        } else {
+          i++;
+        }
+      }
+    }
+    currentTick = Math.max(currentTick, target);
+
+    // Handlers are called after all slots have been visited since handlers
+    // may schedule new timers.
+    for (Timeout timeout : expired) {
+      if (timeout.period > 0) {
+        add(timeout, currentTick + ticks(timeout.period));
+      } else {
+        timeouts.remove(timeout.id);
+      }
+      try {
+        timeout.handler.handle(timeout.id);
+      } catch (RuntimeException e) {
+        log.error("Timer handler failed", e);
+      }
+    }
+    expired.clear();
+    advancing = false;
+
+    if (timeouts.isEmpty()) {
+      stop();
+    } else {
+      arm(nextDeadline());
+    }
+  }
+
+}
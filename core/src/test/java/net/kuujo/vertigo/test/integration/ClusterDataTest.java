@@ -20,6 +20,11 @@ import static org.vertx.testtools.VertxAssert.assertFalse;
 import static org.vertx.testtools.VertxAssert.assertNull;
 import static org.vertx.testtools.VertxAssert.assertTrue;
 import static org.vertx.testtools.VertxAssert.testComplete;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
 import net.kuujo.vertigo.Vertigo;
 import net.kuujo.vertigo.cluster.Cluster;
 import net.kuujo.vertigo.cluster.data.AsyncCounter;
@@ -134,6 +139,52 @@ public class ClusterDataTest extends VertigoTestVerticle {
     });
   }
 
+  @Test
+  public void testMapPutAllGetAll() {
+    Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster("test", new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        final Cluster cluster = new DefaultCluster("test", vertx, container);
+        final AsyncMap<String, Integer> data = cluster.getMap("test-map-put-all");
+        Map<String, Integer> entries = new HashMap<>();
+        for (int i = 0; i < 2500; i++) {
+          entries.put(String.valueOf(i), i);
+        }
+        data.putAll(entries, new Handler<AsyncResult<Void>>() {
+          @Override
+          public void handle(AsyncResult<Void> result) {
+            assertTrue(result.succeeded());
+            data.getAll(Arrays.asList("0", "1500", "foo"), new Handler<AsyncResult<Map<String, Integer>>>() {
+              @Override
+              public void handle(AsyncResult<Map<String, Integer>> result) {
+                assertTrue(result.succeeded());
+                assertEquals(2, result.result().size());
+                assertEquals(1500, result.result().get("1500").intValue());
+                data.removeAll(Arrays.asList("0", "foo"), new Handler<AsyncResult<Map<String, Integer>>>() {
+                  @Override
+                  public void handle(AsyncResult<Map<String, Integer>> result) {
+                    assertTrue(result.succeeded());
+                    assertEquals(1, result.result().size());
+                    data.size(new Handler<AsyncResult<Integer>>() {
+                      @Override
+                      public void handle(AsyncResult<Integer> result) {
+                        assertTrue(result.succeeded());
+                        assertEquals(2499, result.result().intValue());
+                        testComplete();
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
   @Test
   public void testMapContainsKey() {
     Vertigo vertigo = new Vertigo(this);
@@ -383,6 +434,48 @@ public class ClusterDataTest extends VertigoTestVerticle {
     });
   }
 
+  @Test
+  public void testSetAddAll() {
+    Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster("test", new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        final Cluster cluster = new DefaultCluster("test", vertx, container);
+        final AsyncSet<String> data = cluster.getSet("test-set-add-all");
+        data.addAll(Arrays.asList("foo", "bar", "baz"), new Handler<AsyncResult<Boolean>>() {
+          @Override
+          public void handle(AsyncResult<Boolean> result) {
+            assertTrue(result.succeeded());
+            assertTrue(result.result());
+            data.containsAll(Arrays.asList("foo", "baz"), new Handler<AsyncResult<Boolean>>() {
+              @Override
+              public void handle(AsyncResult<Boolean> result) {
+                assertTrue(result.succeeded());
+                assertTrue(result.result());
+                data.removeAll(Arrays.asList("foo", "bar"), new Handler<AsyncResult<Boolean>>() {
+                  @Override
+                  public void handle(AsyncResult<Boolean> result) {
+                    assertTrue(result.succeeded());
+                    assertTrue(result.result());
+                    data.containsAll(Arrays.asList("foo", "baz"), new Handler<AsyncResult<Boolean>>() {
+                      @Override
+                      public void handle(AsyncResult<Boolean> result) {
+                        assertTrue(result.succeeded());
+                        assertFalse(result.result());
+                        testComplete();
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
   @Test
   public void testSetContains() {
     Vertigo vertigo = new Vertigo(this);
@@ -2690,6 +2690,50 @@ public class NetworkTest extends VertigoTestVerticle {
     });
   }
 
+  @Test
+  public void testEventBusHookBatchedSend() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(UUID.randomUUID().toString(), new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        final Cluster cluster = result.result();
+        final EventBusHookListener listener = new EventBusHookListener("test-hook", vertx.eventBus());
+        listener.sendHandler(new Handler<String>() {
+          @Override
+          public void handle(String message) {
+            assertEquals("Hello", message);
+            testComplete();
+          }
+        });
+
+        listener.start(new Handler<AsyncResult<Void>>() {
+          @Override
+          public void handle(AsyncResult<Void> result) {
+            assertTrue(result.succeeded());
+
+            NetworkConfig network = vertigo.createNetwork(UUID.randomUUID().toString());
+            network.addComponent("sender", TestSimpleSender.class.getName()).addHook(new EventBusHook("test-hook")
+                .setBatchInterval(100).setMaxRate(10).setMaxPayloadSize(5));
+            network.addComponent("receiver", TestSimpleReceiver.class.getName());
+            network.createConnection("sender", "out", "receiver", "in");
+
+            cluster.deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+              @Override
+              public void handle(AsyncResult<ActiveNetwork> result) {
+                if (result.failed()) {
+                  assertTrue(result.cause().getMessage(), result.succeeded());
+                } else {
+                  assertTrue(result.succeeded());
+                }
+              }
+            });
+          }
+        });
+      }
+    });
+  }
+
   @Test
   public void testEventBusHookReceive() {
     final Vertigo vertigo = new Vertigo(this);
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.kuujo.vertigo.util.KeyedExecutor;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+import org.vertx.java.core.spi.Action;
+
+/**
+ * Keyed executor tests.
+ *
+ * @author Jordan Halterman
+ */
+public class KeyedExecutorTest {
+  private static Vertx vertx;
+
+  @BeforeClass
+  public static void setUp() {
+    vertx = VertxFactory.newVertx();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    vertx.stop();
+  }
+
+  @Test
+  public void testKeyedOrdering() throws Exception {
+    KeyedExecutor executor = new KeyedExecutor(vertx, 4, 10000);
+    final List<Integer> foo = Collections.synchronizedList(new ArrayList<Integer>());
+    final List<Integer> bar = Collections.synchronizedList(new ArrayList<Integer>());
+    final CountDownLatch latch = new CountDownLatch(2000);
+    Handler<AsyncResult<Void>> handler = new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        latch.countDown();
+      }
+    };
+    for (int i = 0; i < 1000; i++) {
+      final int value = i;
+      executor.execute("foo", new Action<Void>() {
+        @Override
+        public Void perform() {
+          foo.add(value);
+          return null;
+        }
+      }, handler);
+      executor.execute("bar", new Action<Void>() {
+        @Override
+        public Void perform() {
+          bar.add(value);
+          return null;
+        }
+      }, handler);
+    }
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, foo.get(i).intValue());
+      assertEquals(i, bar.get(i).intValue());
+    }
+    assertEquals(2000, executor.metrics().getLong("completed").longValue());
+    executor.shutdown();
+  }
+
+  @Test
+  public void testCapacityExceeded() throws Exception {
+    KeyedExecutor executor = new KeyedExecutor(vertx, 1, 2);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final AtomicInteger failed = new AtomicInteger();
+    final CountDownLatch latch = new CountDownLatch(4);
+    Handler<AsyncResult<Void>> handler = new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        if (result.failed()) {
+          failed.incrementAndGet();
+        }
+        latch.countDown();
+      }
+    };
+    Action<Void> action = new Action<Void>() {
+      @Override
+      public Void perform() {
+        try {
+          blocked.await();
+        } catch (InterruptedException e) {
+        }
+        return null;
+      }
+    };
+    for (int i = 0; i < 4; i++) {
+      executor.execute(action, handler);
+    }
+    blocked.countDown();
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    assertEquals(2, failed.get());
+    assertEquals(2, executor.metrics().getLong("rejected").longValue());
+    executor.shutdown();
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.kuujo.vertigo.state.KeyedState;
+import net.kuujo.vertigo.state.StateMetrics;
+import net.kuujo.vertigo.state.StateSnapshot;
+import net.kuujo.vertigo.state.impl.DefaultKeyedState;
+
+import org.junit.Test;
+
+/**
+ * Keyed state tests.
+ *
+ * @author Jordan Halterman
+ */
+public class KeyedStateTest {
+
+  private static File tempDirectory() throws IOException {
+    File directory = File.createTempFile("vertigo-state", "");
+    directory.delete();
+    directory.mkdirs();
+    directory.deleteOnExit();
+    return directory;
+  }
+
+  private static void testState(KeyedState state) {
+    for (int i = 0; i < 10000; i++) {
+      state.put("key" + i, "value" + i);
+    }
+    assertEquals(10000, state.size());
+    for (int i = 0; i < 10000; i++) {
+      assertEquals("value" + i, state.get("key" + i));
+    }
+
+    // Overwrite and remove entries to force log compaction.
+    for (int n = 0; n < 5; n++) {
+      for (int i = 0; i < 10000; i++) {
+        state.put("key" + i, "updated" + n + i);
+      }
+    }
+    for (int i = 0; i < 10000; i += 2) {
+      assertTrue(state.remove("key" + i));
+    }
+    assertFalse(state.remove("key0"));
+    assertEquals(5000, state.size());
+    for (int i = 0; i < 10000; i++) {
+      if (i % 2 == 0) {
+        assertNull(state.get("key" + i));
+        assertFalse(state.containsKey("key" + i));
+      } else {
+        assertEquals("updated4" + i, state.get("key" + i));
+      }
+    }
+    assertTrue(state.metrics().residentBytes() < 1024 * 1024);
+    state.clear();
+    assertTrue(state.isEmpty());
+    assertEquals(0, state.metrics().residentBytes());
+  }
+
+  @Test
+  public void testDirectState() {
+    testState(new DefaultKeyedState(null, 64 * 1024, 100));
+  }
+
+  @Test
+  public void testMappedState() throws Exception {
+    File directory = tempDirectory();
+    KeyedState state = new DefaultKeyedState(directory, 64 * 1024, 100);
+    testState(state);
+    state.put("foo", "bar");
+    assertEquals(1, directory.list().length);
+    state.close();
+    assertEquals(0, directory.list().length);
+  }
+
+  @Test
+  public void testSegmentedIndex() {
+    // A million keys requires an index spanning more than one index buffer.
+    KeyedState state = new DefaultKeyedState(null, 1024 * 1024, 100);
+    for (int i = 0; i < 1000000; i++) {
+      state.put(String.valueOf(i), "v");
+    }
+    assertEquals(1000000, state.size());
+    for (int i = 0; i < 1000000; i += 997) {
+      assertEquals("v", state.get(String.valueOf(i)));
+    }
+    assertTrue(state.metrics().residentBytes() > 2 * 1024 * 1024 * 16);
+    state.close();
+  }
+
+  @Test
+  public void testHotCache() {
+    KeyedState state = new DefaultKeyedState(null, 64 * 1024, 2);
+    state.put("foo", "bar");
+    state.put("bar", "baz");
+    state.put("baz", "foo");
+    assertEquals("baz", state.get("bar"));
+    assertEquals("foo", state.get("baz"));
+    assertEquals("bar", state.get("foo"));
+    StateMetrics metrics = state.metrics();
+    assertEquals(2, metrics.hits());
+    assertEquals(1, metrics.misses());
+    assertEquals(2.0 / 3.0, metrics.hitRate(), 0.001);
+    assertEquals(3, metrics.size());
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    File snapshot = new File(tempDirectory(), "state.snapshot");
+    snapshot.deleteOnExit();
+    KeyedState state = new DefaultKeyedState(null, 64 * 1024, 100);
+    for (int i = 0; i < 1000; i++) {
+      state.put("key" + i, "value" + i);
+    }
+    state.snapshot(snapshot.getPath());
+    state.put("key0", "changed");
+    state.put("foo", "bar");
+
+    state.restore(snapshot.getPath());
+    assertEquals(1000, state.size());
+    assertEquals("value0", state.get("key0"));
+    assertNull(state.get("foo"));
+
+    KeyedState other = new DefaultKeyedState(null, 64 * 1024, 100);
+    other.restore(snapshot.getPath());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("value" + i, other.get("key" + i));
+    }
+  }
+
+  @Test
+  public void testSnapshotIsolation() throws Exception {
+    final File file = new File(tempDirectory(), "isolated.snapshot");
+    file.deleteOnExit();
+    KeyedState state = new DefaultKeyedState(null, 64 * 1024, 100);
+    for (int i = 0; i < 1000; i++) {
+      state.put("key" + i, "value" + i);
+    }
+    final StateSnapshot snapshot = state.snapshot();
+    assertEquals(1000, snapshot.size());
+
+    // Modify the state enough to rehash the index and compact the log
+    // before the snapshot is written by another thread.
+    for (int n = 0; n < 5; n++) {
+      for (int i = 0; i < 5000; i++) {
+        state.put("key" + i, "changed" + n);
+      }
+    }
+    state.remove("key1");
+    Thread writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        snapshot.writeTo(file.getPath());
+      }
+    });
+    writer.start();
+    writer.join();
+    state.close();
+
+    KeyedState other = new DefaultKeyedState(null, 64 * 1024, 100);
+    other.restore(file.getPath());
+    assertEquals(1000, other.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("value" + i, other.get("key" + i));
+    }
+  }
+
+}
@@ -0,0 +1,581 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import net.kuujo.vertigo.cluster.data.AsyncCounter;
+import net.kuujo.vertigo.cluster.data.AsyncCursor;
+import net.kuujo.vertigo.cluster.data.AsyncMap;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.MergeOperation;
+import net.kuujo.vertigo.cluster.data.WatchableAsyncMap;
+import net.kuujo.vertigo.cluster.data.impl.AccumulatingAsyncCounter;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncCounter;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncMap;
+import net.kuujo.vertigo.cluster.data.impl.LocalAsyncMultiMap;
+import net.kuujo.vertigo.cluster.data.impl.WrappedWatchableAsyncMap;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterData;
+import net.kuujo.vertigo.cluster.manager.impl.ClusterDataFactory;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+import org.vertx.java.core.impl.DefaultFutureResult;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+import com.hazelcast.core.MultiMap;
+
+/**
+ * Local cluster data tests.
+ *
+ * @author Jordan Halterman
+ */
+public class LocalDataTest {
+  private static Vertx vertx;
+
+  @BeforeClass
+  public static void setUp() {
+    vertx = VertxFactory.newVertx();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    vertx.stop();
+  }
+
+  @Test
+  public void testLocalMap() throws Exception {
+    final AsyncMap<String, String> map = new LocalAsyncMap<>("test", "map", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<String> value = new AtomicReference<>();
+    map.put("foo", "bar", new Handler<AsyncResult<String>>() {
+      @Override
+      public void handle(AsyncResult<String> result) {
+        assertTrue(result.succeeded());
+        map.get("foo", new Handler<AsyncResult<String>>() {
+          @Override
+          public void handle(AsyncResult<String> result) {
+            value.set(result.result());
+            latch.countDown();
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals("bar", value.get());
+    assertEquals("bar", vertx.sharedData().getMap("test.map").get("foo"));
+  }
+
+  @Test
+  public void testLocalMapTtl() throws Exception {
+    final AsyncMap<String, String> map = new LocalAsyncMap<>("test", "ttl", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final WatchableAsyncMap<String, String> watchable = new WrappedWatchableAsyncMap<>(map, vertx);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<MapEvent<String, String>> expired = new AtomicReference<>();
+    watchable.watch("foo", MapEvent.Type.DELETE, new Handler<MapEvent<String, String>>() {
+      @Override
+      public void handle(MapEvent<String, String> event) {
+        expired.set(event);
+        latch.countDown();
+      }
+    }, new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        map.put("foo", "bar", 50);
+        map.put("baz", "bar", 50, new Handler<AsyncResult<String>>() {
+          @Override
+          public void handle(AsyncResult<String> result) {
+            // Setting the key again without a TTL cancels its expiration.
+            map.put("baz", "bar");
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals("foo", expired.get().key());
+    assertEquals("bar", expired.get().value());
+    assertEquals(null, vertx.sharedData().getMap("test.ttl").get("foo"));
+    Thread.sleep(100);
+    assertEquals("bar", vertx.sharedData().getMap("test.ttl").get("baz"));
+  }
+
+  @Test
+  public void testLocalMapTtlCancelledByWrites() throws Exception {
+    final AsyncMap<String, String> map = new LocalAsyncMap<>("test", "ttl-writes", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final CountDownLatch latch = new CountDownLatch(1);
+    vertx.runOnContext(new Handler<Void>() {
+      @Override
+      public void handle(Void _) {
+        map.put("foo", "bar", 50);
+        map.put("bar", "baz", 50);
+        map.put("baz", "foo", 50, new Handler<AsyncResult<String>>() {
+          @Override
+          public void handle(AsyncResult<String> result) {
+            // Writing a key by any means cancels its pending expiration.
+            map.replace("foo", "bar", "updated", null);
+            map.putAll(Collections.singletonMap("bar", "updated"), new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                latch.countDown();
+              }
+            });
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    Thread.sleep(200);
+    assertEquals("updated", vertx.sharedData().getMap("test.ttl-writes").get("foo"));
+    assertEquals("updated", vertx.sharedData().getMap("test.ttl-writes").get("bar"));
+    assertEquals(null, vertx.sharedData().getMap("test.ttl-writes").get("baz"));
+  }
+
+  @Test
+  public void testLocalMapBulkEvents() throws Exception {
+    final AsyncMap<String, String> map = new LocalAsyncMap<>("test", "bulk", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final WatchableAsyncMap<String, String> watchable = new WrappedWatchableAsyncMap<>(map, vertx);
+    final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch latch = new CountDownLatch(4);
+    final Handler<MapEvent<String, String>> recorder = new Handler<MapEvent<String, String>>() {
+      @Override
+      public void handle(MapEvent<String, String> event) {
+        events.add(String.format("%s:%s:%s", event.type(), event.key(), event.value()));
+        latch.countDown();
+      }
+    };
+    final CountDownLatch watchLatch = new CountDownLatch(4);
+    final Handler<AsyncResult<Void>> watched = new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        watchLatch.countDown();
+      }
+    };
+    watchable.watch("foo", MapEvent.Type.UPDATE, recorder, watched);
+    watchable.watch("bar", MapEvent.Type.CREATE, recorder, watched);
+    watchable.watch("foo", MapEvent.Type.DELETE, recorder, watched);
+    watchable.watch("bar", MapEvent.Type.DELETE, recorder, watched);
+    assertTrue(watchLatch.await(5, TimeUnit.SECONDS));
+
+    vertx.runOnContext(new Handler<Void>() {
+      @Override
+      public void handle(Void _) {
+        map.put("foo", "a", new Handler<AsyncResult<String>>() {
+          @Override
+          public void handle(AsyncResult<String> result) {
+            Map<String, String> entries = new HashMap<>();
+            entries.put("foo", "b");
+            entries.put("bar", "c");
+            watchable.putAll(entries, new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                assertTrue(result.succeeded());
+                watchable.removeAll(Arrays.asList("foo", "bar"), null);
+              }
+            });
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(events.contains("update:foo:b"));
+    assertTrue(events.contains("create:bar:c"));
+    assertTrue(events.contains("delete:foo:b"));
+    assertTrue(events.contains("delete:bar:c"));
+  }
+
+  @Test
+  public void testLocalMapConditionalOperations() throws Exception {
+    final AsyncMap<String, Object> map = new LocalAsyncMap<>("test", "conditional", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final CountDownLatch latch = new CountDownLatch(1);
+    map.putIfAbsent("foo", 1, new Handler<AsyncResult<Object>>() {
+      @Override
+      public void handle(AsyncResult<Object> result) {
+        assertEquals(null, result.result());
+        map.putIfAbsent("foo", 2, new Handler<AsyncResult<Object>>() {
+          @Override
+          public void handle(AsyncResult<Object> result) {
+            assertEquals(1, result.result());
+            map.replace("foo", 2, 3, new Handler<AsyncResult<Boolean>>() {
+              @Override
+              public void handle(AsyncResult<Boolean> result) {
+                assertFalse(result.result());
+                map.replace("foo", 1, 3, new Handler<AsyncResult<Boolean>>() {
+                  @Override
+                  public void handle(AsyncResult<Boolean> result) {
+                    assertTrue(result.result());
+                    map.merge("foo", 2, MergeOperation.SUM, new Handler<AsyncResult<Object>>() {
+                      @Override
+                      public void handle(AsyncResult<Object> result) {
+                        assertEquals(5L, result.result());
+                        map.remove("foo", 3, new Handler<AsyncResult<Boolean>>() {
+                          @Override
+                          public void handle(AsyncResult<Boolean> result) {
+                            assertFalse(result.result());
+                            map.remove("foo", 5L, new Handler<AsyncResult<Boolean>>() {
+                              @Override
+                              public void handle(AsyncResult<Boolean> result) {
+                                assertTrue(result.result());
+                                latch.countDown();
+                              }
+                            });
+                          }
+                        });
+                      }
+                    });
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(null, vertx.sharedData().getMap("test.conditional").get("foo"));
+  }
+
+  @Test
+  public void testMergeOperations() {
+    assertEquals(3L, MergeOperation.SUM.merge(1, 2));
+    assertEquals(3.5, MergeOperation.SUM.merge(1, 2.5));
+    assertEquals(1, MergeOperation.MIN.merge(1, 2));
+    assertEquals(2, MergeOperation.MAX.merge(1, 2));
+    assertEquals("foobar", MergeOperation.APPEND.merge("foo", "bar"));
+    assertEquals(new JsonArray().add("foo").add("bar"), MergeOperation.APPEND.merge(new JsonArray().add("foo"), "bar"));
+    assertEquals(new JsonObject().putString("foo", "bar").putString("bar", "baz"),
+        MergeOperation.MERGE.merge(new JsonObject().putString("foo", "bar"), new JsonObject().putString("bar", "baz")));
+    assertEquals(MergeOperation.SUM, MergeOperation.parse("sum"));
+    try {
+      MergeOperation.SUM.merge("foo", 1);
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testLocalMultiMapCursor() throws Exception {
+    ClusterData data = ClusterDataFactory.getLocalClusterData(vertx);
+    MultiMap<String, String> multiMap = data.getMultiMap("test.cursor");
+    for (int i = 0; i < 10; i++) {
+      for (int j = 0; j < 5; j++) {
+        multiMap.put(String.valueOf(i), i + "-" + j);
+      }
+    }
+
+    final AsyncCursor<String> cursor = new LocalAsyncMultiMap<String, String>("test", "cursor", vertx, data).values(7);
+    final Set<String> values = new HashSet<>();
+    final AtomicInteger pages = new AtomicInteger();
+    final CountDownLatch latch = new CountDownLatch(1);
+    cursor.next(new Handler<AsyncResult<List<String>>>() {
+      @Override
+      public void handle(AsyncResult<List<String>> result) {
+        assertTrue(result.succeeded());
+        assertTrue(result.result().size() <= 7);
+        values.addAll(result.result());
+        pages.incrementAndGet();
+        if (cursor.hasNext()) {
+          cursor.next(this);
+        } else {
+          latch.countDown();
+        }
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(50, values.size());
+    assertEquals(8, pages.get());
+  }
+
+  @Test
+  public void testLocalMapFailsOnCallerContext() throws Exception {
+    AsyncMap<String, String> map = new LocalAsyncMap<>("test", "map", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<Thread> thread = new AtomicReference<>();
+    final Thread caller = Thread.currentThread();
+    map.get(null, new Handler<AsyncResult<String>>() {
+      @Override
+      public void handle(AsyncResult<String> result) {
+        if (result.failed()) {
+          thread.set(Thread.currentThread());
+        }
+        latch.countDown();
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertNotNull(thread.get());
+    assertTrue(caller != thread.get());
+  }
+
+  @Test
+  public void testLocalCounter() throws Exception {
+    final AsyncCounter counter = new LocalAsyncCounter("test", "counter", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final CountDownLatch latch = new CountDownLatch(1000);
+    final AtomicLong max = new AtomicLong();
+    for (int i = 0; i < 1000; i++) {
+      counter.incrementAndGet(new Handler<AsyncResult<Long>>() {
+        @Override
+        public void handle(AsyncResult<Long> result) {
+          synchronized (max) {
+            max.set(Math.max(max.get(), result.result()));
+          }
+          latch.countDown();
+        }
+      });
+    }
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(1000, max.get());
+  }
+
+  @Test
+  public void testCounterCompareAndSet() throws Exception {
+    final AsyncCounter counter = new LocalAsyncCounter("test", "cas", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicReference<Boolean> updated = new AtomicReference<>();
+    counter.addAndGet(10, new Handler<AsyncResult<Long>>() {
+      @Override
+      public void handle(AsyncResult<Long> result) {
+        assertEquals(10, result.result().longValue());
+        counter.compareAndSet(5, 20, new Handler<AsyncResult<Boolean>>() {
+          @Override
+          public void handle(AsyncResult<Boolean> result) {
+            assertEquals(false, result.result());
+            counter.compareAndSet(10, 20, new Handler<AsyncResult<Boolean>>() {
+              @Override
+              public void handle(AsyncResult<Boolean> result) {
+                updated.set(result.result());
+                latch.countDown();
+              }
+            });
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertTrue(updated.get());
+  }
+
+  @Test
+  public void testAccumulatingCounter() throws Exception {
+    final AsyncCounter counter = new LocalAsyncCounter("test", "accumulating", vertx, ClusterDataFactory.getLocalClusterData(vertx));
+    final AsyncCounter accumulating = new AccumulatingAsyncCounter(counter, vertx, 50);
+    final CountDownLatch latch = new CountDownLatch(2);
+    final AtomicLong flushed = new AtomicLong();
+    final AtomicLong current = new AtomicLong();
+    vertx.runOnContext(new Handler<Void>() {
+      @Override
+      public void handle(Void _) {
+        for (int i = 0; i < 100; i++) {
+          accumulating.increment();
+        }
+        accumulating.decrement();
+        vertx.setTimer(200, new Handler<Long>() {
+          @Override
+          public void handle(Long timerID) {
+            counter.get(new Handler<AsyncResult<Long>>() {
+              @Override
+              public void handle(AsyncResult<Long> result) {
+                flushed.set(result.result());
+                latch.countDown();
+                accumulating.increment();
+                accumulating.get(new Handler<AsyncResult<Long>>() {
+                  @Override
+                  public void handle(AsyncResult<Long> result) {
+                    current.set(result.result());
+                    latch.countDown();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(99, flushed.get());
+    assertEquals(100, current.get());
+  }
+
+  @Test
+  public void testAccumulatingCounterFailure() throws Exception {
+    final AtomicInteger failures = new AtomicInteger(1);
+    final AsyncCounter counter = new LocalAsyncCounter("test", "failing", vertx, ClusterDataFactory.getLocalClusterData(vertx)) {
+      @Override
+      public void addAndGet(long delta, Handler<AsyncResult<Long>> doneHandler) {
+        if (failures.getAndDecrement() > 0) {
+          new DefaultFutureResult<Long>(new IllegalStateException("Failed")).setHandler(doneHandler);
+        } else {
+          super.addAndGet(delta, doneHandler);
+        }
+      }
+    };
+    final AccumulatingAsyncCounter accumulating = new AccumulatingAsyncCounter(counter, vertx, 10000);
+    final CountDownLatch latch = new CountDownLatch(1);
+    final AtomicLong current = new AtomicLong();
+    vertx.runOnContext(new Handler<Void>() {
+      @Override
+      public void handle(Void _) {
+        for (int i = 0; i < 10; i++) {
+          accumulating.increment();
+        }
+        // The drained increments must be restored when the update fails.
+        accumulating.addAndGet(5, new Handler<AsyncResult<Long>>() {
+          @Override
+          public void handle(AsyncResult<Long> result) {
+            assertTrue(result.failed());
+            accumulating.close(new Handler<AsyncResult<Void>>() {
+              @Override
+              public void handle(AsyncResult<Void> result) {
+                assertTrue(result.succeeded());
+                counter.get(new Handler<AsyncResult<Long>>() {
+                  @Override
+                  public void handle(AsyncResult<Long> result) {
+                    current.set(result.result());
+                    latch.countDown();
+                  }
+                });
+              }
+            });
+          }
+        });
+      }
+    });
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    assertEquals(10, current.get());
+  }
+
+  /**
+   * Runs a task concurrently on a number of threads.
+   */
+  private static void concurrently(int threads, final Runnable task) throws InterruptedException {
+    Thread[] workers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Thread(task);
+      workers[i].start();
+    }
+    for (Thread worker : workers) {
+      worker.join();
+    }
+  }
+
+  @Test
+  public void testConcurrentMultiMap() throws Exception {
+    final ClusterData data = ClusterDataFactory.getLocalClusterData(vertx);
+    concurrently(4, new Runnable() {
+      @Override
+      public void run() {
+        MultiMap<String, Integer> map = data.getMultiMap("multimap");
+        for (int i = 0; i < 1000; i++) {
+          map.put(String.valueOf(i % 10), i);
+        }
+      }
+    });
+    MultiMap<String, Integer> map = data.getMultiMap("multimap");
+    assertEquals(10, map.size());
+    assertEquals(400, map.valueCount("5"));
+    assertEquals(4000, map.values().size());
+    for (int i = 0; i < 400; i++) {
+      assertTrue(map.remove("5", 5 + (i % 100) * 10));
+    }
+    assertEquals(9, map.size());
+    assertEquals(null, map.get("5"));
+  }
+
+  @Test
+  public void testMultiMapCopiesJsonValues() {
+    MultiMap<String, JsonObject> map = ClusterDataFactory.getLocalClusterData(vertx).getMultiMap("json");
+    JsonObject value = new JsonObject().putString("foo", "bar");
+    map.put("key", value);
+    value.putString("foo", "baz");
+    assertEquals("bar", map.get("key").iterator().next().getString("foo"));
+  }
+
+  @Test
+  public void testListAndQueueCopyJsonValues() {
+    ClusterData data = ClusterDataFactory.getLocalClusterData(vertx);
+    List<JsonObject> list = data.getList("json");
+    JsonObject value = new JsonObject().putString("foo", "bar");
+    list.add(value);
+    value.putString("foo", "baz");
+    list.get(0).putString("foo", "baz");
+    assertEquals("bar", list.get(0).getString("foo"));
+
+    Queue<JsonObject> queue = data.getQueue("json");
+    queue.offer(value);
+    value.putString("foo", "bar");
+    queue.peek().putString("foo", "bar");
+    assertEquals("baz", queue.poll().getString("foo"));
+  }
+
+  @Test
+  public void testConcurrentQueue() throws Exception {
+    final ClusterData data = ClusterDataFactory.getLocalClusterData(vertx);
+    final AtomicLong polled = new AtomicLong();
+    concurrently(4, new Runnable() {
+      @Override
+      public void run() {
+        Queue<Integer> queue = data.getQueue("queue");
+        for (int i = 0; i < 1000; i++) {
+          queue.offer(i);
+          if (queue.poll() != null) {
+            polled.incrementAndGet();
+          }
+        }
+      }
+    });
+    assertEquals(4000, polled.get());
+    assertTrue(data.getQueue("queue").isEmpty());
+  }
+
+  @Test
+  public void testSharedList() {
+    ClusterData data = ClusterDataFactory.getLocalClusterData(vertx);
+    List<String> list = data.getList("list");
+    list.add("foo");
+    list.add("bar");
+    list.add("baz");
+    List<String> other = ClusterDataFactory.getLocalClusterData(vertx).getList("list");
+    assertEquals(3, other.size());
+    assertEquals("bar", other.remove(1));
+    assertEquals("baz", list.get(1));
+  }
+
+}
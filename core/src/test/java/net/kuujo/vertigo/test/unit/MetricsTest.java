@@ -0,0 +1,173 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import net.kuujo.vertigo.component.impl.InstanceStatsReporter;
+import net.kuujo.vertigo.hook.ComponentHook;
+import net.kuujo.vertigo.hook.MetricsHook;
+import net.kuujo.vertigo.hook.ProfilingHook;
+import net.kuujo.vertigo.metrics.Histogram;
+import net.kuujo.vertigo.network.manager.NetworkMetrics;
+import net.kuujo.vertigo.util.serialization.Serializer;
+import net.kuujo.vertigo.util.serialization.SerializerFactory;
+
+import org.junit.Test;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Metrics tests.
+ *
+ * @author Jordan Halterman
+ */
+public class MetricsTest {
+
+  @Test
+  public void testHistogram() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i);
+    }
+    assertEquals(1000, histogram.count());
+    assertEquals(500.5, histogram.mean(), 0);
+    assertEquals(1000, histogram.max());
+    long p50 = histogram.percentile(50);
+    assertTrue(p50 >= 500 && p50 <= 500 * 1.125);
+    long p99 = histogram.percentile(99);
+    assertTrue(p99 >= 990 && p99 <= 1000);
+    assertEquals(1, histogram.percentile(0));
+
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.percentile(100));
+
+    histogram.reset();
+    assertEquals(0, histogram.count());
+    assertEquals(0, histogram.percentile(50));
+  }
+
+  @Test
+  public void testMetricsHookSerialization() {
+    Serializer serializer = SerializerFactory.getSerializer(ComponentHook.class);
+    JsonObject json = serializer.serializeToObject(new MetricsHook("metrics", 5000).setRegistryEnabled(true));
+    MetricsHook hook = (MetricsHook) serializer.deserializeObject(json, ComponentHook.class);
+    assertEquals(5000, hook.getFlushInterval());
+    assertTrue(hook.isRegistryEnabled());
+    assertFalse(new MetricsHook("metrics").isRegistryEnabled());
+    assertEquals(MetricsHook.DEFAULT_FLUSH_INTERVAL, new MetricsHook("metrics").getFlushInterval());
+  }
+
+  @Test
+  public void testProfilingHook() {
+    ProfilingHook hook = new ProfilingHook(10).setSlowest(2);
+    for (int i = 0; i < 100; i++) {
+      hook.record("in", "fast", 1000000);
+    }
+    hook.record("slow", "slow1", 50000000);
+    hook.record("slow", "slow2", 60000000);
+    hook.record("slow", "slow3", 20000000);
+    hook.check();
+
+    JsonObject profile = hook.profile();
+    assertTrue(hook.isSlow());
+    assertFalse(profile.getObject("ports").getObject("in").getBoolean("slow"));
+    assertTrue(profile.getObject("ports").getObject("slow").getBoolean("slow"));
+    assertEquals(2, profile.getArray("slowest").size());
+    for (Object slow : profile.getArray("slowest")) {
+      assertTrue(((JsonObject) slow).getLong("time") >= 50000);
+    }
+
+    // Histograms are reset after each check.
+    hook.record("in", "fast", 1000000);
+    hook.check();
+    assertFalse(hook.isSlow());
+  }
+
+  private static JsonObject report(String instance, String component, long sent, long received, long queued) {
+    return new JsonObject()
+        .putString(InstanceStatsReporter.STATS_INSTANCE, instance)
+        .putString(InstanceStatsReporter.STATS_COMPONENT, component)
+        .putNumber(InstanceStatsReporter.STATS_SENT, sent)
+        .putNumber(InstanceStatsReporter.STATS_RECEIVED, received)
+        .putNumber(InstanceStatsReporter.STATS_QUEUED, queued)
+        .putNumber(InstanceStatsReporter.STATS_PAUSED, 0);
+  }
+
+  @Test
+  public void testNetworkMetricsRollup() throws Exception {
+    NetworkMetrics metrics = new NetworkMetrics(null, "test");
+    metrics.handleReport(report("test.foo-1", "foo", 10, 5, 3)
+        .putObject(InstanceStatsReporter.STATS_LATENCY, new JsonObject().putNumber("count", 1).putNumber("mean", 10).putNumber("p99", 10))
+        .putObject(InstanceStatsReporter.STATS_EDGES, new JsonObject()
+            .putObject("test.foo-1:out->test.bar-1:in", new JsonObject()
+                .putNumber(InstanceStatsReporter.STATS_SENT, 10)
+                .putNumber(InstanceStatsReporter.STATS_QUEUED, 2)
+                .putNumber(InstanceStatsReporter.STATS_PAUSED, 4))));
+    metrics.handleReport(report("test.foo-2", "foo", 20, 15, 1)
+        .putObject(InstanceStatsReporter.STATS_LATENCY, new JsonObject().putNumber("count", 3).putNumber("mean", 30).putNumber("p99", 50))
+        .putObject(InstanceStatsReporter.STATS_PROFILE, new JsonObject().putBoolean("slow", true)));
+    metrics.handleReport(report("test.bar-1", "bar", 0, 10, 7));
+    metrics.handleReport(new JsonObject().putString(InstanceStatsReporter.STATS_INSTANCE, "test.baz-1"));
+
+    JsonObject rollup = metrics.rollup();
+    JsonObject foo = rollup.getObject("components").getObject("foo");
+    assertEquals(2, foo.getInteger("instances").intValue());
+    assertEquals(30, foo.getLong("sent").longValue());
+    assertEquals(20, foo.getLong("received").longValue());
+    assertEquals(4, foo.getLong("queued").longValue());
+    assertTrue(foo.getBoolean("slow"));
+    assertEquals(4, foo.getObject("latency").getLong("count").longValue());
+    assertEquals(25, foo.getObject("latency").getNumber("mean").doubleValue(), 0);
+    assertEquals(50, foo.getObject("latency").getLong("p99").longValue());
+    JsonObject bar = rollup.getObject("components").getObject("bar");
+    assertFalse(bar.getBoolean("slow"));
+    assertNull(bar.getObject("latency"));
+    assertNull(rollup.getObject("components").getObject("baz"));
+    JsonObject edge = rollup.getObject("connections").getObject("test.foo-1:out->test.bar-1:in");
+    assertEquals(10, edge.getLong("sent").longValue());
+    assertEquals(2, edge.getLong("queued").longValue());
+    assertEquals(4, edge.getLong("paused").longValue());
+    JsonObject network = rollup.getObject("network");
+    assertEquals(30, network.getLong("sent").longValue());
+    assertEquals(30, network.getLong("received").longValue());
+    assertEquals(11, network.getLong("queued").longValue());
+
+    // Counts are reset by each rollup while the latest queue depths are kept.
+    rollup = metrics.rollup();
+    foo = rollup.getObject("components").getObject("foo");
+    assertEquals(0, foo.getLong("sent").longValue());
+    assertEquals(4, foo.getLong("queued").longValue());
+
+    // The history is bounded.
+    for (int i = 0; i < NetworkMetrics.HISTORY_SIZE; i++) {
+      metrics.rollup();
+    }
+    assertEquals(NetworkMetrics.HISTORY_SIZE, metrics.history().size());
+
+    // Reports from instances that stop reporting are expired.
+    Thread.sleep(NetworkMetrics.REPORT_EXPIRATION * InstanceStatsReporter.REPORT_INTERVAL + 100);
+    metrics.handleReport(report("test.foo-1", "foo", 1, 1, 3));
+    rollup = metrics.rollup();
+    foo = rollup.getObject("components").getObject("foo");
+    assertEquals(1, foo.getInteger("instances").intValue());
+    assertEquals(3, foo.getLong("queued").longValue());
+    assertNull(rollup.getObject("components").getObject("bar"));
+    assertEquals(3, rollup.getObject("network").getLong("queued").longValue());
+  }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.kuujo.vertigo.cluster.data.AsyncMap;
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.impl.NearCachedAsyncMap;
+import net.kuujo.vertigo.cluster.data.impl.WatchDispatcher;
+
+import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.eventbus.EventBus;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.impl.DefaultFutureResult;
+
+/**
+ * Near cache tests.
+ *
+ * @author Jordan Halterman
+ */
+public class NearCacheTest {
+
+  /**
+   * Stubs a Vert.x instance with a local event bus and an in-memory map.
+   */
+  private static class TestCluster implements InvocationHandler {
+    private final Map<String, List<Handler<Message<Object>>>> handlers = new HashMap<>();
+    private final Map<Object, Object> data = new HashMap<>();
+    private int reads;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "eventBus":
+          return Proxy.newProxyInstance(EventBus.class.getClassLoader(), new Class<?>[]{EventBus.class}, this);
+        case "registerHandler":
+          if (!handlers.containsKey(args[0])) {
+            handlers.put((String) args[0], new ArrayList<Handler<Message<Object>>>());
+          }
+          handlers.get(args[0]).add((Handler<Message<Object>>) args[1]);
+          if (args.length > 2 && args[2] != null) {
+            new DefaultFutureResult<Void>((Void) null).setHandler((Handler<AsyncResult<Void>>) args[2]);
+          }
+          return proxy;
+        case "unregisterHandler":
+          if (handlers.containsKey(args[0])) {
+            handlers.get(args[0]).remove(args[1]);
+          }
+          return proxy;
+        case "publish":
+          publish((String) args[0], args[1]);
+          return proxy;
+        case "name":
+          return "test";
+        case "get":
+          reads++;
+          new DefaultFutureResult<Object>(data.get(args[0])).setHandler((Handler<AsyncResult<Object>>) args[1]);
+          return null;
+        case "put":
+          Object previous = data.put(args[0], args[1]);
+          if (args.length > 2 && args[args.length - 1] instanceof Handler) {
+            new DefaultFutureResult<Object>(previous).setHandler((Handler<AsyncResult<Object>>) args[args.length - 1]);
+          }
+          return null;
+        default:
+          return null;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void publish(String address, final Object body) {
+      if (handlers.containsKey(address)) {
+        Message<Object> message = (Message<Object>) Proxy.newProxyInstance(Message.class.getClassLoader(), new Class<?>[]{Message.class}, new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            return method.getName().equals("body") ? body : null;
+          }
+        });
+        for (Handler<Message<Object>> handler : new ArrayList<>(handlers.get(address))) {
+          handler.handle(message);
+        }
+      }
+    }
+
+    private int watchers() {
+      int count = 0;
+      for (List<Handler<Message<Object>>> list : handlers.values()) {
+        count += list.size();
+      }
+      return count;
+    }
+
+    private Vertx vertx() {
+      return (Vertx) Proxy.newProxyInstance(Vertx.class.getClassLoader(), new Class<?>[]{Vertx.class}, this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> AsyncMap<K, V> map() {
+      return (AsyncMap<K, V>) Proxy.newProxyInstance(AsyncMap.class.getClassLoader(), new Class<?>[]{AsyncMap.class}, this);
+    }
+  }
+
+  /**
+   * Reads a value from a map whose operations complete synchronously.
+   */
+  private static <K, V> V get(AsyncMap<K, V> map, K key) {
+    final List<V> values = new ArrayList<>();
+    map.get(key, new Handler<AsyncResult<V>>() {
+      @Override
+      public void handle(AsyncResult<V> result) {
+        assertTrue(result.succeeded());
+        values.add(result.result());
+      }
+    });
+    assertEquals(1, values.size());
+    return values.get(0);
+  }
+
+  @Test
+  public void testCacheHits() {
+    TestCluster cluster = new TestCluster();
+    cluster.data.put("foo", "bar");
+    NearCachedAsyncMap<String, String> map = new NearCachedAsyncMap<String, String>(cluster.<String, String>map(), cluster.vertx(), 10, 0);
+    assertEquals("bar", get(map, "foo"));
+    assertEquals("bar", get(map, "foo"));
+    assertEquals("bar", get(map, "foo"));
+    assertNull(get(map, "baz"));
+    assertNull(get(map, "baz"));
+    assertEquals(2, cluster.reads);
+    assertEquals(3, map.hits());
+    assertEquals(2, map.misses());
+    assertEquals(2, map.cached());
+  }
+
+  @Test
+  public void testInvalidation() {
+    TestCluster cluster = new TestCluster();
+    cluster.data.put("foo", "bar");
+    NearCachedAsyncMap<String, String> map = new NearCachedAsyncMap<String, String>(cluster.<String, String>map(), cluster.vertx(), 10, 0);
+    assertEquals("bar", get(map, "foo"));
+
+    // A change published by another instance's watchable map invalidates the key.
+    cluster.data.put("foo", "baz");
+    cluster.publish(WatchDispatcher.address("test", "foo"), WatchDispatcher.createEvent(MapEvent.Type.UPDATE, "foo", "baz"));
+    assertEquals(1, map.invalidations());
+    assertEquals(0, cluster.watchers());
+    assertEquals("baz", get(map, "foo"));
+
+    // Writes through the cache invalidate the key locally.
+    map.put("foo", "foobar");
+    assertEquals("foobar", get(map, "foo"));
+    assertEquals(3, cluster.reads);
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    TestCluster cluster = new TestCluster();
+    for (int i = 0; i < 5; i++) {
+      cluster.data.put(String.valueOf(i), i);
+    }
+    NearCachedAsyncMap<String, Integer> map = new NearCachedAsyncMap<String, Integer>(cluster.<String, Integer>map(), cluster.vertx(), 3, 0);
+    for (int i = 0; i < 5; i++) {
+      get(map, String.valueOf(i));
+    }
+    assertEquals(3, map.cached());
+    assertEquals(2, map.evictions());
+    assertEquals(3, cluster.watchers());
+    get(map, "4");
+    assertEquals(1, map.hits());
+    get(map, "0");
+    assertEquals(6, cluster.reads);
+
+    NearCachedAsyncMap<String, Integer> expiring = new NearCachedAsyncMap<String, Integer>(cluster.<String, Integer>map(), cluster.vertx(), 3, 1);
+    get(expiring, "1");
+    Thread.sleep(5);
+    get(expiring, "1");
+    assertEquals(0, expiring.hits());
+    assertEquals(2, expiring.misses());
+  }
+
+}
@@ -19,16 +19,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import net.kuujo.vertigo.Config;
 import net.kuujo.vertigo.Vertigo;
 import net.kuujo.vertigo.component.ComponentConfig;
 import net.kuujo.vertigo.component.ModuleConfig;
+import net.kuujo.vertigo.component.ScalingConfig;
 import net.kuujo.vertigo.component.VerticleConfig;
 import net.kuujo.vertigo.component.impl.DefaultModuleConfig;
 import net.kuujo.vertigo.component.impl.DefaultVerticleConfig;
 import net.kuujo.vertigo.io.connection.ConnectionConfig;
+import net.kuujo.vertigo.io.connection.SpillConfig;
 import net.kuujo.vertigo.io.connection.impl.DefaultConnectionConfig;
 import net.kuujo.vertigo.network.NetworkConfig;
 import net.kuujo.vertigo.network.impl.DefaultNetworkConfig;
+import net.kuujo.vertigo.util.serialization.SerializerFactory;
 import net.kuujo.vertigo.util.Configs;
 
 import org.junit.Test;
@@ -560,4 +564,114 @@ public class NetworkTest {
     assertEquals("notin", connection.getTarget().getPort());
   }
 
+  @Test
+  public void testAddScalableVerticleFromJson() {
+    JsonObject json = new JsonObject().putString(NetworkConfig.NETWORK_NAME, "test");
+    JsonObject jsonWorker = new JsonObject()
+        .putString(VerticleConfig.COMPONENT_NAME, "worker")
+        .putString(VerticleConfig.COMPONENT_TYPE, VerticleConfig.COMPONENT_TYPE_VERTICLE)
+        .putString(VerticleConfig.VERTICLE_MAIN, "test.py")
+        .putObject(VerticleConfig.COMPONENT_SCALING, new JsonObject()
+            .putBoolean(ScalingConfig.SCALING_ENABLED, true)
+            .putNumber(ScalingConfig.SCALING_MIN_INSTANCES, 2)
+            .putNumber(ScalingConfig.SCALING_MAX_INSTANCES, 8)
+            .putNumber(ScalingConfig.SCALING_SCALE_OUT_LAG, 500)
+            .putBoolean(ScalingConfig.SCALING_DRY_RUN, true));
+    json.putObject(NetworkConfig.NETWORK_COMPONENTS, new JsonObject().putObject("worker", jsonWorker));
+    NetworkConfig network = new Vertigo(null, null).createNetwork(json);
+    VerticleConfig verticle = network.getComponent("worker");
+    ScalingConfig scaling = verticle.getScaling();
+    assertTrue(scaling.isEnabled());
+    assertEquals(2, scaling.getMinInstances());
+    assertEquals(8, scaling.getMaxInstances());
+    assertEquals(500, scaling.getScaleOutLag());
+    assertEquals(10, scaling.getScaleInLag());
+    assertTrue(scaling.isDryRun());
+  }
+
+  @Test
+  public void testScalingDefaults() {
+    VerticleConfig verticle = new DefaultVerticleConfig("test", "test.py", new DefaultNetworkConfig("test"));
+    assertFalse(verticle.getScaling().isEnabled());
+    assertEquals(1, verticle.getScaling().getMinInstances());
+    assertEquals(1, verticle.getScaling().getMaxInstances());
+    try {
+      verticle.getScaling().setMaxInstances(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testCheckpointInterval() {
+    JsonObject json = new JsonObject()
+        .putString(NetworkConfig.NETWORK_NAME, "test")
+        .putNumber(NetworkConfig.NETWORK_CHECKPOINT_INTERVAL, 5000);
+    NetworkConfig network = new Vertigo(null, null).createNetwork(json);
+    assertEquals(5000, network.getCheckpointInterval());
+    assertEquals(5000, Configs.createNetwork(SerializerFactory.getSerializer(Config.class).serializeToObject(network)).getCheckpointInterval());
+    assertEquals(0, new DefaultNetworkConfig("test").getCheckpointInterval());
+    NetworkConfig merged = Configs.mergeNetworks(new DefaultNetworkConfig("test"), network);
+    assertEquals(5000, merged.getCheckpointInterval());
+  }
+
+  @Test
+  public void testMetricsInterval() {
+    JsonObject json = new JsonObject()
+        .putString(NetworkConfig.NETWORK_NAME, "test")
+        .putNumber(NetworkConfig.NETWORK_METRICS_INTERVAL, 10000);
+    NetworkConfig network = new Vertigo(null, null).createNetwork(json);
+    assertEquals(10000, network.getMetricsInterval());
+    assertEquals(10000, Configs.createNetwork(SerializerFactory.getSerializer(Config.class).serializeToObject(network)).getMetricsInterval());
+    assertEquals(0, new DefaultNetworkConfig("test").getMetricsInterval());
+    NetworkConfig merged = Configs.mergeNetworks(new DefaultNetworkConfig("test"), network);
+    assertEquals(10000, merged.getMetricsInterval());
+  }
+
+  @Test
+  public void testEventLoopPlacementFromJson() {
+    JsonObject json = new JsonObject().putString(NetworkConfig.NETWORK_NAME, "test");
+    JsonObject jsonWorker = new JsonObject()
+        .putString(ComponentConfig.COMPONENT_NAME, "worker")
+        .putString(ComponentConfig.COMPONENT_TYPE, ComponentConfig.COMPONENT_TYPE_VERTICLE)
+        .putString(VerticleConfig.VERTICLE_MAIN, "test.py")
+        .putNumber(ComponentConfig.COMPONENT_LOAD, 4)
+        .putNumber(ComponentConfig.COMPONENT_EVENT_LOOP, 2);
+    json.putObject(NetworkConfig.NETWORK_COMPONENTS, new JsonObject().putObject("worker", jsonWorker));
+    NetworkConfig network = new Vertigo(null, null).createNetwork(json);
+    VerticleConfig verticle = network.getComponent("worker");
+    assertEquals(4, verticle.getLoad());
+    assertEquals(2, verticle.getEventLoop());
+    VerticleConfig copy = Configs.createNetwork(SerializerFactory.getSerializer(Config.class).serializeToObject(network)).getComponent("worker");
+    assertEquals(4, copy.getLoad());
+    assertEquals(2, copy.getEventLoop());
+
+    VerticleConfig defaults = new DefaultVerticleConfig("test", "test.py", new DefaultNetworkConfig("test"));
+    assertEquals(1, defaults.getLoad());
+    assertEquals(-1, defaults.getEventLoop());
+    try {
+      defaults.setLoad(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public void testConnectionSpillFromJson() {
+    JsonObject json = new JsonObject().putString(NetworkConfig.NETWORK_NAME, "test");
+    JsonObject jsonConnection = new JsonObject()
+        .putObject("source", new JsonObject().putString("component", "foo"))
+        .putObject("target", new JsonObject().putString("component", "bar"))
+        .putObject(ConnectionConfig.CONNECTION_SPILL, new JsonObject()
+            .putBoolean(SpillConfig.SPILL_ENABLED, true)
+            .putNumber(SpillConfig.SPILL_MAX_SIZE, 1024 * 1024));
+    json.putArray("connections", new JsonArray().add(jsonConnection));
+    NetworkConfig network = new Vertigo(null, null).createNetwork(json);
+    ConnectionConfig connection = network.getConnections().iterator().next();
+    assertTrue(connection.getSpill().isEnabled());
+    assertEquals(1024 * 1024, connection.getSpill().getMaxSize());
+    assertEquals(1024 * 1024 * 4, connection.getSpill().getSegmentSize());
+    assertFalse(new DefaultConnectionConfig().getSpill().isEnabled());
+  }
+
 }
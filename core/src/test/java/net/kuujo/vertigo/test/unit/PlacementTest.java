@@ -0,0 +1,204 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.kuujo.vertigo.cluster.Node;
+import net.kuujo.vertigo.impl.ContextBuilder;
+import net.kuujo.vertigo.network.NetworkConfig;
+import net.kuujo.vertigo.network.NetworkContext;
+import net.kuujo.vertigo.network.impl.DefaultNetworkConfig;
+import net.kuujo.vertigo.network.manager.PlacementEngine;
+import net.kuujo.vertigo.platform.impl.EventLoopBalancer;
+
+import org.junit.Test;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Instance placement tests.
+ *
+ * @author Jordan Halterman
+ */
+public class PlacementTest {
+
+  private static Node node(final String address) {
+    return (Node) Proxy.newProxyInstance(Node.class.getClassLoader(), new Class<?>[]{Node.class}, new InvocationHandler() {
+      @Override
+      public Object invoke(Object proxy, Method method, Object[] args) {
+        if (method.getName().equals("address")) {
+          return address;
+        }
+        return null;
+      }
+    });
+  }
+
+  private static List<Node> nodes(String... addresses) {
+    List<Node> nodes = new ArrayList<>();
+    for (String address : addresses) {
+      nodes.add(node(address));
+    }
+    return nodes;
+  }
+
+  @Test
+  public void testSpreadReplicas() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("worker", "worker.py", 2);
+    NetworkContext context = ContextBuilder.buildContext(network, "vertigo");
+    PlacementEngine placement = new PlacementEngine();
+    placement.update(context);
+    List<Node> nodes = nodes("a", "b");
+    Node first = placement.select(context.component("worker").instance(1), nodes);
+    Node second = placement.select(context.component("worker").instance(2), nodes);
+    assertFalse(first.address().equals(second.address()));
+  }
+
+  @Test
+  public void testColocateConnectedInstances() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("feeder", "feeder.py");
+    network.addVerticle("other", "other.py");
+    network.addVerticle("worker", "worker.py");
+    network.createConnection("feeder", "worker");
+    NetworkContext context = ContextBuilder.buildContext(network, "vertigo");
+    PlacementEngine placement = new PlacementEngine();
+    placement.update(context);
+    placement.assign(context.component("other").instance(1).address(), "a");
+    placement.assign(context.component("feeder").instance(1).address(), "b");
+    Node node = placement.select(context.component("worker").instance(1), nodes("a", "b", "c"));
+    assertEquals("b", node.address());
+  }
+
+  @Test
+  public void testAntiAffinity() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("feeder", "feeder.py");
+    network.addVerticle("worker", "worker.py").addAntiAffinity("feeder");
+    network.createConnection("feeder", "worker");
+    NetworkContext context = ContextBuilder.buildContext(network, "vertigo");
+    PlacementEngine placement = new PlacementEngine();
+    placement.update(context);
+    placement.assign(context.component("feeder").instance(1).address(), "a");
+    Node node = placement.select(context.component("worker").instance(1), nodes("a", "b"));
+    assertEquals("b", node.address());
+  }
+
+  @Test
+  public void testAntiAffinityFallback() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("feeder", "feeder.py");
+    network.addVerticle("worker", "worker.py").addAntiAffinity("feeder");
+    NetworkContext context = ContextBuilder.buildContext(network, "vertigo");
+    PlacementEngine placement = new PlacementEngine();
+    placement.update(context);
+    placement.assign(context.component("feeder").instance(1).address(), "a");
+    Node node = placement.select(context.component("worker").instance(1), nodes("a"));
+    assertEquals("a", node.address());
+  }
+
+  @Test
+  public void testAffinity() {
+    NetworkConfig network = new DefaultNetworkConfig("test");
+    network.addVerticle("cache", "cache.py");
+    network.addVerticle("worker", "worker.py").addAffinity("cache");
+    NetworkContext context = ContextBuilder.buildContext(network, "vertigo");
+    PlacementEngine placement = new PlacementEngine();
+    placement.update(context);
+    placement.assign(context.component("cache").instance(1).address(), "b");
+    Node node = placement.select(context.component("worker").instance(1), nodes("a", "b"));
+    assertEquals("b", node.address());
+  }
+
+  private static JsonObject loopConfig(String address, int load) {
+    return new JsonObject()
+        .putObject("__loop__", new JsonObject().putNumber("load", load))
+        .putObject("__context__", new JsonObject().putString("address", address));
+  }
+
+  private static JsonObject loopReport(EventLoopBalancer balancer, int index) {
+    return balancer.report().get(index);
+  }
+
+  @Test
+  public void testEventLoopBookkeeping() throws Exception {
+    Vertx vertx = VertxFactory.newVertx();
+    try {
+      EventLoopBalancer balancer = new EventLoopBalancer(vertx);
+      assertTrue(balancer.isEnabled());
+      int loops = balancer.report().size();
+
+      // Instances without placement hints are not placed.
+      assertEquals(-1, balancer.place(new JsonObject()));
+
+      JsonObject config = loopConfig("test.foo-1", 2);
+      int index = balancer.place(config);
+      assertTrue(index >= 0 && index < loops);
+      balancer.assign("foo", index, config);
+      JsonObject loop = loopReport(balancer, index);
+      assertEquals(2, loop.getInteger("load").intValue());
+      assertEquals("test.foo-1", loop.getArray("instances").get(0));
+
+      // The next instance is placed on a less loaded loop.
+      JsonObject other = loopConfig("test.bar-1", 1);
+      int otherIndex = balancer.place(other);
+      if (loops > 1) {
+        assertFalse(index == otherIndex);
+      }
+      balancer.assign("bar", otherIndex, other);
+
+      // Pinned instances are placed on their pinned loop.
+      JsonObject pinned = loopConfig("test.baz-1", 1);
+      pinned.getObject("__loop__").putNumber("event-loop", index);
+      assertEquals(index, balancer.place(pinned));
+
+      // Once the loops have been probed the report reflects the actual placement.
+      Thread.sleep(500);
+      String thread = loopReport(balancer, otherIndex).getString("thread");
+      assertNotNull(thread);
+      vertx.sharedData().getMap(EventLoopBalancer.LOOPS_MAP).put("test.foo-1", thread);
+      JsonObject actual = loopReport(balancer, otherIndex);
+      assertEquals(2, actual.getArray("instances").size());
+      assertEquals(3, actual.getInteger("load").intValue());
+
+      balancer.release("foo");
+      assertNull(vertx.sharedData().getMap(EventLoopBalancer.LOOPS_MAP).get("test.foo-1"));
+      assertEquals(1, loopReport(balancer, otherIndex).getInteger("load").intValue());
+      balancer.release("bar");
+      for (int i = 0; i < loops; i++) {
+        assertEquals(0, loopReport(balancer, i).getArray("instances").size());
+        assertEquals(0, loopReport(balancer, i).getInteger("load").intValue());
+      }
+      balancer.stop();
+    } finally {
+      vertx.stop();
+    }
+  }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import net.kuujo.vertigo.io.OutputCollector;
+import net.kuujo.vertigo.io.group.OutputGroup;
+import net.kuujo.vertigo.io.logging.PortLogger;
+import net.kuujo.vertigo.io.logging.PortLoggerFactory;
+import net.kuujo.vertigo.io.port.OutputPort;
+
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+
+/**
+ * Port logger tests.
+ *
+ * @author Jordan Halterman
+ */
+public class PortLoggerTest {
+
+  /**
+   * Output collector stub that records messages and groups sent to each port.
+   */
+  private static class TestOutput implements InvocationHandler {
+    private final Map<String, List<Object>> messages = new HashMap<>();
+    private final Map<String, List<List<Object>>> groups = new HashMap<>();
+    private final Vertx vertx;
+    private Handler<Long> timerHandler;
+    private long timerDelay;
+    private boolean connected = true;
+
+    private TestOutput() {
+      vertx = (Vertx) Proxy.newProxyInstance(Vertx.class.getClassLoader(), new Class<?>[]{Vertx.class}, new InvocationHandler() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(Object proxy, Method method, Object[] args) {
+          switch (method.getName()) {
+            case "setTimer":
+              timerDelay = (long) args[0];
+              timerHandler = (Handler<Long>) args[1];
+              return 1L;
+            case "cancelTimer":
+              timerHandler = null;
+              return true;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        }
+      });
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "port":
+          return port((String) args[0]);
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        default:
+          return null;
+      }
+    }
+
+    private OutputCollector output() {
+      return (OutputCollector) Proxy.newProxyInstance(OutputCollector.class.getClassLoader(), new Class<?>[]{OutputCollector.class}, this);
+    }
+
+    private OutputPort port(final String name) {
+      messages.put(name, new ArrayList<Object>());
+      groups.put(name, new ArrayList<List<Object>>());
+      return (OutputPort) Proxy.newProxyInstance(OutputPort.class.getClassLoader(), new Class<?>[]{OutputPort.class}, new InvocationHandler() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object invoke(Object proxy, Method method, Object[] args) {
+          switch (method.getName()) {
+            case "vertx":
+              return vertx;
+            case "isConnected":
+              return connected;
+            case "send":
+              messages.get(name).add(args[0]);
+              return proxy;
+            case "group":
+              assertEquals(PortLogger.LOG_GROUP, args[0]);
+              List<Object> group = new ArrayList<>();
+              groups.get(name).add(group);
+              ((Handler<OutputGroup>) args[args.length - 1]).handle(group(group));
+              return proxy;
+            default:
+              return null;
+          }
+        }
+      });
+    }
+
+    private OutputGroup group(final List<Object> messages) {
+      return (OutputGroup) Proxy.newProxyInstance(OutputGroup.class.getClassLoader(), new Class<?>[]{OutputGroup.class}, new InvocationHandler() {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+          if (method.getName().equals("send")) {
+            messages.add(args[0]);
+          }
+          return proxy;
+        }
+      });
+    }
+
+    private void tick() throws Exception {
+      if (timerHandler != null) {
+        Thread.sleep(timerDelay);
+        Handler<Long> handler = timerHandler;
+        timerHandler = null;
+        handler.handle(1L);
+      }
+    }
+  }
+
+  @Test
+  public void testLevelGating() {
+    TestOutput output = new TestOutput();
+    PortLogger logger = PortLoggerFactory.getLogger("test-levels", output.output());
+    java.util.logging.Logger.getLogger("test-levels").setLevel(Level.WARNING);
+    logger.info("info");
+    logger.debug("debug");
+    logger.warn("warn");
+    logger.error("error");
+    assertTrue(output.messages.get(PortLogger.INFO_PORT).isEmpty());
+    assertTrue(output.messages.get(PortLogger.DEBUG_PORT).isEmpty());
+    assertEquals(1, output.messages.get(PortLogger.WARN_PORT).size());
+    assertEquals(1, output.messages.get(PortLogger.ERROR_PORT).size());
+
+    java.util.logging.Logger.getLogger("test-levels").setLevel(Level.ALL);
+    logger.debug("debug");
+    logger.trace("trace");
+    assertEquals("debug", output.messages.get(PortLogger.DEBUG_PORT).get(0));
+    assertEquals("trace", output.messages.get(PortLogger.TRACE_PORT).get(0));
+
+    // Messages are never sent to disconnected ports.
+    output.connected = false;
+    logger.error("error");
+    assertEquals(1, output.messages.get(PortLogger.ERROR_PORT).size());
+  }
+
+  @Test
+  public void testMaxRate() {
+    TestOutput output = new TestOutput();
+    PortLogger logger = PortLoggerFactory.getLogger("test-rate", output.output());
+    logger.setMaxRate(PortLogger.ERROR_PORT, 5);
+    assertEquals(5, logger.getMaxRate(PortLogger.ERROR_PORT));
+    assertEquals(0, logger.getMaxRate(PortLogger.WARN_PORT));
+    for (int i = 0; i < 20; i++) {
+      logger.error("error" + i);
+      logger.warn("warn" + i);
+    }
+
+    // Messages beyond the limit are dropped from the rate limited port only.
+    // The messages may span two one second windows.
+    List<Object> errors = output.messages.get(PortLogger.ERROR_PORT);
+    assertTrue(errors.size() >= 5 && errors.size() <= 10);
+    assertEquals("error0", errors.get(0));
+    assertEquals(20, output.messages.get(PortLogger.WARN_PORT).size());
+  }
+
+  @Test
+  public void testBatching() throws Exception {
+    TestOutput output = new TestOutput();
+    PortLogger logger = PortLoggerFactory.getLogger("test-batch", output.output());
+    logger.setBatchInterval(50);
+    logger.error("foo");
+    logger.error("bar");
+    logger.warn("baz");
+    assertTrue(output.messages.get(PortLogger.ERROR_PORT).isEmpty());
+    assertTrue(output.groups.get(PortLogger.ERROR_PORT).isEmpty());
+
+    // A single timer flushes every port's batch as a group.
+    output.tick();
+    assertEquals(1, output.groups.get(PortLogger.ERROR_PORT).size());
+    assertEquals(2, output.groups.get(PortLogger.ERROR_PORT).get(0).size());
+    assertEquals("foo", output.groups.get(PortLogger.ERROR_PORT).get(0).get(0));
+    assertEquals("bar", output.groups.get(PortLogger.ERROR_PORT).get(0).get(1));
+    assertEquals(1, output.groups.get(PortLogger.WARN_PORT).size());
+    assertTrue(output.groups.get(PortLogger.FATAL_PORT).isEmpty());
+    assertTrue(output.messages.get(PortLogger.ERROR_PORT).isEmpty());
+
+    // Disabling batching flushes pending messages immediately.
+    logger.error("foobar");
+    logger.setBatchInterval(0);
+    assertEquals(2, output.groups.get(PortLogger.ERROR_PORT).size());
+    assertEquals("foobar", output.groups.get(PortLogger.ERROR_PORT).get(1).get(0));
+    logger.error("barbaz");
+    assertEquals("barbaz", output.messages.get(PortLogger.ERROR_PORT).get(0));
+  }
+
+}
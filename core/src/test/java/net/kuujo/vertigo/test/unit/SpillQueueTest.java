@@ -0,0 +1,138 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.kuujo.vertigo.io.connection.impl.OutputConnectionSnapshot;
+import net.kuujo.vertigo.io.connection.impl.SpillQueue;
+
+import org.junit.Test;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Spill queue tests.
+ *
+ * @author Jordan Halterman
+ */
+public class SpillQueueTest {
+
+  private static File tempDirectory() throws Exception {
+    File directory = File.createTempFile("vertigo-spill", "");
+    directory.delete();
+    directory.mkdirs();
+    directory.deleteOnExit();
+    return directory;
+  }
+
+  @Test
+  public void testSpillInOrder() throws Exception {
+    File directory = tempDirectory();
+    SpillQueue queue = new SpillQueue(directory, "test", 1024, 1024 * 1024);
+    for (int i = 1; i <= 1000; i++) {
+      queue.add(new JsonObject().putNumber("id", i).putString("body", "Hello world!"));
+    }
+    assertEquals(1000, queue.size());
+    assertEquals(1000, queue.spilledMessages());
+    assertTrue(queue.bytes() > 0);
+    assertFalse(queue.isFull());
+
+    List<JsonObject> messages = queue.messages();
+    assertEquals(1000, messages.size());
+    assertEquals(1, messages.get(0).getLong("id").longValue());
+
+    for (int i = 1; i <= 500; i++) {
+      assertEquals(i, queue.poll().getLong("id").longValue());
+    }
+
+    // Add more messages, reusing the recycled segments.
+    for (int i = 1001; i <= 1500; i++) {
+      queue.add(new JsonObject().putNumber("id", i).putString("body", "Hello world!"));
+    }
+    for (int i = 501; i <= 1500; i++) {
+      assertEquals(i, queue.poll().getLong("id").longValue());
+    }
+    assertTrue(queue.isEmpty());
+    assertNull(queue.poll());
+    assertEquals(0, queue.bytes());
+    assertTrue(directory.list().length <= 3);
+    queue.close();
+    assertEquals(0, directory.list().length);
+  }
+
+  @Test
+  public void testSpillOverflow() throws Exception {
+    SpillQueue queue = new SpillQueue(tempDirectory(), "test", 1024, 2048);
+    for (int i = 1; i <= 200; i++) {
+      queue.add(new JsonObject().putNumber("id", i).putString("body", "Hello world!"));
+    }
+    assertTrue(queue.isFull());
+    assertFalse(queue.isDrained());
+    assertEquals(200, queue.size());
+    for (int i = 1; i <= 200; i++) {
+      assertEquals(i, queue.poll().getLong("id").longValue());
+    }
+    assertTrue(queue.isEmpty());
+    assertTrue(queue.isDrained());
+    queue.close();
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    SpillQueue queue = new SpillQueue(tempDirectory(), "test", 1024, 4096);
+    for (int i = 3; i <= 300; i++) {
+      queue.add(new JsonObject().putNumber("id", i).putString("body", "Hello world!"));
+    }
+    assertTrue(queue.isFull());
+    List<JsonObject> messages = new ArrayList<>();
+    messages.add(new JsonObject().putNumber("id", 1));
+    messages.add(new JsonObject().putNumber("id", 2));
+    OutputConnectionSnapshot snapshot = new OutputConnectionSnapshot("test", 301, messages, queue.snapshot());
+
+    // Drain the queue and refill it. Segments referenced by the snapshot
+    // must not be reused.
+    for (int i = 3; i <= 300; i++) {
+      assertEquals(i, queue.poll().getLong("id").longValue());
+    }
+    for (int i = 301; i <= 600; i++) {
+      queue.add(new JsonObject().putNumber("id", i).putString("body", "Goodbye world!"));
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    snapshot.writeTo(new DataOutputStream(bytes));
+    queue.close();
+
+    OutputConnectionSnapshot restored = OutputConnectionSnapshot.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertEquals("test", restored.address());
+    assertEquals(301, restored.next());
+    assertEquals(300, restored.messages().size());
+    for (int i = 0; i < 300; i++) {
+      assertEquals(i + 1, restored.messages().get(i).getLong("id").longValue());
+    }
+  }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.kuujo.vertigo.util.TimerWheel;
+
+import org.junit.Test;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+
+/**
+ * Timer wheel tests.
+ *
+ * @author Jordan Halterman
+ */
+public class TimerWheelTest {
+
+  /**
+   * Vert.x stub that records the wheel's timer so ticks can be driven manually.
+   */
+  private static class TestTimers implements InvocationHandler {
+    private Handler<Long> tickHandler;
+    private long delay;
+    private int started;
+    private int cancelled;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "setTimer":
+          delay = (long) args[0];
+          tickHandler = (Handler<Long>) args[1];
+          return (long) ++started;
+        case "cancelTimer":
+          cancelled++;
+          tickHandler = null;
+          return true;
+        default:
+          return null;
+      }
+    }
+
+    private Vertx vertx() {
+      return (Vertx) Proxy.newProxyInstance(Vertx.class.getClassLoader(), new Class<?>[]{Vertx.class}, this);
+    }
+
+    private void tick() throws Exception {
+      if (tickHandler != null) {
+        Thread.sleep(delay);
+        Handler<Long> handler = tickHandler;
+        tickHandler = null;
+        handler.handle(1L);
+      }
+    }
+  }
+
+  @Test
+  public void testTimers() throws Exception {
+    TestTimers timers = new TestTimers();
+    TimerWheel wheel = new TimerWheel(timers.vertx(), 1, 16);
+    final List<Long> fired = new ArrayList<>();
+    Handler<Long> handler = new Handler<Long>() {
+      @Override
+      public void handle(Long timerID) {
+        fired.add(timerID);
+      }
+    };
+
+    long timer1 = wheel.setTimer(1, handler);
+    long timer2 = wheel.setTimer(100, handler);
+    long timer3 = wheel.setTimer(1, handler);
+    assertEquals(1, timers.started);
+    assertEquals(3, wheel.size());
+    assertTrue(wheel.cancelTimer(timer3));
+    assertFalse(wheel.cancelTimer(timer3));
+
+    timers.tick();
+    assertEquals(1, fired.size());
+    assertEquals(timer1, fired.get(0).longValue());
+    assertEquals(1, wheel.size());
+
+    // The second timer is longer than a full rotation of the wheel.
+    while (fired.size() < 2) {
+      timers.tick();
+    }
+    assertEquals(timer2, fired.get(1).longValue());
+    assertEquals(0, wheel.size());
+    assertEquals(null, timers.tickHandler);
+  }
+
+  @Test
+  public void testPeriodicTimer() throws Exception {
+    TestTimers timers = new TestTimers();
+    TimerWheel wheel = new TimerWheel(timers.vertx(), 1, 16);
+    final List<Long> fired = new ArrayList<>();
+    long timer = wheel.setPeriodic(1, new Handler<Long>() {
+      @Override
+      public void handle(Long timerID) {
+        fired.add(timerID);
+      }
+    });
+    for (int i = 0; i < 3; i++) {
+      timers.tick();
+    }
+    assertEquals(3, fired.size());
+    assertEquals(3, wheel.wakeups());
+    assertTrue(wheel.cancelTimer(timer));
+    timers.tick();
+    assertEquals(3, fired.size());
+    assertEquals(1, timers.cancelled);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testWakeups() throws Exception {
+    TestTimers timers = new TestTimers();
+    TimerWheel wheel = new TimerWheel(timers.vertx(), 10, 512);
+    final List<Long> fired = new ArrayList<>();
+    Handler<Long> handler = new Handler<Long>() {
+      @Override
+      public void handle(Long timerID) {
+        fired.add(timerID);
+      }
+    };
+
+    // The wheel is only woken when a timer is due, and scheduling an
+    // earlier timer re-arms the wheel for the earlier deadline.
+    wheel.setTimer(300, handler);
+    wheel.setTimer(50, handler);
+    assertEquals(2, timers.started);
+    assertEquals(1, timers.cancelled);
+    assertTrue(timers.delay <= 50);
+
+    timers.tick();
+    assertEquals(1, fired.size());
+    assertEquals(1, wheel.wakeups());
+    timers.tick();
+    assertEquals(2, fired.size());
+    assertEquals(2, wheel.wakeups());
+    assertEquals(null, timers.tickHandler);
+  }
+
+  @Test
+  public void testInvalidWheelSize() {
+    try {
+      new TimerWheel(new TestTimers().vertx(), 10, 100);
+      fail();
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import net.kuujo.vertigo.hook.TracingHook;
+
+import org.junit.Test;
+import org.vertx.java.core.json.JsonArray;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Tracing hook tests.
+ *
+ * @author Jordan Halterman
+ */
+public class TracingTest {
+
+  @Test
+  public void testSampleRate() {
+    TracingHook hook = new TracingHook(10);
+    int traced = 0;
+    for (int i = 0; i < 100; i++) {
+      if (hook.trace("foo") != null) {
+        traced++;
+      }
+    }
+    assertEquals(10, traced);
+  }
+
+  @Test
+  public void testTracePropagation() {
+    TracingHook source = new TracingHook(1);
+    TracingHook target = new TracingHook(1000);
+
+    JsonObject trace = source.trace("source-target");
+    assertNotNull(trace);
+    JsonArray hops = trace.getArray("hops");
+    assertEquals(1, hops.size());
+
+    target.receive("source-target", trace);
+    assertEquals(1, target.endToEndLatency().count());
+    assertEquals(1, target.edgeLatency("source-target").count());
+    assertNull(target.edgeLatency("other"));
+
+    // Messages sent while handling a traced message carry the trace forward.
+    JsonObject forwarded = target.trace("target-sink");
+    assertEquals(2, forwarded.getArray("hops").size());
+    assertEquals(trace.getLong("origin"), forwarded.getLong("origin"));
+    assertEquals(3, ((JsonArray) forwarded.getArray("hops").get(0)).size());
+    target.trace("target-other");
+    assertEquals(1, target.componentLatency().count());
+
+    target.complete();
+    assertNull(target.trace("target-sink"));
+  }
+
+  @Test(expected=IllegalArgumentException.class)
+  public void testInvalidSampleRate() {
+    new TracingHook(0);
+  }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.vertigo.test.unit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.kuujo.vertigo.cluster.data.MapEvent;
+import net.kuujo.vertigo.cluster.data.impl.WatchDispatcher;
+import net.kuujo.vertigo.util.CountingCompletionHandler;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.vertx.java.core.AsyncResult;
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.Vertx;
+import org.vertx.java.core.VertxFactory;
+import org.vertx.java.core.eventbus.Message;
+import org.vertx.java.core.json.JsonObject;
+
+/**
+ * Watch dispatcher tests.
+ *
+ * @author Jordan Halterman
+ */
+public class WatchDispatcherTest {
+  private static Vertx vertx;
+
+  @BeforeClass
+  public static void setUp() {
+    vertx = VertxFactory.newVertx();
+  }
+
+  @AfterClass
+  public static void tearDown() {
+    vertx.stop();
+  }
+
+  /**
+   * Creates a handler that records events.
+   */
+  private static Handler<MapEvent<String, String>> recorder(final String name, final List<String> events, final CountDownLatch latch) {
+    return new Handler<MapEvent<String, String>>() {
+      @Override
+      public void handle(MapEvent<String, String> event) {
+        events.add(String.format("%s:%s:%s:%s", name, event.type(), event.key(), event.value()));
+        latch.countDown();
+      }
+    };
+  }
+
+  @Test
+  public void testDispatch() throws Exception {
+    final WatchDispatcher<String, String> watchers = new WatchDispatcher<String, String>("test-dispatch", vertx);
+    final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    final CountDownLatch eventLatch = new CountDownLatch(4);
+    final Handler<MapEvent<String, String>> all = recorder("all", events, eventLatch);
+    final Handler<MapEvent<String, String>> create = recorder("create", events, eventLatch);
+    final Handler<MapEvent<String, String>> other = recorder("other", events, eventLatch);
+
+    final CountDownLatch watchLatch = new CountDownLatch(1);
+    CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(3);
+    counter.setHandler(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        watchLatch.countDown();
+      }
+    });
+    watchers.watch("foo", null, all, counter);
+    watchers.watch("foo", MapEvent.Type.CREATE, create, counter);
+    watchers.watch("bar", MapEvent.Type.CHANGE, other, counter);
+    assertTrue(watchLatch.await(5, TimeUnit.SECONDS));
+    assertEquals(2, watchers.watching());
+
+    // A single published event is dispatched to every matching watcher.
+    watchers.publish(MapEvent.Type.CREATE, "foo", "bar");
+    watchers.publish(MapEvent.Type.DELETE, "bar", "baz");
+    assertTrue(eventLatch.await(5, TimeUnit.SECONDS));
+    assertEquals(4, events.size());
+
+    // Events for a key are ordered, but keys may be hashed into different channels.
+    assertTrue(events.remove("other:change:bar:baz"));
+    assertEquals("all:change:foo:bar", events.get(0));
+    assertEquals("all:create:foo:bar", events.get(1));
+    assertEquals("create:create:foo:bar", events.get(2));
+
+    watchers.unwatch("foo", null, all, null);
+    assertEquals(2, watchers.watching());
+    watchers.unwatch("foo", MapEvent.Type.CREATE, create, null);
+    watchers.unwatch("bar", MapEvent.Type.CHANGE, other, null);
+    assertEquals(0, watchers.watching());
+  }
+
+  @Test
+  public void testKeyIsolation() throws Exception {
+    final WatchDispatcher<String, String> watchers = new WatchDispatcher<String, String>("test-isolation", vertx);
+    final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+    final AtomicInteger messages = new AtomicInteger();
+    final CountDownLatch registerLatch = new CountDownLatch(2);
+    final Handler<AsyncResult<Void>> registered = new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        registerLatch.countDown();
+      }
+    };
+
+    // Count every message delivered to the address of the watched key.
+    vertx.eventBus().registerHandler(WatchDispatcher.address("test-isolation", "foo"), new Handler<Message<JsonObject>>() {
+      @Override
+      public void handle(Message<JsonObject> message) {
+        messages.incrementAndGet();
+      }
+    }, registered);
+    watchers.watch("foo", null, recorder("foo", events, new CountDownLatch(0)), registered);
+    assertTrue(registerLatch.await(5, TimeUnit.SECONDS));
+
+    // Find one key hashed into another channel and one sharing the watched key's channel.
+    String other = null;
+    String shared = null;
+    for (int i = 0; other == null || shared == null; i++) {
+      String key = "bar" + i;
+      if (WatchDispatcher.address("test-isolation", key).equals(WatchDispatcher.address("test-isolation", "foo"))) {
+        shared = key;
+      } else {
+        other = key;
+      }
+    }
+
+    for (int i = 0; i < 10; i++) {
+      watchers.publish(MapEvent.Type.UPDATE, other, String.valueOf(i));
+    }
+    Thread.sleep(100);
+    assertEquals(0, messages.get());
+    assertTrue(events.isEmpty());
+
+    // Unwatched keys in the same channel are delivered but not dispatched.
+    watchers.publish(MapEvent.Type.UPDATE, shared, "bar");
+    Thread.sleep(100);
+    assertEquals(1, messages.get());
+    assertTrue(events.isEmpty());
+
+    watchers.publish(MapEvent.Type.UPDATE, "foo", "bar");
+    Thread.sleep(100);
+    assertEquals(2, messages.get());
+    assertEquals(2, events.size());
+  }
+
+  @Test
+  public void testBoundedChannels() throws Exception {
+    final WatchDispatcher<String, String> watchers = new WatchDispatcher<String, String>("test-channels", vertx);
+    final Handler<MapEvent<String, String>> handler = recorder("key", new ArrayList<String>(), new CountDownLatch(0));
+    final CountDownLatch watchLatch = new CountDownLatch(1);
+    CountingCompletionHandler<Void> counter = new CountingCompletionHandler<Void>(1000);
+    counter.setHandler(new Handler<AsyncResult<Void>>() {
+      @Override
+      public void handle(AsyncResult<Void> result) {
+        assertTrue(result.succeeded());
+        watchLatch.countDown();
+      }
+    });
+    for (int i = 0; i < 1000; i++) {
+      watchers.watch("key" + i, null, handler, counter);
+    }
+    assertTrue(watchLatch.await(5, TimeUnit.SECONDS));
+    assertEquals(1000, watchers.watching());
+    assertEquals(WatchDispatcher.CHANNELS, watchers.channels());
+
+    for (int i = 0; i < 1000; i++) {
+      watchers.unwatch("key" + i, null, handler, null);
+    }
+    assertEquals(0, watchers.watching());
+    assertEquals(0, watchers.channels());
+  }
+
+}
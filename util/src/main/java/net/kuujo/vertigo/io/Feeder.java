@@ -15,12 +15,23 @@
  */
 package net.kuujo.vertigo.io;
 
+import net.kuujo.vertigo.util.TimerWheel;
+
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
 
 /**
  * Provides an interface for feeding outputs using a handler that will
- * be called whenever the given output is prepared to accept a single message.
+ * be called whenever the given output is prepared to accept a single message.<p>
+ *
+ * By default, the feeder checks whether the output's send queue is full and
+ * waits for the feed delay each time the output is full or the feed handler
+ * fails to produce a message. In adaptive mode, the feeder instead registers
+ * a drain handler on the output and resumes feeding as soon as the output
+ * drains. Adaptive feeders call the feed handler in bursts sized to the free
+ * space in the output's send queue, and each time the feed handler fails to
+ * produce a message the feed delay is doubled up to the maximum feed delay.
+ * Note that adaptive feeders replace any drain handler set on the output.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  *
@@ -28,32 +39,81 @@ import org.vertx.java.core.Vertx;
  */
 public class Feeder<T extends Output<T>> {
   private static final long DEFAULT_FEED_DELAY = 10L;
+  private static final long DEFAULT_MAX_FEED_DELAY = 1000L;
+  private static final int DEFAULT_MAX_BATCH_SIZE = 100;
   private final T output;
   private final Vertx vertx;
+  private final TimerWheel timers;
   private Handler<T> feedHandler;
   private boolean fed = true;
   private long feedDelay = DEFAULT_FEED_DELAY;
+  private long maxFeedDelay = DEFAULT_MAX_FEED_DELAY;
+  private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+  private boolean adaptive;
+  private long currentDelay = DEFAULT_FEED_DELAY;
   private long feedTimer;
+  private boolean scheduled;
+  private boolean running;
+  private long blockedSince;
+  private long feedCalls;
+  private long idleCycles;
+  private long blockedTime;
 
   private final Handler<Void> feedRunner = new Handler<Void>() {
     @Override
     public void handle(Void _) {
-      int before = output.size();
-      feedHandler.handle(output);
-      int after = output.size();
-      fed = after > before;
-      doFeed();
+      if (running) {
+        int before = output.size();
+        feedHandler.handle(output);
+        feedCalls++;
+        int after = output.size();
+        fed = after > before;
+        if (!fed) {
+          idleCycles++;
+        }
+        doFeed();
+      }
     }
   };
 
   private final Handler<Long> recursiveRunner = new Handler<Long>() {
     @Override
     public void handle(Long timerID) {
+      feedTimer = 0;
       fed = true;
       doFeed();
     }
   };
 
+  private final Handler<Void> burstRunner = new Handler<Void>() {
+    @Override
+    public void handle(Void _) {
+      scheduled = false;
+      doBurst();
+    }
+  };
+
+  private final Handler<Long> burstTimer = new Handler<Long>() {
+    @Override
+    public void handle(Long timerID) {
+      feedTimer = 0;
+      doBurst();
+    }
+  };
+
+  private final Handler<Void> drainHandler = new Handler<Void>() {
+    @Override
+    public void handle(Void _) {
+      // Resume feeding as soon as the output drains rather than waiting
+      // for the next poll.
+      if (running) {
+        cancelTimer();
+        currentDelay = feedDelay;
+        scheduleBurst();
+      }
+    }
+  };
+
   /**
    * Creates a new feeder.
    *
@@ -67,6 +127,7 @@ public class Feeder<T extends Output<T>> {
   public Feeder(T output) {
     this.output = output;
     this.vertx = output.vertx();
+    this.timers = TimerWheel.get(vertx);
   }
 
   /**
@@ -90,6 +151,7 @@ public class Feeder<T extends Output<T>> {
    */
   public Feeder<T> setFeedDelay(long feedDelay) {
     this.feedDelay = feedDelay;
+    this.currentDelay = feedDelay;
     return this;
   }
 
@@ -102,22 +164,200 @@ public class Feeder<T extends Output<T>> {
     return feedDelay;
   }
 
+  /**
+   * Sets the maximum period an adaptive feeder will wait before calling the
+   * feed handler again if the feed handler repeatedly produces no messages.
+   *
+   * @param maxFeedDelay The maximum feed delay in milliseconds.
+   * @return The feeder.
+   */
+  public Feeder<T> setMaxFeedDelay(long maxFeedDelay) {
+    this.maxFeedDelay = maxFeedDelay;
+    return this;
+  }
+
+  /**
+   * Returns the maximum period an adaptive feeder will wait after failed feed handler calls.
+   *
+   * @return The maximum feed delay. Defaults to <code>1000</code> milliseconds.
+   */
+  public long getMaxFeedDelay() {
+    return maxFeedDelay;
+  }
+
+  /**
+   * Sets the maximum number of times an adaptive feeder will call the feed
+   * handler in a single burst.
+   *
+   * @param maxBatchSize The maximum number of feed handler calls per burst.
+   * @return The feeder.
+   */
+  public Feeder<T> setMaxBatchSize(int maxBatchSize) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Max batch size must be a positive number.");
+    }
+    this.maxBatchSize = maxBatchSize;
+    return this;
+  }
+
+  /**
+   * Returns the maximum number of feed handler calls per burst.
+   *
+   * @return The maximum burst size. Defaults to <code>100</code>
+   */
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /**
+   * Sets whether the feeder is adaptive.
+   *
+   * @param adaptive Whether the feeder should be driven by the output's drain
+   *        handler and adapt its feed delay.
+   * @return The feeder.
+   */
+  public Feeder<T> setAdaptive(boolean adaptive) {
+    this.adaptive = adaptive;
+    return this;
+  }
+
+  /**
+   * Returns whether the feeder is adaptive.
+   *
+   * @return Indicates whether the feeder is adaptive. Defaults to <code>false</code>
+   */
+  public boolean isAdaptive() {
+    return adaptive;
+  }
+
+  /**
+   * Returns the number of times the feed handler has been called.
+   *
+   * @return The number of feed handler calls.
+   */
+  public long feedCalls() {
+    return feedCalls;
+  }
+
+  /**
+   * Returns the number of feed handler calls that produced no messages.
+   *
+   * @return The number of idle feed cycles.
+   */
+  public long idleCycles() {
+    return idleCycles;
+  }
+
+  /**
+   * Returns the total time the feeder has been blocked by a full output.
+   *
+   * @return The blocked time in milliseconds.
+   */
+  public long blockedTime() {
+    return blockedSince > 0 ? blockedTime + System.currentTimeMillis() - blockedSince : blockedTime;
+  }
+
   /**
    * Starts the feeder.
    */
   public void start() {
-    doFeed();
+    running = true;
+    if (adaptive) {
+      output.drainHandler(drainHandler);
+      scheduleBurst();
+    } else {
+      doFeed();
+    }
   }
 
   /**
    * Feeds the next message.
    */
   private void doFeed() {
+    if (!running) {
+      return;
+    }
     if (fed && !output.sendQueueFull()) {
       fed = false;
       vertx.runOnContext(feedRunner);
     } else {
-      feedTimer = vertx.setTimer(feedDelay, recursiveRunner);
+      feedTimer = timers.setTimer(feedDelay, recursiveRunner);
+    }
+  }
+
+  /**
+   * Schedules the next burst on the context.
+   */
+  private void scheduleBurst() {
+    if (!scheduled) {
+      scheduled = true;
+      vertx.runOnContext(burstRunner);
+    }
+  }
+
+  /**
+   * Feeds a burst of messages sized to the free space in the send queue.
+   */
+  private void doBurst() {
+    if (!running) {
+      return;
+    }
+
+    if (output.sendQueueFull()) {
+      // Wait for the output to drain. The timer only guards against drain
+      // events that are never triggered.
+      if (blockedSince == 0) {
+        blockedSince = System.currentTimeMillis();
+      }
+      feedTimer = timers.setTimer(maxFeedDelay, burstTimer);
+      return;
+    }
+
+    if (blockedSince > 0) {
+      blockedTime += System.currentTimeMillis() - blockedSince;
+      blockedSince = 0;
+    }
+
+    int burst = maxBatchSize;
+    int maxSize = output.getSendQueueMaxSize();
+    if (maxSize > 0) {
+      burst = Math.max(1, Math.min(burst, maxSize - output.size()));
+    }
+
+    boolean produced = false;
+    for (int i = 0; i < burst && running; i++) {
+      int before = output.size();
+      feedHandler.handle(output);
+      feedCalls++;
+      if (output.size() <= before) {
+        idleCycles++;
+        break;
+      }
+      produced = true;
+      if (output.sendQueueFull()) {
+        break;
+      }
+    }
+
+    if (!running) {
+      return;
+    }
+    if (produced) {
+      currentDelay = feedDelay;
+      scheduleBurst();
+    } else {
+      feedTimer = timers.setTimer(currentDelay, burstTimer);
+      currentDelay = Math.min(currentDelay * 2, Math.max(feedDelay, maxFeedDelay));
+    }
+  }
+
+  /**
+   * Cancels the current feed timer.
+   */
+  private void cancelTimer() {
+    if (feedTimer > 0) {
+      timers.cancelTimer(feedTimer);
+      feedTimer = 0;
     }
   }
 
@@ -125,8 +365,14 @@ public class Feeder<T extends Output<T>> {
    * Stops the feeder.
    */
   public void stop() {
-    if (feedTimer > 0) {
-      vertx.cancelTimer(feedTimer);
+    running = false;
+    cancelTimer();
+    if (adaptive) {
+      output.drainHandler(null);
+    }
+    if (blockedSince > 0) {
+      blockedTime += System.currentTimeMillis() - blockedSince;
+      blockedSince = 0;
     }
   }
 
@@ -100,6 +100,45 @@ public class IoUtilitiesTest extends TestVerticle {
     });
   }
 
+  public static class TestAdaptiveFeederSender extends ComponentVerticle {
+    @Override
+    public void start() {
+      Feeder<OutputPort> feeder = new Feeder<>(output.port("out"));
+      feeder.setAdaptive(true).setMaxBatchSize(10).feedHandler(new Handler<OutputPort>() {
+        @Override
+        public void handle(OutputPort port) {
+          port.send("Hello world!");
+        }
+      }).start();
+    }
+  }
+
+  @Test
+  public void testAdaptivePortFeeder() {
+    final Vertigo vertigo = new Vertigo(this);
+    vertigo.deployCluster(UUID.randomUUID().toString(), new Handler<AsyncResult<Cluster>>() {
+      @Override
+      public void handle(AsyncResult<Cluster> result) {
+        assertTrue(result.succeeded());
+        NetworkConfig network = vertigo.createNetwork("test");
+        network.addVerticle("sender", TestAdaptiveFeederSender.class.getName());
+        network.addVerticle("receiver", TestFeederReceiver.class.getName(), 4);
+        network.createConnection("sender", "out", "receiver", "in").setSelector(new RoundRobinSelector());
+        Cluster cluster = result.result();
+        cluster.deployNetwork(network, new Handler<AsyncResult<ActiveNetwork>>() {
+          @Override
+          public void handle(AsyncResult<ActiveNetwork> result) {
+            if (result.failed()) {
+              assertTrue(result.cause().getMessage(), result.succeeded());
+            } else {
+              assertTrue(result.succeeded());
+            }
+          }
+        });
+      }
+    });
+  }
+
   public static class TestFileSender extends ComponentVerticle {
     @Override
     public void start() {